@@ -0,0 +1,9 @@
+echo on
+cd .
+set PATH=.;.\tools\;.\capture\;
+cd .\capture\
+ffmpeg -y -i "JOGAMP_SCREENCAPTURE.y4m" -vcodec huffyuv "..\Jogamp_Capture_2D.avi"
+cd ..
+
+
+
@@ -0,0 +1,70 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Draws the scope and spectrum analyzer of BaseMusic_ScopeAndSpectrumAnalyzer from its raw
+ ** visualization data (band levels followed by scope samples, all 0..1) stored in a 1D texture.
+ ** Mirrors the Java2D rendering: white scope line, scanlined bars with the green-yellow-red
+ ** color scale on a black background (meant to be added to the framebuffer).
+ **
+ **/
+
+uniform sampler1D sampler0;
+uniform float bandcount;
+uniform float scopesamplecount;
+uniform vec2 resolution;
+
+float fetch(float index) {
+    return texture1D(sampler0, (index+0.5)/(bandcount+scopesamplecount)).r;
+}
+
+float scopey(float index) {
+    float value = (fetch(bandcount+clamp(index, 0.0, scopesamplecount-1.0))-0.5)*resolution.y;
+    return sign(value)*floor(abs(value))+floor(resolution.y*0.5);
+}
+
+vec3 colorscale(float index) {
+    if (index<128.0) {
+        return vec3(0.0, (floor(index*0.5)+192.0)/255.0, 0.0);
+    } else if (index<192.0) {
+        return vec3((index-128.0)*4.0/255.0, 1.0, 0.0);
+    }
+    return vec3(1.0, (255.0-(index-192.0)*4.0)/255.0, 0.0);
+}
+
+void main(void) {
+    //pixel position with y running top down like the Java2D image ...
+    vec2 pixel = floor(gl_TexCoord[0].st*resolution);
+    float y = resolution.y-1.0-pixel.y;
+    vec3 color = vec3(0.0);
+    //scope: column x is covered from halfway to the previous to halfway to the next sample ...
+    if (pixel.x<scopesamplecount) {
+        float scope0 = scopey(pixel.x-1.0);
+        float scope1 = scopey(pixel.x);
+        float scope2 = scopey(pixel.x+1.0);
+        float middle0 = (scope0+scope1)*0.5;
+        float middle1 = (scope1+scope2)*0.5;
+        if (y>=floor(min(scope1, min(middle0, middle1))+0.5) && y<=floor(max(scope1, max(middle0, middle1))+0.5)) {
+            color = vec3(1.0);
+        }
+    }
+    //spectrum: bars between 16 pixels of border, one pixel gap, every second scanline ...
+    float bandwidth = (resolution.x-32.0)/bandcount;
+    float band = floor((pixel.x-16.0)/bandwidth);
+    if (band>=0.0 && band<bandcount && pixel.x>=floor(16.0+band*bandwidth+0.5) && pixel.x<floor(16.0+(band+1.0)*bandwidth+0.5)-1.0) {
+        float barheight = floor(fetch(band)*(resolution.y-32.0));
+        float distance = resolution.y-16.0-y;
+        if (distance>=0.0 && distance<=barheight && mod(distance, 2.0)<0.5) {
+            float colorscalestep = 256.0/(resolution.y-32.0)*2.0;
+            color = colorscale(min(floor((floor(distance*0.5)+1.0)*colorscalestep), 255.0));
+        }
+    }
+    gl_FragColor = vec4(color, 1.0);
+}
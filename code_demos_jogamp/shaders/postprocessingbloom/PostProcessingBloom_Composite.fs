@@ -0,0 +1,31 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Bloom composite step: the source (sampler1) plus a 3x3 tent upsample of the first bloom level
+ ** (sampler0) scaled by the intensity.
+ **
+ **/
+
+uniform sampler2D sampler0;
+uniform sampler2D sampler1;
+uniform vec2 texel;
+uniform float intensity;
+
+void main(void) {
+    vec2 tc = gl_TexCoord[0].st;
+    vec4 tent = texture2D(sampler0, tc) * 4.0;
+    tent += (texture2D(sampler0, tc + vec2(-texel.x, 0.0)) + texture2D(sampler0, tc + vec2(texel.x, 0.0)) +
+             texture2D(sampler0, tc + vec2(0.0, -texel.y)) + texture2D(sampler0, tc + vec2(0.0, texel.y))) * 2.0;
+    tent += texture2D(sampler0, tc - texel) + texture2D(sampler0, tc + texel) +
+            texture2D(sampler0, tc + vec2(texel.x, -texel.y)) + texture2D(sampler0, tc + vec2(-texel.x, texel.y));
+    vec4 source = texture2D(sampler1, tc);
+    gl_FragColor = vec4(source.rgb + tent.rgb / 16.0 * intensity, source.a);
+}
@@ -0,0 +1,68 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Bloom downsample step: 13 bilinear fetches covering a 6x6 texel footprint of the source, as
+ ** five overlapping 4-tap boxes. The first level additionally applies the soft brightness
+ ** threshold and weights the boxes by their inverse luma (Karis average), which keeps single
+ ** bright pixels from flickering in and out of the bloom.
+ **
+ **/
+
+uniform sampler2D sampler0;
+uniform vec2 texel;
+uniform float prefilter;
+uniform float threshold;
+uniform float knee;
+
+vec4 fetch(vec2 offset) {
+    return texture2D(sampler0, gl_TexCoord[0].st + texel * offset);
+}
+
+float karis(vec4 color) {
+    float luma = dot(color.rgb, vec3(0.2126, 0.7152, 0.0722));
+    return 1.0 / (1.0 + luma);
+}
+
+void main(void) {
+    vec4 a = fetch(vec2(-2.0, -2.0));
+    vec4 b = fetch(vec2( 0.0, -2.0));
+    vec4 c = fetch(vec2( 2.0, -2.0));
+    vec4 d = fetch(vec2(-1.0, -1.0));
+    vec4 e = fetch(vec2( 1.0, -1.0));
+    vec4 f = fetch(vec2(-2.0,  0.0));
+    vec4 g = fetch(vec2( 0.0,  0.0));
+    vec4 h = fetch(vec2( 2.0,  0.0));
+    vec4 i = fetch(vec2(-1.0,  1.0));
+    vec4 j = fetch(vec2( 1.0,  1.0));
+    vec4 k = fetch(vec2(-2.0,  2.0));
+    vec4 l = fetch(vec2( 0.0,  2.0));
+    vec4 m = fetch(vec2( 2.0,  2.0));
+    vec4 box0 = (d + e + i + j) * 0.25;
+    vec4 box1 = (a + b + f + g) * 0.25;
+    vec4 box2 = (b + c + g + h) * 0.25;
+    vec4 box3 = (f + g + k + l) * 0.25;
+    vec4 box4 = (g + h + l + m) * 0.25;
+    vec4 w = vec4(0.125);
+    float w0 = 0.5;
+    if (prefilter > 0.5) {
+        w0 *= karis(box0);
+        w = w * vec4(karis(box1), karis(box2), karis(box3), karis(box4));
+    }
+    vec4 color = (box0 * w0 + box1 * w.x + box2 * w.y + box3 * w.z + box4 * w.w) / (w0 + w.x + w.y + w.z + w.w);
+    if (prefilter > 0.5) {
+        //quadratic soft knee below the threshold ...
+        float brightness = max(color.r, max(color.g, color.b));
+        float soft = clamp(brightness - threshold + knee, 0.0, 2.0 * knee);
+        soft = soft * soft / (4.0 * knee + 0.00001);
+        color.rgb *= max(soft, brightness - threshold) / max(brightness, 0.00001);
+    }
+    gl_FragColor = color;
+}
@@ -0,0 +1,29 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing the downsample step of a 'dual filter' blur: the center
+ ** and four diagonal half-pixel bilinear fetches of the source, rendered into a target of half
+ ** the size.
+ **
+ **/
+
+uniform sampler2D sampler0;
+uniform vec2 halfpixel;
+
+void main(void) {
+    vec2 tc = gl_TexCoord[0].st;
+    vec4 sum = texture2D(sampler0, tc) * 4.0;
+    sum += texture2D(sampler0, tc - halfpixel);
+    sum += texture2D(sampler0, tc + halfpixel);
+    sum += texture2D(sampler0, tc + vec2(halfpixel.x, -halfpixel.y));
+    sum += texture2D(sampler0, tc - vec2(halfpixel.x, -halfpixel.y));
+    gl_FragColor = sum / 8.0;
+}
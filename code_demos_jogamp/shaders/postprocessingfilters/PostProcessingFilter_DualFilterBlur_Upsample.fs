@@ -0,0 +1,31 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing the upsample step of a 'dual filter' blur: a tent of eight
+ ** bilinear fetches around the sample position, rendered into a target of twice the size.
+ **
+ **/
+
+uniform sampler2D sampler0;
+uniform vec2 halfpixel;
+
+void main(void) {
+    vec2 tc = gl_TexCoord[0].st;
+    vec4 sum = texture2D(sampler0, tc + vec2(-halfpixel.x * 2.0, 0.0));
+    sum += texture2D(sampler0, tc + vec2(-halfpixel.x, halfpixel.y)) * 2.0;
+    sum += texture2D(sampler0, tc + vec2(0.0, halfpixel.y * 2.0));
+    sum += texture2D(sampler0, tc + vec2(halfpixel.x, halfpixel.y)) * 2.0;
+    sum += texture2D(sampler0, tc + vec2(halfpixel.x * 2.0, 0.0));
+    sum += texture2D(sampler0, tc + vec2(halfpixel.x, -halfpixel.y)) * 2.0;
+    sum += texture2D(sampler0, tc + vec2(0.0, -halfpixel.y * 2.0));
+    sum += texture2D(sampler0, tc + vec2(-halfpixel.x, -halfpixel.y)) * 2.0;
+    gl_FragColor = sum / 12.0;
+}
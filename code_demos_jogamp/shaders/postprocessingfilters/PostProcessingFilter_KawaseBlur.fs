@@ -0,0 +1,27 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing one pass of a Kawase blur: four bilinear fetches on the
+ ** diagonals at distance+0.5 texels, each averaging four texels. A few passes with growing
+ ** distances approximate a wide gaussian.
+ **
+ **/
+
+uniform sampler2D sampler0;
+uniform vec2 texel_offset;
+
+void main(void) {
+    vec2 tc = gl_TexCoord[0].st;
+    gl_FragColor = (texture2D(sampler0, tc + texel_offset) +
+                    texture2D(sampler0, tc - texel_offset) +
+                    texture2D(sampler0, tc + vec2(texel_offset.x, -texel_offset.y)) +
+                    texture2D(sampler0, tc - vec2(texel_offset.x, -texel_offset.y))) * 0.25;
+}
@@ -0,0 +1,32 @@
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing one direction of a separable linear blur. Neighbouring kernel
+ ** taps are merged into one bilinear fetch between both texels, so a kernel of radius r costs
+ ** 1+2*ceil(r/2) texture fetches per pass. Weights and offsets (in texels) come from the filter.
+ **
+ **/
+
+uniform sampler2D sampler0;
+uniform vec2 texel_direction;
+uniform int taps;
+uniform float weights[33];
+uniform float offsets[33];
+
+void main(void) {
+    vec2 tc = gl_TexCoord[0].st;
+    vec4 color = texture2D(sampler0, tc) * weights[0];
+    for (int i = 1; i < taps; i++) {
+        vec2 offset = texel_direction * offsets[i];
+        color += (texture2D(sampler0, tc + offset) + texture2D(sampler0, tc - offset)) * weights[i];
+    }
+    gl_FragColor = color;
+}
@@ -0,0 +1,64 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** An asset managed by the BaseAssetPipeline. decode() runs on a worker thread and should do all
+ ** the heavy lifting without touching GL (file reads, zip inflation, image decoding, parsing ...),
+ ** upload() is called afterwards on the GL thread and turns the decoded data into the final result
+ ** (texture, buffer object, ...).
+ **
+ **/
+
+import javax.media.opengl.*;
+
+public abstract class BaseAsset<T> {
+
+    private final String mName;
+    private volatile T mResult;
+    private volatile Throwable mDecodingError;
+    private volatile boolean mReady;
+
+    public BaseAsset(String inName) {
+        mName = inName;
+    }
+
+    protected abstract void decode() throws Exception;
+    protected abstract T upload(GL2 inGL);
+
+    void performDecode() {
+        try {
+            decode();
+        } catch (Throwable e) {
+            mDecodingError = e;
+        }
+    }
+
+    void performUpload(GL2 inGL) {
+        if (mDecodingError!=null) {
+            BaseLogging.getInstance().error("DECODING ASSET "+mName+" FAILED!");
+            BaseLogging.getInstance().fatalerror(mDecodingError);
+        }
+        mResult = upload(inGL);
+        mReady = true;
+    }
+
+    public String getName()     { return mName; }
+    public boolean isReady()    { return mReady; }
+
+    public T get() {
+        if (!mReady) {
+            BaseLogging.getInstance().fatalerror("ASSET "+mName+" ACCESSED BEFORE IT WAS LOADED!");
+        }
+        return mResult;
+    }
+
+}
@@ -0,0 +1,120 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Background asset loading. Routines declare their assets up front in declareAssets(), decoding
+ ** then starts at once on a pool of worker threads. Decoded assets are handed to the GL thread
+ ** through a bounded queue (workers block while it is full, so at most a few decoded assets wait
+ ** in memory) and uploaded by processUploads() within a per frame time budget. While loading the
+ ** runtime keeps rendering a progress bar instead of freezing with a black screen.
+ **
+ **/
+
+import java.util.*;
+import java.util.concurrent.*;
+import javax.media.opengl.*;
+
+public class BaseAssetPipeline {
+
+    public static final long cDEFAULT_UPLOAD_BUDGET_NANOSECONDS = 8000000L;
+    private static final int cUploadQueueCapacity = 4;
+    private static BaseAssetPipeline mBaseAssetPipelineInstance = null;
+    private ExecutorService mExecutorService;
+    private final BlockingQueue<BaseAsset<?>> mUploadQueue = new ArrayBlockingQueue<BaseAsset<?>>(cUploadQueueCapacity);
+    private final ArrayList<BaseAsset<?>> mAssets = new ArrayList<BaseAsset<?>>();
+    private int mUploadedAssets;
+    private long mLoadingTimeStart;
+
+    private BaseAssetPipeline() {
+        //Zzzz ... :>
+    }
+
+    public static synchronized BaseAssetPipeline getInstance() {
+        if (mBaseAssetPipelineInstance==null) {
+            mBaseAssetPipelineInstance = new BaseAssetPipeline();
+        }
+        return mBaseAssetPipelineInstance;
+    }
+
+    private synchronized ExecutorService getExecutorService() {
+        if (mExecutorService==null) {
+            int tThreads = Math.max(1, Runtime.getRuntime().availableProcessors()-1);
+            BaseLogging.getInstance().info("CREATING ASSET PIPELINE WITH "+tThreads+" WORKER THREADS ...");
+            mExecutorService = Executors.newFixedThreadPool(tThreads, new ThreadFactory() {
+                private int mThreadCounter;
+                public Thread newThread(Runnable inRunnable) {
+                    Thread tThread = new Thread(inRunnable, "BaseAssetPipeline-Worker-"+(mThreadCounter++));
+                    tThread.setDaemon(true);
+                    //keep the GL/render thread responsive ...
+                    tThread.setPriority(Thread.NORM_PRIORITY-1);
+                    return tThread;
+                }
+            });
+            mLoadingTimeStart = System.nanoTime();
+        }
+        return mExecutorService;
+    }
+
+    public synchronized <T extends BaseAsset<?>> T request(final T inAsset) {
+        BaseLogging.getInstance().info("REQUESTING ASSET "+inAsset.getName());
+        mAssets.add(inAsset);
+        getExecutorService().execute(new Runnable() {
+            public void run() {
+                inAsset.performDecode();
+                try {
+                    mUploadQueue.put(inAsset);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        return inAsset;
+    }
+
+    public boolean processUploads(GL2 inGL) {
+        return processUploads(inGL,cDEFAULT_UPLOAD_BUDGET_NANOSECONDS);
+    }
+
+    public boolean processUploads(GL2 inGL,long inBudgetNanoseconds) {
+        long tStart = System.nanoTime();
+        //always upload at least one asset per call, a single upload can not be split anyway ...
+        BaseAsset<?> tAsset;
+        while ((tAsset = mUploadQueue.poll())!=null) {
+            long tUploadStart = System.nanoTime();
+            tAsset.performUpload(inGL);
+            synchronized (this) {
+                mUploadedAssets++;
+            }
+            BaseLogging.getInstance().info("UPLOADED ASSET "+tAsset.getName()+" IN "+((System.nanoTime()-tUploadStart)/1000000)+"MS");
+            if (System.nanoTime()-tStart>=inBudgetNanoseconds) {
+                break;
+            }
+        }
+        boolean tComplete = isComplete();
+        if (tComplete && mExecutorService!=null) {
+            BaseLogging.getInstance().info("ALL "+getAssetCount()+" ASSETS LOADED IN "+((System.nanoTime()-mLoadingTimeStart)/1000000)+"MS ...");
+            mExecutorService.shutdown();
+            mExecutorService = null;
+        }
+        return tComplete;
+    }
+
+    public synchronized boolean hasAssets()     { return !mAssets.isEmpty(); }
+    public synchronized int getAssetCount()     { return mAssets.size(); }
+    public synchronized int getUploadedAssets() { return mUploadedAssets; }
+    public synchronized boolean isComplete()    { return mUploadedAssets==mAssets.size(); }
+
+    public synchronized float getProgress() {
+        return mAssets.isEmpty() ? 1.0f : (float)mUploadedAssets/(float)mAssets.size();
+    }
+
+}
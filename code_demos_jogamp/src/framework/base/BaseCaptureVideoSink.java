@@ -0,0 +1,306 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Writes captured frames into one single raw RGB24 or YUV4MPEG2 (4:2:0, full range) stream
+ ** instead of one BMP per frame. Every frame has a fixed size, so its position in the file follows
+ ** from its frame number and the encoder threads write concurrently with positional FileChannel
+ ** writes, no matter in which order they finish. The file is grown in big preallocated steps and
+ ** trimmed to the last written frame on close(), slots of frames that never arrived are filled
+ ** with the preceding frame so the stream stays readable. The colour conversion of each frame runs in
+ ** parallel across row bands. The result can be fed directly into ffmpeg/x264:
+ **   ffmpeg -i JOGAMP_SCREENCAPTURE.y4m ...
+ **   ffmpeg -f rawvideo -pix_fmt rgb24 -s WxH -r 60 -i JOGAMP_SCREENCAPTURE.rgb ...
+ **
+ **/
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import framework.util.*;
+
+public class BaseCaptureVideoSink {
+
+    private static final int cPreallocationFrames = 64;
+    private static final int cMinimumRowsPerBand = 16;
+    private static final int cBandsPerThread = 4;
+    private static final byte[] cY4MFrameHeader = {'F','R','A','M','E','\n'};
+
+    private final String mFileName;
+    private final int mFormat;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mFirstFrameNumber;
+    private final int mHeaderSize;
+    private final int mFrameSize;
+    private final RandomAccessFile mRandomAccessFile;
+    private final FileChannel mFileChannel;
+    private long mPreallocatedSize;
+    private long mWrittenSize;
+    private int mWrittenFrames;
+    private final BitSet mWrittenFrameSlots = new BitSet();
+    private final ThreadLocal<byte[]> mFrameBuffers = new ThreadLocal<byte[]>() {
+        protected byte[] initialValue() {
+            return new byte[mFrameSize];
+        }
+    };
+
+    public BaseCaptureVideoSink(String inFileName,int inFormat,int inWidth,int inHeight,int inFrameRate,int inFirstFrameNumber) throws IOException {
+        mFileName = inFileName;
+        mFormat = inFormat;
+        mWidth = inWidth;
+        mHeight = inHeight;
+        mFirstFrameNumber = inFirstFrameNumber;
+        byte[] tHeader;
+        if (mFormat==BaseLogging.cCAPTUREOUTPUTFORMAT_Y4M) {
+            tHeader = ("YUV4MPEG2 W"+mWidth+" H"+mHeight+" F"+inFrameRate+":1 Ip A1:1 C420jpeg\n").getBytes("US-ASCII");
+            mFrameSize = cY4MFrameHeader.length+getYUV420Size(mWidth,mHeight);
+        } else {
+            tHeader = new byte[0];
+            mFrameSize = mWidth*mHeight*3;
+        }
+        mHeaderSize = tHeader.length;
+        BaseLogging.getInstance().info("OPENING CAPTURE VIDEO STREAM "+mFileName+" "+mWidth+"x"+mHeight+" FRAMESIZE="+mFrameSize);
+        mRandomAccessFile = new RandomAccessFile(mFileName,"rw");
+        mFileChannel = mRandomAccessFile.getChannel();
+        write(ByteBuffer.wrap(tHeader),0);
+        mWrittenSize = mHeaderSize;
+    }
+
+    public int getWidth()   { return mWidth; }
+    public int getHeight()  { return mHeight; }
+
+    public void writeFrame(int[] inPixels,int inFrameNumber) throws IOException {
+        long tFrameIndex = inFrameNumber-mFirstFrameNumber;
+        if (tFrameIndex<0) {
+            BaseLogging.getInstance().warning("FRAME NUMBER "+inFrameNumber+" LIES BEFORE THE START OF CAPTURE VIDEO STREAM "+mFileName+" ... SKIPPING!");
+            return;
+        }
+        byte[] tFrame = mFrameBuffers.get();
+        if (mFormat==BaseLogging.cCAPTUREOUTPUTFORMAT_Y4M) {
+            System.arraycopy(cY4MFrameHeader, 0, tFrame, 0, cY4MFrameHeader.length);
+            convertARGBToYUV420(inPixels,mWidth,mHeight,tFrame,cY4MFrameHeader.length);
+        } else {
+            convertARGBToRGB24(inPixels,mWidth,mHeight,tFrame,0);
+        }
+        long tPosition = getFramePosition((int)tFrameIndex);
+        preallocate((int)tFrameIndex);
+        write(ByteBuffer.wrap(tFrame),tPosition);
+    }
+
+    private long getFramePosition(int inFrameIndex) {
+        return mHeaderSize+(long)inFrameIndex*mFrameSize;
+    }
+
+    private void write(ByteBuffer inByteBuffer,long inPosition) throws IOException {
+        //positional writes don't touch the channel position, several threads may write at once ...
+        while (inByteBuffer.hasRemaining()) {
+            inPosition += mFileChannel.write(inByteBuffer,inPosition);
+        }
+    }
+
+    private synchronized void preallocate(int inFrameIndex) throws IOException {
+        long tEnd = getFramePosition(inFrameIndex)+mFrameSize;
+        mWrittenFrames++;
+        mWrittenFrameSlots.set(inFrameIndex);
+        mWrittenSize = Math.max(mWrittenSize, tEnd);
+        if (tEnd>mPreallocatedSize) {
+            //grow in big steps, keeps the file in few extents and saves metadata updates ...
+            mPreallocatedSize = tEnd+(long)cPreallocationFrames*mFrameSize;
+            mRandomAccessFile.setLength(mPreallocatedSize);
+        }
+    }
+
+    //a skipped or dropped frame would leave a zero-filled hole without FRAME header, repeat the preceding one instead ...
+    private void fillMissingFrames() throws IOException {
+        int tFrameSlots = (int)((mWrittenSize-mHeaderSize)/mFrameSize);
+        if (mWrittenFrameSlots.cardinality()==tFrameSlots) {
+            return;
+        }
+        ByteBuffer tFrame = ByteBuffer.allocate(mFrameSize);
+        int tSourceSlot = mWrittenFrameSlots.nextSetBit(0);
+        int tLoadedSlot = -1;
+        int tRepeatedFrames = 0;
+        for (int i=0; i<tFrameSlots; i++) {
+            if (mWrittenFrameSlots.get(i)) {
+                tSourceSlot = i;
+                continue;
+            }
+            if (tLoadedSlot!=tSourceSlot) {
+                tFrame.clear();
+                long tPosition = getFramePosition(tSourceSlot);
+                while (tFrame.hasRemaining() && mFileChannel.read(tFrame,tPosition+tFrame.position())>=0) {}
+                tLoadedSlot = tSourceSlot;
+            }
+            tFrame.rewind();
+            write(tFrame,getFramePosition(i));
+            tRepeatedFrames++;
+        }
+        BaseLogging.getInstance().warning("CAPTURE VIDEO STREAM "+mFileName+" MISSED "+tRepeatedFrames+" FRAMES ... REPEATED THE PRECEDING ONES!");
+    }
+
+    public synchronized void close() throws IOException {
+        if (mWrittenFrames>0) {
+            fillMissingFrames();
+        }
+        mRandomAccessFile.setLength(mWrittenSize);
+        mFileChannel.close();
+        mRandomAccessFile.close();
+        BaseLogging.getInstance().info("CLOSED CAPTURE VIDEO STREAM "+mFileName+" ... "+mWrittenFrames+" FRAMES, "+mWrittenSize+" BYTES");
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    public static int getYUV420Size(int inWidth,int inHeight) {
+        return inWidth*inHeight+2*((inWidth+1)/2)*((inHeight+1)/2);
+    }
+
+    private static int getRowsPerBand(int inRows) {
+        return Math.max(cMinimumRowsPerBand, inRows/(ParallelUtils.getForkJoinPool().getParallelism()*cBandsPerThread));
+    }
+
+    public static void convertARGBToYUV420(int[] inPixels,int inWidth,int inHeight,byte[] outFrame,int inOffset) {
+        //bands are made of row pairs, so each band owns its chroma rows ...
+        int tRowPairs = (inHeight+1)/2;
+        ParallelUtils.getForkJoinPool().invoke(new YUV420Band(inPixels,inWidth,inHeight,outFrame,inOffset,0,tRowPairs,getRowsPerBand(tRowPairs)));
+    }
+
+    public static void convertARGBToRGB24(int[] inPixels,int inWidth,int inHeight,byte[] outFrame,int inOffset) {
+        ParallelUtils.getForkJoinPool().invoke(new RGB24Band(inPixels,inWidth,outFrame,inOffset,0,inHeight,getRowsPerBand(inHeight)));
+    }
+
+    @SuppressWarnings("serial")
+    private static abstract class RowBand extends RecursiveAction {
+
+        protected final int mFrom;
+        protected final int mTo;
+        protected final int mGrain;
+
+        public RowBand(int inFrom,int inTo,int inGrain) {
+            mFrom = inFrom;
+            mTo = inTo;
+            mGrain = inGrain;
+        }
+
+        protected void compute() {
+            if (mTo-mFrom<=mGrain) {
+                convertRows();
+            } else {
+                int tMiddle = (mFrom+mTo)>>>1;
+                invokeAll(createBand(mFrom,tMiddle), createBand(tMiddle,mTo));
+            }
+        }
+
+        protected abstract RowBand createBand(int inFrom,int inTo);
+        protected abstract void convertRows();
+
+    }
+
+    @SuppressWarnings("serial")
+    private static class YUV420Band extends RowBand {
+
+        private final int[] mPixels;
+        private final int mWidth;
+        private final int mHeight;
+        private final byte[] mFrame;
+        private final int mOffset;
+
+        public YUV420Band(int[] inPixels,int inWidth,int inHeight,byte[] inFrame,int inOffset,int inFrom,int inTo,int inGrain) {
+            super(inFrom,inTo,inGrain);
+            mPixels = inPixels;
+            mWidth = inWidth;
+            mHeight = inHeight;
+            mFrame = inFrame;
+            mOffset = inOffset;
+        }
+
+        protected RowBand createBand(int inFrom,int inTo) {
+            return new YUV420Band(mPixels,mWidth,mHeight,mFrame,mOffset,inFrom,inTo,mGrain);
+        }
+
+        protected void convertRows() {
+            int tChromaWidth = (mWidth+1)/2;
+            int tChromaHeight = (mHeight+1)/2;
+            int tCbOffset = mOffset+mWidth*mHeight;
+            int tCrOffset = tCbOffset+tChromaWidth*tChromaHeight;
+            for (int tRowPair=mFrom; tRowPair<mTo; tRowPair++) {
+                int tRow0 = tRowPair*2;
+                int tRow1 = Math.min(tRow0+1, mHeight-1);
+                //full range BT.601 (JFIF) in 16.16 fixed point ...
+                for (int tRow=tRow0; tRow<=tRow1; tRow++) {
+                    int tSource = tRow*mWidth;
+                    int tTarget = mOffset+tRow*mWidth;
+                    for (int x=0; x<mWidth; x++) {
+                        int tPixel = mPixels[tSource+x];
+                        int r = (tPixel>>16)&0xFF;
+                        int g = (tPixel>>8)&0xFF;
+                        int b = tPixel&0xFF;
+                        mFrame[tTarget+x] = (byte)((19595*r+38470*g+7471*b+32768)>>16);
+                    }
+                }
+                //chroma from the average of each 2x2 block, edge pixels are repeated for odd sizes ...
+                int tSource0 = tRow0*mWidth;
+                int tSource1 = tRow1*mWidth;
+                int tTarget = tRowPair*tChromaWidth;
+                for (int tChromaX=0; tChromaX<tChromaWidth; tChromaX++) {
+                    int x0 = tChromaX*2;
+                    int x1 = Math.min(x0+1, mWidth-1);
+                    int p0 = mPixels[tSource0+x0];
+                    int p1 = mPixels[tSource0+x1];
+                    int p2 = mPixels[tSource1+x0];
+                    int p3 = mPixels[tSource1+x1];
+                    int r = (((p0>>16)&0xFF)+((p1>>16)&0xFF)+((p2>>16)&0xFF)+((p3>>16)&0xFF)+2)>>2;
+                    int g = (((p0>>8)&0xFF)+((p1>>8)&0xFF)+((p2>>8)&0xFF)+((p3>>8)&0xFF)+2)>>2;
+                    int b = ((p0&0xFF)+(p1&0xFF)+(p2&0xFF)+(p3&0xFF)+2)>>2;
+                    mFrame[tCbOffset+tTarget+tChromaX] = (byte)Math.min(255, (-11058*r-21710*g+32768*b+8421376)>>16);
+                    mFrame[tCrOffset+tTarget+tChromaX] = (byte)Math.min(255, (32768*r-27439*g-5329*b+8421376)>>16);
+                }
+            }
+        }
+
+    }
+
+    @SuppressWarnings("serial")
+    private static class RGB24Band extends RowBand {
+
+        private final int[] mPixels;
+        private final int mWidth;
+        private final byte[] mFrame;
+        private final int mOffset;
+
+        public RGB24Band(int[] inPixels,int inWidth,byte[] inFrame,int inOffset,int inFrom,int inTo,int inGrain) {
+            super(inFrom,inTo,inGrain);
+            mPixels = inPixels;
+            mWidth = inWidth;
+            mFrame = inFrame;
+            mOffset = inOffset;
+        }
+
+        protected RowBand createBand(int inFrom,int inTo) {
+            return new RGB24Band(mPixels,mWidth,mFrame,mOffset,inFrom,inTo,mGrain);
+        }
+
+        protected void convertRows() {
+            int tTarget = mOffset+mFrom*mWidth*3;
+            for (int i=mFrom*mWidth; i<mTo*mWidth; i++) {
+                int tPixel = mPixels[i];
+                mFrame[tTarget++] = (byte)(tPixel>>16);
+                mFrame[tTarget++] = (byte)(tPixel>>8);
+                mFrame[tTarget++] = (byte)tPixel;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Text overlay for the runtime debug information. Every line is a reused StringBuilder, numbers
+ ** are appended digit by digit instead of going through DecimalFormat, and lines that never change
+ ** (GL strings, routine name, ...) are set up once. All lines are drawn in a single TextRenderer
+ ** pass: one beginRendering()/endRendering() pair and glyphs from the renderer's glyph cache.
+ **
+ **/
+
+import java.awt.*;
+import com.jogamp.opengl.util.awt.*;
+
+public class BaseDebugOverlay {
+
+    private static final int cLineHeight = 11;
+    private static final long[] cPowersOfTen = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L};
+
+    private final TextRenderer mTextRenderer;
+    private final StringBuilder[] mLines;
+
+    public BaseDebugOverlay(int inLineCount) {
+        Font tFont = new Font("SansSerif", Font.PLAIN, 12);
+        mTextRenderer = new TextRenderer(tFont, false, false);
+        mLines = new StringBuilder[inLineCount];
+        for (int i=0; i<inLineCount; i++) {
+            mLines[i] = new StringBuilder(256);
+        }
+    }
+
+    public void setLine(int inLine,String inText) {
+        mLines[inLine].setLength(0);
+        mLines[inLine].append(inText);
+    }
+
+    //returns the emptied line for appending ...
+    public StringBuilder beginLine(int inLine) {
+        mLines[inLine].setLength(0);
+        return mLines[inLine];
+    }
+
+    public void render(int inScreenWidth,int inScreenHeight) {
+        mTextRenderer.beginRendering(inScreenWidth, inScreenHeight);
+        mTextRenderer.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+        for (int i=0; i<mLines.length; i++) {
+            if (mLines[i].length()>0) {
+                mTextRenderer.draw(mLines[i], 0, inScreenHeight-cLineHeight*(i+1));
+            }
+        }
+        mTextRenderer.endRendering();
+    }
+
+    public void cleanup() {
+        mTextRenderer.dispose();
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    //same output as DecimalFormat("###,###,###") without creating any objects ...
+    public static StringBuilder appendGrouped(StringBuilder inStringBuilder,long inValue) {
+        if (inValue<0) {
+            inStringBuilder.append('-');
+            if (inValue==Long.MIN_VALUE) {
+                return inStringBuilder.append("9,223,372,036,854,775,808");
+            }
+            inValue = -inValue;
+        }
+        long tDivisor = 1;
+        int tDigits = 1;
+        while (tDigits<19 && inValue/tDivisor>=10) {
+            tDivisor *= 10;
+            tDigits++;
+        }
+        for (; tDigits>0; tDigits--) {
+            inStringBuilder.append((char)('0'+(inValue/tDivisor)%10));
+            if (tDigits>1 && (tDigits-1)%3==0) {
+                inStringBuilder.append(',');
+            }
+            tDivisor /= 10;
+        }
+        return inStringBuilder;
+    }
+
+    //like DecimalFormat("###,###.###") with up to inMaximumDecimals (0..6) rounded decimals, trailing zeros dropped ...
+    public static StringBuilder appendDecimal(StringBuilder inStringBuilder,double inValue,int inMaximumDecimals) {
+        if (Double.isNaN(inValue) || Double.isInfinite(inValue)) {
+            return inStringBuilder.append(inValue);
+        }
+        long tScale = cPowersOfTen[inMaximumDecimals];
+        long tScaled = Math.round(Math.abs(inValue)*tScale);
+        if (inValue<0 && tScaled!=0) {
+            inStringBuilder.append('-');
+        }
+        appendGrouped(inStringBuilder, tScaled/tScale);
+        long tFraction = tScaled%tScale;
+        if (tFraction!=0) {
+            inStringBuilder.append('.');
+            for (long tDivisor=tScale/10; tFraction!=0; tDivisor/=10) {
+                inStringBuilder.append((char)('0'+tFraction/tDivisor));
+                tFraction %= tDivisor;
+            }
+        }
+        return inStringBuilder;
+    }
+
+}
@@ -31,18 +31,58 @@ public class BaseFrameBufferObjectRendererExecutor {
     private int mDepthTextureID;
     private int mTextureWidth;
     private int mTextureHeight;
+    private int mColorInternalFormat;
+    private boolean mWithDepth;
     private BaseFrameBufferObjectRendererInterface mBaseFrameBufferObjectRendererInterface;
+    private int mProfilerScope;
 
     public BaseFrameBufferObjectRendererExecutor(int inTextureWidth,int inTextureHeight,BaseFrameBufferObjectRendererInterface inBaseFrameBufferObjectRendererInterface) {
+        this(inTextureWidth,inTextureHeight,GL_RGBA8,true,inBaseFrameBufferObjectRendererInterface);
+    }
+
+    //postprocessing passes don't need a depth attachment, HDR content wants GL_RGBA16F ...
+    public BaseFrameBufferObjectRendererExecutor(int inTextureWidth,int inTextureHeight,int inColorInternalFormat,boolean inWithDepth,BaseFrameBufferObjectRendererInterface inBaseFrameBufferObjectRendererInterface) {
         mTextureWidth = inTextureWidth;
         mTextureHeight = inTextureHeight;
+        mColorInternalFormat = inColorInternalFormat;
+        mWithDepth = inWithDepth;
         mBaseFrameBufferObjectRendererInterface = inBaseFrameBufferObjectRendererInterface;
+        //executors with the same renderer class and size share one profiler scope ...
+        String tRendererName = (inBaseFrameBufferObjectRendererInterface==null) ? "NULL" : inBaseFrameBufferObjectRendererInterface.getClass().getName();
+        mProfilerScope = BaseProfiler.getInstance().registerScope("FBO "+tRendererName.substring(tRendererName.lastIndexOf('.')+1)+" "+mTextureWidth+"x"+mTextureHeight);
     }
 
+    public int getFrameBufferObjectID() { return mFrameBufferObjectID; }
     public int getColorTextureID() { return mColorTextureID; }
     public int getDepthTextureID() { return mDepthTextureID; }
     public int getWidth() { return mTextureWidth; }
     public int getHeight() { return mTextureHeight; }
+    public int getColorInternalFormat() { return mColorInternalFormat; }
+    public boolean hasDepth() { return mWithDepth; }
+
+    //approximate size of the attachments in bytes ...
+    public long getVideoMemorySize() {
+        long tPixels = (long)mTextureWidth*(long)mTextureHeight;
+        return tPixels*getBytesPerPixel(mColorInternalFormat)+(mWithDepth ? tPixels*4 : 0);
+    }
+
+    public static int getBytesPerPixel(int inColorInternalFormat) {
+        switch (inColorInternalFormat) {
+            case GL_RGBA16F:
+            case GL_RGBA16:
+                return 8;
+            case GL_RGBA32F:
+                return 16;
+            case GL_R8:
+                return 1;
+            case GL_RG8:
+            case GL_R16F:
+                return 2;
+            default:
+                //RGB formats are padded to 4 bytes by most drivers ...
+                return 4;
+        }
+    }
 
     public void init(GL2 inGL,GLU inGLU,GLUT inGLUT) {
         BaseLogging.getInstance().info("INITIALIZING BaseFrameBufferObjectRendererExecutor ... "+mTextureWidth+"x"+mTextureHeight);
@@ -59,19 +99,23 @@ public class BaseFrameBufferObjectRendererExecutor {
         inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MAG_FILTER,GL_NEAREST);
         inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_S,GL_CLAMP_TO_EDGE);
         inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_T,GL_CLAMP_TO_EDGE);
-        inGL.glTexImage2D(GL_TEXTURE_2D,0,GL_RGBA8,mTextureWidth,mTextureHeight,0,GL_RGBA,GL_UNSIGNED_BYTE,null);
-        //allocate the depth texture ...
-        inGL.glGenTextures(1, result, 0);
-        mDepthTextureID = result[0];
-        inGL.glBindTexture(GL_TEXTURE_2D, mDepthTextureID);
-        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MIN_FILTER,GL_NEAREST);
-        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MAG_FILTER,GL_NEAREST);
-        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_S,GL_CLAMP_TO_EDGE);
-        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_T,GL_CLAMP_TO_EDGE);
-        inGL.glTexImage2D(GL_TEXTURE_2D,0,GL_DEPTH_COMPONENT32,mTextureWidth,mTextureHeight,0,GL_DEPTH_COMPONENT,GL_UNSIGNED_INT,null);
+        inGL.glTexImage2D(GL_TEXTURE_2D,0,mColorInternalFormat,mTextureWidth,mTextureHeight,0,GL_RGBA,GL_UNSIGNED_BYTE,null);
+        if (mWithDepth) {
+            //allocate the depth texture ...
+            inGL.glGenTextures(1, result, 0);
+            mDepthTextureID = result[0];
+            inGL.glBindTexture(GL_TEXTURE_2D, mDepthTextureID);
+            inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MIN_FILTER,GL_NEAREST);
+            inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MAG_FILTER,GL_NEAREST);
+            inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_S,GL_CLAMP_TO_EDGE);
+            inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_T,GL_CLAMP_TO_EDGE);
+            inGL.glTexImage2D(GL_TEXTURE_2D,0,GL_DEPTH_COMPONENT32,mTextureWidth,mTextureHeight,0,GL_DEPTH_COMPONENT,GL_UNSIGNED_INT,null);
+        }
         //attach the textures to the framebuffer
         inGL.glFramebufferTexture2D(GL_FRAMEBUFFER,GL_COLOR_ATTACHMENT0,GL_TEXTURE_2D,mColorTextureID,0);
-        inGL.glFramebufferTexture2D(GL_FRAMEBUFFER,GL_DEPTH_ATTACHMENT,GL_TEXTURE_2D,mDepthTextureID,0);
+        if (mWithDepth) {
+            inGL.glFramebufferTexture2D(GL_FRAMEBUFFER,GL_DEPTH_ATTACHMENT,GL_TEXTURE_2D,mDepthTextureID,0);
+        }
         inGL.glBindFramebuffer(GL_FRAMEBUFFER, 0);
         //check if fbo is set up correctly ...
         checkFrameBufferObjectCompleteness(inGL);
@@ -84,6 +128,7 @@ public class BaseFrameBufferObjectRendererExecutor {
     }
 
     public void renderToFrameBuffer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        BaseProfiler.getInstance().beginScope(inGL,mProfilerScope);
         inGL.glPushAttrib(GL_TRANSFORM_BIT | GL_ENABLE_BIT | GL_COLOR_BUFFER_BIT);
             //bind the framebuffer ...
             inGL.glBindFramebuffer(GL_FRAMEBUFFER, mFrameBufferObjectID);
@@ -98,6 +143,7 @@ public class BaseFrameBufferObjectRendererExecutor {
             //unbind the framebuffer ...
             inGL.glBindFramebuffer(GL_FRAMEBUFFER, 0);
         inGL.glPopAttrib();
+        BaseProfiler.getInstance().endScope(inGL,mProfilerScope);
     }
 
     public void prepareForColouredRendering(GL2 inGL, int inTextureUnitID) {
@@ -171,7 +217,9 @@ public class BaseFrameBufferObjectRendererExecutor {
     public void cleanup(GL2 inGL,GLU inGLU,GLUT inGLUT) {
         inGL.glDeleteFramebuffers(1, Buffers.newDirectIntBuffer(mFrameBufferObjectID));
         inGL.glDeleteTextures(1, Buffers.newDirectIntBuffer(mColorTextureID));
-        inGL.glDeleteTextures(1, Buffers.newDirectIntBuffer(mDepthTextureID));
+        if (mWithDepth) {
+            inGL.glDeleteTextures(1, Buffers.newDirectIntBuffer(mDepthTextureID));
+        }
         if (mBaseFrameBufferObjectRendererInterface!=null) {
             mBaseFrameBufferObjectRendererInterface.cleanup_FBORenderer(inGL,inGLU,inGLUT);
         } else {
@@ -0,0 +1,208 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Asynchronous frame capture. Frames are read back into a ring of slots (pixel buffer objects by
+ ** default) and mapped only when the ring is full, so the GPU transfer overlaps the rendering of
+ ** the following frames. The mapped pixels are copied into a pooled int[] and encoded by a fixed
+ ** pool of encoder threads. The pool of pixel arrays is bounded: if the encoders fall behind the
+ ** render thread blocks until an array is free again instead of piling up frames in memory. The
+ ** ring and queue logic only talks to the source and encoder interfaces and runs without a GPU
+ ** when fed by a fake source (see framework.tool.BaseFrameCaptureSimulation).
+ **
+ **/
+
+import java.awt.image.*;
+import java.nio.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.media.opengl.*;
+
+public class BaseFrameCapture {
+
+    public static final int cDEFAULT_RING_SIZE = 3;
+    private static final int cPixelBuffersPerEncoderThread = 2;
+    private static final int[] cRGBMasks = {0x00FF0000, 0x0000FF00, 0x000000FF};
+
+    private final BaseFrameCapture_FrameSourceInterface mFrameSource;
+    private final BaseFrameCapture_FrameEncoderInterface mFrameEncoder;
+    private final int mRingSize;
+    private final int[] mSlotFrameNumbers;
+    private final String[] mSlotCustomPrefixes;
+    private int mOldestSlot;
+    private int mPendingSlots;
+    private boolean mInitialized;
+    private boolean mFinished;
+    private final int mEncoderThreads;
+    private final ExecutorService mExecutorService;
+    private final BlockingQueue<int[]> mFreePixelBuffers;
+    private final int mMaximumPixelBuffers;
+    private int mAllocatedPixelBuffers;
+    private int mCapturedFrames;
+    private final AtomicInteger mEncodedFrames = new AtomicInteger();
+    private int mStalledFrames;
+    private long mStallTimeNanoseconds;
+
+    public BaseFrameCapture(int inWidth,int inHeight) {
+        this(new BaseFrameCapture_PixelBufferObjectFrameSource(inWidth,inHeight));
+    }
+
+    public BaseFrameCapture(BaseFrameCapture_FrameSourceInterface inFrameSource) {
+        this(inFrameSource,new BitmapFrameEncoder(),cDEFAULT_RING_SIZE,Math.max(1, Runtime.getRuntime().availableProcessors()-1));
+    }
+
+    public BaseFrameCapture(BaseFrameCapture_FrameSourceInterface inFrameSource,BaseFrameCapture_FrameEncoderInterface inFrameEncoder,int inRingSize,int inEncoderThreads) {
+        mFrameSource = inFrameSource;
+        mFrameEncoder = inFrameEncoder;
+        mRingSize = Math.max(1, inRingSize);
+        mSlotFrameNumbers = new int[mRingSize];
+        mSlotCustomPrefixes = new String[mRingSize];
+        mEncoderThreads = Math.max(1, inEncoderThreads);
+        mMaximumPixelBuffers = mEncoderThreads*cPixelBuffersPerEncoderThread;
+        mFreePixelBuffers = new ArrayBlockingQueue<int[]>(mMaximumPixelBuffers);
+        mExecutorService = Executors.newFixedThreadPool(mEncoderThreads, new ThreadFactory() {
+            private int mThreadCounter;
+            public Thread newThread(Runnable inRunnable) {
+                Thread tThread = new Thread(inRunnable, "BaseFrameCapture-Encoder-"+(mThreadCounter++));
+                tThread.setDaemon(true);
+                return tThread;
+            }
+        });
+        BaseLogging.getInstance().info("CREATING FRAME CAPTURE "+mFrameSource.getWidth()+"x"+mFrameSource.getHeight()+" RINGSIZE="+mRingSize+" ENCODERTHREADS="+mEncoderThreads+" PIXELBUFFERS="+mMaximumPixelBuffers);
+    }
+
+    public void captureFrame(GL2 inGL,int inFrameNumber) {
+        captureFrame(inGL,inFrameNumber,null);
+    }
+
+    public void captureFrame(GL2 inGL,int inFrameNumber,String inCustomPrefix) {
+        if (!mInitialized) {
+            mFrameSource.init(inGL,mRingSize);
+            mInitialized = true;
+        }
+        if (mPendingSlots==mRingSize) {
+            retireOldestFrame(inGL);
+        }
+        int tSlot = (mOldestSlot+mPendingSlots)%mRingSize;
+        mFrameSource.readFrame(inGL,tSlot);
+        mSlotFrameNumbers[tSlot] = inFrameNumber;
+        mSlotCustomPrefixes[tSlot] = inCustomPrefix;
+        mPendingSlots++;
+        mCapturedFrames++;
+    }
+
+    private void retireOldestFrame(GL2 inGL) {
+        int tSlot = mOldestSlot;
+        int tWidth = mFrameSource.getWidth();
+        int tHeight = mFrameSource.getHeight();
+        //get the pixel array first, blocking here must not keep a slot mapped ...
+        final int[] tPixels = acquirePixelBuffer(tWidth*tHeight);
+        IntBuffer tIntBuffer = mFrameSource.mapFrame(inGL,tSlot).order(ByteOrder.nativeOrder()).asIntBuffer();
+        //flip the bottom-up GL rows while copying ...
+        for (int y=0; y<tHeight; y++) {
+            tIntBuffer.position((tHeight-1-y)*tWidth);
+            tIntBuffer.get(tPixels, y*tWidth, tWidth);
+        }
+        mFrameSource.unmapFrame(inGL,tSlot);
+        final int tFrameNumber = mSlotFrameNumbers[tSlot];
+        final String tCustomPrefix = mSlotCustomPrefixes[tSlot];
+        mOldestSlot = (mOldestSlot+1)%mRingSize;
+        mPendingSlots--;
+        mExecutorService.execute(new Runnable() {
+            public void run() {
+                try {
+                    mFrameEncoder.encodeFrame(tPixels,mFrameSource.getWidth(),mFrameSource.getHeight(),tFrameNumber,tCustomPrefix);
+                    mEncodedFrames.incrementAndGet();
+                } catch (Exception e) {
+                    BaseLogging.getInstance().fatalerror(e);
+                } finally {
+                    mFreePixelBuffers.offer(tPixels);
+                }
+            }
+        });
+    }
+
+    private int[] acquirePixelBuffer(int inSize) {
+        int[] tPixels = mFreePixelBuffers.poll();
+        if (tPixels==null) {
+            if (mAllocatedPixelBuffers<mMaximumPixelBuffers) {
+                mAllocatedPixelBuffers++;
+                return new int[inSize];
+            }
+            //all arrays are in the encoders ... wait for one to come back :-/
+            long tStallStart = System.nanoTime();
+            try {
+                tPixels = mFreePixelBuffers.take();
+            } catch (InterruptedException e) {
+                BaseLogging.getInstance().fatalerror(e);
+            }
+            mStallTimeNanoseconds += System.nanoTime()-tStallStart;
+            mStalledFrames++;
+        }
+        return tPixels;
+    }
+
+    public void finish(GL2 inGL) {
+        if (mFinished) {
+            return;
+        }
+        mFinished = true;
+        while (mPendingSlots>0) {
+            retireOldestFrame(inGL);
+        }
+        mExecutorService.shutdown();
+        try {
+            while (!mExecutorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                BaseLogging.getInstance().info("WAITING FOR FRAME CAPTURE ENCODERS ... "+mEncodedFrames.get()+"/"+mCapturedFrames);
+            }
+        } catch (InterruptedException e) {
+            BaseLogging.getInstance().fatalerror(e);
+        }
+        if (mInitialized) {
+            mFrameSource.cleanup(inGL);
+        }
+        BaseLogging.getInstance().info("FRAME CAPTURE FINISHED ... CAPTURED="+mCapturedFrames+" ENCODED="+mEncodedFrames.get()+" STALLEDFRAMES="+mStalledFrames+" STALLTIME="+(mStallTimeNanoseconds/1000000)+"MS");
+    }
+
+    public int getCapturedFrames()          { return mCapturedFrames; }
+    public int getEncodedFrames()           { return mEncodedFrames.get(); }
+    public int getPendingFrames()           { return mPendingSlots; }
+    public int getStalledFrames()           { return mStalledFrames; }
+    public long getStallTimeNanoseconds()   { return mStallTimeNanoseconds; }
+    public int getAllocatedPixelBuffers()   { return mAllocatedPixelBuffers; }
+
+    public static BufferedImage createBufferedImage(int[] inPixels,int inWidth,int inHeight) {
+        return createBufferedImage(inPixels,0,inWidth,inHeight);
+    }
+
+    public static BufferedImage createBufferedImage(int[] inPixels,int inOffset,int inWidth,int inHeight) {
+        //wraps the array without copying, the alpha byte is ignored ...
+        WritableRaster tWritableRaster = Raster.createPackedRaster(new DataBufferInt(inPixels,inWidth*inHeight,inOffset), inWidth, inHeight, inWidth, cRGBMasks, null);
+        return new BufferedImage(new DirectColorModel(24,cRGBMasks[0],cRGBMasks[1],cRGBMasks[2]), tWritableRaster, false, null);
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    private static class BitmapFrameEncoder implements BaseFrameCapture_FrameEncoderInterface {
+
+        public void encodeFrame(int[] inPixels,int inWidth,int inHeight,int inFrameNumber,String inCustomPrefix) {
+            BufferedImage tBufferedImage = createBufferedImage(inPixels,inWidth,inHeight);
+            if (inCustomPrefix==null) {
+                BaseLogging.getInstance().logCapture(tBufferedImage,inFrameNumber);
+            } else {
+                BaseLogging.getInstance().logCapture(tBufferedImage,inFrameNumber,inCustomPrefix);
+            }
+        }
+
+    }
+
+}
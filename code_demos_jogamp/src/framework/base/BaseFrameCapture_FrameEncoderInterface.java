@@ -0,0 +1,24 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Consumer of captured frames, called by the encoder threads of BaseFrameCapture. The pixels are
+ ** top-down rows of 0xAARRGGBB ints and only valid during the call, the array goes back into the
+ ** pool afterwards. Implementations must be thread safe.
+ **
+ **/
+
+public interface BaseFrameCapture_FrameEncoderInterface {
+
+    public void encodeFrame(int[] inPixels,int inWidth,int inHeight,int inFrameNumber,String inCustomPrefix);
+
+}
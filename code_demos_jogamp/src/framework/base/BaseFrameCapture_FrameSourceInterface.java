@@ -0,0 +1,34 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Where BaseFrameCapture gets its frames from. A source manages a small ring of readback slots:
+ ** readFrame() starts an (asynchronous) readback of the current framebuffer into a slot, some
+ ** frames later mapFrame() hands out the slot contents as bottom-up rows of BGRA pixels (one
+ ** native order int per pixel), unmapFrame() releases the slot for the next readback.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+
+public interface BaseFrameCapture_FrameSourceInterface {
+
+    public int getWidth();
+    public int getHeight();
+    public void init(GL2 inGL,int inSlots);
+    public void readFrame(GL2 inGL,int inSlot);
+    public ByteBuffer mapFrame(GL2 inGL,int inSlot);
+    public void unmapFrame(GL2 inGL,int inSlot);
+    public void cleanup(GL2 inGL);
+
+}
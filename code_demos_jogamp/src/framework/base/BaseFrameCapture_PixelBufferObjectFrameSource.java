@@ -0,0 +1,97 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Frame source reading the framebuffer into a ring of pixel buffer objects. glReadPixels() into
+ ** a bound GL_PIXEL_PACK_BUFFER returns immediately, the transfer runs while the following frames
+ ** are rendered. Mapping a slot one or two frames later usually doesn't stall at all anymore.
+ ** Reads from the default framebuffer or from the colour attachment of a framebuffer object.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+import static javax.media.opengl.GL2.*;
+
+public class BaseFrameCapture_PixelBufferObjectFrameSource implements BaseFrameCapture_FrameSourceInterface {
+
+    private final int mWidth;
+    private final int mHeight;
+    private int[] mPixelBufferObjectIDs;
+    private int mFrameBufferObjectID;
+
+    public BaseFrameCapture_PixelBufferObjectFrameSource(int inWidth,int inHeight) {
+        this(inWidth,inHeight,0);
+    }
+
+    public BaseFrameCapture_PixelBufferObjectFrameSource(int inWidth,int inHeight,int inFrameBufferObjectID) {
+        mWidth = inWidth;
+        mHeight = inHeight;
+        mFrameBufferObjectID = inFrameBufferObjectID;
+    }
+
+    public void setFrameBufferObjectID(int inFrameBufferObjectID) {
+        mFrameBufferObjectID = inFrameBufferObjectID;
+    }
+
+    public int getWidth()  { return mWidth; }
+    public int getHeight() { return mHeight; }
+
+    public void init(GL2 inGL,int inSlots) {
+        BaseLogging.getInstance().info("INITIALIZING "+inSlots+" PIXEL BUFFER OBJECTS FOR FRAME CAPTURE "+mWidth+"x"+mHeight);
+        mPixelBufferObjectIDs = new int[inSlots];
+        inGL.glGenBuffers(inSlots, mPixelBufferObjectIDs, 0);
+        for (int i=0; i<inSlots; i++) {
+            inGL.glBindBuffer(GL_PIXEL_PACK_BUFFER, mPixelBufferObjectIDs[i]);
+            inGL.glBufferData(GL_PIXEL_PACK_BUFFER, mWidth*mHeight*4, null, GL_STREAM_READ);
+        }
+        inGL.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    public void readFrame(GL2 inGL,int inSlot) {
+        if (mFrameBufferObjectID!=0) {
+            inGL.glBindFramebuffer(GL_READ_FRAMEBUFFER, mFrameBufferObjectID);
+            inGL.glReadBuffer(GL_COLOR_ATTACHMENT0);
+        }
+        inGL.glBindBuffer(GL_PIXEL_PACK_BUFFER, mPixelBufferObjectIDs[inSlot]);
+        inGL.glPixelStorei(GL_PACK_ALIGNMENT, 4);
+        //BGRA/8_8_8_8_REV is the native framebuffer layout on basically all hardware, no swizzling ...
+        inGL.glReadPixels(0, 0, mWidth, mHeight, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, 0);
+        inGL.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        if (mFrameBufferObjectID!=0) {
+            inGL.glBindFramebuffer(GL_READ_FRAMEBUFFER, 0);
+            inGL.glReadBuffer(GL_BACK);
+        }
+    }
+
+    public ByteBuffer mapFrame(GL2 inGL,int inSlot) {
+        inGL.glBindBuffer(GL_PIXEL_PACK_BUFFER, mPixelBufferObjectIDs[inSlot]);
+        ByteBuffer tByteBuffer = inGL.glMapBuffer(GL_PIXEL_PACK_BUFFER, GL_READ_ONLY);
+        if (tByteBuffer==null) {
+            BaseLogging.getInstance().fatalerror("UNABLE TO MAP PIXEL BUFFER OBJECT FOR FRAME CAPTURE!");
+        }
+        return tByteBuffer;
+    }
+
+    public void unmapFrame(GL2 inGL,int inSlot) {
+        inGL.glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+        inGL.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    public void cleanup(GL2 inGL) {
+        if (mPixelBufferObjectIDs!=null) {
+            inGL.glDeleteBuffers(mPixelBufferObjectIDs.length, mPixelBufferObjectIDs, 0);
+            mPixelBufferObjectIDs = null;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Predicts the presentation deadline of every frame and keeps frame time statistics. Deadlines
+ ** lie on a grid with the display refresh period (vsync) or the period of the desired framerate.
+ ** A frame starts right after the previous one was swapped, so the grid is slowly phase locked to
+ ** 'frame start + one period'. A frame starting after its deadline missed that slot, it targets
+ ** the next free one instead. Animations sampled at the deadline instead of at the (jittering)
+ ** frame start move evenly on screen. The statistics cover the intervals between frame starts of
+ ** the last cStatisticsWindow frames: mean, standard deviation, percentiles and maximum.
+ **
+ **/
+
+import java.util.*;
+
+public class BaseFramePacer {
+
+    private static final int cStatisticsWindow = 600;
+    private static final int cStatisticsUpdateInterval = 60;
+    private static final int cPhaseLockDivisor = 16;
+
+    private final long mPeriodNanoseconds;
+    private long mDeadline;
+    private long mLastFrameStart = -1;
+    private long mFrames;
+    private long mMissedDeadlines;
+    private final long[] mIntervals = new long[cStatisticsWindow];
+    private final long[] mSortedIntervals = new long[cStatisticsWindow];
+    private int mIntervalCount;
+    private int mIntervalIndex;
+    private double mMeanInterval;
+    private double mStandardDeviation;
+    private long mMedianInterval;
+    private long mPercentile99Interval;
+    private long mMaximumInterval;
+
+    //a period of 0 disables pacing, every frame is presented 'now' ...
+    public BaseFramePacer(long inPeriodNanoseconds) {
+        mPeriodNanoseconds = Math.max(0, inPeriodNanoseconds);
+        BaseLogging.getInstance().info("CREATING FRAME PACER PERIOD="+(mPeriodNanoseconds/1000)+"US");
+    }
+
+    public long beginFrame(long inNanoTime) {
+        if (mLastFrameStart>=0) {
+            mIntervals[mIntervalIndex] = inNanoTime-mLastFrameStart;
+            mIntervalIndex = (mIntervalIndex+1)%cStatisticsWindow;
+            mIntervalCount = Math.min(mIntervalCount+1, cStatisticsWindow);
+        }
+        mLastFrameStart = inNanoTime;
+        mFrames++;
+        if (mFrames%cStatisticsUpdateInterval==0) {
+            updateStatistics();
+        }
+        if (mPeriodNanoseconds==0) {
+            mDeadline = inNanoTime;
+            return mDeadline;
+        }
+        if (mFrames==1 || inNanoTime+2*mPeriodNanoseconds<mDeadline) {
+            mDeadline = inNanoTime+mPeriodNanoseconds;
+            return mDeadline;
+        }
+        long tDeadline = mDeadline+mPeriodNanoseconds;
+        if (inNanoTime>=tDeadline) {
+            //too late for this slot, skip to the first one still ahead ...
+            long tMissedSlots = (inNanoTime-tDeadline)/mPeriodNanoseconds+1;
+            mMissedDeadlines += tMissedSlots;
+            tDeadline += tMissedSlots*mPeriodNanoseconds;
+        }
+        tDeadline += (inNanoTime+mPeriodNanoseconds-tDeadline)/cPhaseLockDivisor;
+        mDeadline = tDeadline;
+        return mDeadline;
+    }
+
+    private void updateStatistics() {
+        if (mIntervalCount==0) {
+            return;
+        }
+        double tSum = 0.0;
+        double tSquareSum = 0.0;
+        for (int i=0; i<mIntervalCount; i++) {
+            double tInterval = mIntervals[i];
+            tSum += tInterval;
+            tSquareSum += tInterval*tInterval;
+        }
+        mMeanInterval = tSum/mIntervalCount;
+        mStandardDeviation = Math.sqrt(Math.max(0.0, tSquareSum/mIntervalCount-mMeanInterval*mMeanInterval));
+        System.arraycopy(mIntervals, 0, mSortedIntervals, 0, mIntervalCount);
+        Arrays.sort(mSortedIntervals, 0, mIntervalCount);
+        mMedianInterval = mSortedIntervals[mIntervalCount/2];
+        mPercentile99Interval = mSortedIntervals[Math.min(mIntervalCount-1, (int)(mIntervalCount*0.99))];
+        mMaximumInterval = mSortedIntervals[mIntervalCount-1];
+    }
+
+    public String getStatistics() {
+        return appendStatistics(new StringBuilder(96)).toString();
+    }
+
+    //for the debug overlay, no garbage per frame ...
+    public StringBuilder appendStatistics(StringBuilder inStringBuilder) {
+        appendMilliseconds(inStringBuilder.append("FRAMETIME MEAN="), mMeanInterval);
+        appendMilliseconds(inStringBuilder.append(" JITTER="), mStandardDeviation);
+        appendMilliseconds(inStringBuilder.append(" P50="), mMedianInterval);
+        appendMilliseconds(inStringBuilder.append(" P99="), mPercentile99Interval);
+        appendMilliseconds(inStringBuilder.append(" MAX="), mMaximumInterval);
+        return inStringBuilder.append(" MISSEDDEADLINES=").append(mMissedDeadlines);
+    }
+
+    private static void appendMilliseconds(StringBuilder inStringBuilder,double inNanoseconds) {
+        BaseDebugOverlay.appendDecimal(inStringBuilder, inNanoseconds/1000000.0, 2).append("MS");
+    }
+
+    public long getPeriodNanoseconds()          { return mPeriodNanoseconds; }
+    public long getDeadline()                   { return mDeadline; }
+    public long getFrames()                     { return mFrames; }
+    public long getMissedDeadlines()            { return mMissedDeadlines; }
+    public double getMeanInterval()             { return mMeanInterval; }
+    public double getStandardDeviation()        { return mStandardDeviation; }
+    public long getPercentile99Interval()       { return mPercentile99Interval; }
+
+}
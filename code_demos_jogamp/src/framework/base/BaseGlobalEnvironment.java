@@ -709,6 +709,7 @@ public class BaseGlobalEnvironment {
     private boolean     mCommandLineParameter_Stereoscopic;
     private float       mCommandLineParameter_StereoscopicEyeSeparation;
     private String      mCommandLineParameter_StereoscopicOutputMode;
+    private boolean     mCommandLineParameter_Profiling;
     
     public String   getBaseRoutineClassName()       { return mCommandLineParameter_BaseRoutineClassName; }
     public boolean  preferMultiSampling()           { return mCommandLineParameter_MultiSampling; }
@@ -727,6 +728,7 @@ public class BaseGlobalEnvironment {
     public boolean  wantsStereoscopic()             { return mCommandLineParameter_Stereoscopic; }
     public float    getStereoscopicEyeSeparation()  { return mCommandLineParameter_StereoscopicEyeSeparation; }
     public String   getStereoscopicOutputMode()     { return mCommandLineParameter_StereoscopicOutputMode; }
+    public boolean  wantsProfiling()                { return mCommandLineParameter_Profiling; }
     
     public void configureWithUserParameters(
             String inBaseRoutineClassName,
@@ -747,7 +749,8 @@ public class BaseGlobalEnvironment {
             int inEndFrame,
             boolean inStereoscopic,
             float inStereoscopicEyeSeparation,
-            String inStereoscopicOutputMode
+            String inStereoscopicOutputMode,
+            boolean inProfiling
     ) {
         mCommandLineParameter_BaseRoutineClassName = inBaseRoutineClassName;
         mCommandLineParameter_DisplayMode = (inResolutionX!=-1 && inResolutionY!=-1) ? new DisplayMode(inResolutionX,inResolutionY,32,60) : null;
@@ -767,6 +770,7 @@ public class BaseGlobalEnvironment {
         mCommandLineParameter_Stereoscopic = inStereoscopic;
         mCommandLineParameter_StereoscopicEyeSeparation = inStereoscopicEyeSeparation;
         mCommandLineParameter_StereoscopicOutputMode = inStereoscopicOutputMode;
+        mCommandLineParameter_Profiling = inProfiling;
     }
 
     public int getParameterKey_INT_12() { return mParameterKey_INT_12; }
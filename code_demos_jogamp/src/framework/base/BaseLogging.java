@@ -35,12 +35,17 @@ public final class BaseLogging {
     public static final String cLOGGING_CAPTUREOUTPUTFILENAME_PREFIX = "JOGAMP_SCREENCAPTURE";
     public static final String cLOGGING_CAPTUREOUTPUTFILENAME_SUFFIX = ".bmp";
     public static final String cLOGGING_CAPTUREOUTPUTDIRECTORYNAME = "capture\\";
+    public static final int cCAPTUREOUTPUTFORMAT_BMP = 0;
+    public static final int cCAPTUREOUTPUTFORMAT_RAW = 1;
+    public static final int cCAPTUREOUTPUTFORMAT_Y4M = 2;
     
     private static BaseLogging mLoggingInstance = null;
     private File mLogFile = null;
     private PrintWriter mPrintWriter;
     private SimpleDateFormat mTimeStampFormatter = new SimpleDateFormat("[HH:mm:ss:SSS]",Locale.US);
     private SimpleDateFormat mFileTimeStampFormatter = new SimpleDateFormat("[HH-mm-ss-SSS]",Locale.US);
+    private int mCaptureOutputFormat = cCAPTUREOUTPUTFORMAT_BMP;
+    private final HashMap<String,BaseCaptureVideoSink> mCaptureVideoSinks = new HashMap<String,BaseCaptureVideoSink>();
 
     private BaseLogging() {
         try {
@@ -154,30 +159,89 @@ public final class BaseLogging {
         }
     }
 
-    public synchronized void logCapture(BufferedImage inBufferedImage,int inFrameNumber) {
-        try {
-            DecimalFormat tDecimalFormatter = new DecimalFormat("000000");
-            String tFileName = cLOGGING_CAPTUREOUTPUTDIRECTORYNAME+cLOGGING_CAPTUREOUTPUTFILENAME_PREFIX+"_"+tDecimalFormatter.format(inFrameNumber)+cLOGGING_CAPTUREOUTPUTFILENAME_SUFFIX;
-            File tScreenCaptureImageFile = new File(tFileName);
-            this.info("WRITING SCREENCAPTURE FOR FRAME NUMBER "+inFrameNumber+" TO FILE "+tFileName);
-            ImageIO.write(inBufferedImage, "bmp", tScreenCaptureImageFile);
-            //ImageIO.write(inBufferedImage, "png", tScreenCaptureImageFile);
-        } catch (Exception e) {
-            this.fatalerror(e);
+    public void setCaptureOutputFormat(String inCaptureOutputFormat) {
+        if (inCaptureOutputFormat.equalsIgnoreCase("BMP")) {
+            mCaptureOutputFormat = cCAPTUREOUTPUTFORMAT_BMP;
+        } else if (inCaptureOutputFormat.equalsIgnoreCase("RAW")) {
+            mCaptureOutputFormat = cCAPTUREOUTPUTFORMAT_RAW;
+        } else if (inCaptureOutputFormat.equalsIgnoreCase("Y4M")) {
+            mCaptureOutputFormat = cCAPTUREOUTPUTFORMAT_Y4M;
+        } else {
+            this.error("ERROR! UNKNOWN CAPTURE OUTPUT FORMAT '"+inCaptureOutputFormat+"' ... KEEPING BMP!");
         }
     }
 
-    public synchronized void logCapture(BufferedImage inBufferedImage,int inFrameNumber, String inCustomPrefix) {
+    public int getCaptureOutputFormat() { return mCaptureOutputFormat; }
+
+    //not synchronized, BaseFrameCapture encodes several frames at once on its encoder threads ...
+    public void logCapture(BufferedImage inBufferedImage,int inFrameNumber) {
+        logCapture(inBufferedImage,inFrameNumber,null);
+    }
+
+    public void logCapture(BufferedImage inBufferedImage,int inFrameNumber, String inCustomPrefix) {
         try {
-            DecimalFormat tDecimalFormatter = new DecimalFormat("000000");
-            String tFileName = cLOGGING_CAPTUREOUTPUTDIRECTORYNAME+cLOGGING_CAPTUREOUTPUTFILENAME_PREFIX+"_"+inCustomPrefix+"_"+tDecimalFormatter.format(inFrameNumber)+cLOGGING_CAPTUREOUTPUTFILENAME_SUFFIX;
-            File tScreenCaptureImageFile = new File(tFileName);
-            this.info("WRITING SCREENCAPTURE FOR FRAME NUMBER "+inFrameNumber+" TO FILE "+tFileName);
-            ImageIO.write(inBufferedImage, "bmp", tScreenCaptureImageFile);
-            //ImageIO.write(inBufferedImage, "png", tScreenCaptureImageFile);
+            String tStreamName = cLOGGING_CAPTUREOUTPUTFILENAME_PREFIX+(inCustomPrefix==null ? "" : "_"+inCustomPrefix);
+            if (mCaptureOutputFormat==cCAPTUREOUTPUTFORMAT_BMP) {
+                DecimalFormat tDecimalFormatter = new DecimalFormat("000000");
+                String tFileName = cLOGGING_CAPTUREOUTPUTDIRECTORYNAME+tStreamName+"_"+tDecimalFormatter.format(inFrameNumber)+cLOGGING_CAPTUREOUTPUTFILENAME_SUFFIX;
+                File tScreenCaptureImageFile = new File(tFileName);
+                this.info("WRITING SCREENCAPTURE FOR FRAME NUMBER "+inFrameNumber+" TO FILE "+tFileName);
+                ImageIO.write(inBufferedImage, "bmp", tScreenCaptureImageFile);
+                //ImageIO.write(inBufferedImage, "png", tScreenCaptureImageFile);
+            } else {
+                BaseCaptureVideoSink tBaseCaptureVideoSink = getCaptureVideoSink(tStreamName,inCustomPrefix,inBufferedImage.getWidth(),inBufferedImage.getHeight());
+                this.info("WRITING SCREENCAPTURE FOR FRAME NUMBER "+inFrameNumber+" TO STREAM "+tStreamName);
+                tBaseCaptureVideoSink.writeFrame(getARGBPixels(inBufferedImage),inFrameNumber);
+            }
         } catch (Exception e) {
             this.fatalerror(e);
         }
     }
-    
+
+    private BaseCaptureVideoSink getCaptureVideoSink(String inStreamName,String inCustomPrefix,int inWidth,int inHeight) throws IOException {
+        synchronized (mCaptureVideoSinks) {
+            BaseCaptureVideoSink tBaseCaptureVideoSink = mCaptureVideoSinks.get(inStreamName);
+            if (tBaseCaptureVideoSink==null) {
+                String tFileName = cLOGGING_CAPTUREOUTPUTDIRECTORYNAME+inStreamName+(mCaptureOutputFormat==cCAPTUREOUTPUTFORMAT_Y4M ? ".y4m" : ".rgb");
+                int tFrameRate = BaseGlobalEnvironment.getInstance().getDesiredFramerate();
+                if (tFrameRate<=0 || tFrameRate>1000) {
+                    tFrameRate = 60;
+                }
+                //frame sequential stereo captures two numbered frames per rendered frame ...
+                int tFirstFrameNumber = BaseGlobalEnvironment.getInstance().getStartFrame()*("FFS".equals(inCustomPrefix) ? 2 : 1);
+                tBaseCaptureVideoSink = new BaseCaptureVideoSink(tFileName,mCaptureOutputFormat,inWidth,inHeight,tFrameRate,tFirstFrameNumber);
+                mCaptureVideoSinks.put(inStreamName,tBaseCaptureVideoSink);
+            } else if (tBaseCaptureVideoSink.getWidth()!=inWidth || tBaseCaptureVideoSink.getHeight()!=inHeight) {
+                this.fatalerror("ERROR! FRAME SIZE "+inWidth+"x"+inHeight+" DOES NOT MATCH CAPTURE VIDEO STREAM "+inStreamName+"!");
+            }
+            return tBaseCaptureVideoSink;
+        }
+    }
+
+    private static int[] getARGBPixels(BufferedImage inBufferedImage) {
+        int tWidth = inBufferedImage.getWidth();
+        int tHeight = inBufferedImage.getHeight();
+        //images from BaseFrameCapture just wrap their pixel array ...
+        if (inBufferedImage.getType()==BufferedImage.TYPE_INT_RGB || inBufferedImage.getType()==BufferedImage.TYPE_INT_ARGB) {
+            DataBufferInt tDataBufferInt = (DataBufferInt)inBufferedImage.getRaster().getDataBuffer();
+            if (tDataBufferInt.getOffset()==0 && tDataBufferInt.getData().length==tWidth*tHeight) {
+                return tDataBufferInt.getData();
+            }
+        }
+        return inBufferedImage.getRGB(0, 0, tWidth, tHeight, null, 0, tWidth);
+    }
+
+    public void closeCaptureOutput() {
+        synchronized (mCaptureVideoSinks) {
+            for (BaseCaptureVideoSink tBaseCaptureVideoSink : mCaptureVideoSinks.values()) {
+                try {
+                    tBaseCaptureVideoSink.close();
+                } catch (IOException e) {
+                    this.exception(e);
+                }
+            }
+            mCaptureVideoSinks.clear();
+        }
+    }
+
 }
@@ -16,8 +16,13 @@ package framework.base;
  ** is capable to playback "ogg vorbis" and "mpeg layer 3" music files. Other than simple 
  ** playback it internally uses the "KJ-DSS Project" by Kristofer Fudalewski (http://sirk.sytes.net)
  ** to provide a joined FFT spectrum via getFFTSpectrum() and a graphical scope and spectrum 
- ** analyzer via getScopeAndSpectrumAnalyzerVisualization(). The FFT spectrum can be utilized to
- ** get some easy synchronization of music an visuals.
+ ** analyzer via getScopeAndSpectrumAnalyzerVisualization() (or as raw data for a shader via
+ ** getScopeAndSpectrumAnalyzerVisualizationData()). The FFT spectrum can be utilized to
+ ** get some easy synchronization of music an visuals. For proper beat synchronization the player
+ ** thread additionally runs a BaseMusic_BeatTracker, its beats, tempo and band energies are
+ ** available lock free via getBeatSnapshot(). When frames are captured both come from a
+ ** BaseMusic_OfflineAnalysis of the whole track instead, looked up by frame number. The
+ ** BaseMusic_MediaClock follows the sample position of the line for continuous frame timing.
  **
  **/
 
@@ -33,7 +38,11 @@ public class BaseMusic {
     private Thread mPlayerThread;
     private BaseMusic_ScopeAndSpectrumAnalyzer mBaseMusic_ScopeAndSpectrumAnalyzer;
     private BaseMusic_DigitalSignalSynchronizer mBaseMusic_DigitalSignalSynchronizer;
+    private BaseMusic_BeatTracker mBaseMusic_BeatTracker;
+    private BaseMusic_OfflineAnalysis mBaseMusic_OfflineAnalysis;
+    private int mFrameNumber;
     private float[] mFFTSpectrum_Empty;
+    private final BaseMusic_MediaClock mBaseMusic_MediaClock = new BaseMusic_MediaClock();
 
     public BaseMusic(String inFilename) {
         mFilename = inFilename;
@@ -50,19 +59,17 @@ public class BaseMusic {
                 mBaseMusic_DigitalSignalSynchronizer = new BaseMusic_DigitalSignalSynchronizer(BaseGlobalEnvironment.getInstance().getDesiredFramerate());
                 mBaseMusic_ScopeAndSpectrumAnalyzer = new BaseMusic_ScopeAndSpectrumAnalyzer();
                 mBaseMusic_DigitalSignalSynchronizer.add(mBaseMusic_ScopeAndSpectrumAnalyzer);
-                BufferedInputStream tBufferedInputStream = new BufferedInputStream((new Object()).getClass().getResourceAsStream(mFilename));
-                AudioInputStream tAudioInputStream = AudioSystem.getAudioInputStream(tBufferedInputStream);
-                AudioFormat tAudioBaseFormat = tAudioInputStream.getFormat();
-                final AudioFormat tAudioDecodedFormat = new AudioFormat(
-                        AudioFormat.Encoding.PCM_SIGNED,
-                        tAudioBaseFormat.getSampleRate(),
-                        16,
-                        tAudioBaseFormat.getChannels(),
-                        tAudioBaseFormat.getChannels() * 2,
-                        tAudioBaseFormat.getSampleRate(),
-                        false
-                );
-                final AudioInputStream tFinalAudioInputStream = AudioSystem.getAudioInputStream(tAudioDecodedFormat, tAudioInputStream);
+                final AudioInputStream tFinalAudioInputStream = openDecodedAudioInputStream(mFilename);
+                final AudioFormat tAudioDecodedFormat = tFinalAudioInputStream.getFormat();
+                if (BaseGlobalEnvironment.getInstance().wantsFrameCapture()) {
+                    //captured frames take their music data from the precalculated analysis, not from the speakers ...
+                    try {
+                        mBaseMusic_OfflineAnalysis = BaseMusic_OfflineAnalysis.getOfflineAnalysis(mFilename, BaseGlobalEnvironment.getInstance().getDesiredFramerate());
+                    } catch (Exception e) {
+                        BaseLogging.getInstance().warning("OFFLINE MUSIC ANALYSIS FAILED ... FALLING BACK TO LIVE SPECTRUM! "+e);
+                    }
+                }
+                mBaseMusic_BeatTracker = new BaseMusic_BeatTracker(tAudioDecodedFormat.getSampleRate(), tAudioDecodedFormat.getChannels());
                 //prepare player thread ...
                 mPlayerThread = new Thread() {
                     public void run() { 
@@ -73,10 +80,13 @@ public class BaseMusic {
                             if (tLine!=null) {
                                 tLine.start();
                                 mBaseMusic_DigitalSignalSynchronizer.start(tLine);
+                                mBaseMusic_MediaClock.attach(tLine);
                                 int tNumberOfBytesRead = 0;
                                 while (tNumberOfBytesRead != -1) {
                                     tNumberOfBytesRead = tFinalAudioInputStream.read(tDataBuffer, 0, tDataBuffer.length);
                                     if (tNumberOfBytesRead != -1) {
+                                        //analyse before the (blocking) line write, beats are known before they are audible ...
+                                        mBaseMusic_BeatTracker.writeAudioData( tDataBuffer, 0, tNumberOfBytesRead );
                                         mBaseMusic_DigitalSignalSynchronizer.writeAudioData( tDataBuffer, 0, tNumberOfBytesRead );
                                     }
                                     mPosition = tLine.getMicrosecondPosition();
@@ -101,6 +111,23 @@ public class BaseMusic {
         }
     }
 
+    //decodes to 16 bit signed little endian PCM, this is what the DSPs and the offline analysis expect ...
+    public static AudioInputStream openDecodedAudioInputStream(String inFilename) throws UnsupportedAudioFileException, IOException {
+        BufferedInputStream tBufferedInputStream = new BufferedInputStream((new Object()).getClass().getResourceAsStream(inFilename));
+        AudioInputStream tAudioInputStream = AudioSystem.getAudioInputStream(tBufferedInputStream);
+        AudioFormat tAudioBaseFormat = tAudioInputStream.getFormat();
+        AudioFormat tAudioDecodedFormat = new AudioFormat(
+                AudioFormat.Encoding.PCM_SIGNED,
+                tAudioBaseFormat.getSampleRate(),
+                16,
+                tAudioBaseFormat.getChannels(),
+                tAudioBaseFormat.getChannels() * 2,
+                tAudioBaseFormat.getSampleRate(),
+                false
+        );
+        return AudioSystem.getAudioInputStream(tAudioDecodedFormat, tAudioInputStream);
+    }
+
     private SourceDataLine getLine(AudioFormat inAudioFormat) throws LineUnavailableException {
         SourceDataLine tSourceDataLine = null;
         DataLine.Info tDataLineInfo = new DataLine.Info(SourceDataLine.class,inAudioFormat,4096);
@@ -109,7 +136,8 @@ public class BaseMusic {
         return tSourceDataLine;
     }
 
-    public void synchonizeMusic() {
+    public void synchonizeMusic(int inFrameNumber) {
+        mFrameNumber = inFrameNumber;
         if (!mOffline) {
             BaseMusic_DigitalSignalSynchronizer.Synchronizer tSynchronizer = mBaseMusic_DigitalSignalSynchronizer.getInternalSynchronizer();
             if (tSynchronizer!=null) {
@@ -139,6 +167,9 @@ public class BaseMusic {
     }
 
     public float[] getFFTSpectrum() {
+        if (mBaseMusic_OfflineAnalysis!=null) {
+            return mBaseMusic_OfflineAnalysis.getFFTSpectrum(mFrameNumber);
+        }
         if (!mOffline) {
             float[] tFFTSpectrum = mBaseMusic_ScopeAndSpectrumAnalyzer.getFFTSpectrum();
             if (tFFTSpectrum!=null) {
@@ -148,8 +179,37 @@ public class BaseMusic {
         return mFFTSpectrum_Empty;
     }
 
+    //sample accurate playback clock, runs on System.nanoTime() if there is no music ...
+    public BaseMusic_MediaClock getMediaClock() {
+        return mBaseMusic_MediaClock;
+    }
+
+    public BaseMusic_BeatTracker.Snapshot getBeatSnapshot() {
+        if (mBaseMusic_OfflineAnalysis!=null) {
+            return mBaseMusic_OfflineAnalysis.getBeatSnapshot(mFrameNumber);
+        }
+        if (!mOffline) {
+            return mBaseMusic_BeatTracker.getSnapshot();
+        }
+        return BaseMusic_BeatTracker.cEMPTY_SNAPSHOT;
+    }
+
     public BufferedImage getScopeAndSpectrumAnalyzerVisualization() {
         return mBaseMusic_ScopeAndSpectrumAnalyzer.getScopeAndSpectrumAnalyzerVisualization();
     }
 
+    public void setScopeAndSpectrumAnalyzerVisualizationMode(int inVisualizationMode) {
+        if (mBaseMusic_ScopeAndSpectrumAnalyzer!=null) {
+            mBaseMusic_ScopeAndSpectrumAnalyzer.setVisualizationMode(inVisualizationMode);
+        }
+    }
+
+    public float[] getScopeAndSpectrumAnalyzerVisualizationData() {
+        return mBaseMusic_ScopeAndSpectrumAnalyzer.getVisualizationData();
+    }
+
+    public int getScopeAndSpectrumAnalyzerBandCount() {
+        return mBaseMusic_ScopeAndSpectrumAnalyzer.getSpectrumAnalyserBandCount();
+    }
+
 }
@@ -0,0 +1,107 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Single producer / single consumer byte ring between the music player thread (writer) and the
+ ** GL thread (reader of sample windows). Positions are absolute stream byte positions, so the
+ ** reader can address windows directly by SourceDataLine frame position. The writer publishes
+ ** through a volatile write position, everything written before is visible to a reader that
+ ** has seen it. Tearing is ruled out with a Dekker style handshake on volatiles: the writer
+ ** announces the range it is going to overwrite (claim) before copying, the reader announces
+ ** the window it is about to copy (reservation) and then checks the claim. As volatile accesses
+ ** are totally ordered at least one side sees the other: the reader moves its window forward,
+ ** or the writer waits the few microseconds until the copy is done. That only happens when the
+ ** writer laps a reader, the capacity is chosen so it never does in normal operation.
+ **
+ **/
+
+public class BaseMusic_AudioRingBuffer {
+
+    private final byte[] mData;
+    private final int mMask;
+    private final int mMaximumTransferSize;
+    private volatile long mWritePosition;
+    private volatile long mClaimPosition;
+    private volatile long mReservedPosition = Long.MAX_VALUE;
+    private long mWriterWaits;
+
+    public BaseMusic_AudioRingBuffer(int inMinimumCapacity) {
+        int tCapacity = Integer.highestOneBit(Math.max(2, inMinimumCapacity-1))<<1;
+        mData = new byte[tCapacity];
+        mMask = tCapacity-1;
+        //half the ring, so a claimed but unwritten range never hides a full window ...
+        mMaximumTransferSize = tCapacity>>1;
+    }
+
+    public int getCapacity()                { return mData.length; }
+    public int getMaximumWindowSize()       { return mMaximumTransferSize; }
+    public long getWritePosition()          { return mWritePosition; }
+    public long getWriterWaits()            { return mWriterWaits; }
+
+    //producer side only ...
+    public void write(byte[] inData,int inOffset,int inLength) {
+        while (inLength>0) {
+            int tLength = Math.min(inLength, mMaximumTransferSize);
+            long tWritePosition = mWritePosition;
+            long tClaimPosition = tWritePosition+tLength;
+            mClaimPosition = tClaimPosition;
+            //a reader copying from the range about to be overwritten has to finish first ...
+            while (tClaimPosition-mData.length>mReservedPosition) {
+                mWriterWaits++;
+                Thread.yield();
+            }
+            int tStart = (int)(tWritePosition & mMask);
+            int tFirstPart = Math.min(tLength, mData.length-tStart);
+            System.arraycopy(inData, inOffset, mData, tStart, tFirstPart);
+            System.arraycopy(inData, inOffset+tFirstPart, mData, 0, tLength-tFirstPart);
+            mWritePosition = tClaimPosition;
+            inOffset += tLength;
+            inLength -= tLength;
+        }
+    }
+
+    /**
+     * Consumer side only. Copies inLength bytes starting at absolute stream position inPosition. A window
+     * reaching past the written data is moved back to the newest complete window, one that has already
+     * been overwritten is moved forward to the oldest intact one.
+     * 
+     * @return the stream position the copied window actually starts at, -1 if not enough data was written yet
+     */
+    public long read(long inPosition,byte[] outData,int inOffset,int inLength) {
+        if (inLength>mMaximumTransferSize) {
+            throw new IllegalArgumentException("WINDOW OF "+inLength+" BYTES EXCEEDS RING CAPACITY "+mData.length);
+        }
+        long tStart = inPosition;
+        while (true) {
+            long tWritePosition = mWritePosition;
+            if (tWritePosition<inLength) {
+                return -1;
+            }
+            tStart = Math.min(tStart, tWritePosition-inLength);
+            mReservedPosition = tStart;
+            long tOldestIntact = mClaimPosition-mData.length;
+            if (tStart<tOldestIntact) {
+                //overwritten meanwhile, retry with the oldest window the writer leaves alone ...
+                mReservedPosition = Long.MAX_VALUE;
+                tStart = tOldestIntact;
+                continue;
+            }
+            int tRingStart = (int)(tStart & mMask);
+            int tFirstPart = Math.min(inLength, mData.length-tRingStart);
+            System.arraycopy(mData, tRingStart, outData, inOffset, tFirstPart);
+            System.arraycopy(mData, 0, outData, inOffset+tFirstPart, inLength-tFirstPart);
+            mReservedPosition = Long.MAX_VALUE;
+            return tStart;
+        }
+    }
+
+}
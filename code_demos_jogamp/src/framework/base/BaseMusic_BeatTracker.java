@@ -0,0 +1,391 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Onset and beat tracker running on the music player thread. The decoded PCM is mixed down to
+ ** mono and fed into a Hann windowed BaseMusic_ShortTimeFourierTransform. For every hop the log
+ ** compressed, half wave rectified spectral flux is computed and peak picked against a moving
+ ** average threshold to find onsets. The tempo is estimated every half second from the
+ ** autocorrelation of the last seconds of flux (weighted towards 120 BPM), beats are locked to
+ ** onsets close to the predicted beat and extrapolated through quiet passages. Results are
+ ** published as immutable Snapshot instances through a volatile reference, so the render thread
+ ** reads them without locks and without doing any DSP itself. All timestamps are stream time,
+ ** compare them against BaseMusic.getPositionInMicroseconds() as analysis runs ahead of playback.
+ **
+ **/
+
+public class BaseMusic_BeatTracker implements BaseMusic_ShortTimeFourierTransform_FrameListenerInterface {
+
+    public static final int cBAND_COUNT = 8;
+    public static final int cDEFAULT_WINDOW_SIZE = 2048;
+    public static final int cDEFAULT_HOP_SIZE = 512;
+    public static final Snapshot cEMPTY_SNAPSHOT = new Snapshot(0, 0, 0, 0.0f, 0.0f, 0, 0.0f, new float[cBAND_COUNT], new float[cBAND_COUNT]);
+
+    private static final float cLowestBandFrequency = 40.0f;
+    private static final float cFluxCompression = 100.0f;
+    private static final float cThresholdSeconds = 0.15f;
+    private static final float cThresholdMultiplier = 1.5f;
+    private static final float cThresholdOffset = 0.05f;
+    private static final float cMinimumOnsetIntervalSeconds = 0.1f;
+    private static final float cPeakHalfLifeSeconds = 4.0f;
+    private static final float cMinimumBeatsPerMinute = 60.0f;
+    private static final float cMaximumBeatsPerMinute = 200.0f;
+    private static final float cPreferredBeatsPerMinute = 120.0f;
+    private static final float cPreferredTempoOctaves = 0.9f;
+    private static final float cTempoHistorySeconds = 8.0f;
+    private static final float cMinimumTempoHistorySeconds = 3.0f;
+    private static final float cTempoUpdateSeconds = 0.5f;
+    private static final float cBeatTolerance = 0.2f;
+
+    private final float mSampleRate;
+    private final int mChannels;
+    private final BaseMusic_ShortTimeFourierTransform mBaseMusic_ShortTimeFourierTransform;
+    private final float mFramesPerSecond;
+    private final int[] mBandStartBins;
+    private final float[] mPreviousCompressedSpectrum;
+    private final float[] mBandEnergies;
+    private final float[] mBandPeaks;
+    private final float mPeakDecay;
+    private final float[] mFluxHistory;
+    private final float[] mTempoScratch;
+    private final float[] mAutocorrelation;
+    private final int mThresholdFrames;
+    private final int mMinimumOnsetInterval;
+    private final int mMinimumLag;
+    private final int mMaximumLag;
+    private final int mMinimumTempoHistoryFrames;
+    private final int mTempoUpdateFrames;
+    private float[] mMonoBuffer;
+    private long mFirstCenterSamplePosition;
+    private float mFluxPeak;
+    private long mLastOnsetFrame;
+    private int mOnsetCount;
+    private float mOnsetStrength;
+    private double mBeatPeriod;
+    private float mTempoConfidence;
+    private double mNextBeatFrame;
+    private double mLastBeatFrame;
+    private int mBeatCount;
+    private int mFramesUntilTempoUpdate;
+    private volatile Snapshot mSnapshot = cEMPTY_SNAPSHOT;
+
+    public BaseMusic_BeatTracker(float inSampleRate,int inChannels) {
+        this(inSampleRate,inChannels,cDEFAULT_WINDOW_SIZE,cDEFAULT_HOP_SIZE,BaseMusic_ShortTimeFourierTransform.cWINDOW_HANN);
+    }
+
+    public BaseMusic_BeatTracker(float inSampleRate,int inChannels,int inWindowSize,int inHopSize,int inWindowType) {
+        mSampleRate = inSampleRate;
+        mChannels = Math.max(1, inChannels);
+        mBaseMusic_ShortTimeFourierTransform = new BaseMusic_ShortTimeFourierTransform(inWindowSize,inHopSize,inWindowType,this);
+        mFramesPerSecond = inSampleRate/mBaseMusic_ShortTimeFourierTransform.getHopSize();
+        //logarithmically spaced bands from cLowestBandFrequency up to nyquist, bin 0 (DC) is never used ...
+        int tBinCount = mBaseMusic_ShortTimeFourierTransform.getBinCount();
+        mBandStartBins = new int[cBAND_COUNT+1];
+        float tNyquist = inSampleRate/2.0f;
+        for (int i=0; i<=cBAND_COUNT; i++) {
+            float tFrequency = (i==0) ? 0.0f : cLowestBandFrequency*(float)Math.pow(tNyquist/cLowestBandFrequency, (double)(i-1)/(cBAND_COUNT-1));
+            int tBin = (int)Math.ceil(tFrequency/inSampleRate*mBaseMusic_ShortTimeFourierTransform.getWindowSize());
+            mBandStartBins[i] = Math.min(tBinCount, Math.max(i==0 ? 1 : mBandStartBins[i-1]+1, tBin));
+        }
+        mBandStartBins[cBAND_COUNT] = tBinCount;
+        mPreviousCompressedSpectrum = new float[tBinCount];
+        mBandEnergies = new float[cBAND_COUNT];
+        mBandPeaks = new float[cBAND_COUNT];
+        mPeakDecay = (float)Math.pow(0.5, 1.0/(mFramesPerSecond*cPeakHalfLifeSeconds));
+        mFluxHistory = new float[Math.round(cTempoHistorySeconds*mFramesPerSecond)];
+        mTempoScratch = new float[mFluxHistory.length];
+        mThresholdFrames = Math.max(3, Math.round(cThresholdSeconds*mFramesPerSecond));
+        mMinimumOnsetInterval = Math.max(1, Math.round(cMinimumOnsetIntervalSeconds*mFramesPerSecond));
+        mMinimumLag = Math.max(1, (int)Math.floor(60.0f*mFramesPerSecond/cMaximumBeatsPerMinute));
+        mMaximumLag = (int)Math.ceil(60.0f*mFramesPerSecond/cMinimumBeatsPerMinute);
+        mAutocorrelation = new float[mMaximumLag+2];
+        mMinimumTempoHistoryFrames = Math.max(2*mMaximumLag, Math.round(cMinimumTempoHistorySeconds*mFramesPerSecond));
+        mTempoUpdateFrames = Math.max(1, Math.round(cTempoUpdateSeconds*mFramesPerSecond));
+        mFramesUntilTempoUpdate = mTempoUpdateFrames;
+        mLastOnsetFrame = Long.MIN_VALUE/2;
+        BaseLogging.getInstance().info("BEAT TRACKER SAMPLERATE="+inSampleRate+" CHANNELS="+mChannels+" FRAMERATE="+mFramesPerSecond+" LAGS="+mMinimumLag+"-"+mMaximumLag);
+    }
+
+    public Snapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    public int getWindowSize() {
+        return mBaseMusic_ShortTimeFourierTransform.getWindowSize();
+    }
+
+    //used by BaseMusic_OfflineAnalysis to recreate snapshots from its cache ...
+    static Snapshot createSnapshot(long inTimeInMicroseconds,int inBeatCount,long inLastBeatTimeInMicroseconds,float inBeatsPerMinute,float inTempoConfidence,int inOnsetCount,float inOnsetStrength,float[] inBandEnergies,float[] inBandLevels) {
+        return new Snapshot(inTimeInMicroseconds,inBeatCount,inLastBeatTimeInMicroseconds,inBeatsPerMinute,inTempoConfidence,inOnsetCount,inOnsetStrength,inBandEnergies,inBandLevels);
+    }
+
+    //expects interleaved 16 bit signed little endian PCM, as decoded by BaseMusic ...
+    public void writeAudioData(byte[] inAudioData,int inOffset,int inLength) {
+        int tFrameSize = 2*mChannels;
+        int tFrames = inLength/tFrameSize;
+        if (mMonoBuffer==null || mMonoBuffer.length<tFrames) {
+            mMonoBuffer = new float[tFrames];
+        }
+        float tScale = 1.0f/(32768.0f*mChannels);
+        int p = inOffset;
+        for (int i=0; i<tFrames; i++) {
+            int tSum = 0;
+            for (int c=0; c<mChannels; c++) {
+                tSum += (short)((inAudioData[p] & 0xFF) | (inAudioData[p+1]<<8));
+                p += 2;
+            }
+            mMonoBuffer[i] = tSum*tScale;
+        }
+        mBaseMusic_ShortTimeFourierTransform.write(mMonoBuffer,0,tFrames);
+    }
+
+    public void processSpectrumFrame(float[] inPowerSpectrum,long inFrameIndex,long inCenterSamplePosition) {
+        if (inFrameIndex==0) {
+            mFirstCenterSamplePosition = inCenterSamplePosition;
+        }
+        //log compressed, half wave rectified spectral flux ...
+        int tBinCount = mPreviousCompressedSpectrum.length;
+        float tFlux = 0.0f;
+        for (int k=1; k<tBinCount; k++) {
+            float tCompressed = (float)Math.log(1.0+cFluxCompression*Math.sqrt(inPowerSpectrum[k]));
+            float tDifference = tCompressed-mPreviousCompressedSpectrum[k];
+            if (tDifference>0.0f) {
+                tFlux += tDifference;
+            }
+            mPreviousCompressedSpectrum[k] = tCompressed;
+        }
+        tFlux /= tBinCount;
+        //band energies and their slowly decaying peaks for normalized levels ...
+        for (int b=0; b<cBAND_COUNT; b++) {
+            float tEnergy = 0.0f;
+            for (int k=mBandStartBins[b]; k<mBandStartBins[b+1]; k++) {
+                tEnergy += inPowerSpectrum[k];
+            }
+            mBandEnergies[b] = (float)Math.sqrt(tEnergy);
+            mBandPeaks[b] = Math.max(mBandEnergies[b], mBandPeaks[b]*mPeakDecay);
+        }
+        mFluxPeak = Math.max(tFlux, mFluxPeak*mPeakDecay);
+        int tHistoryLength = mFluxHistory.length;
+        mFluxHistory[(int)(inFrameIndex%tHistoryLength)] = tFlux;
+        //peak picking one frame behind, the following frame has to be lower ...
+        long tCandidate = inFrameIndex-1;
+        boolean tOnset = false;
+        if (tCandidate>=1) {
+            float tPrevious = mFluxHistory[(int)((tCandidate-1)%tHistoryLength)];
+            float tCurrent = mFluxHistory[(int)(tCandidate%tHistoryLength)];
+            int tThresholdFrames = (int)Math.min(mThresholdFrames, tCandidate+1);
+            float tMean = 0.0f;
+            for (int i=0; i<tThresholdFrames; i++) {
+                tMean += mFluxHistory[(int)((tCandidate-i)%tHistoryLength)];
+            }
+            tMean /= tThresholdFrames;
+            float tThreshold = cThresholdMultiplier*tMean+cThresholdOffset*mFluxPeak;
+            if (tCurrent>tPrevious && tCurrent>=tFlux && tCurrent>tThreshold && tCandidate-mLastOnsetFrame>=mMinimumOnsetInterval) {
+                tOnset = true;
+                mLastOnsetFrame = tCandidate;
+                mOnsetCount++;
+            }
+            mOnsetStrength = mFluxPeak>0.0f ? tCurrent/mFluxPeak : 0.0f;
+        }
+        if (--mFramesUntilTempoUpdate==0) {
+            mFramesUntilTempoUpdate = mTempoUpdateFrames;
+            updateTempo(inFrameIndex);
+        }
+        trackBeat(tCandidate,tOnset);
+        publishSnapshot(inFrameIndex);
+    }
+
+    private void updateTempo(long inFrameIndex) {
+        int tLength = (int)Math.min(inFrameIndex+1, mFluxHistory.length);
+        if (tLength<mMinimumTempoHistoryFrames) {
+            return;
+        }
+        //chronological copy without mean ...
+        long tOldest = inFrameIndex+1-tLength;
+        float tMean = 0.0f;
+        for (int i=0; i<tLength; i++) {
+            mTempoScratch[i] = mFluxHistory[(int)((tOldest+i)%mFluxHistory.length)];
+            tMean += mTempoScratch[i];
+        }
+        tMean /= tLength;
+        float tEnergy = 0.0f;
+        for (int i=0; i<tLength; i++) {
+            mTempoScratch[i] -= tMean;
+            tEnergy += mTempoScratch[i]*mTempoScratch[i];
+        }
+        if (tEnergy<=0.0f) {
+            return;
+        }
+        int tBestLag = -1;
+        float tBestScore = 0.0f;
+        for (int tLag=mMinimumLag-1; tLag<=mMaximumLag+1; tLag++) {
+            float tSum = 0.0f;
+            for (int i=tLag; i<tLength; i++) {
+                tSum += mTempoScratch[i]*mTempoScratch[i-tLag];
+            }
+            mAutocorrelation[tLag] = tSum;
+            if (tLag>=mMinimumLag && tLag<=mMaximumLag) {
+                //log-gaussian tempo prior around cPreferredBeatsPerMinute ...
+                double tOctaves = Math.log(60.0*mFramesPerSecond/tLag/cPreferredBeatsPerMinute)/Math.log(2.0)/cPreferredTempoOctaves;
+                float tScore = tSum*(float)Math.exp(-0.5*tOctaves*tOctaves);
+                if (tScore>tBestScore) {
+                    tBestScore = tScore;
+                    tBestLag = tLag;
+                }
+            }
+        }
+        if (tBestLag<0) {
+            return;
+        }
+        //parabolic interpolation for a sub-frame beat period ...
+        float tLeft = mAutocorrelation[tBestLag-1];
+        float tCenter = mAutocorrelation[tBestLag];
+        float tRight = mAutocorrelation[tBestLag+1];
+        float tDenominator = tLeft-2.0f*tCenter+tRight;
+        double tOffset = (tDenominator<0.0f) ? 0.5*(tLeft-tRight)/tDenominator : 0.0;
+        mBeatPeriod = tBestLag+Math.max(-0.5, Math.min(0.5, tOffset));
+        mTempoConfidence = Math.max(0.0f, Math.min(1.0f, tCenter/tEnergy));
+        //beat phase: the pulse train with the most flux energy through the history wins ...
+        int tPeriod = (int)Math.round(mBeatPeriod);
+        int tBestPhase = 0;
+        float tBestPhaseEnergy = -Float.MAX_VALUE;
+        for (int tPhase=0; tPhase<tPeriod; tPhase++) {
+            float tPhaseEnergy = 0.0f;
+            for (int k=0; ; k++) {
+                int i = tLength-1-tPhase-(int)Math.round(k*mBeatPeriod);
+                if (i<0) {
+                    break;
+                }
+                tPhaseEnergy += mTempoScratch[i];
+            }
+            if (tPhaseEnergy>tBestPhaseEnergy) {
+                tBestPhaseEnergy = tPhaseEnergy;
+                tBestPhase = tPhase;
+            }
+        }
+        mNextBeatFrame = inFrameIndex-tBestPhase+mBeatPeriod;
+        if (mBeatCount>0 && mNextBeatFrame-mLastBeatFrame<(1.0-cBeatTolerance)*mBeatPeriod) {
+            //the grid moved backwards, the beat just registered already covers this one ...
+            mNextBeatFrame += mBeatPeriod;
+        }
+    }
+
+    private void trackBeat(long inFrame,boolean inOnset) {
+        if (mBeatPeriod<=0.0) {
+            //no tempo yet, every onset is a beat ...
+            if (inOnset) {
+                registerBeat(inFrame);
+            }
+            return;
+        }
+        double tTolerance = cBeatTolerance*mBeatPeriod;
+        if (inOnset && (mBeatCount==0 || Math.abs(inFrame-mNextBeatFrame)<=tTolerance)) {
+            //lock the beat grid onto the onset ...
+            registerBeat(inFrame);
+        } else if (mBeatCount>0) {
+            //no onset close to the predicted beat, keep the grid running ...
+            while (inFrame>mNextBeatFrame+tTolerance) {
+                registerBeat(mNextBeatFrame);
+            }
+        }
+    }
+
+    private void registerBeat(double inFrame) {
+        mLastBeatFrame = inFrame;
+        mNextBeatFrame = inFrame+mBeatPeriod;
+        mBeatCount++;
+    }
+
+    private long getFrameTimeInMicroseconds(double inFrame) {
+        return (long)((mFirstCenterSamplePosition+inFrame*mBaseMusic_ShortTimeFourierTransform.getHopSize())*1000000.0/mSampleRate);
+    }
+
+    private void publishSnapshot(long inFrameIndex) {
+        float[] tBandLevels = new float[cBAND_COUNT];
+        for (int b=0; b<cBAND_COUNT; b++) {
+            tBandLevels[b] = mBandPeaks[b]>0.0f ? mBandEnergies[b]/mBandPeaks[b] : 0.0f;
+        }
+        float tBeatsPerMinute = mBeatPeriod>0.0 ? (float)(60.0*mFramesPerSecond/mBeatPeriod) : 0.0f;
+        mSnapshot = new Snapshot(
+            getFrameTimeInMicroseconds(inFrameIndex),
+            mBeatCount,
+            mBeatCount>0 ? getFrameTimeInMicroseconds(mLastBeatFrame) : 0,
+            tBeatsPerMinute,
+            mTempoConfidence,
+            mOnsetCount,
+            mOnsetStrength,
+            mBandEnergies.clone(),
+            tBandLevels
+        );
+    }
+
+//---
+
+    public static class Snapshot {
+
+        private final long mTimeInMicroseconds;
+        private final int mBeatCount;
+        private final long mLastBeatTimeInMicroseconds;
+        private final float mBeatsPerMinute;
+        private final float mTempoConfidence;
+        private final int mOnsetCount;
+        private final float mOnsetStrength;
+        private final float[] mBandEnergies;
+        private final float[] mBandLevels;
+
+        private Snapshot(long inTimeInMicroseconds,int inBeatCount,long inLastBeatTimeInMicroseconds,float inBeatsPerMinute,float inTempoConfidence,int inOnsetCount,float inOnsetStrength,float[] inBandEnergies,float[] inBandLevels) {
+            mTimeInMicroseconds = inTimeInMicroseconds;
+            mBeatCount = inBeatCount;
+            mLastBeatTimeInMicroseconds = inLastBeatTimeInMicroseconds;
+            mBeatsPerMinute = inBeatsPerMinute;
+            mTempoConfidence = inTempoConfidence;
+            mOnsetCount = inOnsetCount;
+            mOnsetStrength = inOnsetStrength;
+            mBandEnergies = inBandEnergies;
+            mBandLevels = inBandLevels;
+        }
+
+        public long getTimeInMicroseconds()             { return mTimeInMicroseconds; }
+        public int getBeatCount()                       { return mBeatCount; }
+        public long getLastBeatTimeInMicroseconds()     { return mLastBeatTimeInMicroseconds; }
+        public float getBeatsPerMinute()                { return mBeatsPerMinute; }
+        public float getTempoConfidence()               { return mTempoConfidence; }
+        public int getOnsetCount()                      { return mOnsetCount; }
+        public float getOnsetStrength()                 { return mOnsetStrength; }
+        public int getBandCount()                       { return mBandEnergies.length; }
+        public float getBandEnergy(int inBand)          { return mBandEnergies[inBand]; }
+        public float getBandLevel(int inBand)           { return mBandLevels[inBand]; }
+
+        //beats already audible at the given playback position, analysis runs ahead of the speakers ...
+        public int getBeatCount(long inPlaybackTimeInMicroseconds) {
+            if (mBeatCount==0 || inPlaybackTimeInMicroseconds>=mLastBeatTimeInMicroseconds) {
+                return mBeatCount;
+            }
+            if (mBeatsPerMinute<=0.0f) {
+                return mBeatCount-1;
+            }
+            double tBeatLength = 60000000.0/mBeatsPerMinute;
+            return Math.max(0, mBeatCount-(int)Math.ceil((mLastBeatTimeInMicroseconds-inPlaybackTimeInMicroseconds)/tBeatLength));
+        }
+
+        //position inside the current beat at the given playback position, 0.0 on the beat ...
+        public float getBeatPhase(long inPlaybackTimeInMicroseconds) {
+            if (mBeatCount==0 || mBeatsPerMinute<=0.0f) {
+                return 0.0f;
+            }
+            double tBeats = (inPlaybackTimeInMicroseconds-mLastBeatTimeInMicroseconds)*mBeatsPerMinute/60000000.0;
+            return (float)(tBeats-Math.floor(tBeats));
+        }
+
+    }
+
+}
@@ -15,6 +15,10 @@ package framework.base;
  ** adapted, stripped down and modified ripoff from KJ-DSS project by Kristofer Fudalewski.
  ** Web: http://sirk.sytes.net - Original author email: sirk_sytes@hotmail.com 
  **
+ ** The player thread stores the audio data into a BaseMusic_AudioRingBuffer before handing it
+ ** to the line, the GL thread copies the sample window at the current playback position out of
+ ** it on every synchronize(). DSPs always see one consistent window starting at offset 0.
+ **
  **/
 
 import java.util.*;
@@ -27,10 +31,9 @@ public class BaseMusic_DigitalSignalSynchronizer {
 
     private SourceDataLine mSourceDataLine;
     private int mSampleSize;
-    private byte[] mAudioDataBuffer;
+    private BaseMusic_AudioRingBuffer mBaseMusic_AudioRingBuffer;
     private int mFramesPerSecond;
     private int mFrameRateRatioHintCalibration;
-    private int mPosition;
     private Context mContext;
     private Normalizer mNormalizer;
     private Synchronizer mSynchronizer;
@@ -75,9 +78,9 @@ public class BaseMusic_DigitalSignalSynchronizer {
         if (mSynchronizer == null) {
             mSourceDataLine = inSourceDataLine;
             mSampleSize = (int) (Math.round(mSourceDataLine.getFormat().getFrameRate()/(float)mFramesPerSecond));
-            mContext = new Context(mSampleSize);
-            mAudioDataBuffer = new byte[inSourceDataLine.getBufferSize()+DEFAULT_OVERRUN_PROTECTION];
-            mPosition = 0;
+            mContext = new Context(mSampleSize, mSampleSize*mSourceDataLine.getFormat().getFrameSize());
+            //everything the line still buffers plus some slack for the window currently being read ...
+            mBaseMusic_AudioRingBuffer = new BaseMusic_AudioRingBuffer(2*(inSourceDataLine.getBufferSize()+DEFAULT_OVERRUN_PROTECTION+mContext.mWindow.length));
             mNormalizer = null;
             for (BaseMusic_DigitalSignalProcessorInterface wDsp : mRegistered_DigitalSignalProcessors) {
                 wDsp.initialize(mSampleSize, inSourceDataLine);
@@ -87,21 +90,10 @@ public class BaseMusic_DigitalSignalSynchronizer {
     }
 
     protected void storeAudioData( byte[] pAudioData, int pOffset, int pLength ) {
-        if (mAudioDataBuffer == null) {
+        if (mBaseMusic_AudioRingBuffer == null) {
             return;
         }
-        int wOverrun = 0;
-        if (mPosition + pLength > mAudioDataBuffer.length - 1) {
-            wOverrun = (mPosition + pLength) - mAudioDataBuffer.length;
-            pLength = mAudioDataBuffer.length - mPosition;
-        }
-        System.arraycopy(pAudioData, pOffset, mAudioDataBuffer, mPosition,pLength);
-        if (wOverrun > 0) {
-            System.arraycopy(pAudioData, pOffset + pLength, mAudioDataBuffer,0, wOverrun);
-            mPosition = wOverrun;
-        } else {
-            mPosition += pLength;
-        }
+        mBaseMusic_AudioRingBuffer.write(pAudioData, pOffset, pLength);
     }
 
     //writes the entire specified buffer to the monitored source data line an any registered DSPs.
@@ -120,17 +112,19 @@ public class BaseMusic_DigitalSignalSynchronizer {
 
     //writes part of specified buffer to the monitored source data line an any registered DSPs.
     protected void writeChunkedAudioData( byte[] pAudioData, int pOffset, int pLength ) {
-        if (mAudioDataBuffer == null) {
+        if (mBaseMusic_AudioRingBuffer == null) {
             return;
         }
         int wWl;
-        for (int o = pOffset; o < pOffset + pLength; o += DEFAULT_WRITE_CHUNK_SIZE) {
+        int wEnd = pOffset + pLength;
+        for (int o = pOffset; o < wEnd; o += DEFAULT_WRITE_CHUNK_SIZE) {
             wWl = DEFAULT_WRITE_CHUNK_SIZE;
-            if (o + wWl >= pLength) {
-                wWl = pLength - o;
+            if (o + wWl > wEnd) {
+                wWl = wEnd - o;
             }
-            mSourceDataLine.write(pAudioData, o, wWl);
+            //store first, the line may start playing the chunk before write() returns ...
             storeAudioData(pAudioData, o, wWl);
+            mSourceDataLine.write(pAudioData, o, wWl);
         }
     }
 
@@ -141,20 +135,33 @@ public class BaseMusic_DigitalSignalSynchronizer {
         private int    mBufferOffset;
         private int    mSampleLength;
         private float  mFrameRatioHint;
+        private byte[] mWindow;
+        private long   mWindowPosition = -1;
 
         //create a DSS context with a fixed sample length.
-        public Context( int pLength ) {
+        public Context( int pLength, int pWindowSize ) {
             mSampleLength = pLength;
+            mWindow = new byte[pWindowSize];
         }
 
-        //returns the data buffer of this DSS.
+        //returns the data buffer of this DSS, a private copy of the current sample window.
         public byte[] getDataBuffer() {
-            return mAudioDataBuffer;
+            return mWindow;
         }
 
         //returns a normalized sample from the DSS data buffer.
         public float[][] getDataNormalized() {
-            return getNormalizer().normalize( mAudioDataBuffer, mBufferOffset, mSampleLength );
+            return getNormalizer().normalize( mWindow, mBufferOffset, mSampleLength );
+        }
+
+        //returns the normalized sample averaged over all channels, converted in the same pass.
+        public float[] getDataNormalizedMerged() {
+            return getNormalizer().normalizeMerged( mWindow, mBufferOffset, mSampleLength );
+        }
+
+        //returns the stream byte position of the current sample window, -1 before enough data was played.
+        public long getWindowPosition() {
+            return mWindowPosition;
         }
 
         public float getFrameRatioHint() {
@@ -166,9 +173,8 @@ public class BaseMusic_DigitalSignalSynchronizer {
             return mSampleLength;
         }
 
-        //Returns the data buffer offset to start reading from. Please note that the offset + length 
-        //can be beyond the buffere length. This simply means, the rest of data sample has rolled over
-        //to the beginning of the data buffer. See the Normalizer inner class for an example. 
+        //Returns the data buffer offset to start reading from. Always 0 since the window is copied
+        //out of the ring buffer, there is no roll over anymore. 
         public int getOffset() {
             return mBufferOffset;
         }
@@ -186,8 +192,7 @@ public class BaseMusic_DigitalSignalSynchronizer {
 
         private AudioFormat audioFormat;		
         private float[][] channels;
-        private int  channelSize;
-        private long audioSampleSize;
+        private float[] merged;
 
         public Normalizer(AudioFormat pFormat) {
             audioFormat = pFormat;
@@ -195,36 +200,19 @@ public class BaseMusic_DigitalSignalSynchronizer {
             for (int c = 0; c < pFormat.getChannels(); c++) {
                 channels[c] = new float[mSampleSize];
             }
-            channelSize = audioFormat.getFrameSize() / audioFormat.getChannels();
-            audioSampleSize = (1 << (audioFormat.getSampleSizeInBits() - 1));
+            merged = new float[mSampleSize];
         }
 
         public float[][] normalize( byte[] pData, int pPosition, int pLength ) {
-            int wChannels  = audioFormat.getChannels();
-            int wSsib      = audioFormat.getSampleSizeInBits();
-            int wFrameSize = audioFormat.getFrameSize();
-            //loop through audio data.
-            for( int sp = 0; sp < mSampleSize; sp++ ) { 
-                if ( pPosition >= pData.length ) {
-                    pPosition = 0;
-                }
-                int cdp = 0;
-                //loop through channels.
-                for( int ch = 0; ch < wChannels; ch++ ) {
-                    //sign least significant byte. (PCM_SIGNED)
-                    long sm = ( pData[ pPosition + cdp ] & 0xFF ) - 128;
-                    for( int bt = 8, bp = 1; bt < wSsib; bt += 8 ) {
-                        sm += pData[ pPosition + cdp + bp ] << bt;
-                        bp++;
-                    }
-                    //store normalized data.
-                    channels[ ch ][ sp ] = (float)sm / audioSampleSize;
-                    cdp += channelSize;
-                }
-                pPosition += wFrameSize;
-            }
+            BaseMusic_PCMNormalizer.normalize(pData, pPosition, mSampleSize, audioFormat, channels, merged);
             return channels;
         }
+
+        //same pass as normalize(), returns the average of all channels instead.
+        public float[] normalizeMerged( byte[] pData, int pPosition, int pLength ) {
+            BaseMusic_PCMNormalizer.normalize(pData, pPosition, mSampleSize, audioFormat, channels, merged);
+            return merged;
+        }
     }
 
 //---
@@ -243,12 +231,17 @@ public class BaseMusic_DigitalSignalSynchronizer {
             mFrameSize = mSourceDataLine.getFormat().getFrameSize();
         }
 
-        private int calculateSamplePosition() {
-            return (int) ((long) (mSourceDataLine.getLongFramePosition() * mFrameSize) % (long) (mAudioDataBuffer.length));
+        private long calculateSamplePosition() {
+            return mSourceDataLine.getLongFramePosition() * mFrameSize;
         }
 
         public void synchronize() {
-            mContext.mBufferOffset = calculateSamplePosition();
+            //consistent copy of the window being played right now, the previous one is kept until there is enough data ...
+            long tWindowPosition = mBaseMusic_AudioRingBuffer.read(calculateSamplePosition(), mContext.mWindow, 0, mContext.mWindow.length);
+            if (tWindowPosition>=0) {
+                mContext.mWindowPosition = tWindowPosition;
+            }
+            mContext.mBufferOffset = 0;
             //Calculate the frame rate ratio hint. This value can be used by
             //animated DSP's to fast forward animation frames to make up for
             //inconsistencies with the frame rate.
@@ -15,6 +15,12 @@ package framework.base;
  ** Slightly adapted, stripped down and modified ripoff from KJ-DSS project by Kristofer Fudalewski.
  ** Web: http://sirk.sytes.net - Original author email: sirk_sytes@hotmail.com 
  **
+ ** The spectrum is computed with a real input transform: the N real samples are packed pairwise
+ ** into N/2 complex values, transformed by an iterative radix-4 kernel (one radix-2 stage when
+ ** log2(N/2) is odd) and the real spectrum is split out of the half sized result afterwards. All
+ ** scratch buffers and twiddle tables are allocated once in the constructor. The original complex
+ ** radix-2 transform is kept as calculateComplex() for reference.
+ **
  **/
 
 public class BaseMusic_FastFourierTransform {
@@ -26,6 +32,16 @@ public class BaseMusic_FastFourierTransform {
     private float[] fftCos;
     private int[]   fftBr;
     private int ss, ss2, nu; 
+    //real input transform ...
+    private float[] zre;
+    private float[] zim;
+    private float[] sqmag;
+    private float[] rfftSin;
+    private float[] rfftCos;
+    private float[] splitSin;
+    private float[] splitCos;
+    private int[]   rfftBr;
+    private float   sqnorm;
 
     /**
      * @param pSampleSize The amount of the sample provided to the "calculate" method to use during
@@ -45,6 +61,12 @@ public class BaseMusic_FastFourierTransform {
         fftSin = new float[ nu * ss2 ];
         fftCos = new float[ nu * ss2 ];
         prepareTables();
+        if ( ss >= 4 ) {
+            zre = new float[ ss2 ];
+            zim = new float[ ss2 ];
+            sqmag = new float[ ss2 ];
+            prepareRealTables();
+        }
     }
 
     //bit swapping method
@@ -67,6 +89,111 @@ public class BaseMusic_FastFourierTransform {
      * @return         The results of the calculation, normalized between 0.0 and 1.0. 
      */
     public float[] calculate( float[] pSample ) {
+        if ( sqmag == null ) {
+            return calculateComplex( pSample );
+        }
+        calculateSquaredMagnitudes( pSample );
+        for ( int i = 0; i < ss2; i++ ) {
+            mag[ i ] = (float)Math.sqrt( sqmag[ i ] );
+        }
+        return mag;
+    }
+
+    /**
+     * Same as calculate() but returns the squared magnitudes. Saves the square root per band for callers
+     * which only compare magnitudes (peak picking) or want the power spectrum anyway.
+     * 
+     * @param  pSample The sample to compute FFT values on.
+     * @return         The squared results of calculate(), the array is reused by the next call. 
+     */
+    public float[] calculateSquaredMagnitudes( float[] pSample ) {
+        if ( sqmag == null ) {
+            float[] wMag = calculateComplex( pSample );
+            for ( int i = 0; i < ss2; i++ ) {
+                mag[ i ] = wMag[ i ] * wMag[ i ];
+            }
+            return mag;
+        }
+        int n = ss2;
+        int wLength = Math.min( pSample.length, ss );
+        //pack even/odd samples as real/imaginary parts, bit reversed for the in-place kernel
+        for ( int a = 0; a < n; a++ ) {
+            int r = rfftBr[ a ];
+            int e = a << 1;
+            zre[ r ] = ( e < wLength ) ? pSample[ e ] : 0.0f;
+            zim[ r ] = ( e + 1 < wLength ) ? pSample[ e + 1 ] : 0.0f;
+        }
+        int l = 1;
+        //odd number of radix-2 stages -> one plain radix-2 pass first
+        if ( ( Integer.numberOfTrailingZeros( n ) & 1 ) != 0 ) {
+            for ( int k = 0; k < n; k += 2 ) {
+                float tr = zre[ k + 1 ];
+                float ti = zim[ k + 1 ];
+                zre[ k + 1 ] = zre[ k ] - tr;
+                zim[ k + 1 ] = zim[ k ] - ti;
+                zre[ k ] += tr;
+                zim[ k ] += ti;
+            }
+            l = 2;
+        }
+        //radix-4 passes, each one merges four transforms of length l into one of length 4l
+        for ( ; l < n; l <<= 2 ) {
+            int wStride = n / ( l << 2 );
+            for ( int k = 0; k < n; k += ( l << 2 ) ) {
+                for ( int j = 0, x = 0; j < l; j++, x += wStride ) {
+                    int i0 = k + j;
+                    int i1 = i0 + l;
+                    int i2 = i1 + l;
+                    int i3 = i2 + l;
+                    //b' = w^2j * z1, c' = w^j * z2, d' = w^3j * z3
+                    float c1 = rfftCos[ x ],     s1 = rfftSin[ x ];
+                    float c2 = rfftCos[ x * 2 ], s2 = rfftSin[ x * 2 ];
+                    float c3 = rfftCos[ x * 3 ], s3 = rfftSin[ x * 3 ];
+                    float br = zre[ i1 ] * c2 + zim[ i1 ] * s2;
+                    float bi = zim[ i1 ] * c2 - zre[ i1 ] * s2;
+                    float cr = zre[ i2 ] * c1 + zim[ i2 ] * s1;
+                    float ci = zim[ i2 ] * c1 - zre[ i2 ] * s1;
+                    float dr = zre[ i3 ] * c3 + zim[ i3 ] * s3;
+                    float di = zim[ i3 ] * c3 - zre[ i3 ] * s3;
+                    float apr = zre[ i0 ] + br, api = zim[ i0 ] + bi;
+                    float amr = zre[ i0 ] - br, ami = zim[ i0 ] - bi;
+                    float cpr = cr + dr, cpi = ci + di;
+                    float cmr = cr - dr, cmi = ci - di;
+                    zre[ i0 ] = apr + cpr;
+                    zim[ i0 ] = api + cpi;
+                    zre[ i2 ] = apr - cpr;
+                    zim[ i2 ] = api - cpi;
+                    //-i * (c' - d') and +i * (c' - d')
+                    zre[ i1 ] = amr + cmi;
+                    zim[ i1 ] = ami - cmr;
+                    zre[ i3 ] = amr - cmi;
+                    zim[ i3 ] = ami + cmr;
+                }
+            }
+        }
+        //split the even/odd spectra and combine them: X[k] = E[k] + w^k * O[k] (both scaled by 2)
+        for ( int k = 0; k < n; k++ ) {
+            int j = ( n - k ) & ( n - 1 );
+            float er = zre[ k ] + zre[ j ];
+            float ei = zim[ k ] - zim[ j ];
+            float or = zim[ k ] + zim[ j ];
+            float oi = zre[ j ] - zre[ k ];
+            float c = splitCos[ k ];
+            float s = splitSin[ k ];
+            float xr = er + or * c + oi * s;
+            float xi = ei + oi * c - or * s;
+            sqmag[ k ] = ( xr * xr + xi * xi ) * sqnorm;
+        }
+        return sqmag;
+    }
+
+    /**
+     * Reference implementation of calculate() using a full complex radix-2 transform of the real input.
+     * 
+     * @param  pSample The sample to compute FFT values on.
+     * @return         The results of the calculation, normalized between 0.0 and 1.0. 
+     */
+    public float[] calculateComplex( float[] pSample ) {
         int n2 = ss2;
         //fill buffer
         for ( int a = 0; a < pSample.length; a++ ) {
@@ -202,4 +329,34 @@ public class BaseMusic_FastFourierTransform {
             fftBr[ k ] = bitrev( k, nu );
         }
     }
+
+    /**
+     * Pre-calculates the twiddle, split and bitrev tables of the real input transform.
+     */
+    private void prepareRealTables() {
+        int n = ss2;
+        int wNu = nu - 1;
+        //kernel twiddles w^x = exp(-2*PI*i*x/n), the radix-4 passes read up to x = 3/4*n
+        rfftSin = new float[ n ];
+        rfftCos = new float[ n ];
+        for ( int x = 0; x < n; x++ ) {
+            double arg = 2.0 * Math.PI * x / n;
+            rfftSin[ x ] = (float)Math.sin( arg );
+            rfftCos[ x ] = (float)Math.cos( arg );
+        }
+        //split twiddles exp(-2*PI*i*k/ss) for the even/odd recombination
+        splitSin = new float[ n ];
+        splitCos = new float[ n ];
+        for ( int k = 0; k < n; k++ ) {
+            double arg = 2.0 * Math.PI * k / ss;
+            splitSin[ k ] = (float)Math.sin( arg );
+            splitCos[ k ] = (float)Math.cos( arg );
+        }
+        rfftBr = new int[ n ];
+        for( int k = 0; k < n; k++ ) {
+            rfftBr[ k ] = bitrev( k, wNu );
+        }
+        //the recombined spectrum is scaled by 2, calculate() normalizes by ss
+        sqnorm = 1.0f / ( 4.0f * (float)ss * (float)ss );
+    }
 }
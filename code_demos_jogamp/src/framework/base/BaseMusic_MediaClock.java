@@ -0,0 +1,94 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Continuous media clock in seconds driven by the sample position of the playing SourceDataLine.
+ ** The line position only advances in blocks of the audio buffer, so the clock runs on
+ ** System.nanoTime() between updates and every fresh line position slews it by a fraction of the
+ ** measured drift. Only drifts beyond cMaximumDrift (start of playback, dropouts) make it jump.
+ ** The clock never runs backwards: after a backward correction it holds until media time has
+ ** caught up. Without a line (no music or not started yet) it simply runs on System.nanoTime().
+ ** Updated and read on the GL thread only, the line is attached by the player thread.
+ **
+ **/
+
+import javax.sound.sampled.*;
+
+public class BaseMusic_MediaClock {
+
+    private static final double cMaximumDrift = 0.1;
+    private static final double cDriftCorrectionGain = 0.1;
+
+    private volatile SourceDataLine mSourceDataLine;
+    private boolean mStarted;
+    private long mAnchorNanoTime;
+    private double mAnchorMediaTime;
+    private double mLastTime;
+    private long mLastFramePosition;
+    private double mDrift;
+    private double mMaximumMeasuredDrift;
+    private int mResynchronizations;
+
+    //player thread ...
+    public void attach(SourceDataLine inSourceDataLine) {
+        mSourceDataLine = inSourceDataLine;
+    }
+
+    public boolean isAudioDriven() {
+        return mSourceDataLine!=null && mLastFramePosition>0;
+    }
+
+    public double update(long inNanoTime) {
+        if (!mStarted) {
+            mStarted = true;
+            mAnchorNanoTime = inNanoTime;
+            mAnchorMediaTime = 0.0;
+        }
+        SourceDataLine tSourceDataLine = mSourceDataLine;
+        if (tSourceDataLine!=null) {
+            long tFramePosition = tSourceDataLine.getLongFramePosition();
+            //only a position that moved since the last update tells something about the current time ...
+            if (tFramePosition>0 && tFramePosition!=mLastFramePosition) {
+                double tAudioTime = (double)tFramePosition/(double)tSourceDataLine.getFormat().getFrameRate();
+                //measured against the unclamped anchor line, a hold after a backward jump is no drift ...
+                double tError = tAudioTime-(mAnchorMediaTime+(inNanoTime-mAnchorNanoTime)*1.0e-9);
+                if (Math.abs(tError)>cMaximumDrift || mLastFramePosition==0) {
+                    mAnchorNanoTime = inNanoTime;
+                    mAnchorMediaTime = tAudioTime;
+                    mResynchronizations++;
+                    BaseLogging.getInstance().info("MEDIA CLOCK RESYNCHRONIZED TO AUDIO ... DRIFT="+(int)(tError*1000.0)+"MS");
+                } else {
+                    mAnchorMediaTime += tError*cDriftCorrectionGain;
+                    mMaximumMeasuredDrift = Math.max(mMaximumMeasuredDrift, Math.abs(tError));
+                }
+                mDrift = tError;
+                mLastFramePosition = tFramePosition;
+            }
+        }
+        mLastTime = Math.max(mLastTime, getTimeAt(inNanoTime));
+        return mLastTime;
+    }
+
+    //media time at the given (e.g. future presentation) time, based on the last update ...
+    public double getTimeAt(long inNanoTime) {
+        if (!mStarted) {
+            return 0.0;
+        }
+        return Math.max(mLastTime, mAnchorMediaTime+(inNanoTime-mAnchorNanoTime)*1.0e-9);
+    }
+
+    public double getTime()                     { return mLastTime; }
+    public double getDrift()                    { return mDrift; }
+    public double getMaximumMeasuredDrift()     { return mMaximumMeasuredDrift; }
+    public int getResynchronizations()          { return mResynchronizations; }
+
+}
@@ -0,0 +1,384 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Precalculated music data for deterministic frame captures. The whole track is decoded once,
+ ** then a fork-join pool computes the spectrum of every video frame with the very same code as
+ ** the live BaseMusic_ScopeAndSpectrumAnalyzer (sample window starting at frame/fps seconds,
+ ** sequential decay afterwards), while one more task runs a BaseMusic_BeatTracker over the
+ ** track and samples beats, tempo, onsets and band energies at every frame time. The result is
+ ** stored gzipped next to the music file (or in the cache directory when the music comes from a
+ ** jar) and reused as long as music file and framerate are unchanged. Lookups by frame number
+ ** are plain array accesses.
+ **
+ **/
+
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import javax.sound.sampled.*;
+import framework.util.*;
+
+public class BaseMusic_OfflineAnalysis {
+
+    public static final String cCACHE_FILE_EXTENSION = ".analysis";
+    public static final String cCACHE_DIRECTORY_NAME = "cache";
+    private static final int cMagic = 0x424D4F41;
+    private static final int cVersion = 1;
+    private static final int cFramesPerTask = 256;
+    private static final float cFixedPointScale = 65535.0f;
+
+    private final int mFramesPerSecond;
+    private final int mFrameCount;
+    private final int mSpectrumBandCount;
+    private final int mBandCount;
+    private final short[] mSpectra;
+    private final short[] mBandLevels;
+    private final float[] mBandEnergies;
+    private final float[] mOnsetStrengths;
+    private final int[] mOnsetCounts;
+    private final int[] mBeatCounts;
+    private final long[] mLastBeatTimes;
+    private final float[] mBeatsPerMinute;
+    private final float[] mTempoConfidences;
+    private final float[] mSpectrum;
+
+    private BaseMusic_OfflineAnalysis(int inFramesPerSecond,int inFrameCount,int inSpectrumBandCount,int inBandCount) {
+        mFramesPerSecond = inFramesPerSecond;
+        mFrameCount = inFrameCount;
+        mSpectrumBandCount = inSpectrumBandCount;
+        mBandCount = inBandCount;
+        mSpectra = new short[inFrameCount*inSpectrumBandCount];
+        mBandLevels = new short[inFrameCount*inBandCount];
+        mBandEnergies = new float[inFrameCount*inBandCount];
+        mOnsetStrengths = new float[inFrameCount];
+        mOnsetCounts = new int[inFrameCount];
+        mBeatCounts = new int[inFrameCount];
+        mLastBeatTimes = new long[inFrameCount];
+        mBeatsPerMinute = new float[inFrameCount];
+        mTempoConfidences = new float[inFrameCount];
+        mSpectrum = new float[inSpectrumBandCount];
+    }
+
+    public int getFramesPerSecond() { return mFramesPerSecond; }
+    public int getFrameCount()      { return mFrameCount; }
+
+    private int clampFrame(int inFrameNumber) {
+        return Math.max(0, Math.min(mFrameCount-1, inFrameNumber));
+    }
+
+    //same layout as BaseMusic_ScopeAndSpectrumAnalyzer.getFFTSpectrum(), the array is reused by the next call ...
+    public float[] getFFTSpectrum(int inFrameNumber) {
+        int tOffset = clampFrame(inFrameNumber)*mSpectrumBandCount;
+        for (int i=0; i<mSpectrumBandCount; i++) {
+            mSpectrum[i] = (mSpectra[tOffset+i] & 0xFFFF)/cFixedPointScale;
+        }
+        return mSpectrum;
+    }
+
+    public BaseMusic_BeatTracker.Snapshot getBeatSnapshot(int inFrameNumber) {
+        int tFrame = clampFrame(inFrameNumber);
+        float[] tBandEnergies = new float[mBandCount];
+        float[] tBandLevels = new float[mBandCount];
+        for (int i=0; i<mBandCount; i++) {
+            tBandEnergies[i] = mBandEnergies[tFrame*mBandCount+i];
+            tBandLevels[i] = (mBandLevels[tFrame*mBandCount+i] & 0xFFFF)/cFixedPointScale;
+        }
+        return BaseMusic_BeatTracker.createSnapshot(getFrameTimeInMicroseconds(inFrameNumber), mBeatCounts[tFrame], mLastBeatTimes[tFrame], mBeatsPerMinute[tFrame], mTempoConfidences[tFrame], mOnsetCounts[tFrame], mOnsetStrengths[tFrame], tBandEnergies, tBandLevels);
+    }
+
+    private long getFrameTimeInMicroseconds(int inFrameNumber) {
+        return (long)inFrameNumber*1000000L/mFramesPerSecond;
+    }
+
+    private static short toFixedPoint(float inValue) {
+        return (short)Math.round(Math.max(0.0f, Math.min(1.0f, inValue))*cFixedPointScale);
+    }
+
+//---
+
+    public static BaseMusic_OfflineAnalysis getOfflineAnalysis(String inMusicFileName,int inFramesPerSecond) throws UnsupportedAudioFileException, IOException {
+        URL tURL = (new Object()).getClass().getResource(inMusicFileName);
+        if (tURL==null) {
+            throw new FileNotFoundException(inMusicFileName);
+        }
+        //the cache is only valid for exactly this music file ...
+        URLConnection tURLConnection = tURL.openConnection();
+        long tSourceLength = tURLConnection.getContentLength();
+        long tSourceLastModified = tURLConnection.getLastModified();
+        File tCacheFile = getCacheFile(inMusicFileName,tURL);
+        if (tCacheFile.exists()) {
+            try {
+                BaseMusic_OfflineAnalysis tOfflineAnalysis = read(tCacheFile,tSourceLength,tSourceLastModified,inFramesPerSecond);
+                if (tOfflineAnalysis!=null) {
+                    BaseLogging.getInstance().info("OFFLINE MUSIC ANALYSIS LOADED FROM "+tCacheFile.getPath()+" FRAMES="+tOfflineAnalysis.mFrameCount);
+                    return tOfflineAnalysis;
+                }
+                BaseLogging.getInstance().info("OFFLINE MUSIC ANALYSIS "+tCacheFile.getPath()+" IS OUTDATED ... REANALYSING!");
+            } catch (IOException e) {
+                BaseLogging.getInstance().warning("OFFLINE MUSIC ANALYSIS "+tCacheFile.getPath()+" IS UNREADABLE ... REANALYSING! "+e);
+            }
+        }
+        BaseMusic_OfflineAnalysis tOfflineAnalysis = analyse(inMusicFileName,inFramesPerSecond);
+        try {
+            tOfflineAnalysis.write(tCacheFile,tSourceLength,tSourceLastModified);
+            BaseLogging.getInstance().info("OFFLINE MUSIC ANALYSIS STORED TO "+tCacheFile.getPath());
+        } catch (IOException e) {
+            BaseLogging.getInstance().warning("UNABLE TO STORE OFFLINE MUSIC ANALYSIS TO "+tCacheFile.getPath()+" ... "+e);
+        }
+        return tOfflineAnalysis;
+    }
+
+    private static File getCacheFile(String inMusicFileName,URL inURL) {
+        if ("file".equals(inURL.getProtocol())) {
+            try {
+                return new File(new File(inURL.toURI()).getPath()+cCACHE_FILE_EXTENSION);
+            } catch (URISyntaxException e) {
+                //fall through to the cache directory ...
+            }
+        }
+        File tCacheDirectory = new File(cCACHE_DIRECTORY_NAME);
+        tCacheDirectory.mkdirs();
+        return new File(tCacheDirectory, inMusicFileName.substring(inMusicFileName.lastIndexOf('/')+1)+cCACHE_FILE_EXTENSION);
+    }
+
+    public static BaseMusic_OfflineAnalysis analyse(String inMusicFileName,int inFramesPerSecond) throws UnsupportedAudioFileException, IOException {
+        long tStartTime = System.nanoTime();
+        AudioInputStream tAudioInputStream = BaseMusic.openDecodedAudioInputStream(inMusicFileName);
+        AudioFormat tAudioFormat = tAudioInputStream.getFormat();
+        ByteArrayOutputStream tByteArrayOutputStream = new ByteArrayOutputStream();
+        byte[] tBuffer = new byte[64*1024];
+        int tRead;
+        while ((tRead = tAudioInputStream.read(tBuffer)) != -1) {
+            tByteArrayOutputStream.write(tBuffer, 0, tRead);
+        }
+        tAudioInputStream.close();
+        byte[] tPCM = tByteArrayOutputStream.toByteArray();
+        long tDecodeTime = System.nanoTime()-tStartTime;
+        float tSampleRate = tAudioFormat.getSampleRate();
+        int tFrameSize = tAudioFormat.getFrameSize();
+        int tSampleFrames = tPCM.length/tFrameSize;
+        int tFrameCount = Math.max(1, (int)Math.ceil((double)tSampleFrames*inFramesPerSecond/tSampleRate));
+        //same sample size per frame as BaseMusic_DigitalSignalSynchronizer ...
+        int tSampleSize = Math.round(tSampleRate/(float)inFramesPerSecond);
+        BaseMusic_ScopeAndSpectrumAnalyzer tProbe = new BaseMusic_ScopeAndSpectrumAnalyzer();
+        tProbe.initialize(tSampleSize, tSampleRate);
+        BaseMusic_OfflineAnalysis tOfflineAnalysis = new BaseMusic_OfflineAnalysis(inFramesPerSecond,tFrameCount,tProbe.getFFTSpectrum().length,BaseMusic_BeatTracker.cBAND_COUNT);
+        float[] tBandLevels = new float[tFrameCount*tOfflineAnalysis.mSpectrumBandCount];
+        ParallelUtils.getForkJoinPool().invoke(new AnalysisAction(
+            new SpectrumAction(tPCM,tAudioFormat,tSampleSize,inFramesPerSecond,tBandLevels,tOfflineAnalysis.mSpectrumBandCount,0,tFrameCount),
+            new BeatTrackingAction(tPCM,tAudioFormat,tOfflineAnalysis)
+        ));
+        //the decay depends on the previous frame, cheap enough to stay sequential ...
+        float[] tCurrent = new float[tOfflineAnalysis.mSpectrumBandCount];
+        float[] tLevels = new float[tOfflineAnalysis.mSpectrumBandCount];
+        for (int f=0; f<tFrameCount; f++) {
+            System.arraycopy(tBandLevels, f*tLevels.length, tLevels, 0, tLevels.length);
+            BaseMusic_ScopeAndSpectrumAnalyzer.applyDecay(tCurrent, tLevels, tProbe.getSpectrumAnalyserBandCount(), tProbe.getSpectrumAnalyserDecay());
+            for (int i=0; i<tCurrent.length; i++) {
+                tOfflineAnalysis.mSpectra[f*tCurrent.length+i] = toFixedPoint(tCurrent[i]);
+            }
+        }
+        BaseLogging.getInstance().info("OFFLINE MUSIC ANALYSIS OF "+inMusicFileName+" FRAMES="+tFrameCount+" DECODING="+(tDecodeTime/1000000)+"MS ANALYSIS="+((System.nanoTime()-tStartTime-tDecodeTime)/1000000)+"MS THREADS="+ParallelUtils.getForkJoinPool().getParallelism());
+        return tOfflineAnalysis;
+    }
+
+//---
+
+    private static BaseMusic_OfflineAnalysis read(File inFile,long inSourceLength,long inSourceLastModified,int inFramesPerSecond) throws IOException {
+        DataInputStream tDataInputStream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(inFile))));
+        try {
+            if (tDataInputStream.readInt()!=cMagic || tDataInputStream.readInt()!=cVersion || tDataInputStream.readLong()!=inSourceLength || tDataInputStream.readLong()!=inSourceLastModified || tDataInputStream.readInt()!=inFramesPerSecond) {
+                return null;
+            }
+            int tFrameCount = tDataInputStream.readInt();
+            int tSpectrumBandCount = tDataInputStream.readInt();
+            int tBandCount = tDataInputStream.readInt();
+            if (tBandCount!=BaseMusic_BeatTracker.cBAND_COUNT) {
+                return null;
+            }
+            BaseMusic_OfflineAnalysis tOfflineAnalysis = new BaseMusic_OfflineAnalysis(inFramesPerSecond,tFrameCount,tSpectrumBandCount,tBandCount);
+            //stored column wise, similar values next to each other compress better ...
+            for (int i=0; i<tOfflineAnalysis.mSpectra.length; i++)       { tOfflineAnalysis.mSpectra[i] = tDataInputStream.readShort(); }
+            for (int i=0; i<tOfflineAnalysis.mBandLevels.length; i++)    { tOfflineAnalysis.mBandLevels[i] = tDataInputStream.readShort(); }
+            for (int i=0; i<tOfflineAnalysis.mBandEnergies.length; i++)  { tOfflineAnalysis.mBandEnergies[i] = tDataInputStream.readFloat(); }
+            for (int i=0; i<tFrameCount; i++) { tOfflineAnalysis.mOnsetStrengths[i] = tDataInputStream.readFloat(); }
+            for (int i=0; i<tFrameCount; i++) { tOfflineAnalysis.mOnsetCounts[i] = tDataInputStream.readInt(); }
+            for (int i=0; i<tFrameCount; i++) { tOfflineAnalysis.mBeatCounts[i] = tDataInputStream.readInt(); }
+            for (int i=0; i<tFrameCount; i++) { tOfflineAnalysis.mLastBeatTimes[i] = tDataInputStream.readLong(); }
+            for (int i=0; i<tFrameCount; i++) { tOfflineAnalysis.mBeatsPerMinute[i] = tDataInputStream.readFloat(); }
+            for (int i=0; i<tFrameCount; i++) { tOfflineAnalysis.mTempoConfidences[i] = tDataInputStream.readFloat(); }
+            return tOfflineAnalysis;
+        } finally {
+            tDataInputStream.close();
+        }
+    }
+
+    private void write(File inFile,long inSourceLength,long inSourceLastModified) throws IOException {
+        DataOutputStream tDataOutputStream = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(inFile))));
+        try {
+            tDataOutputStream.writeInt(cMagic);
+            tDataOutputStream.writeInt(cVersion);
+            tDataOutputStream.writeLong(inSourceLength);
+            tDataOutputStream.writeLong(inSourceLastModified);
+            tDataOutputStream.writeInt(mFramesPerSecond);
+            tDataOutputStream.writeInt(mFrameCount);
+            tDataOutputStream.writeInt(mSpectrumBandCount);
+            tDataOutputStream.writeInt(mBandCount);
+            for (int i=0; i<mSpectra.length; i++)       { tDataOutputStream.writeShort(mSpectra[i]); }
+            for (int i=0; i<mBandLevels.length; i++)    { tDataOutputStream.writeShort(mBandLevels[i]); }
+            for (int i=0; i<mBandEnergies.length; i++)  { tDataOutputStream.writeFloat(mBandEnergies[i]); }
+            for (int i=0; i<mFrameCount; i++) { tDataOutputStream.writeFloat(mOnsetStrengths[i]); }
+            for (int i=0; i<mFrameCount; i++) { tDataOutputStream.writeInt(mOnsetCounts[i]); }
+            for (int i=0; i<mFrameCount; i++) { tDataOutputStream.writeInt(mBeatCounts[i]); }
+            for (int i=0; i<mFrameCount; i++) { tDataOutputStream.writeLong(mLastBeatTimes[i]); }
+            for (int i=0; i<mFrameCount; i++) { tDataOutputStream.writeFloat(mBeatsPerMinute[i]); }
+            for (int i=0; i<mFrameCount; i++) { tDataOutputStream.writeFloat(mTempoConfidences[i]); }
+        } finally {
+            tDataOutputStream.close();
+        }
+    }
+
+//---
+
+    @SuppressWarnings("serial")
+    private static class AnalysisAction extends RecursiveAction {
+
+        private final RecursiveAction mSpectrumAction;
+        private final RecursiveAction mBeatTrackingAction;
+
+        public AnalysisAction(RecursiveAction inSpectrumAction,RecursiveAction inBeatTrackingAction) {
+            mSpectrumAction = inSpectrumAction;
+            mBeatTrackingAction = inBeatTrackingAction;
+        }
+
+        protected void compute() {
+            invokeAll(mBeatTrackingAction, mSpectrumAction);
+        }
+
+    }
+
+    @SuppressWarnings("serial")
+    private static class SpectrumAction extends RecursiveAction {
+
+        private final byte[] mPCM;
+        private final AudioFormat mAudioFormat;
+        private final int mSampleSize;
+        private final int mFramesPerSecond;
+        private final float[] mBandLevels;
+        private final int mSpectrumBandCount;
+        private final int mFrom;
+        private final int mTo;
+
+        public SpectrumAction(byte[] inPCM,AudioFormat inAudioFormat,int inSampleSize,int inFramesPerSecond,float[] inBandLevels,int inSpectrumBandCount,int inFrom,int inTo) {
+            mPCM = inPCM;
+            mAudioFormat = inAudioFormat;
+            mSampleSize = inSampleSize;
+            mFramesPerSecond = inFramesPerSecond;
+            mBandLevels = inBandLevels;
+            mSpectrumBandCount = inSpectrumBandCount;
+            mFrom = inFrom;
+            mTo = inTo;
+        }
+
+        protected void compute() {
+            if (mTo-mFrom>cFramesPerTask) {
+                int tMiddle = (mFrom+mTo)>>>1;
+                invokeAll(
+                    new SpectrumAction(mPCM,mAudioFormat,mSampleSize,mFramesPerSecond,mBandLevels,mSpectrumBandCount,mFrom,tMiddle),
+                    new SpectrumAction(mPCM,mAudioFormat,mSampleSize,mFramesPerSecond,mBandLevels,mSpectrumBandCount,tMiddle,mTo)
+                );
+                return;
+            }
+            //every task needs its own analyzer, the FFT scratch buffers are not shareable ...
+            BaseMusic_ScopeAndSpectrumAnalyzer tAnalyzer = new BaseMusic_ScopeAndSpectrumAnalyzer();
+            tAnalyzer.initialize(mSampleSize, mAudioFormat.getSampleRate());
+            int tChannels = mAudioFormat.getChannels();
+            int tFrameSize = mAudioFormat.getFrameSize();
+            int tSampleFrames = mPCM.length/tFrameSize;
+            float[] tSample = new float[mSampleSize];
+            float[] tLevels = new float[mSpectrumBandCount];
+            for (int f=mFrom; f<mTo; f++) {
+                long tStart = (long)((double)f*mAudioFormat.getSampleRate()/mFramesPerSecond);
+                for (int s=0; s<mSampleSize; s++) {
+                    long tSampleFrame = tStart+s;
+                    float tSum = 0.0f;
+                    if (tSampleFrame<tSampleFrames) {
+                        int p = (int)(tSampleFrame*tFrameSize);
+                        for (int c=0; c<tChannels; c++) {
+                            //same conversion as BaseMusic_PCMNormalizer ...
+                            long tValue = (mPCM[p] & 0xFF)-128;
+                            tValue += mPCM[p+1]<<8;
+                            tSum += (float)tValue/32768.0f;
+                            p += 2;
+                        }
+                    }
+                    tSample[s] = tSum/(float)tChannels;
+                }
+                tAnalyzer.calculateBandLevels(tSample, tLevels);
+                System.arraycopy(tLevels, 0, mBandLevels, f*mSpectrumBandCount, mSpectrumBandCount);
+            }
+        }
+
+    }
+
+    @SuppressWarnings("serial")
+    private static class BeatTrackingAction extends RecursiveAction {
+
+        private final byte[] mPCM;
+        private final AudioFormat mAudioFormat;
+        private final BaseMusic_OfflineAnalysis mOfflineAnalysis;
+
+        public BeatTrackingAction(byte[] inPCM,AudioFormat inAudioFormat,BaseMusic_OfflineAnalysis inOfflineAnalysis) {
+            mPCM = inPCM;
+            mAudioFormat = inAudioFormat;
+            mOfflineAnalysis = inOfflineAnalysis;
+        }
+
+        protected void compute() {
+            BaseMusic_BeatTracker tBeatTracker = new BaseMusic_BeatTracker(mAudioFormat.getSampleRate(), mAudioFormat.getChannels());
+            int tFrameSize = mAudioFormat.getFrameSize();
+            long tSampleFrames = mPCM.length/tFrameSize;
+            long tFedFrames = 0;
+            int tBandCount = mOfflineAnalysis.mBandCount;
+            for (int f=0; f<mOfflineAnalysis.mFrameCount; f++) {
+                //feed up to half a window past the frame time, the latest spectrum is then centered on it ...
+                long tTarget = Math.min(tSampleFrames, (long)((double)f*mAudioFormat.getSampleRate()/mOfflineAnalysis.mFramesPerSecond)+tBeatTracker.getWindowSize()/2);
+                if (tTarget>tFedFrames) {
+                    tBeatTracker.writeAudioData(mPCM, (int)(tFedFrames*tFrameSize), (int)((tTarget-tFedFrames)*tFrameSize));
+                    tFedFrames = tTarget;
+                }
+                BaseMusic_BeatTracker.Snapshot tSnapshot = tBeatTracker.getSnapshot();
+                long tTime = mOfflineAnalysis.getFrameTimeInMicroseconds(f);
+                //only beats up to the frame time count, the tracker may already know the next one ...
+                int tBeatCount = tSnapshot.getBeatCount(tTime);
+                long tLastBeatTime = tSnapshot.getLastBeatTimeInMicroseconds();
+                if (tBeatCount<tSnapshot.getBeatCount() && tSnapshot.getBeatsPerMinute()>0.0f) {
+                    tLastBeatTime -= (long)((tSnapshot.getBeatCount()-tBeatCount)*60000000.0/tSnapshot.getBeatsPerMinute());
+                }
+                mOfflineAnalysis.mBeatCounts[f] = tBeatCount;
+                mOfflineAnalysis.mLastBeatTimes[f] = tLastBeatTime;
+                mOfflineAnalysis.mBeatsPerMinute[f] = tSnapshot.getBeatsPerMinute();
+                mOfflineAnalysis.mTempoConfidences[f] = tSnapshot.getTempoConfidence();
+                mOfflineAnalysis.mOnsetCounts[f] = tSnapshot.getOnsetCount();
+                mOfflineAnalysis.mOnsetStrengths[f] = tSnapshot.getOnsetStrength();
+                for (int i=0; i<tBandCount; i++) {
+                    mOfflineAnalysis.mBandEnergies[f*tBandCount+i] = tSnapshot.getBandEnergy(i);
+                    mOfflineAnalysis.mBandLevels[f*tBandCount+i] = toFixedPoint(tSnapshot.getBandLevel(i));
+                }
+            }
+        }
+
+    }
+
+}
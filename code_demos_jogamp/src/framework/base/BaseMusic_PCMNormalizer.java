@@ -0,0 +1,103 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Converts interleaved PCM sample frames into normalized per channel floats and their channel
+ ** average in one pass. 16 bit mono and stereo (what BaseMusic decodes to) get specialized loops
+ ** without inner channel or byte loops, everything else takes the generic per byte path. A window
+ ** running past the end of the source array continues at its start, the two contiguous spans are
+ ** converted separately instead of checking for the wrap on every sample. The results are bit
+ ** identical to the original KJ-DSS normalizer followed by a separate channel merge.
+ **
+ **/
+
+import javax.sound.sampled.*;
+
+public class BaseMusic_PCMNormalizer {
+
+    private static final float cScale16Bit = 1.0f/32768.0f;
+
+    public static void normalize(byte[] inData,int inPosition,int inFrames,AudioFormat inFormat,float[][] outChannels,float[] outMerged) {
+        int tFrameSize = inFormat.getFrameSize();
+        int tFirstSpanFrames = Math.min(inFrames, Math.max(0, (inData.length-inPosition)/tFrameSize));
+        normalizeSpan(inData, inPosition, tFirstSpanFrames, inFormat, outChannels, outMerged, 0);
+        normalizeSpan(inData, 0, inFrames-tFirstSpanFrames, inFormat, outChannels, outMerged, tFirstSpanFrames);
+    }
+
+    private static void normalizeSpan(byte[] inData,int inPosition,int inFrames,AudioFormat inFormat,float[][] outChannels,float[] outMerged,int inOffset) {
+        if (inFrames<=0) {
+            return;
+        }
+        int tChannels = inFormat.getChannels();
+        if (inFormat.getSampleSizeInBits()==16 && !inFormat.isBigEndian() && inFormat.getFrameSize()==2*tChannels) {
+            if (tChannels==2) {
+                normalize16BitStereo(inData, inPosition, inFrames, outChannels[0], outChannels[1], outMerged, inOffset);
+                return;
+            }
+            if (tChannels==1) {
+                normalize16BitMono(inData, inPosition, inFrames, outChannels[0], outMerged, inOffset);
+                return;
+            }
+        }
+        normalizeGeneric(inData, inPosition, inFrames, inFormat, outChannels, outMerged, inOffset);
+    }
+
+    //the 'least significant byte minus 128' is how KJ-DSS always converted, kept for identical spectra ...
+    private static void normalize16BitStereo(byte[] inData,int inPosition,int inFrames,float[] outLeft,float[] outRight,float[] outMerged,int inOffset) {
+        int p = inPosition;
+        for (int i=inOffset, tEnd=inOffset+inFrames; i<tEnd; i++) {
+            float tLeft = (((inData[p] & 0xFF)-128) + (inData[p+1]<<8))*cScale16Bit;
+            float tRight = (((inData[p+2] & 0xFF)-128) + (inData[p+3]<<8))*cScale16Bit;
+            outLeft[i] = tLeft;
+            outRight[i] = tRight;
+            outMerged[i] = (tLeft+tRight)*0.5f;
+            p += 4;
+        }
+    }
+
+    private static void normalize16BitMono(byte[] inData,int inPosition,int inFrames,float[] outMono,float[] outMerged,int inOffset) {
+        int p = inPosition;
+        for (int i=inOffset, tEnd=inOffset+inFrames; i<tEnd; i++) {
+            float tMono = (((inData[p] & 0xFF)-128) + (inData[p+1]<<8))*cScale16Bit;
+            outMono[i] = tMono;
+            outMerged[i] = tMono;
+            p += 2;
+        }
+    }
+
+    private static void normalizeGeneric(byte[] inData,int inPosition,int inFrames,AudioFormat inFormat,float[][] outChannels,float[] outMerged,int inOffset) {
+        int tChannels = inFormat.getChannels();
+        int tSampleSizeInBits = inFormat.getSampleSizeInBits();
+        int tFrameSize = inFormat.getFrameSize();
+        int tChannelSize = tFrameSize/tChannels;
+        float tAudioSampleSize = (float)(1L<<(tSampleSizeInBits-1));
+        int p = inPosition;
+        for (int i=inOffset, tEnd=inOffset+inFrames; i<tEnd; i++) {
+            float tMerged = 0.0f;
+            int tChannelPosition = p;
+            for (int c=0; c<tChannels; c++) {
+                long tSample = (inData[tChannelPosition] & 0xFF)-128;
+                for (int tBit=8, b=1; tBit<tSampleSizeInBits; tBit+=8) {
+                    tSample += inData[tChannelPosition+b]<<tBit;
+                    b++;
+                }
+                float tValue = (float)tSample/tAudioSampleSize;
+                outChannels[c][i] = tValue;
+                tMerged += tValue;
+                tChannelPosition += tChannelSize;
+            }
+            outMerged[i] = tMerged/(float)tChannels;
+            p += tFrameSize;
+        }
+    }
+
+}
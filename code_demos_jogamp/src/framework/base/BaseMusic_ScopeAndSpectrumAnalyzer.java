@@ -14,6 +14,9 @@ package framework.base;
  ** Used to display a realtime scope, spectrum analyser, or volume meter. Slightly adapted, 
  ** stripped down and modified ripoff from KJ-DSS project by Kristofer Fudalewski.
  ** Web: http://sirk.sytes.net - Original author email: sirk_sytes@hotmail.com 
+ ** In VISUALIZATION_MODE_DATA nothing is rasterized with Java2D, the decayed band levels and the
+ ** scope samples are published as one small float array (see getVisualizationData()) which is
+ ** drawn by BaseMusic_ScopeAndSpectrumVisualizationRenderer on the GPU.
  **
  **/
 
@@ -45,6 +48,9 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
     public static final Color               DEFAULT_BACKGROUND_COLOR = new Color( 0,   0,   128 );	
     public static final Color               DEFAULT_SCOPE_COLOR      = new Color( 255, 192, 0 );
     public static final float               DEFAULT_VU_METER_DECAY   = 0.02f;
+    public static final int                 VISUALIZATION_MODE_JAVA2D = 0;
+    public static final int                 VISUALIZATION_MODE_DATA   = 1;
+    public static final int                 VISUALIZATION_SCOPE_SAMPLE_COUNT = DEFAULT_WIDTH;
 
     private static final Font SMALL_FONT = new Font( "fixed", Font.PLAIN, 9 );
     private BufferedImage mBufferedImage_RenderBuffer;
@@ -69,6 +75,9 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
     private boolean saShowFrequencies = true;
     private BaseMusic_FastFourierTransform mBaseMusic_FastFourierTransform; 
     private float[] mCurrentFFTData;
+    private float[] mCurrentBandLevels;
+    private int mVisualizationMode = VISUALIZATION_MODE_JAVA2D;
+    private float[] mVisualizationData;
 
     //vu meter
     //private float[] oldVolume;
@@ -87,6 +96,20 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
         return mBufferedImage_RenderBuffer;
     }
 
+    public int getVisualizationMode() {
+        return mVisualizationMode;
+    }
+
+    public void setVisualizationMode(int pVisualizationMode) {
+        mVisualizationMode = pVisualizationMode;
+    }
+
+    //Band levels [0..bandcount[ in 0..1, followed by VISUALIZATION_SCOPE_SAMPLE_COUNT scope samples
+    //mapped from -1..1 to 0..1. Only filled in VISUALIZATION_MODE_DATA, the array is reused every frame.
+    public float[] getVisualizationData() {
+        return mVisualizationData;
+    }
+
     //computes a color scale value for both the spectrum analyzers and volume meter bars.
     private void computeColorScale() {
         saColorScale = ( (float)colorScaleTable.length / ( DEFAULT_HEIGHT - 32 ) ) * 2.0f;
@@ -109,10 +132,6 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
         }
     }
 
-    private void drawScope(Graphics pGrp, float[][] pChannels, float pFrrh) {
-        drawScope(pGrp, channelMerge( pChannels ), pFrrh);
-    }
-
     //Draws a scope of the audio data across the entire width and height of this component.
     private void drawScope(Graphics pGrp, float[] pSample, float pFrrh) {
         pGrp.setColor(Color.WHITE);
@@ -124,16 +143,10 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
         }
     }
 
-    private void drawSpectrumAnalyser(Graphics pGrp, float[][] pChannels,float pFrrh) {
-        drawSpectrumAnalyser(pGrp, channelMerge(pChannels), pFrrh);
-    }
-
     //Draws a spectrum analyzer across the entire width and height if this component.
     protected void drawSpectrumAnalyser(Graphics inGraphics, float[] pSample,float pFrrh) {
         float c = 16;
-        float wSadfrr = (saDecay * pFrrh);
-        int b, bd, i, li = 0, mi;
-        float fs, m;
+        int bd;
         int wBm = 1;
         //preparation used for rendering band frequencies.
         if (saShowFrequencies) {
@@ -144,7 +157,25 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
             }
         }
         //FFT processing ...
-        float[] wFFT = mBaseMusic_FastFourierTransform.calculate(pSample);
+        calculateBandLevels(pSample, mCurrentBandLevels);
+        applyDecay(mCurrentFFTData, mCurrentBandLevels, mSpectrumAnalyzer_BandCount, saDecay * pFrrh);
+        for (bd = 0; bd < mSpectrumAnalyzer_BandCount; bd++) {
+            //draw band
+            drawSpectrumAnalyserBand(inGraphics, Math.round(c),
+                    DEFAULT_HEIGHT - 16, Math.round(c + saBandWidth) - Math.round(c) - 1,
+                    (int) (mCurrentFFTData[bd] * (DEFAULT_HEIGHT - 32)),
+                    mSpectrumAnalyser_BandDistributionTable[bd],
+                    saShowFrequencies && (bd % wBm) == 0);
+            c += saBandWidth;
+        }
+    }
+
+    //Calculates the (undecayed) level of every band, also used by the offline analysis.
+    public void calculateBandLevels(float[] pSample, float[] pLevels) {
+        int b, bd, i, li = 0, mi;
+        float fs, m;
+        //FFT processing, squared magnitudes are enough to find the loudest band of a group ...
+        float[] wFFT = mBaseMusic_FastFourierTransform.calculateSquaredMagnitudes(pSample);
         //group up available bands using band distribution table.
         for (bd = 0; bd < mSpectrumAnalyzer_BandCount; bd++) {
             //get band distribution entry.
@@ -160,29 +191,31 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
                 }
             }
             li = i;
+            //only the winner of the group needs its square root ...
+            m = (float)Math.sqrt(m);
             //calculate gain using log, then static gain.
             fs = (m * sabgTable[mi]) * saGain;
             //limit over-saturation.
             if (fs > 1.0f) {
                 fs = 1.0f;
             }
+            pLevels[bd] = fs;
+        }
+    }
+
+    //Lets the displayed bands fall by at most pDecay per frame.
+    public static void applyDecay(float[] pCurrent, float[] pLevels, int pBandCount, float pDecay) {
+        for (int bd = 0; bd < pBandCount; bd++) {
+            float fs = pLevels[bd];
             //compute decay.
-            if (fs >= (mCurrentFFTData[bd] - wSadfrr)) {
-                mCurrentFFTData[bd] = fs;
+            if (fs >= (pCurrent[bd] - pDecay)) {
+                pCurrent[bd] = fs;
             } else {
-                mCurrentFFTData[bd] -= wSadfrr;
-                if (mCurrentFFTData[bd] < 0) {
-                    mCurrentFFTData[bd] = 0;
+                pCurrent[bd] -= pDecay;
+                if (pCurrent[bd] < 0) {
+                    pCurrent[bd] = 0;
                 }
-                fs = mCurrentFFTData[bd];
             }
-            //draw band
-            drawSpectrumAnalyserBand(inGraphics, Math.round(c),
-                    DEFAULT_HEIGHT - 16, Math.round(c + saBandWidth) - Math.round(c) - 1,
-                    (int) (fs * (DEFAULT_HEIGHT - 32)),
-                    mSpectrumAnalyser_BandDistributionTable[bd],
-                    saShowFrequencies && (bd % wBm) == 0);
-            c += saBandWidth;
         }
     }
 
@@ -274,21 +307,53 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
     }
 
     public void initialize(int pSampleSize, SourceDataLine pSourceDataLine) {
-        setSpectrumAnalyserSampleSizeAndRate(pSampleSize, pSourceDataLine.getFormat().getSampleRate());
+        initialize(pSampleSize, pSourceDataLine.getFormat().getSampleRate());
         //oldVolume = new float[pSourceDataLine.getFormat().getChannels()];
     }
 
+    public void initialize(int pSampleSize, float pSampleRate) {
+        setSpectrumAnalyserSampleSizeAndRate(pSampleSize, pSampleRate);
+    }
+
+    public int getSpectrumAnalyserBandCount() {
+        return mSpectrumAnalyzer_BandCount;
+    }
+
+    public float getSpectrumAnalyserDecay() {
+        return saDecay;
+    }
+
+
+    //Fills the visualization data array, same values the Java2D path would draw.
+    private void publishVisualizationData(float[] pSample, float pFrrh) {
+        calculateBandLevels(pSample, mCurrentBandLevels);
+        applyDecay(mCurrentFFTData, mCurrentBandLevels, mSpectrumAnalyzer_BandCount, saDecay * pFrrh);
+        int wLength = mSpectrumAnalyzer_BandCount + VISUALIZATION_SCOPE_SAMPLE_COUNT;
+        if (mVisualizationData == null || mVisualizationData.length != wLength) {
+            mVisualizationData = new float[wLength];
+        }
+        System.arraycopy(mCurrentFFTData, 0, mVisualizationData, 0, mSpectrumAnalyzer_BandCount);
+        for (int a = 0; a < VISUALIZATION_SCOPE_SAMPLE_COUNT; a++) {
+            float wScope = a < pSample.length ? pSample[a] * 0.5f + 0.5f : 0.5f;
+            mVisualizationData[mSpectrumAnalyzer_BandCount + a] = wScope < 0.0f ? 0.0f : (wScope > 1.0f ? 1.0f : wScope);
+        }
+    }
 
     // entry point for synchronizer ...
     public void process(BaseMusic_DigitalSignalSynchronizer.Context pDssContext) {
-        float[][] wChannels = pDssContext.getDataNormalized();
+        //deinterleaving, scaling and channel merging in one pass ...
+        float[] wSample = pDssContext.getDataNormalizedMerged();
+        if (mVisualizationMode == VISUALIZATION_MODE_DATA) {
+            publishVisualizationData(wSample, pDssContext.getFrameRatioHint());
+            return;
+        }
         Image wDb = getRenderBuffer();
         Graphics wGrp = wDb.getGraphics();
         wGrp.setColor(Color.BLACK);
         wGrp.fillRect(0, 0, DEFAULT_WIDTH, DEFAULT_HEIGHT);
         //drawVolumeMeter( wGrp, wChannels, pDssContext.getFrameRatioHint() );
-        drawScope(wGrp, wChannels, pDssContext.getFrameRatioHint());
-        drawSpectrumAnalyser(wGrp, wChannels, pDssContext.getFrameRatioHint());
+        drawScope(wGrp, wSample, pDssContext.getFrameRatioHint());
+        drawSpectrumAnalyser(wGrp, wSample, pDssContext.getFrameRatioHint());
     }
 
     private void resolveBandDescriptions(Band[] pBandTable) {
@@ -315,21 +380,10 @@ public class BaseMusic_ScopeAndSpectrumAnalyzer implements BaseMusic_DigitalSign
         saFFTSampleRate = pRate;
         mBaseMusic_FastFourierTransform = new BaseMusic_FastFourierTransform(saFFTSampleSize);
         mCurrentFFTData = new float[mSpectrumAnalyzer_BandCount];
+        mCurrentBandLevels = new float[mSpectrumAnalyzer_BandCount];
         computeBandTables();
     }
 
-    //Merges two audio channels into one.
-    private float[] channelMerge(float[][] pChannels) {
-        for (int a = 0; a < pChannels[0].length; a++) {
-            float wMcd = 0;
-            for (int b = 0; b < pChannels.length; b++) {
-                wMcd += pChannels[b][a];
-            }
-            pChannels[0][a] = wMcd / (float) pChannels.length;
-        }
-        return pChannels[0];
-    }
-
     private void updateSpectrumAnalyserBandWidth() {
         saBandWidth = (float)( DEFAULT_WIDTH - 32 ) / (float)mSpectrumAnalyzer_BandCount;
     }
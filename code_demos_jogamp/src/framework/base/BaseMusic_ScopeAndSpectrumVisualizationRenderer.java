@@ -0,0 +1,135 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Draws the scope and spectrum analyzer on the GPU. The raw visualization data published by
+ ** BaseMusic_ScopeAndSpectrumAnalyzer in VISUALIZATION_MODE_DATA (a few hundred floats) is
+ ** uploaded into a small 1D texture and a fragment shader draws the bars and the scope line into
+ ** a single quad. Replaces rasterizing a 512x192 BufferedImage with Java2D and re-uploading the
+ ** whole image through a TextureRenderer every frame. Frequency labels are not drawn.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+import framework.util.*;
+import com.jogamp.common.nio.*;
+import static javax.media.opengl.GL2.*;
+
+public class BaseMusic_ScopeAndSpectrumVisualizationRenderer {
+
+    private static final String cFragmentShaderFileName = "/shaders/musicvisualizationshaders/scopeandspectrum.fs";
+
+    private final int mWidth;
+    private final int mHeight;
+    private int mFragmentShader;
+    private int mLinkedShader;
+    private int mTextureID;
+    private int mTextureSize;
+    private FloatBuffer mUploadBuffer;
+
+    public BaseMusic_ScopeAndSpectrumVisualizationRenderer() {
+        this(BaseMusic_ScopeAndSpectrumAnalyzer.DEFAULT_WIDTH,BaseMusic_ScopeAndSpectrumAnalyzer.DEFAULT_HEIGHT);
+    }
+
+    public BaseMusic_ScopeAndSpectrumVisualizationRenderer(int inWidth,int inHeight) {
+        mWidth = inWidth;
+        mHeight = inHeight;
+    }
+
+    public static boolean isSupported(GL2 inGL) {
+        return inGL.hasGLSL();
+    }
+
+    public void init(GL2 inGL) {
+        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,cFragmentShaderFileName);
+        mLinkedShader = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader);
+        int[] tTextureID = new int[1];
+        inGL.glGenTextures(1, tTextureID, 0);
+        mTextureID = tTextureID[0];
+        BaseLogging.getInstance().info("SCOPE AND SPECTRUM ANALYZER VISUALIZATION IS RENDERED BY SHADER ...");
+    }
+
+    private void upload(GL2 inGL,float[] inVisualizationData) {
+        inGL.glBindTexture(GL_TEXTURE_1D, mTextureID);
+        if (mTextureSize!=inVisualizationData.length) {
+            //the band count only changes on reconfiguration, allocate storage just then ...
+            mTextureSize = inVisualizationData.length;
+            mUploadBuffer = Buffers.newDirectFloatBuffer(mTextureSize);
+            inGL.glTexImage1D(GL_TEXTURE_1D, 0, GL_LUMINANCE16, mTextureSize, 0, GL_LUMINANCE, GL_FLOAT, null);
+            inGL.glTexParameteri(GL_TEXTURE_1D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+            inGL.glTexParameteri(GL_TEXTURE_1D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+            inGL.glTexParameteri(GL_TEXTURE_1D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        }
+        mUploadBuffer.clear();
+        mUploadBuffer.put(inVisualizationData);
+        mUploadBuffer.flip();
+        inGL.glTexSubImage1D(GL_TEXTURE_1D, 0, 0, mTextureSize, GL_LUMINANCE, GL_FLOAT, mUploadBuffer);
+    }
+
+    //additively draws the visualization with its lower left corner at the lower left of the screen ...
+    public void render(GL2 inGL,float[] inVisualizationData,int inBandCount,int inScreenWidth,int inScreenHeight) {
+        if (inVisualizationData==null) {
+            return;
+        }
+        inGL.glPushAttrib(GL_TEXTURE_BIT | GL_ENABLE_BIT | GL_COLOR_BUFFER_BIT | GL_VIEWPORT_BIT | GL_POLYGON_BIT);
+        inGL.glActiveTexture(GL_TEXTURE0);
+        upload(inGL,inVisualizationData);
+        inGL.glViewport(0, 0, inScreenWidth, inScreenHeight);
+        inGL.glMatrixMode(GL_PROJECTION);
+        inGL.glPushMatrix();
+        inGL.glLoadIdentity();
+        inGL.glOrtho(0, inScreenWidth, 0, inScreenHeight, -1, 1);
+        inGL.glMatrixMode(GL_MODELVIEW);
+        inGL.glPushMatrix();
+        inGL.glLoadIdentity();
+        inGL.glDisable(GL_DEPTH_TEST);
+        inGL.glDisable(GL_LIGHTING);
+        inGL.glDisable(GL_CULL_FACE);
+        inGL.glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
+        inGL.glEnable(GL_BLEND);
+        inGL.glBlendFunc(GL_ONE, GL_ONE);
+        inGL.glUseProgram(mLinkedShader);
+        ShaderUtils.setUniform1i(inGL,mLinkedShader,"sampler0",0);
+        ShaderUtils.setUniform1f(inGL,mLinkedShader,"bandcount",inBandCount);
+        ShaderUtils.setUniform1f(inGL,mLinkedShader,"scopesamplecount",inVisualizationData.length-inBandCount);
+        int tResolutionLocation = inGL.glGetUniformLocation(mLinkedShader,"resolution");
+        inGL.glUniform2f(tResolutionLocation, mWidth, mHeight);
+        inGL.glBegin(GL_QUADS);
+        inGL.glTexCoord2f(0.0f, 0.0f);
+        inGL.glVertex2f(0.0f, 0.0f);
+        inGL.glTexCoord2f(1.0f, 0.0f);
+        inGL.glVertex2f(mWidth, 0.0f);
+        inGL.glTexCoord2f(1.0f, 1.0f);
+        inGL.glVertex2f(mWidth, mHeight);
+        inGL.glTexCoord2f(0.0f, 1.0f);
+        inGL.glVertex2f(0.0f, mHeight);
+        inGL.glEnd();
+        inGL.glUseProgram(0);
+        inGL.glBindTexture(GL_TEXTURE_1D, 0);
+        inGL.glMatrixMode(GL_PROJECTION);
+        inGL.glPopMatrix();
+        inGL.glMatrixMode(GL_MODELVIEW);
+        inGL.glPopMatrix();
+        inGL.glPopAttrib();
+    }
+
+    public void cleanup(GL2 inGL) {
+        if (mTextureID!=0) {
+            inGL.glDeleteTextures(1, new int[] {mTextureID}, 0);
+            mTextureID = 0;
+        }
+        inGL.glDeleteShader(mFragmentShader);
+        inGL.glDeleteProgram(mLinkedShader);
+    }
+
+}
@@ -0,0 +1,110 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Streaming short time fourier transform. Mono samples are pushed in arbitrary sized chunks,
+ ** every inHopSize samples the last inWindowSize samples are windowed (rectangular, Hann or
+ ** Blackman), transformed with the real input path of BaseMusic_FastFourierTransform and the
+ ** power spectrum is handed to the frame listener. Overlap is 1-inHopSize/inWindowSize. The
+ ** window is scaled by its inverse coherent gain, so a full scale sine peaks at the same level
+ ** for every window type. Nothing is allocated after construction.
+ **
+ **/
+
+public class BaseMusic_ShortTimeFourierTransform {
+
+    public static final int cWINDOW_RECTANGULAR = 0;
+    public static final int cWINDOW_HANN = 1;
+    public static final int cWINDOW_BLACKMAN = 2;
+
+    private final int mWindowSize;
+    private final int mHopSize;
+    private final float[] mWindow;
+    private final float[] mRingBuffer;
+    private final float[] mFrame;
+    private final BaseMusic_FastFourierTransform mBaseMusic_FastFourierTransform;
+    private final BaseMusic_ShortTimeFourierTransform_FrameListenerInterface mFrameListener;
+    private int mRingPosition;
+    private int mSamplesUntilNextFrame;
+    private long mSamplePosition;
+    private long mFrameIndex;
+
+    public BaseMusic_ShortTimeFourierTransform(int inWindowSize,int inHopSize,int inWindowType,BaseMusic_ShortTimeFourierTransform_FrameListenerInterface inFrameListener) {
+        mBaseMusic_FastFourierTransform = new BaseMusic_FastFourierTransform(inWindowSize);
+        //the transform rounds up to the next power of two, the ring buffer relies on that too ...
+        mWindowSize = mBaseMusic_FastFourierTransform.getInputSampleSize();
+        mHopSize = Math.max(1, Math.min(inHopSize, mWindowSize));
+        mWindow = createWindow(mWindowSize, inWindowType);
+        mRingBuffer = new float[mWindowSize];
+        mFrame = new float[mWindowSize];
+        mFrameListener = inFrameListener;
+        mSamplesUntilNextFrame = mWindowSize;
+        BaseLogging.getInstance().info("STFT WINDOWSIZE="+mWindowSize+" HOPSIZE="+mHopSize+" WINDOWTYPE="+inWindowType);
+    }
+
+    public int getWindowSize()      { return mWindowSize; }
+    public int getHopSize()         { return mHopSize; }
+    public int getBinCount()        { return mBaseMusic_FastFourierTransform.getOutputSampleSize(); }
+    public float getOverlap()       { return 1.0f-(float)mHopSize/(float)mWindowSize; }
+    public long getSamplePosition() { return mSamplePosition; }
+
+    public float getBinFrequency(int inBin,float inSampleRate) {
+        return inBin*inSampleRate/mWindowSize;
+    }
+
+    public static float[] createWindow(int inWindowSize,int inWindowType) {
+        float[] tWindow = new float[inWindowSize];
+        double tSum = 0.0;
+        for (int i=0; i<inWindowSize; i++) {
+            //periodic windows, they overlap-add to a constant at the usual hop sizes ...
+            double tPhase = 2.0*Math.PI*i/inWindowSize;
+            double tValue;
+            switch (inWindowType) {
+                case cWINDOW_HANN:     tValue = 0.5-0.5*Math.cos(tPhase); break;
+                case cWINDOW_BLACKMAN: tValue = 0.42-0.5*Math.cos(tPhase)+0.08*Math.cos(2.0*tPhase); break;
+                default:               tValue = 1.0; break;
+            }
+            tWindow[i] = (float)tValue;
+            tSum += tValue;
+        }
+        float tScale = (float)(inWindowSize/tSum);
+        for (int i=0; i<inWindowSize; i++) {
+            tWindow[i] *= tScale;
+        }
+        return tWindow;
+    }
+
+    public void write(float[] inSamples,int inOffset,int inLength) {
+        int tMask = mWindowSize-1;
+        for (int i=inOffset; i<inOffset+inLength; i++) {
+            mRingBuffer[mRingPosition] = inSamples[i];
+            mRingPosition = (mRingPosition+1) & tMask;
+            mSamplePosition++;
+            if (--mSamplesUntilNextFrame==0) {
+                mSamplesUntilNextFrame = mHopSize;
+                processFrame();
+            }
+        }
+    }
+
+    private void processFrame() {
+        int tMask = mWindowSize-1;
+        //the oldest sample sits at the write position ...
+        for (int k=0; k<mWindowSize; k++) {
+            mFrame[k] = mRingBuffer[(mRingPosition+k) & tMask]*mWindow[k];
+        }
+        float[] tPowerSpectrum = mBaseMusic_FastFourierTransform.calculateSquaredMagnitudes(mFrame);
+        mFrameListener.processSpectrumFrame(tPowerSpectrum, mFrameIndex, mSamplePosition-(mWindowSize>>1));
+        mFrameIndex++;
+    }
+
+}
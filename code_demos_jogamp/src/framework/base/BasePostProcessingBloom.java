@@ -0,0 +1,200 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Mip-chain bloom: the source is thresholded while it is downsampled to half size, then halved
+ ** again level by level with a 13 tap filter. The way back up mixes a tent upsample of every level
+ ** into the next bigger one, the composite adds the result to the source. All levels together
+ ** cover 1/3 of the source pixels, so even wide bloom costs little more than the composite pass
+ ** itself. The intermediate targets come from the BaseRenderTargetPool.
+ **
+ **/
+
+import java.nio.*;
+import java.util.*;
+import javax.media.opengl.*;
+import javax.media.opengl.glu.*;
+import framework.util.*;
+import com.jogamp.opengl.util.gl2.*;
+import static javax.media.opengl.GL2.*;
+
+public class BasePostProcessingBloom implements BaseFrameBufferObjectRendererInterface {
+
+    //levels stop before the smaller side drops below this ...
+    private static final int cMinimumLevelSize = 8;
+
+    private int mMaximumNumberOfLevels = 6;
+    private float mThreshold = 0.8f;
+    private float mKnee = 0.4f;
+    private float mScatter = 0.7f;
+    private float mIntensity = 1.0f;
+    private int mFragmentShader_Downsample;
+    private int mLinkedShader_Downsample;
+    private int mFragmentShader_Upsample;
+    private int mLinkedShader_Upsample;
+    private int mFragmentShader_Composite;
+    private int mLinkedShader_Composite;
+    private FloatBuffer mTexel;
+    private ArrayList<BaseFrameBufferObjectRendererExecutor> mLevels;
+    private BaseFrameBufferObjectRendererExecutor mResult;
+    private int mProfilerScope;
+    //state of the pass currently rendered ...
+    private int mCurrentLinkedShader;
+    private BaseFrameBufferObjectRendererExecutor mCurrentPrimarySource;
+    private BaseFrameBufferObjectRendererExecutor mCurrentSecondarySource;
+    private boolean mCurrentPrefilter;
+
+    public BasePostProcessingBloom() {
+        mLevels = new ArrayList<BaseFrameBufferObjectRendererExecutor>();
+        mProfilerScope = BaseProfiler.getInstance().registerScope("BLOOM");
+    }
+
+    public void init(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        mFragmentShader_Downsample = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingbloom/PostProcessingBloom_Downsample.fs");
+        mLinkedShader_Downsample = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader_Downsample);
+        mFragmentShader_Upsample = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingbloom/PostProcessingBloom_Upsample.fs");
+        mLinkedShader_Upsample = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader_Upsample);
+        mFragmentShader_Composite = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingbloom/PostProcessingBloom_Composite.fs");
+        mLinkedShader_Composite = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader_Composite);
+        mTexel = DirectBufferUtils.createDirectFloatBuffer(new float[2]);
+    }
+
+    public void setThreshold(float inThreshold)                     { mThreshold = inThreshold; }
+    //width of the soft transition below the threshold ...
+    public void setKnee(float inKnee)                               { mKnee = Math.max(0.0f,inKnee); }
+    //0..1, higher values make the bloom wider ...
+    public void setScatter(float inScatter)                         { mScatter = Math.max(0.0f,Math.min(1.0f,inScatter)); }
+    public void setIntensity(float inIntensity)                     { mIntensity = inIntensity; }
+    public void setMaximumNumberOfLevels(int inNumberOfLevels)      { mMaximumNumberOfLevels = Math.max(1,inNumberOfLevels); }
+
+    //valid until the next execute() ...
+    public BaseFrameBufferObjectRendererExecutor getResultFBOExecutor() {
+        return mResult;
+    }
+
+    public void execute(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inSource,boolean inDrawToFrameBuffer) {
+        execute(inFrameNumber,inGL,inGLU,inGLUT,inSource,inDrawToFrameBuffer,false);
+    }
+
+    //composites straight into the framebuffer if inDrawToFrameBuffer is set, into a pooled target otherwise ...
+    public void execute(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inSource,boolean inDrawToFrameBuffer,boolean inFlipped) {
+        BaseProfiler.getInstance().beginScope(inGL,mProfilerScope);
+        BaseRenderTargetPool tPool = BaseRenderTargetPool.getInstance();
+        tPool.release(mResult);
+        mResult = null;
+        //threshold and downsample ...
+        int tWidth = inSource.getWidth();
+        int tHeight = inSource.getHeight();
+        BaseFrameBufferObjectRendererExecutor tSource = inSource;
+        mCurrentLinkedShader = mLinkedShader_Downsample;
+        mCurrentSecondarySource = null;
+        while (mLevels.size()<mMaximumNumberOfLevels && Math.min(tWidth,tHeight)/2>=cMinimumLevelSize) {
+            tWidth /= 2;
+            tHeight /= 2;
+            BaseFrameBufferObjectRendererExecutor tLevel = tPool.acquire(inGL,inGLU,inGLUT,tWidth,tHeight);
+            mCurrentPrimarySource = tSource;
+            mCurrentPrefilter = mLevels.isEmpty();
+            tPool.renderToTarget(inFrameNumber,inGL,inGLU,inGLUT,tLevel,this);
+            mLevels.add(tLevel);
+            tSource = tLevel;
+        }
+        //tent upsample and accumulate, every level is released as soon as it was consumed ...
+        mCurrentLinkedShader = mLinkedShader_Upsample;
+        mCurrentPrefilter = false;
+        for (int i=mLevels.size()-2; i>=0; i--) {
+            BaseFrameBufferObjectRendererExecutor tLevel = mLevels.get(i);
+            BaseFrameBufferObjectRendererExecutor tAccumulated = tPool.acquire(inGL,inGLU,inGLUT,tLevel.getWidth(),tLevel.getHeight());
+            mCurrentPrimarySource = tSource;
+            mCurrentSecondarySource = tLevel;
+            tPool.renderToTarget(inFrameNumber,inGL,inGLU,inGLUT,tAccumulated,this);
+            tPool.release(tSource);
+            tPool.release(tLevel);
+            tSource = tAccumulated;
+        }
+        mLevels.clear();
+        //composite ...
+        mCurrentLinkedShader = mLinkedShader_Composite;
+        mCurrentPrimarySource = tSource;
+        mCurrentSecondarySource = inSource;
+        if (inDrawToFrameBuffer) {
+            BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT);
+            renderBloomPass(inGL,inFlipped);
+            BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT);
+        } else {
+            mResult = tPool.acquire(inGL,inGLU,inGLUT,inSource.getWidth(),inSource.getHeight());
+            tPool.renderToTarget(inFrameNumber,inGL,inGLU,inGLUT,mResult,this);
+        }
+        if (tSource!=inSource) {
+            tPool.release(tSource);
+        }
+        BaseProfiler.getInstance().endScope(inGL,mProfilerScope);
+    }
+
+    public void init_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
+
+    public void mainLoop_FBORenderer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        renderBloomPass(inGL,false);
+    }
+
+    public void cleanup_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
+
+    private void renderBloomPass(GL2 inGL,boolean inFlipped) {
+        if (mCurrentSecondarySource!=null) {
+            bindLinearClampedTexture(inGL,GL_TEXTURE1,mCurrentSecondarySource.getColorTextureID());
+        }
+        bindLinearClampedTexture(inGL,GL_TEXTURE0,mCurrentPrimarySource.getColorTextureID());
+        mTexel.put(0, 1.0f/(float)mCurrentPrimarySource.getWidth());
+        mTexel.put(1, 1.0f/(float)mCurrentPrimarySource.getHeight());
+        inGL.glUseProgram(mCurrentLinkedShader);
+        ShaderUtils.setUniform1i(inGL,mCurrentLinkedShader,"sampler0",0);
+        ShaderUtils.setUniform2fv(inGL,mCurrentLinkedShader,"texel",mTexel);
+        if (mCurrentLinkedShader==mLinkedShader_Downsample) {
+            ShaderUtils.setUniform1f(inGL,mCurrentLinkedShader,"prefilter",mCurrentPrefilter ? 1.0f : 0.0f);
+            ShaderUtils.setUniform1f(inGL,mCurrentLinkedShader,"threshold",mThreshold);
+            ShaderUtils.setUniform1f(inGL,mCurrentLinkedShader,"knee",mKnee);
+        } else if (mCurrentLinkedShader==mLinkedShader_Upsample) {
+            ShaderUtils.setUniform1i(inGL,mCurrentLinkedShader,"sampler1",1);
+            ShaderUtils.setUniform1f(inGL,mCurrentLinkedShader,"scatter",mScatter);
+        } else {
+            ShaderUtils.setUniform1i(inGL,mCurrentLinkedShader,"sampler1",1);
+            ShaderUtils.setUniform1f(inGL,mCurrentLinkedShader,"intensity",mIntensity);
+        }
+        PostProcessingUtils.renderFullscreenQuad(inGL,inFlipped);
+        inGL.glUseProgram(0);
+        inGL.glActiveTexture(GL_TEXTURE1);
+        inGL.glBindTexture(GL_TEXTURE_2D, 0);
+        inGL.glActiveTexture(GL_TEXTURE0);
+        inGL.glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    //the wider taps must neither wrap around nor read between texels with nearest filtering ...
+    private void bindLinearClampedTexture(GL2 inGL,int inTextureUnit,int inTextureID) {
+        inGL.glActiveTexture(inTextureUnit);
+        inGL.glBindTexture(GL_TEXTURE_2D, inTextureID);
+        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MIN_FILTER,GL_LINEAR);
+        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_MAG_FILTER,GL_LINEAR);
+        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_S,GL_CLAMP_TO_EDGE);
+        inGL.glTexParameteri(GL_TEXTURE_2D,GL_TEXTURE_WRAP_T,GL_CLAMP_TO_EDGE);
+    }
+
+    public void cleanup(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        BaseRenderTargetPool.getInstance().release(mResult);
+        mResult = null;
+        inGL.glDeleteShader(mFragmentShader_Downsample);
+        inGL.glDeleteShader(mFragmentShader_Upsample);
+        inGL.glDeleteShader(mFragmentShader_Composite);
+        inGL.glDeleteProgram(mLinkedShader_Downsample);
+        inGL.glDeleteProgram(mLinkedShader_Upsample);
+        inGL.glDeleteProgram(mLinkedShader_Composite);
+    }
+
+}
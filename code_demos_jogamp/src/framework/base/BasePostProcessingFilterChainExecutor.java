@@ -16,12 +16,28 @@ package framework.base;
  ** and framebuffer setup is handled automatically. Also provides simple iteration support to simplify
  ** convolution-filter handling. 
  **
+ ** The filter list is compiled into a list of passes before it is executed: consecutive point-wise
+ ** filters (BasePostProcessingFilterChainPointwiseInterface) are fused into one generated shader
+ ** program, so only neighbourhood filters (convolutions, distortions, ...) cost an extra round trip
+ ** through memory. The chain is only recompiled if the filters or their iteration counts change,
+ ** generated programs are cached by source. Render targets come from the BaseRenderTargetPool and
+ ** are released as soon as their content was consumed by the following pass, a linear chain never
+ ** holds more than two targets at a time. Filters implementing BasePostProcessingFilterChainMultiPassInterface run a
+ ** sequence of passes per iteration, each at its own resolution (separable and pyramid blurs).
+ **
+ ** With setComputeShaderBackend(true) and a context supporting compute shaders, consecutive 3x3
+ ** convolutions (PostProcessingFilter_Base_Convolution) are stacked into compute passes: up to
+ ** PostProcessingFusionUtils.cMaximumConvolutionStages iterations share one dispatch and never
+ ** leave shared memory in between. Unsupported contexts or sources fall back to fragment passes.
+ **
  **/
 
 import java.util.*;
 import javax.media.opengl.*;
 import javax.media.opengl.glu.*;
 import framework.jogl.postprocessingblenders.*;
+import framework.jogl.postprocessingfilters.*;
+import framework.util.*;
 import com.jogamp.opengl.util.gl2.*;
 import static javax.media.opengl.GL2.*;
 
@@ -29,159 +45,109 @@ public class BasePostProcessingFilterChainExecutor {
 
     private ArrayList<BasePostProcessingFilterChainShaderInterface> mFilterList;
     private int mScreenSizeDivisionFactor;
-    private BaseFrameBufferObjectRendererExecutor mBaseFrameBufferObjectRendererExecutor_Primary;
-    private BaseFrameBufferObjectRendererExecutor mBaseFrameBufferObjectRendererExecutor_Secondary;
-    private BaseFrameBufferObjectRendererExecutor mBaseFrameBufferObjectRendererExecutor_Original;
-    private BaseFrameBufferObjectRendererInterface mPrimaryFBORenderer;
-    private BaseFrameBufferObjectRendererInterface mSecondaryFBORenderer;
-    private BaseFrameBufferObjectRendererInterface mOriginalFBORenderer;
-    private BasePostProcessingFilterChainShaderInterface mBasePostProcessingFilterChainShaderInterface_Primary;
-    private BasePostProcessingFilterChainShaderInterface mBasePostProcessingFilterChainShaderInterface_Secondary;
-    private BasePostProcessingFilterChainShaderInterface mBasePostProcessingFilterChainShaderInterface_Original;
+    private boolean mFilterChainLogging;
+    private boolean mComputeShaderBackend;
+    private int mProfilerScope;
+    //compiled state ...
+    private ArrayList<BasePostProcessingFilterChainShaderInterface> mCompiledFilterList;
+    private ArrayList<Integer> mCompiledNumberOfIterations;
+    private ArrayList<FilterPass> mFilterPasses;
+    private HashMap<String,int[]> mFusedProgramCache;
+    private HashMap<String,Integer> mComputeProgramCache;
+    private HashMap<String,String> mShaderSourceCache;
+    private BaseFrameBufferObjectRendererInterface mFilterPassRenderer;
+    //state of the pass currently rendered ...
+    private FilterPass mCurrentFilterPass;
+    private int mCurrentSubPass;
+    private int mCurrentSourceWidth;
+    private int mCurrentSourceHeight;
+    private BaseFrameBufferObjectRendererExecutor mCurrentInputFBO;
     private BaseFrameBufferObjectRendererExecutor mOriginalFBO;
-    private BaseFrameBufferObjectRendererExecutor mCurrent_PrimaryFBO;
-    private BaseFrameBufferObjectRendererExecutor mCurrent_SecondaryFBO;
-    private BaseFrameBufferObjectRendererExecutor mCurrent_OriginalFBO;
-    private enum ENDRESULT_BUFFER {PRIMARY,SECONDARY,ORIGINAL}
     private int mFilterChainResultColorTexture;
     private BaseFrameBufferObjectRendererExecutor mFilterChainResultFrameBufferObjectRendererExecutor;
-    private boolean mFilterChainLogging;
-    
+    //result getters only tell the truth if the last fused pass isn't drawn straight to the framebuffer ...
+    private boolean mKeepFilterChainResult;
+    private boolean mFilterChainResultDrawnDirectly;
+
+    private static class FilterPass {
+        //neighbourhood filter rendered on its own, null for fused passes ...
+        private BasePostProcessingFilterChainShaderInterface mFilter;
+        //fused point-wise filters with the uniform prefix of each ...
+        private ArrayList<BasePostProcessingFilterChainPointwiseInterface> mStages = new ArrayList<BasePostProcessingFilterChainPointwiseInterface>();
+        private ArrayList<String> mStagePrefixes = new ArrayList<String>();
+        //stacked convolutions of a compute pass, one entry per iteration ...
+        private ArrayList<BasePostProcessingFilterChainShaderInterface> mComputeStages = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
+        private int mLinkedShader;
+        private boolean mUsesOriginal;
+        private boolean mFullResolution;
+        private int mProfilerScope;
+
+        private boolean isFused() {
+            return mFilter==null && !isCompute();
+        }
+
+        private boolean isCompute() {
+            return !mComputeStages.isEmpty();
+        }
+    }
+
     public BasePostProcessingFilterChainExecutor(int inScreenSizeDivisionFactor) {
         mFilterList = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
+        mCompiledFilterList = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
+        mCompiledNumberOfIterations = new ArrayList<Integer>();
+        mFilterPasses = new ArrayList<FilterPass>();
+        mFusedProgramCache = new HashMap<String,int[]>();
+        mComputeProgramCache = new HashMap<String,Integer>();
+        mShaderSourceCache = new HashMap<String,String>();
         mScreenSizeDivisionFactor = inScreenSizeDivisionFactor;
+        mProfilerScope = BaseProfiler.getInstance().registerScope("FILTERCHAIN");
     }
 
     public void init(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        mPrimaryFBORenderer = new PrimaryFBORenderer();
-        mSecondaryFBORenderer = new SecondaryFBORenderer();
-        mOriginalFBORenderer = new OriginalFBORenderer();
-        mBaseFrameBufferObjectRendererExecutor_Primary = new BaseFrameBufferObjectRendererExecutor(
-                BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor,
-                BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor,
-                mPrimaryFBORenderer
-        );
-        mBaseFrameBufferObjectRendererExecutor_Primary.init(inGL,inGLU,inGLUT);
-        mBaseFrameBufferObjectRendererExecutor_Secondary = new BaseFrameBufferObjectRendererExecutor(
-                BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor,
-                BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor,
-                mSecondaryFBORenderer
-        );
-        mBaseFrameBufferObjectRendererExecutor_Secondary.init(inGL,inGLU,inGLUT);
-        mBaseFrameBufferObjectRendererExecutor_Original = new BaseFrameBufferObjectRendererExecutor(
-                BaseGlobalEnvironment.getInstance().getScreenWidth()/1,
-                BaseGlobalEnvironment.getInstance().getScreenHeight()/1,
-                mOriginalFBORenderer
-        );
-        mBaseFrameBufferObjectRendererExecutor_Original.init(inGL,inGLU,inGLUT);
+        //render targets are acquired from the BaseRenderTargetPool by executeFilterChain() ...
+        mFilterPassRenderer = new FilterPassRenderer();
     }
 
-    //quite a lot of redundant code here ... anyway who cares X-)
-    private class PrimaryFBORenderer implements BaseFrameBufferObjectRendererInterface {
+    //renders mCurrentFilterPass with mCurrentInputFBO as source into whatever framebuffer is bound ...
+    private class FilterPassRenderer implements BaseFrameBufferObjectRendererInterface {
 
         public void init_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
 
         public void mainLoop_FBORenderer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
-            if (mFilterChainLogging) { BaseLogging.getInstance().info("RENDER SECONDARY->PRIMARY"); }
-            BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT,BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor);
-            inGL.glShadeModel(GL_SMOOTH);
-            inGL.glDisable(GL_LIGHTING);
-            inGL.glFrontFace(GL_CCW);
-            inGL.glDisable(GL_CULL_FACE);
-            inGL.glDisable(GL_DEPTH_TEST);
-            inGL.glMatrixMode(GL_PROJECTION);
-            inGL.glLoadIdentity();
-            inGL.glOrtho(0, BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor, 0, -1, 1);
-            inGL.glMatrixMode(GL_MODELVIEW);
-            inGL.glLoadIdentity();
-            //bind old fullscreen texture to texture unit 1
-            inGL.glActiveTexture(GL_TEXTURE1);
-            inGL.glBindTexture(GL_TEXTURE_2D, mOriginalFBO.getColorTextureID());
-            inGL.glActiveTexture(GL_TEXTURE0);
-            mCurrent_PrimaryFBO.prepareForColouredRendering(inGL,GL_TEXTURE0);
-            mBasePostProcessingFilterChainShaderInterface_Primary.prepareForProgramUse(inGL);
-            renderInternalBillboardWithAutomaticFlipping(inGL,inGLU,inGLUT,false);
-            mBasePostProcessingFilterChainShaderInterface_Primary.stopProgramUse(inGL);
-            mCurrent_PrimaryFBO.stopColouredRendering(inGL);
+            renderFilterPass(inGL,false);
         }
 
         public void cleanup_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
 
     }
 
-    //quite a lot of redundant code here ... anyway who cares X-)
-    private class SecondaryFBORenderer implements BaseFrameBufferObjectRendererInterface {
-
-        public void init_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
-
-        public void mainLoop_FBORenderer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
-            if (mFilterChainLogging) { BaseLogging.getInstance().info("RENDER PRIMARY->SECONDARY"); }
-            BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT,BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor);
-            inGL.glShadeModel(GL_SMOOTH);
-            inGL.glDisable(GL_LIGHTING);
-            inGL.glFrontFace(GL_CCW);
-            inGL.glDisable(GL_CULL_FACE);
-            inGL.glDisable(GL_DEPTH_TEST);          
-            inGL.glMatrixMode(GL_PROJECTION);
-            inGL.glLoadIdentity();
-            inGL.glOrtho(0, BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor, 0, -1, 1);
-            inGL.glMatrixMode(GL_MODELVIEW);
-            inGL.glLoadIdentity();
-            //bind old fullscreen texture to texture unit 1
-            inGL.glActiveTexture(GL_TEXTURE1);
-            inGL.glBindTexture(GL_TEXTURE_2D, mOriginalFBO.getColorTextureID());
-            inGL.glActiveTexture(GL_TEXTURE0);
-            mCurrent_SecondaryFBO.prepareForColouredRendering(inGL,GL_TEXTURE0);
-            mBasePostProcessingFilterChainShaderInterface_Secondary.prepareForProgramUse(inGL);
-            renderInternalBillboardWithAutomaticFlipping(inGL,inGLU,inGLUT,false);
-            mBasePostProcessingFilterChainShaderInterface_Secondary.stopProgramUse(inGL);
-            mCurrent_SecondaryFBO.stopColouredRendering(inGL);
+    private void renderFilterPass(GL2 inGL,boolean inFlipped) {
+        //bind old fullscreen texture to texture unit 1
+        inGL.glActiveTexture(GL_TEXTURE1);
+        inGL.glBindTexture(GL_TEXTURE_2D, mOriginalFBO.getColorTextureID());
+        inGL.glActiveTexture(GL_TEXTURE0);
+        mCurrentInputFBO.prepareForColouredRendering(inGL,GL_TEXTURE0);
+        if (mCurrentFilterPass.isFused()) {
+            inGL.glUseProgram(mCurrentFilterPass.mLinkedShader);
+            ShaderUtils.setUniform1i(inGL,mCurrentFilterPass.mLinkedShader,"sampler0",0);
+            if (mCurrentFilterPass.mUsesOriginal) {
+                ShaderUtils.setUniform1i(inGL,mCurrentFilterPass.mLinkedShader,"sampler1",1);
+            }
+            for (int i=0; i<mCurrentFilterPass.mStages.size(); i++) {
+                mCurrentFilterPass.mStages.get(i).setPointwiseUniforms(inGL,mCurrentFilterPass.mLinkedShader,mCurrentFilterPass.mStagePrefixes.get(i));
+            }
+        } else if (mCurrentFilterPass.mFilter instanceof BasePostProcessingFilterChainMultiPassInterface) {
+            ((BasePostProcessingFilterChainMultiPassInterface)mCurrentFilterPass.mFilter).prepareForPassUse(inGL,mCurrentSubPass,mCurrentSourceWidth,mCurrentSourceHeight);
+        } else {
+            mCurrentFilterPass.mFilter.prepareForProgramUse(inGL);
         }
-
-        public void cleanup_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
-
-    }
-
-    //quite a lot of redundant code here ... anyway who cares X-)
-    private class OriginalFBORenderer implements BaseFrameBufferObjectRendererInterface {
-
-        public void init_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
-
-        public void mainLoop_FBORenderer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
-            if (mFilterChainLogging) { BaseLogging.getInstance().info("RENDER PRIMARY/SECONDARY->ORIGINAL"); }
-            BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT,BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight());
-            inGL.glShadeModel(GL_SMOOTH);
-            inGL.glDisable(GL_LIGHTING);
-            inGL.glFrontFace(GL_CCW);
-            inGL.glDisable(GL_CULL_FACE);
-            inGL.glDisable(GL_DEPTH_TEST);
-            inGL.glMatrixMode(GL_PROJECTION);
-            inGL.glLoadIdentity();
-            inGL.glOrtho(0, BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight(), 0, -1, 1);
-            inGL.glMatrixMode(GL_MODELVIEW);
-            inGL.glLoadIdentity();
-            //bind old fullscreen texture to texture unit 1
-            inGL.glActiveTexture(GL_TEXTURE1);
-            inGL.glBindTexture(GL_TEXTURE_2D, mOriginalFBO.getColorTextureID());
-            inGL.glActiveTexture(GL_TEXTURE0);
-            mCurrent_OriginalFBO.prepareForColouredRendering(inGL,GL_TEXTURE0);
-            mBasePostProcessingFilterChainShaderInterface_Original.prepareForProgramUse(inGL);
-            inGL.glBegin(GL_QUADS);
-                inGL.glTexCoord2f(0.0f, 0.0f);
-                inGL.glVertex2f(0.0f, 0.0f);
-                inGL.glTexCoord2f(1.0f, 0.0f);
-                inGL.glVertex2f(BaseGlobalEnvironment.getInstance().getScreenWidth(), 0.0f);
-                inGL.glTexCoord2f(1.0f, 1.0f);
-                inGL.glVertex2f(BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight());
-                inGL.glTexCoord2f(0.0f, 1.0f);
-                inGL.glVertex2f(0.0f, BaseGlobalEnvironment.getInstance().getScreenHeight());
-            inGL.glEnd();
-            mBasePostProcessingFilterChainShaderInterface_Original.stopProgramUse(inGL);
-            mCurrent_OriginalFBO.stopColouredRendering(inGL);
+        PostProcessingUtils.renderFullscreenQuad(inGL,inFlipped);
+        if (mCurrentFilterPass.isFused()) {
+            inGL.glUseProgram(0);
+        } else {
+            mCurrentFilterPass.mFilter.stopProgramUse(inGL);
         }
-
-        public void cleanup_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
-
+        mCurrentInputFBO.stopColouredRendering(inGL);
     }
 
     public void addFilter(BasePostProcessingFilterChainShaderInterface inBasePostProcessingFilterChainShaderInterface) {
@@ -196,13 +162,31 @@ public class BasePostProcessingFilterChainExecutor {
         mFilterList.clear();
     }
     
+    //if the last execution drew its final fused pass straight to the framebuffer, this is the input of that pass and
+    //not the filtered image - call setKeepFilterChainResult(true) before executeFilterChain() to read the result ...
     public int getFilterChainResultColorTexture() {
+        checkFilterChainResultDrawnDirectly();
         return mFilterChainResultColorTexture;
     }
     
+    //same restriction as getFilterChainResultColorTexture() ...
     public BaseFrameBufferObjectRendererExecutor getFilterChainResultFBOExecutor() {
+        checkFilterChainResultDrawnDirectly();
         return mFilterChainResultFrameBufferObjectRendererExecutor;
     }
+
+    //renders the last fused pass to a render target even if inDrawToFrameBuffer is set, so the result getters stay valid ...
+    public void setKeepFilterChainResult(boolean inKeepFilterChainResult) {
+        mKeepFilterChainResult = inKeepFilterChainResult;
+    }
+
+    private void checkFilterChainResultDrawnDirectly() {
+        if (mFilterChainResultDrawnDirectly) {
+            BaseLogging.getInstance().warning("FILTERCHAIN RESULT READ AFTER THE LAST PASS WAS DRAWN TO THE FRAMEBUFFER, RETURNING ITS INPUT - KEEPING THE RESULT FROM NEXT FRAME ON");
+            mKeepFilterChainResult = true;
+            mFilterChainResultDrawnDirectly = false;
+        }
+    }
     
     public void executeFilterChain(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inOriginalFBO,boolean inDrawToFrameBuffer) {
         executeFilterChain(inFrameNumber,inGL,inGLU,inGLUT,inOriginalFBO,inDrawToFrameBuffer,false);
@@ -212,119 +196,316 @@ public class BasePostProcessingFilterChainExecutor {
         mFilterChainLogging = inFilterChainLogging;
     }
 
-    public void executeFilterChain(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inOriginalFBO,boolean inDrawToFrameBuffer,boolean inFlipped) {
-        if (mFilterChainLogging) { BaseLogging.getInstance().info("-!PROCESSING executeFilterChain() on "+this+" !-"); }
-        mOriginalFBO = inOriginalFBO;
-        ENDRESULT_BUFFER tEndresultBuffer = ENDRESULT_BUFFER.PRIMARY;
-        boolean tUsePrimary = false;
+    public void setComputeShaderBackend(boolean inComputeShaderBackend) {
+        if (mComputeShaderBackend!=inComputeShaderBackend) {
+            mComputeShaderBackend = inComputeShaderBackend;
+            //force recompilation ...
+            mCompiledFilterList.clear();
+            mCompiledNumberOfIterations.clear();
+        }
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    private boolean isCompiledFilterChainOutdated() {
+        if (mFilterList.size()!=mCompiledFilterList.size()) {
+            return true;
+        }
         for (int i=0; i<mFilterList.size(); i++) {
-            if (mFilterList.get(i) instanceof PostProcessingFilter_Blender_Base) {
-                mBasePostProcessingFilterChainShaderInterface_Original = mFilterList.get(i);
-                if (mFilterChainLogging) { BaseLogging.getInstance().info("USING BLENDER FILTER HANDLING ON FILTER NUMBER="+i); }
-                if (tEndresultBuffer==ENDRESULT_BUFFER.PRIMARY) {
-                    if (mFilterChainLogging) { BaseLogging.getInstance().info("BLENDER ENDRESULT_BUFFER.PRIMARY"); }
-                    mCurrent_OriginalFBO = mBaseFrameBufferObjectRendererExecutor_Primary;
-                    mBaseFrameBufferObjectRendererExecutor_Original.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
-                    tEndresultBuffer = ENDRESULT_BUFFER.ORIGINAL;
-                } else {
-                    if (mFilterChainLogging) { BaseLogging.getInstance().info("BLENDER ENDRESULT_BUFFER.SECONDARY"); }
-                    mCurrent_OriginalFBO = mBaseFrameBufferObjectRendererExecutor_Secondary;
-                    mBaseFrameBufferObjectRendererExecutor_Original.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
-                    tEndresultBuffer = ENDRESULT_BUFFER.ORIGINAL;
+            if (mFilterList.get(i)!=mCompiledFilterList.get(i) || mFilterList.get(i).getNumberOfIterations()!=mCompiledNumberOfIterations.get(i).intValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getShaderSource(String inFileName) {
+        String tSource = mShaderSourceCache.get(inFileName);
+        if (tSource==null) {
+            tSource = ShaderUtils.loadShaderSourceFileAsString(inFileName);
+            mShaderSourceCache.put(inFileName,tSource);
+        }
+        return tSource;
+    }
+
+    //returns null if the filter has to be rendered in a pass of its own ...
+    private String getPointwiseFunction(BasePostProcessingFilterChainShaderInterface inFilter,String inPrefix) {
+        if (!(inFilter instanceof BasePostProcessingFilterChainPointwiseInterface)) {
+            return null;
+        }
+        String tFileName = ((BasePostProcessingFilterChainPointwiseInterface)inFilter).getFragmentShaderFileName();
+        return PostProcessingFusionUtils.convertToPointwiseFunction(getShaderSource(tFileName),inPrefix);
+    }
+
+    //returns null if the filter can't run as compute shader stage ...
+    private String getConvolutionFunction(GL2 inGL,BasePostProcessingFilterChainShaderInterface inFilter,String inPrefix) {
+        if (!mComputeShaderBackend || !(inFilter instanceof PostProcessingFilter_Base_Convolution) || !ComputeShaderUtils.isAvailable(inGL)) {
+            return null;
+        }
+        String tFileName = ((PostProcessingFilter_Base_Convolution)inFilter).getFragmentShaderFileName();
+        return PostProcessingFusionUtils.convertToConvolutionFunction(getShaderSource(tFileName),inPrefix);
+    }
+
+    private void compileFilterChain(GL2 inGL) {
+        mCompiledFilterList.clear();
+        mCompiledNumberOfIterations.clear();
+        mFilterPasses.clear();
+        FilterPass tFusedPass = null;
+        ArrayList<String> tPointwiseFunctions = new ArrayList<String>();
+        ArrayList<String> tCallPrefixes = new ArrayList<String>();
+        ArrayList<BasePostProcessingFilterChainShaderInterface> tConvolutions = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
+        for (BasePostProcessingFilterChainShaderInterface tFilter : mFilterList) {
+            mCompiledFilterList.add(tFilter);
+            mCompiledNumberOfIterations.add(Integer.valueOf(tFilter.getNumberOfIterations()));
+            if (tFilter instanceof BasePostProcessingFilterChainPointwiseInterface && ((BasePostProcessingFilterChainPointwiseInterface)tFilter).getFragmentShaderFileName()==null) {
+                //identity ...
+                continue;
+            }
+            if (tFilter.getNumberOfIterations()>0 && getConvolutionFunction(inGL,tFilter,"c_")!=null) {
+                if (tFusedPass!=null) {
+                    finishFusedPass(inGL,tFusedPass,tPointwiseFunctions,tCallPrefixes);
+                    tFusedPass = null;
                 }
-            } else {
-                if (mFilterChainLogging) { BaseLogging.getInstance().info("NEXT FILTER ------- FILTER NUMBER="+i); }
-                mBasePostProcessingFilterChainShaderInterface_Primary = mFilterList.get(i);
-                mBasePostProcessingFilterChainShaderInterface_Secondary = mFilterList.get(i);
-                //hardcoded initial iteration ... :-X
-                if (i==0) {
-                    if (mFilterChainLogging) { BaseLogging.getInstance().info("RENDER ORIGINAL->PRIMARY"); }
-                    mCurrent_PrimaryFBO = mOriginalFBO;
-                    mBaseFrameBufferObjectRendererExecutor_Primary.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
-                    tEndresultBuffer = ENDRESULT_BUFFER.PRIMARY;
+                tConvolutions.add(tFilter);
+                continue;
+            }
+            if (!tConvolutions.isEmpty() && !finishComputePasses(inGL,tConvolutions)) {
+                //a generated compute shader was rejected, start over without compute passes ...
+                compileFilterChain(inGL);
+                return;
+            }
+            String tPrefix = "f"+((tFusedPass==null) ? 0 : tFusedPass.mStages.size())+"_";
+            String tPointwiseFunction = getPointwiseFunction(tFilter,tPrefix);
+            if (tPointwiseFunction!=null) {
+                if (tFusedPass==null) {
+                    tFusedPass = new FilterPass();
                 }
-                mCurrent_PrimaryFBO = mBaseFrameBufferObjectRendererExecutor_Secondary;
-                mCurrent_SecondaryFBO = mBaseFrameBufferObjectRendererExecutor_Primary;
-                int tNumberOfIterations;
-                if (i==0) {
-                    tNumberOfIterations = mFilterList.get(i).getNumberOfIterations()-1;
-                } else {
-                    tNumberOfIterations = mFilterList.get(i).getNumberOfIterations();
+                tFusedPass.mStages.add((BasePostProcessingFilterChainPointwiseInterface)tFilter);
+                tFusedPass.mStagePrefixes.add(tPrefix);
+                tPointwiseFunctions.add(tPointwiseFunction);
+                //blenders mix with the original once, color filters are simply applied again ...
+                boolean tBlender = tFilter instanceof PostProcessingFilter_Blender_Base;
+                int tNumberOfCalls = tBlender ? 1 : tFilter.getNumberOfIterations();
+                for (int i=0; i<tNumberOfCalls; i++) {
+                    tCallPrefixes.add(tPrefix);
                 }
-                for (int j=0; j<tNumberOfIterations; j++) {
-                    if (mFilterChainLogging) { BaseLogging.getInstance().info("ITERATION LOOP NUMBER="+j); }
-                    if (tUsePrimary) {
-                        mBaseFrameBufferObjectRendererExecutor_Primary.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
-                        tEndresultBuffer = ENDRESULT_BUFFER.PRIMARY;
-                    } else {
-                        mBaseFrameBufferObjectRendererExecutor_Secondary.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
-                        tEndresultBuffer = ENDRESULT_BUFFER.SECONDARY;
-                    }
-                    tUsePrimary = tUsePrimary^true;
+                tFusedPass.mUsesOriginal |= PostProcessingFusionUtils.usesOriginal(tPointwiseFunction);
+                tFusedPass.mFullResolution |= tBlender;
+            } else {
+                if (tFusedPass!=null) {
+                    finishFusedPass(inGL,tFusedPass,tPointwiseFunctions,tCallPrefixes);
+                    tFusedPass = null;
                 }
+                FilterPass tFilterPass = new FilterPass();
+                tFilterPass.mFilter = tFilter;
+                tFilterPass.mProfilerScope = BaseProfiler.getInstance().registerScope("FILTER "+tFilter.getClass().getSimpleName());
+                mFilterPasses.add(tFilterPass);
             }
         }
-        BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT);
-        if (tEndresultBuffer==ENDRESULT_BUFFER.PRIMARY) {
-            if (mFilterChainLogging) { BaseLogging.getInstance().info("ENDRESULT_BUFFER.PRIMARY"); }
-            mFilterChainResultColorTexture = mBaseFrameBufferObjectRendererExecutor_Primary.getColorTextureID();
-            mFilterChainResultFrameBufferObjectRendererExecutor = mBaseFrameBufferObjectRendererExecutor_Primary;
-            if (inDrawToFrameBuffer) {
-                mBaseFrameBufferObjectRendererExecutor_Primary.renderFBOAsFullscreenBillboard(inGL,inGLU,inGLUT,inFlipped);
+        if (tFusedPass!=null) {
+            finishFusedPass(inGL,tFusedPass,tPointwiseFunctions,tCallPrefixes);
+        }
+        if (!tConvolutions.isEmpty() && !finishComputePasses(inGL,tConvolutions)) {
+            compileFilterChain(inGL);
+            return;
+        }
+        if (mFilterChainLogging) { BaseLogging.getInstance().info("FILTERCHAIN COMPILED: "+mFilterList.size()+" FILTERS -> "+mFilterPasses.size()+" PASSES"); }
+    }
+
+    private void finishFusedPass(GL2 inGL,FilterPass inFusedPass,ArrayList<String> inPointwiseFunctions,ArrayList<String> inCallPrefixes) {
+        String tSource = PostProcessingFusionUtils.generateFusedFragmentShader(inPointwiseFunctions,inCallPrefixes);
+        int[] tProgram = mFusedProgramCache.get(tSource);
+        if (tProgram==null) {
+            int tFragmentShader = ShaderUtils.generateFragmentShader(inGL,tSource);
+            tProgram = new int[] {tFragmentShader, ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,tFragmentShader)};
+            mFusedProgramCache.put(tSource,tProgram);
+            BaseLogging.getInstance().info("FUSED "+inFusedPass.mStages.size()+" POINT-WISE FILTERS INTO PROGRAM "+tProgram[1]);
+        }
+        inFusedPass.mLinkedShader = tProgram[1];
+        StringBuilder tName = new StringBuilder("FUSED ");
+        for (int i=0; i<inFusedPass.mStages.size(); i++) {
+            tName.append((i==0) ? "" : "+").append(inFusedPass.mStages.get(i).getClass().getSimpleName());
+        }
+        inFusedPass.mProfilerScope = BaseProfiler.getInstance().registerScope(tName.toString());
+        mFilterPasses.add(inFusedPass);
+        inPointwiseFunctions.clear();
+        inCallPrefixes.clear();
+    }
+
+    //splits the iterations of the collected convolutions into dispatches of at most cMaximumConvolutionStages stages,
+    //returns false and disables the compute shader backend if the driver rejects a generated shader ...
+    private boolean finishComputePasses(GL2 inGL,ArrayList<BasePostProcessingFilterChainShaderInterface> inConvolutions) {
+        ArrayList<BasePostProcessingFilterChainShaderInterface> tStages = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
+        for (BasePostProcessingFilterChainShaderInterface tConvolution : inConvolutions) {
+            for (int i=0; i<tConvolution.getNumberOfIterations(); i++) {
+                tStages.add(tConvolution);
             }
-        } else if (tEndresultBuffer==ENDRESULT_BUFFER.SECONDARY) {
-            if (mFilterChainLogging) { BaseLogging.getInstance().info("ENDRESULT_BUFFER.SECONDARY"); }
-            mFilterChainResultColorTexture = mBaseFrameBufferObjectRendererExecutor_Secondary.getColorTextureID();
-            mFilterChainResultFrameBufferObjectRendererExecutor = mBaseFrameBufferObjectRendererExecutor_Secondary;
-            if (inDrawToFrameBuffer) {
-                mBaseFrameBufferObjectRendererExecutor_Secondary.renderFBOAsFullscreenBillboard(inGL,inGLU,inGLUT,inFlipped);
+        }
+        inConvolutions.clear();
+        for (int tFirstStage=0; tFirstStage<tStages.size(); tFirstStage+=PostProcessingFusionUtils.cMaximumConvolutionStages) {
+            FilterPass tComputePass = new FilterPass();
+            tComputePass.mComputeStages.addAll(tStages.subList(tFirstStage,Math.min(tStages.size(),tFirstStage+PostProcessingFusionUtils.cMaximumConvolutionStages)));
+            //one function per distinct filter, iterations call it again ...
+            ArrayList<BasePostProcessingFilterChainShaderInterface> tDistinctFilters = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
+            ArrayList<String> tConvolutionFunctions = new ArrayList<String>();
+            ArrayList<String> tCallPrefixes = new ArrayList<String>();
+            StringBuilder tName = new StringBuilder("COMPUTE ");
+            for (BasePostProcessingFilterChainShaderInterface tStage : tComputePass.mComputeStages) {
+                int tIndex = tDistinctFilters.indexOf(tStage);
+                if (tIndex<0) {
+                    tIndex = tDistinctFilters.size();
+                    tDistinctFilters.add(tStage);
+                    tConvolutionFunctions.add(getConvolutionFunction(inGL,tStage,"c"+tIndex+"_"));
+                }
+                tCallPrefixes.add("c"+tIndex+"_");
+                tName.append((tCallPrefixes.size()==1) ? "" : "+").append(tStage.getClass().getSimpleName());
             }
-        } else {
-            if (mFilterChainLogging) { BaseLogging.getInstance().info("ENDRESULT_BUFFER.ORIGINAL"); }
-            mFilterChainResultColorTexture = mBaseFrameBufferObjectRendererExecutor_Original.getColorTextureID();
-            mFilterChainResultFrameBufferObjectRendererExecutor = mBaseFrameBufferObjectRendererExecutor_Original;
-            if (inDrawToFrameBuffer) {
-                if (inFlipped) {
-                    mBaseFrameBufferObjectRendererExecutor_Original.renderFBOAsFullscreenBillboard(inGL,inGLU,inGLUT);
-                } else {
-                    mBaseFrameBufferObjectRendererExecutor_Original.renderFBOAsFullscreenBillboard_FLIPPED(inGL,inGLU,inGLUT);
+            String tSource = PostProcessingFusionUtils.generateConvolutionComputeShader(tConvolutionFunctions,tCallPrefixes);
+            Integer tProgram = mComputeProgramCache.get(tSource);
+            if (tProgram==null) {
+                int tLinkedShader = ComputeShaderUtils.generateComputeShaderProgram(inGL,tSource);
+                if (tLinkedShader==0) {
+                    BaseLogging.getInstance().warning("COMPUTE SHADER BACKEND DISABLED, FALLING BACK TO FRAGMENT SHADERS");
+                    mComputeShaderBackend = false;
+                    return false;
                 }
+                tProgram = Integer.valueOf(tLinkedShader);
+                mComputeProgramCache.put(tSource,tProgram);
+                BaseLogging.getInstance().info("STACKED "+tCallPrefixes.size()+" CONVOLUTIONS INTO COMPUTE PROGRAM "+tProgram);
             }
+            tComputePass.mLinkedShader = tProgram.intValue();
+            tComputePass.mProfilerScope = BaseProfiler.getInstance().registerScope(tName.toString());
+            mFilterPasses.add(tComputePass);
         }
-        if (mFilterChainLogging) { BaseLogging.getInstance().info("------- NEXT FRAME -------"); }
+        return true;
     }
 
-    private void renderInternalBillboardWithAutomaticFlipping(GL2 inGL,GLU inGLU,GLUT inGLUT,boolean inFlipped) {
-        if (inFlipped) {
-            //flipped billboard
-            inGL.glBegin(GL_QUADS);
-            inGL.glTexCoord2f(0.0f, 0.0f);
-            inGL.glVertex2f(0.0f, 0.0f);
-            inGL.glTexCoord2f(1.0f, 0.0f);
-            inGL.glVertex2f(BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, 0.0f);
-            inGL.glTexCoord2f(1.0f, 1.0f);
-            inGL.glVertex2f(BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor);
-            inGL.glTexCoord2f(0.0f, 1.0f);
-            inGL.glVertex2f(0.0f, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor);
-            inGL.glEnd();
-        } else {
-            inGL.glBegin(GL_QUADS);
-            inGL.glTexCoord2f(0.0f, 1.0f);
-            inGL.glVertex2f(0.0f, 0.0f);
-            inGL.glTexCoord2f(1.0f, 1.0f);
-            inGL.glVertex2f(BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, 0.0f);
-            inGL.glTexCoord2f(1.0f, 0.0f);
-            inGL.glVertex2f(BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor);
-            inGL.glTexCoord2f(0.0f, 0.0f);
-            inGL.glVertex2f(0.0f, BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor);
-            inGL.glEnd();
+    private void dispatchComputePass(GL2 inGL,GLU inGLU,GLUT inGLUT,int inWidth,int inHeight) {
+        BaseFrameBufferObjectRendererExecutor tRenderTarget = BaseRenderTargetPool.getInstance().acquire(inGL,inGLU,inGLUT,inWidth,inHeight);
+        inGL.glUseProgram(mCurrentFilterPass.mLinkedShader);
+        mCurrentInputFBO.prepareForColouredRendering(inGL,GL_TEXTURE0);
+        ShaderUtils.setUniform1i(inGL,mCurrentFilterPass.mLinkedShader,"sampler0",0);
+        inGL.glUniform2i(inGL.glGetUniformLocation(mCurrentFilterPass.mLinkedShader,"destination_size"),inWidth,inHeight);
+        ComputeShaderUtils.bindImageTexture(0,tRenderTarget.getColorTextureID(),0,false,0,GL_WRITE_ONLY,GL_RGBA8);
+        int tTileSize = PostProcessingFusionUtils.cComputeTileSize;
+        ComputeShaderUtils.dispatchCompute((inWidth+tTileSize-1)/tTileSize,(inHeight+tTileSize-1)/tTileSize,1);
+        //the result is either sampled by the next pass or drawn as billboard ...
+        ComputeShaderUtils.memoryBarrier(ComputeShaderUtils.GL_TEXTURE_FETCH_BARRIER_BIT | ComputeShaderUtils.GL_FRAMEBUFFER_BARRIER_BIT);
+        ComputeShaderUtils.bindImageTexture(0,0,0,false,0,GL_WRITE_ONLY,GL_RGBA8);
+        mCurrentInputFBO.stopColouredRendering(inGL);
+        inGL.glUseProgram(0);
+        if (mCurrentInputFBO!=mOriginalFBO) {
+            BaseRenderTargetPool.getInstance().release(mCurrentInputFBO);
+        }
+        mCurrentInputFBO = tRenderTarget;
+    }
+
+    private void renderFilterPassToTarget(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,int inWidth,int inHeight) {
+        BaseFrameBufferObjectRendererExecutor tRenderTarget = BaseRenderTargetPool.getInstance().acquire(inGL,inGLU,inGLUT,inWidth,inHeight);
+        BaseRenderTargetPool.getInstance().renderToTarget(inFrameNumber,inGL,inGLU,inGLUT,tRenderTarget,mFilterPassRenderer);
+        //the input is consumed, only the original stays alive for blenders ...
+        if (mCurrentInputFBO!=mOriginalFBO) {
+            BaseRenderTargetPool.getInstance().release(mCurrentInputFBO);
+        }
+        mCurrentInputFBO = tRenderTarget;
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    //if inDrawToFrameBuffer is set and the chain ends with fused point-wise filters, these are rendered straight to the
+    //framebuffer unless setKeepFilterChainResult(true) was called, see getFilterChainResultColorTexture() ...
+    public void executeFilterChain(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inOriginalFBO,boolean inDrawToFrameBuffer,boolean inFlipped) {
+        if (mFilterChainLogging) { BaseLogging.getInstance().info("-!PROCESSING executeFilterChain() on "+this+" !-"); }
+        BaseProfiler.getInstance().beginScope(inGL,mProfilerScope);
+        if (isCompiledFilterChainOutdated()) {
+            compileFilterChain(inGL);
+        }
+        //the result of the last execution isn't needed anymore ...
+        if (mFilterChainResultFrameBufferObjectRendererExecutor!=mOriginalFBO) {
+            BaseRenderTargetPool.getInstance().release(mFilterChainResultFrameBufferObjectRendererExecutor);
+        }
+        mOriginalFBO = inOriginalFBO;
+        mCurrentInputFBO = inOriginalFBO;
+        int tReducedWidth = BaseGlobalEnvironment.getInstance().getScreenWidth()/mScreenSizeDivisionFactor;
+        int tReducedHeight = BaseGlobalEnvironment.getInstance().getScreenHeight()/mScreenSizeDivisionFactor;
+        int tFullWidth = BaseGlobalEnvironment.getInstance().getScreenWidth();
+        int tFullHeight = BaseGlobalEnvironment.getInstance().getScreenHeight();
+        int tNumberOfPasses = mFilterPasses.size();
+        boolean tDrawLastPassDirectly = inDrawToFrameBuffer && !mKeepFilterChainResult && tNumberOfPasses>0 && mFilterPasses.get(tNumberOfPasses-1).isFused();
+        if (tDrawLastPassDirectly) {
+            tNumberOfPasses--;
         }
+        for (int i=0; i<tNumberOfPasses; i++) {
+            mCurrentFilterPass = mFilterPasses.get(i);
+            BaseProfiler.getInstance().beginScope(inGL,mCurrentFilterPass.mProfilerScope);
+            if (mCurrentFilterPass.isCompute()) {
+                if (mFilterChainLogging) { BaseLogging.getInstance().info("DISPATCH COMPUTE PASS NUMBER="+i+" STAGES="+mCurrentFilterPass.mComputeStages.size()); }
+                dispatchComputePass(inGL,inGLU,inGLUT,tReducedWidth,tReducedHeight);
+                BaseProfiler.getInstance().endScope(inGL,mCurrentFilterPass.mProfilerScope);
+                continue;
+            }
+            int tNumberOfIterations = mCurrentFilterPass.isFused() ? 1 : mCurrentFilterPass.mFilter.getNumberOfIterations();
+            BasePostProcessingFilterChainMultiPassInterface tMultiPassFilter = null;
+            if (mCurrentFilterPass.mFilter instanceof BasePostProcessingFilterChainMultiPassInterface) {
+                tMultiPassFilter = (BasePostProcessingFilterChainMultiPassInterface)mCurrentFilterPass.mFilter;
+            }
+            int tNumberOfSubPasses = (tMultiPassFilter!=null) ? tMultiPassFilter.getNumberOfPasses() : 1;
+            for (int j=0; j<tNumberOfIterations; j++) {
+                for (int k=0; k<tNumberOfSubPasses; k++) {
+                    if (mFilterChainLogging) { BaseLogging.getInstance().info("RENDER PASS NUMBER="+i+" ITERATION NUMBER="+j+" SUBPASS NUMBER="+k); }
+                    mCurrentSubPass = k;
+                    if (mCurrentFilterPass.mFullResolution) {
+                        renderFilterPassToTarget(inFrameNumber,inGL,inGLU,inGLUT,tFullWidth,tFullHeight);
+                    } else if (tMultiPassFilter!=null) {
+                        //texel steps are based on the chain resolution, even if the first pass reads the full size original ...
+                        int tSourceSizeDivisionFactor = (k==0) ? 1 : tMultiPassFilter.getPassSizeDivisionFactor(k-1);
+                        mCurrentSourceWidth = Math.max(1,tReducedWidth/tSourceSizeDivisionFactor);
+                        mCurrentSourceHeight = Math.max(1,tReducedHeight/tSourceSizeDivisionFactor);
+                        int tPassSizeDivisionFactor = tMultiPassFilter.getPassSizeDivisionFactor(k);
+                        renderFilterPassToTarget(inFrameNumber,inGL,inGLU,inGLUT,Math.max(1,tReducedWidth/tPassSizeDivisionFactor),Math.max(1,tReducedHeight/tPassSizeDivisionFactor));
+                    } else {
+                        renderFilterPassToTarget(inFrameNumber,inGL,inGLU,inGLUT,tReducedWidth,tReducedHeight);
+                    }
+                }
+            }
+            BaseProfiler.getInstance().endScope(inGL,mCurrentFilterPass.mProfilerScope);
+        }
+        mFilterChainResultColorTexture = mCurrentInputFBO.getColorTextureID();
+        mFilterChainResultFrameBufferObjectRendererExecutor = mCurrentInputFBO;
+        mFilterChainResultDrawnDirectly = tDrawLastPassDirectly;
+        BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT);
+        if (tDrawLastPassDirectly) {
+            mCurrentFilterPass = mFilterPasses.get(tNumberOfPasses);
+            if (mFilterChainLogging) { BaseLogging.getInstance().info("RENDER PASS NUMBER="+tNumberOfPasses+" TO FRAMEBUFFER"); }
+            BaseProfiler.getInstance().beginScope(inGL,mCurrentFilterPass.mProfilerScope);
+            renderFilterPass(inGL,inFlipped);
+            BaseProfiler.getInstance().endScope(inGL,mCurrentFilterPass.mProfilerScope);
+            BaseRoutineRuntime.resetFrustumToDefaultState(inGL,inGLU,inGLUT);
+        } else if (inDrawToFrameBuffer) {
+            mCurrentInputFBO.renderFBOAsFullscreenBillboard(inGL,inGLU,inGLUT,inFlipped);
+        }
+        BaseProfiler.getInstance().endScope(inGL,mProfilerScope);
+        if (mFilterChainLogging) { BaseLogging.getInstance().info("------- NEXT FRAME -------"); }
     }
 
     public void cleanup(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        mBaseFrameBufferObjectRendererExecutor_Primary.cleanup(inGL,inGLU,inGLUT);
-        mBaseFrameBufferObjectRendererExecutor_Secondary.cleanup(inGL,inGLU,inGLUT);
-        mBaseFrameBufferObjectRendererExecutor_Original.cleanup(inGL,inGLU,inGLUT);
+        if (mFilterChainResultFrameBufferObjectRendererExecutor!=mOriginalFBO) {
+            BaseRenderTargetPool.getInstance().release(mFilterChainResultFrameBufferObjectRendererExecutor);
+        }
+        mFilterChainResultFrameBufferObjectRendererExecutor = null;
+        for (int[] tProgram : mFusedProgramCache.values()) {
+            inGL.glDeleteShader(tProgram[0]);
+            inGL.glDeleteProgram(tProgram[1]);
+        }
+        mFusedProgramCache.clear();
+        for (Integer tProgram : mComputeProgramCache.values()) {
+            inGL.glDeleteProgram(tProgram.intValue());
+        }
+        mComputeProgramCache.clear();
+        //force recompilation if the executor is used again ...
+        mCompiledFilterList.clear();
+        mCompiledNumberOfIterations.clear();
+        mFilterPasses.clear();
     }
 
 }
@@ -0,0 +1,32 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Optional extension of BasePostProcessingFilterChainShaderInterface for filters wich need a
+ ** sequence of passes per iteration (separable kernels, downsample/upsample pyramids). Every pass
+ ** reads the result of the previous one and renders at its own fraction of the filter chain
+ ** resolution.
+ **
+ **/
+
+import javax.media.opengl.*;
+
+public interface BasePostProcessingFilterChainMultiPassInterface extends BasePostProcessingFilterChainShaderInterface {
+
+    public int getNumberOfPasses();
+    //1 renders at the filter chain resolution, 2 at half of it, ...
+    public int getPassSizeDivisionFactor(int inPass);
+    //inSourceWidth/inSourceHeight is the size of the previous pass, for the first pass the filter chain resolution. The
+    //first pass may read a larger texture (the unfiltered original), texel steps have to be based on these sizes anyway ...
+    public void prepareForPassUse(GL2 inGL,int inPass,int inSourceWidth,int inSourceHeight);
+
+}
@@ -0,0 +1,29 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Optional extension of BasePostProcessingFilterChainShaderInterface for filters wich compute
+ ** every output pixel from the same input pixel only (color adjustments, blenders). The filter
+ ** chain fuses consecutive point-wise filters into one generated shader, see
+ ** PostProcessingFusionUtils for the requirements the fragment shader source has to meet.
+ **
+ **/
+
+import javax.media.opengl.*;
+
+public interface BasePostProcessingFilterChainPointwiseInterface extends BasePostProcessingFilterChainShaderInterface {
+
+    //null for filters wich don't change anything at all ...
+    public String getFragmentShaderFileName();
+    public void setPointwiseUniforms(GL2 inGL,int inLinkedShader,String inUniformPrefix);
+
+}
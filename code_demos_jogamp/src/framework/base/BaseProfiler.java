@@ -0,0 +1,358 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Frame time profiler with named, nestable scopes. Every scope measures the CPU time between
+ ** beginScope() and endScope() and, where timer queries are available, the GPU time between the
+ ** two points in the command stream. GPU timestamps are written with glQueryCounter() instead
+ ** of GL_TIME_ELAPSED queries, the latter can't be nested. Query results are read back
+ ** cGPUFrameLatency frames later when the ring slot gets reused, so reading them usually never
+ ** stalls the pipeline. Durations go into lock-free per scope histograms (mean, p50, p95, p99,
+ ** max) wich are written as CSV and JSON into the working directory by export().
+ ** Scopes are registered once by name, begin/end run on the GL thread only. Threads without a
+ ** GL context (decoders, encoders) can still record CPU times with recordCPUTime().
+ **
+ **/
+
+import java.io.*;
+import java.text.*;
+import java.util.*;
+import javax.media.opengl.*;
+import static javax.media.opengl.GL2.*;
+
+public class BaseProfiler {
+
+    private static final String cPROFILING_OUTPUTFILENAME_PREFIX = "JOGAMP_PROFILE";
+    private static final int cGPUFrameLatency = 4;
+    private static final int cQueryAllocationBlockSize = 64;
+    private static final int cMaximumScopeDepth = 32;
+    private static final int cMixedParents = -2;
+
+    private static BaseProfiler mBaseProfilerInstance = null;
+
+    private static class Scope {
+        final String mName;
+        int mParentID = -1;
+        boolean mEntered;
+        final BaseProfiler_Histogram mCPUTime = new BaseProfiler_Histogram();
+        final BaseProfiler_Histogram mGPUTime = new BaseProfiler_Histogram();
+        Scope(String inName) {
+            mName = inName;
+        }
+    }
+
+    private volatile Scope[] mScopes = new Scope[0];
+    private final HashMap<String,Integer> mScopeIDs = new HashMap<String,Integer>();
+    private volatile boolean mEnabled;
+    private long mFrames;
+    //open scopes of the GL thread ...
+    private final int[] mStackScopeIDs = new int[cMaximumScopeDepth];
+    private final long[] mStackCPUStart = new long[cMaximumScopeDepth];
+    private final int[] mStackGPUEntry = new int[cMaximumScopeDepth];
+    private int mStackDepth;
+    private boolean mUnbalancedScopesReported;
+    //timer query ring, one slot per frame in flight ...
+    private boolean mGPUTimerInitialized;
+    private boolean mGPUTimerAvailable;
+    private final int[][] mSlotScopeIDs = new int[cGPUFrameLatency][16];
+    private final int[][] mSlotQueries = new int[cGPUFrameLatency][32];
+    private final int[] mSlotEntries = new int[cGPUFrameLatency];
+    private int mCurrentSlot;
+    private int[] mFreeQueries = new int[cQueryAllocationBlockSize];
+    private int mFreeQueryCount;
+    private int mAllocatedQueries;
+    private long mGPUStalls;
+    private final long[] mQueryResult = new long[2];
+    private final int[] mQueryAvailable = new int[1];
+
+    private BaseProfiler() {
+        BaseLogging.getInstance().info("CONSTRUCTING BASEPROFILER ...");
+    }
+
+    public static synchronized BaseProfiler getInstance() {
+        if (mBaseProfilerInstance==null) {
+            mBaseProfilerInstance = new BaseProfiler();
+        }
+        return mBaseProfilerInstance;
+    }
+
+    public void setEnabled(boolean inEnabled) {
+        mEnabled = inEnabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    //returns the id of an already registered scope with the same name ...
+    public synchronized int registerScope(String inName) {
+        Integer tID = mScopeIDs.get(inName);
+        if (tID!=null) {
+            return tID.intValue();
+        }
+        Scope[] tScopes = Arrays.copyOf(mScopes, mScopes.length+1);
+        tScopes[mScopes.length] = new Scope(inName);
+        mScopeIDs.put(inName, Integer.valueOf(mScopes.length));
+        mScopes = tScopes;
+        return tScopes.length-1;
+    }
+
+    //any thread ...
+    public void recordCPUTime(int inScopeID,long inNanoseconds) {
+        if (mEnabled) {
+            mScopes[inScopeID].mCPUTime.record(inNanoseconds);
+        }
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    //GL thread, before the first scope of a frame ...
+    public void beginFrame(GL2 inGL) {
+        if (!mEnabled) {
+            return;
+        }
+        if (!mGPUTimerInitialized) {
+            mGPUTimerInitialized = true;
+            mGPUTimerAvailable = inGL.isFunctionAvailable("glQueryCounter") && inGL.isFunctionAvailable("glGetQueryObjecti64v");
+            BaseLogging.getInstance().info("PROFILER GPU TIMER QUERIES "+(mGPUTimerAvailable ? "AVAILABLE" : "NOT AVAILABLE ... PROFILING CPU TIMES ONLY!"));
+        }
+        if (mStackDepth!=0) {
+            reportUnbalancedScopes("FRAME STARTED WITH "+mStackDepth+" OPEN SCOPE(S)");
+            mStackDepth = 0;
+        }
+        mCurrentSlot = (mCurrentSlot+1)%cGPUFrameLatency;
+        collectGPUTimes(inGL,mCurrentSlot);
+        mFrames++;
+    }
+
+    public void beginScope(GL2 inGL,int inScopeID) {
+        if (!mEnabled) {
+            return;
+        }
+        if (mStackDepth==cMaximumScopeDepth) {
+            reportUnbalancedScopes("MAXIMUM SCOPE DEPTH EXCEEDED");
+            return;
+        }
+        Scope tScope = mScopes[inScopeID];
+        int tParentID = (mStackDepth>0) ? mStackScopeIDs[mStackDepth-1] : -1;
+        if (!tScope.mEntered) {
+            tScope.mEntered = true;
+            tScope.mParentID = tParentID;
+        } else if (tScope.mParentID!=tParentID) {
+            //e.g. a shared FBO used by several filters, no single path describes it ...
+            tScope.mParentID = cMixedParents;
+        }
+        mStackScopeIDs[mStackDepth] = inScopeID;
+        mStackGPUEntry[mStackDepth] = mGPUTimerAvailable ? beginGPUEntry(inGL,inScopeID) : -1;
+        mStackCPUStart[mStackDepth] = System.nanoTime();
+        mStackDepth++;
+    }
+
+    public void endScope(GL2 inGL,int inScopeID) {
+        if (!mEnabled) {
+            return;
+        }
+        long tCPUEnd = System.nanoTime();
+        if (mStackDepth==0 || mStackScopeIDs[mStackDepth-1]!=inScopeID) {
+            reportUnbalancedScopes("END OF SCOPE "+mScopes[inScopeID].mName+" WITHOUT MATCHING BEGIN");
+            return;
+        }
+        mStackDepth--;
+        mScopes[inScopeID].mCPUTime.record(tCPUEnd-mStackCPUStart[mStackDepth]);
+        int tGPUEntry = mStackGPUEntry[mStackDepth];
+        if (tGPUEntry>=0) {
+            inGL.glQueryCounter(mSlotQueries[mCurrentSlot][tGPUEntry*2+1], GL_TIMESTAMP);
+        }
+    }
+
+    private void reportUnbalancedScopes(String inMessage) {
+        if (!mUnbalancedScopesReported) {
+            mUnbalancedScopesReported = true;
+            BaseLogging.getInstance().warning("PROFILER: "+inMessage+" ... CHECK beginScope()/endScope() PAIRS!");
+        }
+    }
+
+    private int beginGPUEntry(GL2 inGL,int inScopeID) {
+        int tEntry = mSlotEntries[mCurrentSlot];
+        if (tEntry==mSlotScopeIDs[mCurrentSlot].length) {
+            mSlotScopeIDs[mCurrentSlot] = Arrays.copyOf(mSlotScopeIDs[mCurrentSlot], tEntry*2);
+            mSlotQueries[mCurrentSlot] = Arrays.copyOf(mSlotQueries[mCurrentSlot], tEntry*4);
+        }
+        int tStartQuery = acquireQuery(inGL);
+        mSlotScopeIDs[mCurrentSlot][tEntry] = inScopeID;
+        mSlotQueries[mCurrentSlot][tEntry*2+0] = tStartQuery;
+        mSlotQueries[mCurrentSlot][tEntry*2+1] = acquireQuery(inGL);
+        mSlotEntries[mCurrentSlot] = tEntry+1;
+        inGL.glQueryCounter(tStartQuery, GL_TIMESTAMP);
+        return tEntry;
+    }
+
+    private int acquireQuery(GL2 inGL) {
+        if (mFreeQueryCount==0) {
+            if (mFreeQueries.length<cQueryAllocationBlockSize) {
+                mFreeQueries = new int[cQueryAllocationBlockSize];
+            }
+            inGL.glGenQueries(cQueryAllocationBlockSize, mFreeQueries, 0);
+            mFreeQueryCount = cQueryAllocationBlockSize;
+            mAllocatedQueries += cQueryAllocationBlockSize;
+        }
+        return mFreeQueries[--mFreeQueryCount];
+    }
+
+    private void releaseQuery(int inQuery) {
+        if (mFreeQueryCount==mFreeQueries.length) {
+            mFreeQueries = Arrays.copyOf(mFreeQueries, mFreeQueries.length*2);
+        }
+        mFreeQueries[mFreeQueryCount++] = inQuery;
+    }
+
+    private void collectGPUTimes(GL2 inGL,int inSlot) {
+        int tEntries = mSlotEntries[inSlot];
+        if (tEntries==0) {
+            return;
+        }
+        int[] tQueries = mSlotQueries[inSlot];
+        //timestamps complete in order, if the last one is there all of them are ...
+        inGL.glGetQueryObjectiv(tQueries[tEntries*2-1], GL_QUERY_RESULT_AVAILABLE, mQueryAvailable, 0);
+        if (mQueryAvailable[0]==0) {
+            mGPUStalls++;
+        }
+        for (int i=0; i<tEntries; i++) {
+            inGL.glGetQueryObjecti64v(tQueries[i*2+0], GL_QUERY_RESULT, mQueryResult, 0);
+            inGL.glGetQueryObjecti64v(tQueries[i*2+1], GL_QUERY_RESULT, mQueryResult, 1);
+            mScopes[mSlotScopeIDs[inSlot][i]].mGPUTime.record(mQueryResult[1]-mQueryResult[0]);
+            releaseQuery(tQueries[i*2+0]);
+            releaseQuery(tQueries[i*2+1]);
+        }
+        mSlotEntries[inSlot] = 0;
+    }
+
+    public void cleanup(GL2 inGL) {
+        if (!mGPUTimerAvailable) {
+            return;
+        }
+        for (int i=0; i<cGPUFrameLatency; i++) {
+            collectGPUTimes(inGL,i);
+        }
+        if (mFreeQueryCount>0) {
+            inGL.glDeleteQueries(mFreeQueryCount, mFreeQueries, 0);
+        }
+        mFreeQueryCount = 0;
+        mAllocatedQueries = 0;
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    private static String formatMicroseconds(double inNanoseconds) {
+        return String.format(Locale.US, "%.1f", inNanoseconds/1000.0);
+    }
+
+    private static String escapeJSON(String inString) {
+        return inString.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String getPath(Scope[] inScopes,Scope inScope) {
+        String tPath = (inScope.mParentID==cMixedParents) ? "*/"+inScope.mName : inScope.mName;
+        for (int i=inScope.mParentID, tDepth=0; i>=0 && tDepth<cMaximumScopeDepth; i=inScopes[i].mParentID, tDepth++) {
+            tPath = inScopes[i].mName+"/"+tPath;
+        }
+        return tPath;
+    }
+
+    private static void appendCSV(StringBuilder inStringBuilder,BaseProfiler_Histogram inHistogram) {
+        inStringBuilder.append(';').append(inHistogram.getCount());
+        inStringBuilder.append(';').append(formatMicroseconds(inHistogram.getMean()));
+        inStringBuilder.append(';').append(formatMicroseconds(inHistogram.getPercentile(0.50)));
+        inStringBuilder.append(';').append(formatMicroseconds(inHistogram.getPercentile(0.95)));
+        inStringBuilder.append(';').append(formatMicroseconds(inHistogram.getPercentile(0.99)));
+        inStringBuilder.append(';').append(formatMicroseconds(inHistogram.getMaximum()));
+    }
+
+    private static void appendJSON(StringBuilder inStringBuilder,BaseProfiler_Histogram inHistogram) {
+        inStringBuilder.append("{\"count\":").append(inHistogram.getCount());
+        inStringBuilder.append(",\"mean\":").append(formatMicroseconds(inHistogram.getMean()));
+        inStringBuilder.append(",\"p50\":").append(formatMicroseconds(inHistogram.getPercentile(0.50)));
+        inStringBuilder.append(",\"p95\":").append(formatMicroseconds(inHistogram.getPercentile(0.95)));
+        inStringBuilder.append(",\"p99\":").append(formatMicroseconds(inHistogram.getPercentile(0.99)));
+        inStringBuilder.append(",\"max\":").append(formatMicroseconds(inHistogram.getMaximum()));
+        inStringBuilder.append('}');
+    }
+
+    public String getSummary(int inScopeID) {
+        Scope tScope = mScopes[inScopeID];
+        return tScope.mName+" CPU P50="+formatMicroseconds(tScope.mCPUTime.getPercentile(0.50))+"US P99="+formatMicroseconds(tScope.mCPUTime.getPercentile(0.99))+"US"+
+               (tScope.mGPUTime.getCount()>0 ? " GPU P50="+formatMicroseconds(tScope.mGPUTime.getPercentile(0.50))+"US P99="+formatMicroseconds(tScope.mGPUTime.getPercentile(0.99))+"US" : "");
+    }
+
+    public String toCSV() {
+        Scope[] tScopes = mScopes;
+        StringBuilder tStringBuilder = new StringBuilder();
+        tStringBuilder.append("SCOPE;CPU_COUNT;CPU_MEAN_US;CPU_P50_US;CPU_P95_US;CPU_P99_US;CPU_MAX_US;GPU_COUNT;GPU_MEAN_US;GPU_P50_US;GPU_P95_US;GPU_P99_US;GPU_MAX_US\n");
+        for (Scope tScope : tScopes) {
+            tStringBuilder.append(getPath(tScopes,tScope));
+            appendCSV(tStringBuilder,tScope.mCPUTime);
+            appendCSV(tStringBuilder,tScope.mGPUTime);
+            tStringBuilder.append('\n');
+        }
+        return tStringBuilder.toString();
+    }
+
+    public String toJSON() {
+        Scope[] tScopes = mScopes;
+        StringBuilder tStringBuilder = new StringBuilder();
+        tStringBuilder.append("{\n  \"frames\":").append(mFrames);
+        tStringBuilder.append(",\n  \"gputimer\":").append(mGPUTimerAvailable);
+        tStringBuilder.append(",\n  \"gpustalls\":").append(mGPUStalls);
+        tStringBuilder.append(",\n  \"unit\":\"us\",\n  \"scopes\":[");
+        for (int i=0; i<tScopes.length; i++) {
+            Scope tScope = tScopes[i];
+            tStringBuilder.append(i==0 ? "\n" : ",\n");
+            tStringBuilder.append("    {\"name\":\"").append(escapeJSON(tScope.mName)).append('"');
+            tStringBuilder.append(",\"parent\":").append(tScope.mParentID>=0 ? "\""+escapeJSON(tScopes[tScope.mParentID].mName)+"\"" : (tScope.mParentID==cMixedParents ? "\"*\"" : "null"));
+            tStringBuilder.append(",\"cpu\":");
+            appendJSON(tStringBuilder,tScope.mCPUTime);
+            tStringBuilder.append(",\"gpu\":");
+            appendJSON(tStringBuilder,tScope.mGPUTime);
+            tStringBuilder.append('}');
+        }
+        tStringBuilder.append("\n  ]\n}\n");
+        return tStringBuilder.toString();
+    }
+
+    //writes JOGAMP_PROFILE_[time].csv and .json into the working directory ...
+    public void export() {
+        if (mScopes.length==0) {
+            return;
+        }
+        String tFileName = cPROFILING_OUTPUTFILENAME_PREFIX+"_"+new SimpleDateFormat("[HH-mm-ss-SSS]",Locale.US).format(Calendar.getInstance().getTime());
+        BaseLogging.getInstance().info("EXPORTING PROFILE OF "+mFrames+" FRAMES TO "+tFileName+".csv/.json ... GPU STALLS="+mGPUStalls+" TIMER QUERIES="+mAllocatedQueries);
+        for (int i=0; i<mScopes.length; i++) {
+            BaseLogging.getInstance().info("PROFILE "+getSummary(i));
+        }
+        writeFile(tFileName+".csv",toCSV());
+        writeFile(tFileName+".json",toJSON());
+    }
+
+    private static void writeFile(String inFileName,String inContent) {
+        try {
+            Writer tWriter = new OutputStreamWriter(new FileOutputStream(inFileName),"UTF-8");
+            try {
+                tWriter.write(inContent);
+            } finally {
+                tWriter.close();
+            }
+        } catch (IOException e) {
+            BaseLogging.getInstance().error("UNABLE TO WRITE PROFILE "+inFileName+" ... "+e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Lock-free log-linear histogram of durations in nanoseconds. Every power of two is divided into
+ ** 16 linear buckets, so a percentile read from a bucket is off by at most 1/16 of its value. The
+ ** counters are atomic: any thread may record, any thread may read percentiles while recording
+ ** goes on (the result then is a consistent enough snapshot for profiling purposes).
+ **
+ **/
+
+import java.util.concurrent.atomic.*;
+
+public class BaseProfiler_Histogram {
+
+    private static final int cSubBucketBits = 4;
+    private static final int cSubBuckets = 1<<cSubBucketBits;
+    //up to 2^40ns (~18 minutes), longer durations end up in the last bucket ...
+    private static final int cMaximumExponent = 40;
+    private static final int cBuckets = cSubBuckets+(cMaximumExponent-cSubBucketBits+1)*cSubBuckets;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(cBuckets);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMaximum = new AtomicLong();
+
+    private static int getBucketIndex(long inValue) {
+        if (inValue<cSubBuckets) {
+            return (int)Math.max(0, inValue);
+        }
+        int tExponent = 63-Long.numberOfLeadingZeros(inValue);
+        if (tExponent>cMaximumExponent) {
+            return cBuckets-1;
+        }
+        int tSubBucket = (int)(inValue>>>(tExponent-cSubBucketBits)) & (cSubBuckets-1);
+        return cSubBuckets+(tExponent-cSubBucketBits)*cSubBuckets+tSubBucket;
+    }
+
+    private static long getBucketLowerBound(int inIndex) {
+        if (inIndex<cSubBuckets) {
+            return inIndex;
+        }
+        int tExponent = (inIndex-cSubBuckets)/cSubBuckets+cSubBucketBits;
+        int tSubBucket = (inIndex-cSubBuckets)%cSubBuckets;
+        return ((long)(cSubBuckets+tSubBucket))<<(tExponent-cSubBucketBits);
+    }
+
+    public void record(long inNanoseconds) {
+        mBuckets.incrementAndGet(getBucketIndex(inNanoseconds));
+        mCount.incrementAndGet();
+        mSum.addAndGet(inNanoseconds);
+        long tMaximum = mMaximum.get();
+        while (inNanoseconds>tMaximum && !mMaximum.compareAndSet(tMaximum, inNanoseconds)) {
+            tMaximum = mMaximum.get();
+        }
+    }
+
+    //center of the bucket holding the given fraction (0..1) of all recorded values ...
+    public long getPercentile(double inFraction) {
+        long tCount = 0;
+        for (int i=0; i<cBuckets; i++) {
+            tCount += mBuckets.get(i);
+        }
+        if (tCount==0) {
+            return 0;
+        }
+        long tRank = Math.max(1, (long)Math.ceil(inFraction*tCount));
+        long tSeen = 0;
+        for (int i=0; i<cBuckets; i++) {
+            tSeen += mBuckets.get(i);
+            if (tSeen>=tRank) {
+                long tLowerBound = getBucketLowerBound(i);
+                long tUpperBound = (i+1<cBuckets) ? getBucketLowerBound(i+1) : tLowerBound;
+                return Math.min(mMaximum.get(), (tLowerBound+tUpperBound)/2);
+            }
+        }
+        return mMaximum.get();
+    }
+
+    public long getCount()      { return mCount.get(); }
+    public long getMaximum()    { return mMaximum.get(); }
+
+    public double getMean() {
+        long tCount = mCount.get();
+        return (tCount==0) ? 0.0 : (double)mSum.get()/(double)tCount;
+    }
+
+}
@@ -0,0 +1,164 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Shared pool of offscreen render targets. Users acquire a target by size, colour format and
+ ** whether they need depth, render into it with any BaseFrameBufferObjectRendererInterface and
+ ** release it as soon as its content was consumed. Released targets are handed out again, so
+ ** stages wich never are alive at the same time share their memory. Postprocessing passes get
+ ** targets without depth attachment by default. Targets idle for a while are deleted by
+ ** endFrame(), the peak video memory of all targets is reported on cleanup. GL thread only.
+ **
+ **/
+
+import java.util.*;
+import javax.media.opengl.*;
+import javax.media.opengl.glu.*;
+import com.jogamp.opengl.util.gl2.*;
+import static javax.media.opengl.GL2.*;
+
+public class BaseRenderTargetPool {
+
+    //a target not acquired for this many frames is deleted ...
+    private static final int cMaximumIdleFrames = 120;
+
+    private static BaseRenderTargetPool mInstance = null;
+    private final ArrayList<PooledTarget> mFreeTargets = new ArrayList<PooledTarget>();
+    private final ArrayList<PooledTarget> mUsedTargets = new ArrayList<PooledTarget>();
+    private final PooledTargetRenderer mPooledTargetRenderer = new PooledTargetRenderer();
+    private int mFrameNumber;
+    private long mAllocatedBytes;
+    private long mPeakAllocatedBytes;
+    private long mUsedBytes;
+    private long mPeakUsedBytes;
+    private int mPeakNumberOfTargets;
+
+    private BaseRenderTargetPool() {}
+
+    public static synchronized BaseRenderTargetPool getInstance() {
+        if (mInstance==null) {
+            mInstance = new BaseRenderTargetPool();
+        }
+        return mInstance;
+    }
+
+    private static class PooledTarget {
+        private BaseFrameBufferObjectRendererExecutor mTarget;
+        private int mLastUsedFrameNumber;
+    }
+
+    //pooled targets forward to the renderer passed to renderToTarget() ...
+    private static class PooledTargetRenderer implements BaseFrameBufferObjectRendererInterface {
+
+        private BaseFrameBufferObjectRendererInterface mCurrentRenderer;
+
+        public void init_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
+
+        public void mainLoop_FBORenderer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
+            mCurrentRenderer.mainLoop_FBORenderer(inFrameNumber,inGL,inGLU,inGLUT);
+        }
+
+        public void cleanup_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
+
+    }
+
+    //RGBA8 without depth, what postprocessing passes need ...
+    public BaseFrameBufferObjectRendererExecutor acquire(GL2 inGL,GLU inGLU,GLUT inGLUT,int inWidth,int inHeight) {
+        return acquire(inGL,inGLU,inGLUT,inWidth,inHeight,GL_RGBA8,false);
+    }
+
+    public BaseFrameBufferObjectRendererExecutor acquire(GL2 inGL,GLU inGLU,GLUT inGLUT,int inWidth,int inHeight,int inColorInternalFormat,boolean inWithDepth) {
+        PooledTarget tPooledTarget = null;
+        for (int i=0; i<mFreeTargets.size(); i++) {
+            BaseFrameBufferObjectRendererExecutor tTarget = mFreeTargets.get(i).mTarget;
+            if (tTarget.getWidth()==inWidth && tTarget.getHeight()==inHeight && tTarget.getColorInternalFormat()==inColorInternalFormat && tTarget.hasDepth()==inWithDepth) {
+                tPooledTarget = mFreeTargets.remove(i);
+                break;
+            }
+        }
+        if (tPooledTarget==null) {
+            tPooledTarget = new PooledTarget();
+            tPooledTarget.mTarget = new BaseFrameBufferObjectRendererExecutor(inWidth,inHeight,inColorInternalFormat,inWithDepth,mPooledTargetRenderer);
+            tPooledTarget.mTarget.init(inGL,inGLU,inGLUT);
+            mAllocatedBytes += tPooledTarget.mTarget.getVideoMemorySize();
+            mPeakAllocatedBytes = Math.max(mPeakAllocatedBytes,mAllocatedBytes);
+            mPeakNumberOfTargets = Math.max(mPeakNumberOfTargets,mFreeTargets.size()+mUsedTargets.size()+1);
+            BaseLogging.getInstance().info("RENDER TARGET POOL: TARGET "+(mFreeTargets.size()+mUsedTargets.size()+1)+" CREATED "+inWidth+"x"+inHeight+(inWithDepth ? " WITH DEPTH" : "")+" ALLOCATED="+(mAllocatedBytes>>20)+"MB");
+        }
+        tPooledTarget.mLastUsedFrameNumber = mFrameNumber;
+        mUsedTargets.add(tPooledTarget);
+        mUsedBytes += tPooledTarget.mTarget.getVideoMemorySize();
+        mPeakUsedBytes = Math.max(mPeakUsedBytes,mUsedBytes);
+        return tPooledTarget.mTarget;
+    }
+
+    public void release(BaseFrameBufferObjectRendererExecutor inTarget) {
+        for (int i=0; i<mUsedTargets.size(); i++) {
+            if (mUsedTargets.get(i).mTarget==inTarget) {
+                PooledTarget tPooledTarget = mUsedTargets.remove(i);
+                mUsedBytes -= inTarget.getVideoMemorySize();
+                mFreeTargets.add(tPooledTarget);
+                return;
+            }
+        }
+    }
+
+    public void renderToTarget(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inTarget,BaseFrameBufferObjectRendererInterface inRenderer) {
+        mPooledTargetRenderer.mCurrentRenderer = inRenderer;
+        inTarget.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
+        mPooledTargetRenderer.mCurrentRenderer = null;
+    }
+
+    //deletes targets nobody asked for lately, e.g. after the resolution of a stage changed ...
+    public void endFrame(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        mFrameNumber++;
+        for (int i=mFreeTargets.size()-1; i>=0; i--) {
+            PooledTarget tPooledTarget = mFreeTargets.get(i);
+            if (mFrameNumber-tPooledTarget.mLastUsedFrameNumber>cMaximumIdleFrames) {
+                mFreeTargets.remove(i);
+                deleteTarget(inGL,inGLU,inGLUT,tPooledTarget);
+            }
+        }
+    }
+
+    private void deleteTarget(GL2 inGL,GLU inGLU,GLUT inGLUT,PooledTarget inPooledTarget) {
+        mAllocatedBytes -= inPooledTarget.mTarget.getVideoMemorySize();
+        inPooledTarget.mTarget.cleanup(inGL,inGLU,inGLUT);
+    }
+
+    public int getNumberOfTargets()     { return mFreeTargets.size()+mUsedTargets.size(); }
+    public long getAllocatedBytes()     { return mAllocatedBytes; }
+    public long getPeakAllocatedBytes() { return mPeakAllocatedBytes; }
+    //peak of the targets alive at the same time, what the pool can't go below ...
+    public long getPeakUsedBytes()      { return mPeakUsedBytes; }
+
+    public String getStatistics() {
+        return "RENDER TARGET POOL: PEAK TARGETS="+mPeakNumberOfTargets+" PEAK VRAM ALLOCATED="+(mPeakAllocatedBytes>>10)+"KB PEAK VRAM IN USE="+(mPeakUsedBytes>>10)+"KB";
+    }
+
+    public void cleanup(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        BaseLogging.getInstance().info(getStatistics());
+        if (!mUsedTargets.isEmpty()) {
+            BaseLogging.getInstance().warning("RENDER TARGET POOL: "+mUsedTargets.size()+" TARGETS STILL IN USE ON CLEANUP!");
+        }
+        for (PooledTarget tPooledTarget : mFreeTargets) {
+            deleteTarget(inGL,inGLU,inGLUT,tPooledTarget);
+        }
+        for (PooledTarget tPooledTarget : mUsedTargets) {
+            deleteTarget(inGL,inGLU,inGLUT,tPooledTarget);
+        }
+        mFreeTargets.clear();
+        mUsedTargets.clear();
+        mUsedBytes = 0;
+    }
+
+}
@@ -22,6 +22,10 @@ import com.jogamp.opengl.util.gl2.*;
 
 public class BaseRoutineAdapter implements BaseRoutineInterface {
 
+    public void declareAssets(BaseAssetPipeline inBaseAssetPipeline) {
+        //Zzzz ... :-]
+    }
+
     public void initRoutine(GL2 inGL,GLU inGLU,GLUT inGLUT) {
         //Zzzz ... =|:-)
     }
@@ -12,7 +12,7 @@ package framework.base;
  **  \/____.                                                                             .____\/     
  **             
  ** Interface to be implemented by all demonstration routines. Provides method prototypes
- ** for initialization, runtime and end/cleanup of a routine.
+ ** for asset declaration, initialization, runtime and end/cleanup of a routine.
  **
  **/
 
@@ -22,6 +22,7 @@ import com.jogamp.opengl.util.gl2.*;
 
 public interface BaseRoutineInterface {
 
+    public void declareAssets(BaseAssetPipeline inBaseAssetPipeline);
     public void initRoutine(GL2 inGL,GLU inGLU,GLUT inGLUT);
     public void mainLoop(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT);
     public void cleanupRoutine(GL2 inGL,GLU inGLU,GLUT inGLUT);
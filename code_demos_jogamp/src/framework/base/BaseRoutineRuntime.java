@@ -13,14 +13,13 @@ package framework.base;
  **
  ** More or less some kind of wrapper class wich encalsulates a convenient runtime environment
  ** for classes implementing the BaseRoutineInterface. Also adds some global debug information
- ** overlay. 
+ ** overlay and profiles the frame with BaseProfiler (exported when the run ends). 
  **
  **/
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.lang.reflect.Constructor;
-import java.text.*;
 import javax.media.opengl.*;
 import javax.media.opengl.glu.*;
 import com.jogamp.opengl.util.gl2.*;
@@ -31,8 +30,7 @@ import com.sun.jna.*;
 public class BaseRoutineRuntime {
 
     private static BaseRoutineRuntime mBaseRoutineRuntimeInstance = null;
-    private TextRenderer mTextRenderer;
-    private DecimalFormat mDecimalFormat;
+    private BaseDebugOverlay mBaseDebugOverlay;
     private BaseGlobalEnvironment mBaseGlobalEnvironment;
     private int mFrameCounter;
     private long mCurrentFrameRenderingTimeStart;
@@ -45,16 +43,23 @@ public class BaseRoutineRuntime {
     private long mAverageFramerateTimeEnd;
     private static final int cAverageFramerateInterval = 25;
     private int mAverageFramerate;
-    private long mFrameSkipAverageFramerateTimeStart;
-    private boolean mFrameSkipAverageFrameStartTimeInitialized;
-    private long mFrameSkipAverageFramerateTimeEnd;	
-    private double mFrameCounterDifference;
-    private double mFrameCounterTargetValue;
+    private BaseFramePacer mBaseFramePacer;
+    private double mFrameTimeInSeconds;
+    private double mMediaClockOffsetInSeconds;
     private int mSkippedFramesCounter;
     private BaseMusic mBaseMusic;
     private TextureRenderer mTextureRenderer_ScopeAndSpectrumAnalyzer;
-    boolean mMusicSyncStartTimeInitialized = false;
+    private BaseMusic_ScopeAndSpectrumVisualizationRenderer mBaseMusic_ScopeAndSpectrumVisualizationRenderer;
     private float mCurrentStereoscopicEyeSeparation;
+    private boolean mBaseRoutineInitialized = false;
+    private BaseFrameCapture mBaseFrameCapture;
+    private BaseStereoscopicFramePacker mBaseStereoscopicFramePacker;
+    private BaseStereoscopicFrameComposer mBaseStereoscopicFrameComposer;
+    private int mProfilerScope_Frame;
+    private int mProfilerScope_RoutineMainLoop;
+    private int mProfilerScope_FrameCapture;
+    private int mProfilerScope_DebugOverlay;
+    private boolean mProfilingFinished;
     
     public interface dwmapi extends Library {
         dwmapi INSTANCE = (dwmapi)Native.loadLibrary("dwmapi",dwmapi.class);
@@ -92,10 +97,13 @@ public class BaseRoutineRuntime {
         }
         //---
         mBaseGlobalEnvironment = BaseGlobalEnvironment.getInstance();
-        Font tFont = new Font("SansSerif", Font.PLAIN, 12);
-        mTextRenderer = new TextRenderer(tFont, false, false);
-        mDecimalFormat = new DecimalFormat("###,###,###,###,###.###");
+        initDebugOverlay(inGL);
         mFrameCounter = BaseGlobalEnvironment.getInstance().getStartFrame();
+        BaseProfiler.getInstance().setEnabled(BaseGlobalEnvironment.getInstance().wantsProfiling());
+        mProfilerScope_Frame = BaseProfiler.getInstance().registerScope("FRAME");
+        mProfilerScope_RoutineMainLoop = BaseProfiler.getInstance().registerScope("ROUTINE MAINLOOP");
+        mProfilerScope_FrameCapture = BaseProfiler.getInstance().registerScope("FRAMECAPTURE");
+        mProfilerScope_DebugOverlay = BaseProfiler.getInstance().registerScope("DEBUGOVERLAY");
         //mCurrentStereoscopicEyeSeparation = BaseGlobalEnvironment.getInstance().getStereoscopicEyeSeparation();
         try {
             BaseLogging.getInstance().info("CREATING BASEROUTINE CONSTRUCTOR FOR "+mBaseGlobalEnvironment.getBaseRoutineClassName());
@@ -104,36 +112,91 @@ public class BaseRoutineRuntime {
             Constructor<? extends BaseRoutineAdapter> tIntermediateSubclassConstructor = tIntermediateSubclass.getConstructor();
             mBaseRoutineInterface = tIntermediateSubclassConstructor.newInstance();
             BaseLogging.getInstance().info("BASEROUTING INSTANCE NAMED "+mBaseGlobalEnvironment.getBaseRoutineClassName()+" CREATED ...");
-            BaseLogging.getInstance().info("INITIALIZING BASEROUTINE ...");
-            mBaseRoutineInterface.initRoutine(inGL,inGLU,inGLUT);
+            //start decoding in the background right away ...
+            mBaseRoutineInterface.declareAssets(BaseAssetPipeline.getInstance());
         } catch (Exception e) {
             BaseLogging.getInstance().fatalerror(e);
         }
-        mTextureRenderer_ScopeAndSpectrumAnalyzer = new TextureRenderer(BaseMusic_ScopeAndSpectrumAnalyzer.DEFAULT_WIDTH, BaseMusic_ScopeAndSpectrumAnalyzer.DEFAULT_HEIGHT, true);
         mBaseMusic = new BaseMusic(BaseGlobalEnvironment.getInstance().getMusicFileName());
         mBaseMusic.init();
+        mBaseFramePacer = new BaseFramePacer(getFramePeriodNanoseconds());
+        //draw the music debug display with a shader if possible, the Java2D path is the fallback ...
+        if (BaseMusic_ScopeAndSpectrumVisualizationRenderer.isSupported(inGL)) {
+            mBaseMusic_ScopeAndSpectrumVisualizationRenderer = new BaseMusic_ScopeAndSpectrumVisualizationRenderer();
+            mBaseMusic_ScopeAndSpectrumVisualizationRenderer.init(inGL);
+            mBaseMusic.setScopeAndSpectrumAnalyzerVisualizationMode(BaseMusic_ScopeAndSpectrumAnalyzer.VISUALIZATION_MODE_DATA);
+        } else {
+            mTextureRenderer_ScopeAndSpectrumAnalyzer = new TextureRenderer(BaseMusic_ScopeAndSpectrumAnalyzer.DEFAULT_WIDTH, BaseMusic_ScopeAndSpectrumAnalyzer.DEFAULT_HEIGHT, true);
+        }
+        if (BaseAssetPipeline.getInstance().hasAssets()) {
+            BaseLogging.getInstance().info("DEFERRING BASEROUTINE INITIALIZATION UNTIL "+BaseAssetPipeline.getInstance().getAssetCount()+" ASSETS ARE LOADED ...");
+        } else {
+            initRoutine(inGL,inGLU,inGLUT);
+        }
+    }
+
+    private void initRoutine(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        try {
+            BaseLogging.getInstance().info("INITIALIZING BASEROUTINE ...");
+            mBaseRoutineInterface.initRoutine(inGL,inGLU,inGLUT);
+        } catch (Exception e) {
+            BaseLogging.getInstance().fatalerror(e);
+        }
+        mBaseRoutineInitialized = true;
         mBaseMusic.play();
     }
 
+    private void renderAssetLoadingProgress(GL2 inGL) {
+        float tProgress = BaseAssetPipeline.getInstance().getProgress();
+        inGL.glViewport(0, 0, BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight());
+        inGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        inGL.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        inGL.glMatrixMode(GL_PROJECTION);
+        inGL.glLoadIdentity();
+        inGL.glOrtho(0.0f, 1.0f, 0.0f, 1.0f, -1.0f, 1.0f);
+        inGL.glMatrixMode(GL_MODELVIEW);
+        inGL.glLoadIdentity();
+        inGL.glDisable(GL_DEPTH_TEST);
+        inGL.glDisable(GL_TEXTURE_2D);
+        inGL.glColor4f(0.25f, 0.25f, 0.25f, 1.0f);
+        inGL.glRectf(0.25f, 0.49f, 0.75f, 0.51f);
+        inGL.glColor4f(1.0f, 1.0f, 1.0f, 1.0f);
+        inGL.glRectf(0.25f, 0.49f, 0.25f+0.5f*tProgress, 0.51f);
+    }
+
     public void mainLoopRuntime(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        //if NO music is used sync to mainloop start ...
-        if (!mFrameSkipAverageFrameStartTimeInitialized) {
-            mFrameSkipAverageFrameStartTimeInitialized = true;
-            mFrameSkipAverageFramerateTimeStart = System.nanoTime();
+        if (!mBaseRoutineInitialized) {
+            //upload what the asset pipeline decoded so far, keep the window alive meanwhile ...
+            if (!BaseAssetPipeline.getInstance().processUploads(inGL)) {
+                renderAssetLoadingProgress(inGL);
+                return;
+            }
+            initRoutine(inGL,inGLU,inGLUT);
         }
-        if (!BaseRoutineRuntime.getInstance().getBaseMusic().isOffline()) {
-            //if music IS used sync to first second of music ...
-            if (BaseRoutineRuntime.getInstance().getBaseMusic().getPositionInMilliseconds()>0 && !mMusicSyncStartTimeInitialized) {
-                BaseLogging.getInstance().info("Synching to BaseMusic ...");
-                mFrameSkipAverageFramerateTimeStart = (long)(System.nanoTime()-((double)BaseRoutineRuntime.getInstance().getBaseMusic().getPositionInMilliseconds()*1000000.0d));
-                mMusicSyncStartTimeInitialized = true;
+        BaseProfiler.getInstance().beginFrame(inGL);
+        BaseProfiler.getInstance().beginScope(inGL,mProfilerScope_Frame);
+        long tFrameStart = System.nanoTime();
+        long tPresentationDeadline = mBaseFramePacer.beginFrame(tFrameStart);
+        //the media clock follows the music if there is some, otherwise the mainloop start ...
+        mBaseMusic.getMediaClock().update(tFrameStart);
+        if (isPacedByMediaClock()) {
+            //animate for the moment the frame will be visible, not for when its rendering started ...
+            mFrameTimeInSeconds = (double)BaseGlobalEnvironment.getInstance().getStartFrame()/BaseGlobalEnvironment.getInstance().getDesiredFramerate()+mBaseMusic.getMediaClock().getTimeAt(tPresentationDeadline)+mMediaClockOffsetInSeconds;
+            int tFrameCounter = (int)(mFrameTimeInSeconds*BaseGlobalEnvironment.getInstance().getDesiredFramerate());
+            if (tFrameCounter>mFrameCounter) {
+                mSkippedFramesCounter += tFrameCounter-mFrameCounter;
             }
+            //running faster than the desired framerate shows the same frame number with a later frame time ...
+            mFrameCounter = Math.max(mFrameCounter-1, tFrameCounter);
+        } else {
+            //captures and stereoscopic renderings advance exactly one frame per frame ...
+            mFrameTimeInSeconds = (double)mFrameCounter/BaseGlobalEnvironment.getInstance().getDesiredFramerate();
         }
         mLastFrameRenderingTimeStart = mCurrentFrameRenderingTimeStart;
         mLastFrameRenderingTimeEnd = System.nanoTime();
         mCurrentFrameRenderingTimeStart = System.nanoTime();
         //allow music DSP's to synchronize with framerate ...
-        mBaseMusic.synchonizeMusic();
+        mBaseMusic.synchonizeMusic(mFrameCounter);
         
         if (!mBaseGlobalEnvironment.wantsStereoscopic()) {
             //non stereoscopic rendering path ...
@@ -142,200 +205,177 @@ public class BaseRoutineRuntime {
             //clear screen and z-buffer ...
             inGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
             inGL.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            BaseProfiler.getInstance().beginScope(inGL,mProfilerScope_RoutineMainLoop);
             mBaseRoutineInterface.mainLoop(mFrameCounter,inGL,inGLU,inGLUT);            
+            BaseProfiler.getInstance().endScope(inGL,mProfilerScope_RoutineMainLoop);
             checkForGlError(inGL,inGLU);
             //optional fraps/kkapture-style screencapture logging ... ->=:-)X	   
             if (mBaseGlobalEnvironment.wantsFrameCapture()) {
-                BufferedImage tScreenshot = Screenshot.readToBufferedImage(0,0, mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight(),false);
-                BaseLogging.getInstance().logCapture(tScreenshot, mFrameCounter);
+                BaseProfiler.getInstance().beginScope(inGL,mProfilerScope_FrameCapture);
+                if (mBaseFrameCapture==null) {
+                    mBaseFrameCapture = new BaseFrameCapture(mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight());
+                }
+                mBaseFrameCapture.captureFrame(inGL, mFrameCounter);
+                BaseProfiler.getInstance().endScope(inGL,mProfilerScope_FrameCapture);
             }
         } else {
             //stereoscopic rendering path ...
+            String tStereoscopicOutputMode = BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode();
+            if (mBaseStereoscopicFrameComposer==null && mBaseStereoscopicFramePacker==null) {
+                if (BaseStereoscopicFrameComposer.isSupported(inGL)) {
+                    mBaseStereoscopicFrameComposer = new BaseStereoscopicFrameComposer(mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight(), tStereoscopicOutputMode);
+                    mBaseStereoscopicFrameComposer.init(inGL,inGLU,inGLUT);
+                } else {
+                    BaseLogging.getInstance().warning("NO FRAMEBUFFER BLIT AVAILABLE ... PACKING STEREOSCOPIC FRAMES ON THE CPU!");
+                    mBaseStereoscopicFramePacker = new BaseStereoscopicFramePacker(mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight());
+                }
+            }
             
             mCurrentStereoscopicEyeSeparation = -1.0f*BaseGlobalEnvironment.getInstance().getStereoscopicEyeSeparation();
-            
-            //create default frustum state ...
-            resetFrustumToDefaultState(inGL,inGLU,inGLUT);
-            //clear screen and z-buffer ...
-            inGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
-            inGL.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-            mBaseRoutineInterface.mainLoop(mFrameCounter,inGL,inGLU,inGLUT);
-            checkForGlError(inGL,inGLU);
-            //optional fraps/kkapture-style screencapture logging ... ->=:-)X      
-            BufferedImage tScreenshot_Left = Screenshot.readToBufferedImage(0,0, mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight(),false);
+            renderStereoscopicEye(inGL,inGLU,inGLUT,BaseStereoscopicFramePacker.cEYE_LEFT);
             
             mCurrentStereoscopicEyeSeparation = +1.0f*BaseGlobalEnvironment.getInstance().getStereoscopicEyeSeparation();
+            renderStereoscopicEye(inGL,inGLU,inGLUT,BaseStereoscopicFramePacker.cEYE_RIGHT);
             
-            //create default frustum state ...
-            resetFrustumToDefaultState(inGL,inGLU,inGLUT);
-            //clear screen and z-buffer ...
-            inGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
-            inGL.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-            mBaseRoutineInterface.mainLoop(mFrameCounter,inGL,inGLU,inGLUT);
-            checkForGlError(inGL,inGLU);
-            //optional fraps/kkapture-style screencapture logging ... ->=:-)X      
-            BufferedImage tScreenshot_Right = Screenshot.readToBufferedImage(0,0, mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight(),false);
-            
-            if (BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("ALL")) {
+            if (tStereoscopicOutputMode.contains("ALL")) {
                 mCurrentStereoscopicEyeSeparation = 0.0f;
-                //create default frustum state ...
-                resetFrustumToDefaultState(inGL,inGLU,inGLUT);
-                //clear screen and z-buffer ...
-                inGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
-                inGL.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-                mBaseRoutineInterface.mainLoop(mFrameCounter,inGL,inGLU,inGLUT);
-                checkForGlError(inGL,inGLU);
-                //optional fraps/kkapture-style screencapture logging ... ->=:-)X      
-                BufferedImage tScreenshot_Normal = Screenshot.readToBufferedImage(0,0, mBaseGlobalEnvironment.getScreenWidth(), mBaseGlobalEnvironment.getScreenHeight(),false);
                 //dump normal 2D image ...
-                BaseLogging.getInstance().logCapture(tScreenshot_Normal, mFrameCounter);
-            }
-            
-            int tImageWidth = tScreenshot_Left.getWidth();
-            int tImageHeight = tScreenshot_Left.getHeight();
-            
-            //dump Half-Side-By-Side (HSBS) image ...
-            if (BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("HSBS") || 
-                BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("ALL")) {
-                BufferedImage tScreenshot_Combined = new BufferedImage(tImageWidth,tImageHeight,tScreenshot_Left.getType());
-                Graphics2D tG2D = tScreenshot_Combined.createGraphics();
-                //tG2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BICUBIC);           
-                tG2D.drawImage(
-                        tScreenshot_Left,
-                        0,
-                        0,
-                        tImageWidth/2, 
-                        tImageHeight,
-                        null
-                );
-                tG2D.drawImage(
-                        tScreenshot_Right,
-                        tImageWidth/2, 
-                        0,
-                        tImageWidth/2, 
-                        tImageHeight,
-                        null
-                );
-                tG2D.dispose();
-                BaseLogging.getInstance().logCapture(tScreenshot_Combined, mFrameCounter,"HSBS");
-            }
-            
-            //dump Half-Over-Under (HOU) image ...
-            if (BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("HOU") || 
-                BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("ALL")) {
-                BufferedImage tScreenshot_Combined = new BufferedImage(tImageWidth,tImageHeight,tScreenshot_Left.getType());
-                Graphics2D tG2D = tScreenshot_Combined.createGraphics();
-                //tG2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BICUBIC);           
-                tG2D.drawImage(
-                        tScreenshot_Left,
-                        0,
-                        0,
-                        tImageWidth, 
-                        tImageHeight/2,
-                        null
-                );
-                tG2D.drawImage(
-                        tScreenshot_Right,
-                        0, 
-                        tImageHeight/2,
-                        tImageWidth, 
-                        tImageHeight/2,
-                        null
-                 );
-                 tG2D.dispose();
-                 BaseLogging.getInstance().logCapture(tScreenshot_Combined, mFrameCounter,"HOU");
-            }
-            
-            //dump Full-Over-Under (FOU) image ...
-            if (BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("FOU") || 
-                BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("ALL")) {
-                BufferedImage tScreenshot_Combined = new BufferedImage(tImageWidth,tImageHeight*2,tScreenshot_Left.getType());
-                Graphics2D tG2D = tScreenshot_Combined.createGraphics();
-                //tG2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BICUBIC);           
-                tG2D.drawImage(
-                        tScreenshot_Left,
-                        0,
-                        0,
-                        tImageWidth, 
-                        tImageHeight,
-                        null
-                );
-                tG2D.drawImage(
-                        tScreenshot_Right,
-                        0, 
-                        tImageHeight,
-                        tImageWidth, 
-                        tImageHeight,
-                        null
-                 );
-                 tG2D.dispose();
-                 BaseLogging.getInstance().logCapture(tScreenshot_Combined, mFrameCounter,"FOU");
-            }
-            
-            //dump Full-Side-by-Side (FSBS) image ...
-            if (BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("FSBS") || 
-                BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("ALL")) {
-                BufferedImage tScreenshot_Combined = new BufferedImage(tImageWidth*2,tImageHeight,tScreenshot_Left.getType());
-                Graphics2D tG2D = tScreenshot_Combined.createGraphics();
-                //tG2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BICUBIC);           
-                tG2D.drawImage(
-                        tScreenshot_Left,
-                        0,
-                        0,
-                        tImageWidth, 
-                        tImageHeight,
-                        null
-                );
-                tG2D.drawImage(
-                        tScreenshot_Right,
-                        tImageWidth, 
-                        0,
-                        tImageWidth, 
-                        tImageHeight,
-                        null
-                 );
-                 tG2D.dispose();
-                 BaseLogging.getInstance().logCapture(tScreenshot_Combined, mFrameCounter,"FSBS");
+                renderStereoscopicEye(inGL,inGLU,inGLUT,BaseStereoscopicFramePacker.cEYE_CENTER);
             }
             
-            //full frame sequential
-            if (BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("FFS") || 
-                BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode().contains("ALL")) {
-                BaseLogging.getInstance().logCapture(tScreenshot_Left, mFrameCounter*2+0,"FFS");
-                BaseLogging.getInstance().logCapture(tScreenshot_Right, mFrameCounter*2+1,"FFS"); 
+            BaseProfiler.getInstance().beginScope(inGL,mProfilerScope_FrameCapture);
+            if (mBaseStereoscopicFrameComposer!=null) {
+                //compose all requested layouts on the GPU, only the packed images are read back ...
+                mBaseStereoscopicFrameComposer.composeAndCapture(mFrameCounter,inGL,inGLU,inGLUT);
+            } else {
+                logPackedStereoscopicCapture(tStereoscopicOutputMode);
             }
-    
+            BaseProfiler.getInstance().endScope(inGL,mProfilerScope_FrameCapture);
         }
         //---
         mCurrentFrameRenderingTimeEnd = System.nanoTime();
+        BaseProfiler.getInstance().beginScope(inGL,mProfilerScope_DebugOverlay);
         renderDebugInformation(inGL,inGLU,inGLUT);
+        BaseProfiler.getInstance().endScope(inGL,mProfilerScope_DebugOverlay);
+        BaseRenderTargetPool.getInstance().endFrame(inGL,inGLU,inGLUT);
+        BaseProfiler.getInstance().endScope(inGL,mProfilerScope_Frame);
         //----
         mFrameCounter++;
-        if (BaseGlobalEnvironment.getInstance().wantsFrameSkip() && !mBaseGlobalEnvironment.wantsFrameCapture() && !mBaseGlobalEnvironment.wantsStereoscopic()) {
-            mFrameSkipAverageFramerateTimeEnd = System.nanoTime();
-            double tDesiredFrameRate = (float)BaseGlobalEnvironment.getInstance().getDesiredFramerate();
-            double tSingleFrameTime = 1000000000.0f/tDesiredFrameRate;
-            double tElapsedTime = mFrameSkipAverageFramerateTimeEnd - mFrameSkipAverageFramerateTimeStart;
-            //BaseLogging.getInstance().info("mFrameCounter="+mFrameCounter+" getPositionInMilliseconds="+BaseRoutineRuntime.getInstance().getBaseMusic().getPositionInMilliseconds()+" tElapsedTime="+tElapsedTime/1000000.0f);
-            mFrameCounterTargetValue = tElapsedTime/tSingleFrameTime;
-            mFrameCounterDifference = mFrameCounterTargetValue-mFrameCounter;
-            if (mFrameCounterDifference>2) {
-                mFrameCounter+=mFrameCounterDifference;
-                mSkippedFramesCounter+=mFrameCounterDifference;
-            } else if (mFrameCounterDifference<-2) {
-                //hold framecounter advance ...
-                mFrameCounter--;
-            }
-        }
         if (mFrameCounter>BaseGlobalEnvironment.getInstance().getEndFrame()) {
+            BaseLogging.getInstance().info(mBaseFramePacer.getStatistics());
+            BaseLogging.getInstance().info(BaseRenderTargetPool.getInstance().getStatistics());
+            finishProfiling(inGL);
             //quite dirty ... should stop the Animator first X-)
             BaseLogging.getInstance().info("KILLING APPLICATION ... ENDFRAME NUMBER REACHED ... mFrameCounter="+mFrameCounter+" STARTFRAME="+BaseGlobalEnvironment.getInstance().getStartFrame()+" ENDFRAME="+BaseGlobalEnvironment.getInstance().getEndFrame());
+            finishFrameCapture(inGL);
             System.exit(0);
         }
     }
 
+    private void renderStereoscopicEye(GL2 inGL,GLU inGLU,GLUT inGLUT,int inEye) {
+        //create default frustum state ...
+        resetFrustumToDefaultState(inGL,inGLU,inGLUT);
+        //clear screen and z-buffer ...
+        inGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        inGL.glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        BaseProfiler.getInstance().beginScope(inGL,mProfilerScope_RoutineMainLoop);
+        mBaseRoutineInterface.mainLoop(mFrameCounter,inGL,inGLU,inGLUT);
+        BaseProfiler.getInstance().endScope(inGL,mProfilerScope_RoutineMainLoop);
+        checkForGlError(inGL,inGLU);
+        //optional fraps/kkapture-style screencapture logging ... ->=:-)X      
+        if (mBaseStereoscopicFrameComposer!=null) {
+            mBaseStereoscopicFrameComposer.storeEye(inGL,mFrameCounter,inEye);
+        } else {
+            mBaseStereoscopicFramePacker.readEye(inGL,inEye);
+            if (inEye==BaseStereoscopicFramePacker.cEYE_CENTER) {
+                logStereoscopicCapture(mBaseStereoscopicFramePacker.getEyePixels(BaseStereoscopicFramePacker.cEYE_CENTER),0,mBaseStereoscopicFramePacker.getWidth(),mBaseStereoscopicFramePacker.getHeight(),mFrameCounter,null);
+            }
+        }
+    }
+
+    private void logPackedStereoscopicCapture(String inStereoscopicOutputMode) {
+        //all requested layouts in one parallel pass, no Java2D involved ...
+        int tLayouts = BaseStereoscopicFramePacker.getLayouts(inStereoscopicOutputMode);
+        mBaseStereoscopicFramePacker.pack(tLayouts);
+        //dump Half-Side-By-Side (HSBS) image ...
+        if ((tLayouts & BaseStereoscopicFramePacker.cLAYOUT_HSBS)!=0) {
+            logStereoscopicCapture(BaseStereoscopicFramePacker.cLAYOUT_HSBS,"HSBS");
+        }
+        //dump Half-Over-Under (HOU) image ...
+        if ((tLayouts & BaseStereoscopicFramePacker.cLAYOUT_HOU)!=0) {
+            logStereoscopicCapture(BaseStereoscopicFramePacker.cLAYOUT_HOU,"HOU");
+        }
+        //dump Full-Over-Under (FOU) image ...
+        if ((tLayouts & BaseStereoscopicFramePacker.cLAYOUT_FOU)!=0) {
+            logStereoscopicCapture(BaseStereoscopicFramePacker.cLAYOUT_FOU,"FOU");
+        }
+        //dump Full-Side-by-Side (FSBS) image ...
+        if ((tLayouts & BaseStereoscopicFramePacker.cLAYOUT_FSBS)!=0) {
+            logStereoscopicCapture(BaseStereoscopicFramePacker.cLAYOUT_FSBS,"FSBS");
+        }
+        
+        //full frame sequential
+        if (inStereoscopicOutputMode.contains("FFS") || inStereoscopicOutputMode.contains("ALL")) {
+            int[] tEyePixels = mBaseStereoscopicFramePacker.getEyePixels(BaseStereoscopicFramePacker.cEYE_LEFT);
+            int tEyeWidth = mBaseStereoscopicFramePacker.getWidth();
+            int tEyeHeight = mBaseStereoscopicFramePacker.getHeight();
+            logStereoscopicCapture(tEyePixels,mBaseStereoscopicFramePacker.getEyeOffset(BaseStereoscopicFramePacker.cEYE_LEFT),tEyeWidth,tEyeHeight,mFrameCounter*2+0,"FFS");
+            logStereoscopicCapture(tEyePixels,mBaseStereoscopicFramePacker.getEyeOffset(BaseStereoscopicFramePacker.cEYE_RIGHT),tEyeWidth,tEyeHeight,mFrameCounter*2+1,"FFS");
+        }
+    }
+
+    private void logStereoscopicCapture(int inLayout,String inCustomPrefix) {
+        logStereoscopicCapture(mBaseStereoscopicFramePacker.getPackedPixels(inLayout),0,mBaseStereoscopicFramePacker.getPackedWidth(inLayout),mBaseStereoscopicFramePacker.getPackedHeight(inLayout),mFrameCounter,inCustomPrefix);
+    }
+
+    private void logStereoscopicCapture(int[] inPixels,int inOffset,int inWidth,int inHeight,int inFrameNumber,String inCustomPrefix) {
+        //the image only wraps the packer's array, logCapture() has to be done with it before the next frame ...
+        BufferedImage tBufferedImage = BaseFrameCapture.createBufferedImage(inPixels,inOffset,inWidth,inHeight);
+        if (inCustomPrefix==null) {
+            BaseLogging.getInstance().logCapture(tBufferedImage, inFrameNumber);
+        } else {
+            BaseLogging.getInstance().logCapture(tBufferedImage, inFrameNumber, inCustomPrefix);
+        }
+    }
+
     public void cleanupRuntime(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        mBaseRoutineInterface.cleanupRoutine(inGL,inGLU,inGLUT);
+        if (mBaseFramePacer!=null) {
+            BaseLogging.getInstance().info(mBaseFramePacer.getStatistics());
+        }
+        finishProfiling(inGL);
+        finishFrameCapture(inGL);
+        if (mBaseStereoscopicFrameComposer!=null) {
+            mBaseStereoscopicFrameComposer.cleanup(inGL,inGLU,inGLUT);
+        }
+        if (mBaseMusic_ScopeAndSpectrumVisualizationRenderer!=null) {
+            mBaseMusic_ScopeAndSpectrumVisualizationRenderer.cleanup(inGL);
+        }
+        mBaseDebugOverlay.cleanup();
+        //closed while the assets were still loading ... the routine never set anything up ...
+        if (mBaseRoutineInitialized) {
+            mBaseRoutineInterface.cleanupRoutine(inGL,inGLU,inGLUT);
+        }
+        BaseRenderTargetPool.getInstance().cleanup(inGL,inGLU,inGLUT);
+    }
+
+    private void finishFrameCapture(GL2 inGL) {
+        //the last frames are still in the readback ring and the encoder threads ...
+        if (mBaseFrameCapture!=null) {
+            mBaseFrameCapture.finish(inGL);
+        }
+        if (mBaseStereoscopicFrameComposer!=null) {
+            mBaseStereoscopicFrameComposer.finish(inGL);
+        }
+        BaseLogging.getInstance().closeCaptureOutput();
+    }
+
+    private void finishProfiling(GL2 inGL) {
+        //pending timer queries are read back before the report is written ...
+        if (!mProfilingFinished && BaseProfiler.getInstance().isEnabled()) {
+            mProfilingFinished = true;
+            BaseProfiler.getInstance().cleanup(inGL);
+            BaseProfiler.getInstance().export();
+        }
     }
 
     /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
@@ -344,12 +384,37 @@ public class BaseRoutineRuntime {
         return mCurrentStereoscopicEyeSeparation;
     }
 
+    //continuous time of the current frame in seconds, use this instead of the frame number for smooth animations ...
+    public double getFrameTimeInSeconds() {
+        return mFrameTimeInSeconds;
+    }
+
+    private boolean isPacedByMediaClock() {
+        return mBaseGlobalEnvironment.wantsFrameSkip() && !mBaseGlobalEnvironment.wantsFrameCapture() && !mBaseGlobalEnvironment.wantsStereoscopic();
+    }
+
+    private long getFramePeriodNanoseconds() {
+        if (mBaseGlobalEnvironment.wantsVSync()) {
+            int tRefreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+            if (tRefreshRate==DisplayMode.REFRESH_RATE_UNKNOWN) {
+                tRefreshRate = 60;
+            }
+            return 1000000000L/tRefreshRate;
+        }
+        if (mBaseGlobalEnvironment.getDesiredFramerate()==Integer.MAX_VALUE) {
+            return 0;
+        }
+        return 1000000000L/mBaseGlobalEnvironment.getDesiredFramerate();
+    }
+
     public BaseMusic getBaseMusic() {
         return mBaseMusic;
     }
     
     public void resetFrameCounter() {
         mFrameCounter = BaseGlobalEnvironment.getInstance().getStartFrame();
+        //the media clock keeps running with the music, restart the frame time relative to it ...
+        mMediaClockOffsetInSeconds = -mBaseMusic.getMediaClock().getTime();
     }
 
     public static void resetFrustumToDefaultState(GL2 inGL,GLU inGLU,GLUT inGLUT) {
@@ -375,7 +440,9 @@ public class BaseRoutineRuntime {
     private static final boolean DEBUGDISPLAY_MUSIC = true;
     
     private void renderDebugInformation(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        if (!mBaseMusic.isOffline() && DEBUGDISPLAY_MUSIC) {
+        if (!mBaseMusic.isOffline() && DEBUGDISPLAY_MUSIC && mBaseMusic_ScopeAndSpectrumVisualizationRenderer!=null) {
+            mBaseMusic_ScopeAndSpectrumVisualizationRenderer.render(inGL, mBaseMusic.getScopeAndSpectrumAnalyzerVisualizationData(), mBaseMusic.getScopeAndSpectrumAnalyzerBandCount(), BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight());
+        } else if (!mBaseMusic.isOffline() && DEBUGDISPLAY_MUSIC) {
             Graphics2D tTextureGraphics2D = mTextureRenderer_ScopeAndSpectrumAnalyzer.createGraphics();
             tTextureGraphics2D.drawImage(mBaseMusic.getScopeAndSpectrumAnalyzerVisualization(),0,0,null);
             tTextureGraphics2D.dispose();
@@ -396,27 +463,40 @@ public class BaseRoutineRuntime {
             }
             long tPossibleFrameRate = (long)(1000000000.0f/(mCurrentFrameRenderingTimeEnd-mCurrentFrameRenderingTimeStart));
             long tActualFrameRate = (long)(1000000000.0f/(mLastFrameRenderingTimeEnd-mLastFrameRenderingTimeStart));
-            String[] tDebugInformation = new String[7];
-            tDebugInformation[0] = "JOGL: "+"GL_VENDOR:"+inGL.glGetString(GL_VENDOR)+" GL_RENDERER:"+inGL.glGetString(GL_RENDERER);
-            tDebugInformation[1] = "GL_VERSION: "+inGL.glGetString(GL_VERSION)+" GLSL_VERSION: "+inGL.glGetString(GL_SHADING_LANGUAGE_VERSION); 
-            tDebugInformation[2] = "VMMEM: USED: "+mDecimalFormat.format(mBaseGlobalEnvironment.getUsedMem())+" FREE: "+mDecimalFormat.format(mBaseGlobalEnvironment.getFreeMem())+" TOTAL: "+mDecimalFormat.format(mBaseGlobalEnvironment.getTotalMem())+" MAX: "+mDecimalFormat.format(mBaseGlobalEnvironment.getMaxMem());
-            tDebugInformation[3] = "DISPLAY RESOLUTION: "+mBaseGlobalEnvironment.getScreenWidth()+"x"+mBaseGlobalEnvironment.getScreenHeight()+" FRAME: "+mFrameCounter+" AVERAGE FPS:"+mAverageFramerate+" ACTUAL FPS: "+tActualFrameRate+" POSSIBLE FPS: "+mDecimalFormat.format(tPossibleFrameRate);    
-            tDebugInformation[4] = "ROUTINE: "+mBaseGlobalEnvironment.getBaseRoutineClassName();
-            if (BaseGlobalEnvironment.getInstance().wantsFrameSkip() && !mBaseGlobalEnvironment.wantsFrameCapture()) {
-                tDebugInformation[5] = "FRAMESKIP: CURRENT FRAMECOUNTER: "+(int)mFrameCounter+" TARGET FRAMECOUNTER="+(int)mFrameCounterTargetValue+" DIFFERENCE:"+mDecimalFormat.format(mFrameCounterDifference)+" TOTAL SKIPPED:"+mSkippedFramesCounter;
+            //lines 0, 1, 4 and 6 never change, see initDebugOverlay() ...
+            StringBuilder tLine = mBaseDebugOverlay.beginLine(2).append("VMMEM: USED: ");
+            BaseDebugOverlay.appendGrouped(tLine, mBaseGlobalEnvironment.getUsedMem()).append(" FREE: ");
+            BaseDebugOverlay.appendGrouped(tLine, mBaseGlobalEnvironment.getFreeMem()).append(" TOTAL: ");
+            BaseDebugOverlay.appendGrouped(tLine, mBaseGlobalEnvironment.getTotalMem()).append(" MAX: ");
+            BaseDebugOverlay.appendGrouped(tLine, mBaseGlobalEnvironment.getMaxMem());
+            tLine = mBaseDebugOverlay.beginLine(3).append("DISPLAY RESOLUTION: ").append(mBaseGlobalEnvironment.getScreenWidth()).append('x').append(mBaseGlobalEnvironment.getScreenHeight());
+            tLine.append(" FRAME: ").append(mFrameCounter).append(" AVERAGE FPS:").append(mAverageFramerate).append(" ACTUAL FPS: ").append(tActualFrameRate).append(" POSSIBLE FPS: ");
+            BaseDebugOverlay.appendGrouped(tLine, tPossibleFrameRate);
+            tLine = mBaseDebugOverlay.beginLine(5);
+            if (isPacedByMediaClock()) {
+                BaseMusic_MediaClock tMediaClock = mBaseMusic.getMediaClock();
+                tLine.append("FRAMESKIP: FRAMETIME=");
+                BaseDebugOverlay.appendDecimal(tLine, mFrameTimeInSeconds, 3).append("S CLOCK=").append(tMediaClock.isAudioDriven() ? "AUDIO" : "SYSTEM").append(" DRIFT=");
+                BaseDebugOverlay.appendDecimal(tLine, tMediaClock.getDrift()*1000.0, 3).append("MS MAXDRIFT=");
+                BaseDebugOverlay.appendDecimal(tLine, tMediaClock.getMaximumMeasuredDrift()*1000.0, 3).append("MS RESYNCS=").append(tMediaClock.getResynchronizations());
+                tLine.append(" TOTAL SKIPPED:").append(mSkippedFramesCounter);
             } else {
-                tDebugInformation[5] = "FRAMESKIP: DISABLED!";
-            }
-            tDebugInformation[6] = "STEREOSCOPIC="+mBaseGlobalEnvironment.wantsStereoscopic()+" EYESEPARANTION="+BaseGlobalEnvironment.getInstance().getStereoscopicEyeSeparation()+" OUTPUTMODE="+BaseGlobalEnvironment.getInstance().getStereoscopicOutputMode();          
-            for (int i=0; i<tDebugInformation.length; i++) {
-                mTextRenderer.beginRendering(BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight());
-                mTextRenderer.setColor(1.0f, 1.0f, 1.0f, 1.0f);
-                mTextRenderer.draw(tDebugInformation[i], 0, BaseGlobalEnvironment.getInstance().getScreenHeight()-11*(i+1));
-                mTextRenderer.endRendering();
+                tLine.append("FRAMESKIP: DISABLED!");
             }
+            mBaseFramePacer.appendStatistics(mBaseDebugOverlay.beginLine(7).append("FRAMEPACING: "));
+            mBaseDebugOverlay.render(BaseGlobalEnvironment.getInstance().getScreenWidth(), BaseGlobalEnvironment.getInstance().getScreenHeight());
         }
     }
 
+    private void initDebugOverlay(GL2 inGL) {
+        //the GL strings can't change while the context lives, query them just once ...
+        mBaseDebugOverlay = new BaseDebugOverlay(8);
+        mBaseDebugOverlay.setLine(0, "JOGL: "+"GL_VENDOR:"+inGL.glGetString(GL_VENDOR)+" GL_RENDERER:"+inGL.glGetString(GL_RENDERER));
+        mBaseDebugOverlay.setLine(1, "GL_VERSION: "+inGL.glGetString(GL_VERSION)+" GLSL_VERSION: "+inGL.glGetString(GL_SHADING_LANGUAGE_VERSION));
+        mBaseDebugOverlay.setLine(4, "ROUTINE: "+mBaseGlobalEnvironment.getBaseRoutineClassName());
+        mBaseDebugOverlay.setLine(6, "STEREOSCOPIC="+mBaseGlobalEnvironment.wantsStereoscopic()+" EYESEPARANTION="+mBaseGlobalEnvironment.getStereoscopicEyeSeparation()+" OUTPUTMODE="+mBaseGlobalEnvironment.getStereoscopicOutputMode());
+    }
+
     private void checkForGlError(GL2 inGL,GLU inGLU) {
         int tError = inGL.glGetError();
         String tErrorString = "!!! GL-ERROR !!! GLU ERROR STRING FOR ERROR="+inGLU.gluErrorString(tError);
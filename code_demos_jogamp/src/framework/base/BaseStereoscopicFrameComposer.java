@@ -0,0 +1,221 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** GPU side composition of stereoscopic frames. Each eye is copied into its own framebuffer object
+ ** right after it has been rendered (a framebuffer blit, nothing leaves the GPU). The requested
+ ** HSBS/HOU/FOU/FSBS layouts are then composed into layout sized framebuffer objects by drawing
+ ** the two eye textures as fullscreen quads into the layout's viewports, bilinear filtering does
+ ** the 2:1 decimation of the half layouts. Only the packed layouts are read back, asynchronously
+ ** through a BaseFrameCapture ring each. The eyes are not rendered directly into the framebuffer
+ ** objects because many routines bind framebuffer 0 themselves after their own offscreen passes.
+ **
+ **/
+
+import javax.media.opengl.*;
+import javax.media.opengl.glu.*;
+import com.jogamp.opengl.util.gl2.*;
+import static javax.media.opengl.GL2.*;
+
+public class BaseStereoscopicFrameComposer implements BaseFrameBufferObjectRendererInterface {
+
+    private static final int[] cLayouts = {
+        BaseStereoscopicFramePacker.cLAYOUT_HSBS,
+        BaseStereoscopicFramePacker.cLAYOUT_HOU,
+        BaseStereoscopicFramePacker.cLAYOUT_FOU,
+        BaseStereoscopicFramePacker.cLAYOUT_FSBS
+    };
+    private static final String[] cLayoutNames = {"HSBS", "HOU", "FOU", "FSBS"};
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mLayouts;
+    private final boolean mFullFrameSequential;
+    private final boolean mCenterEye;
+    private BaseFrameBufferObjectRendererExecutor[] mEyeExecutors;
+    private BaseFrameBufferObjectRendererExecutor[] mLayoutExecutors;
+    private BaseFrameCapture[] mLayoutCaptures;
+    private BaseFrameCapture_PixelBufferObjectFrameSource mFullFrameSequentialSource;
+    private BaseFrameCapture mFullFrameSequentialCapture;
+    private BaseFrameCapture mCenterEyeCapture;
+    private int mCurrentLayout;
+
+    public BaseStereoscopicFrameComposer(int inWidth,int inHeight,String inStereoscopicOutputMode) {
+        mWidth = inWidth;
+        mHeight = inHeight;
+        mLayouts = BaseStereoscopicFramePacker.getLayouts(inStereoscopicOutputMode);
+        mFullFrameSequential = inStereoscopicOutputMode.contains("FFS") || inStereoscopicOutputMode.contains("ALL");
+        mCenterEye = inStereoscopicOutputMode.contains("ALL");
+    }
+
+    public static boolean isSupported(GL2 inGL) {
+        return inGL.isFunctionAvailable("glBlitFramebuffer");
+    }
+
+    public void init(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        BaseLogging.getInstance().info("INITIALIZING GPU STEREOSCOPIC FRAME COMPOSER "+mWidth+"x"+mHeight+" LAYOUTS="+mLayouts+" FFS="+mFullFrameSequential);
+        mEyeExecutors = new BaseFrameBufferObjectRendererExecutor[2];
+        for (int i=0; i<mEyeExecutors.length; i++) {
+            mEyeExecutors[i] = new BaseFrameBufferObjectRendererExecutor(mWidth,mHeight,this);
+            mEyeExecutors[i].init(inGL,inGLU,inGLUT);
+        }
+        mLayoutExecutors = new BaseFrameBufferObjectRendererExecutor[cLayouts.length];
+        mLayoutCaptures = new BaseFrameCapture[cLayouts.length];
+        for (int i=0; i<cLayouts.length; i++) {
+            if ((mLayouts & cLayouts[i])!=0) {
+                int tWidth = cLayouts[i]==BaseStereoscopicFramePacker.cLAYOUT_FSBS ? mWidth*2 : mWidth;
+                int tHeight = cLayouts[i]==BaseStereoscopicFramePacker.cLAYOUT_FOU ? mHeight*2 : mHeight;
+                mLayoutExecutors[i] = new BaseFrameBufferObjectRendererExecutor(tWidth,tHeight,this);
+                mLayoutExecutors[i].init(inGL,inGLU,inGLUT);
+                mLayoutCaptures[i] = new BaseFrameCapture(new BaseFrameCapture_PixelBufferObjectFrameSource(tWidth,tHeight,mLayoutExecutors[i].getFrameBufferObjectID()));
+            }
+        }
+        if (mFullFrameSequential) {
+            mFullFrameSequentialSource = new BaseFrameCapture_PixelBufferObjectFrameSource(mWidth,mHeight,mEyeExecutors[BaseStereoscopicFramePacker.cEYE_LEFT].getFrameBufferObjectID());
+            mFullFrameSequentialCapture = new BaseFrameCapture(mFullFrameSequentialSource);
+        }
+        if (mCenterEye) {
+            mCenterEyeCapture = new BaseFrameCapture(mWidth,mHeight);
+        }
+    }
+
+    public void storeEye(GL2 inGL,int inFrameNumber,int inEye) {
+        if (inEye==BaseStereoscopicFramePacker.cEYE_CENTER) {
+            //the plain 2D image comes straight from the default framebuffer ...
+            if (mCenterEyeCapture!=null) {
+                mCenterEyeCapture.captureFrame(inGL,inFrameNumber);
+            }
+            return;
+        }
+        inGL.glBindFramebuffer(GL_READ_FRAMEBUFFER, 0);
+        inGL.glBindFramebuffer(GL_DRAW_FRAMEBUFFER, mEyeExecutors[inEye].getFrameBufferObjectID());
+        inGL.glBlitFramebuffer(0, 0, mWidth, mHeight, 0, 0, mWidth, mHeight, GL_COLOR_BUFFER_BIT, GL_NEAREST);
+        inGL.glBindFramebuffer(GL_FRAMEBUFFER, 0);
+    }
+
+    public void composeAndCapture(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        for (int i=0; i<cLayouts.length; i++) {
+            if (mLayoutExecutors[i]!=null) {
+                mCurrentLayout = cLayouts[i];
+                mLayoutExecutors[i].renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
+                mLayoutCaptures[i].captureFrame(inGL,inFrameNumber,cLayoutNames[i]);
+            }
+        }
+        //full frame sequential
+        if (mFullFrameSequentialCapture!=null) {
+            mFullFrameSequentialSource.setFrameBufferObjectID(mEyeExecutors[BaseStereoscopicFramePacker.cEYE_LEFT].getFrameBufferObjectID());
+            mFullFrameSequentialCapture.captureFrame(inGL,inFrameNumber*2+0,"FFS");
+            mFullFrameSequentialSource.setFrameBufferObjectID(mEyeExecutors[BaseStereoscopicFramePacker.cEYE_RIGHT].getFrameBufferObjectID());
+            mFullFrameSequentialCapture.captureFrame(inGL,inFrameNumber*2+1,"FFS");
+        }
+    }
+
+    public void finish(GL2 inGL) {
+        if (mLayoutCaptures!=null) {
+            for (int i=0; i<mLayoutCaptures.length; i++) {
+                if (mLayoutCaptures[i]!=null) {
+                    mLayoutCaptures[i].finish(inGL);
+                }
+            }
+        }
+        if (mFullFrameSequentialCapture!=null) {
+            mFullFrameSequentialCapture.finish(inGL);
+        }
+        if (mCenterEyeCapture!=null) {
+            mCenterEyeCapture.finish(inGL);
+        }
+    }
+
+    public void cleanup(GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        finish(inGL);
+        for (int i=0; i<mEyeExecutors.length; i++) {
+            mEyeExecutors[i].cleanup(inGL,inGLU,inGLUT);
+        }
+        for (int i=0; i<mLayoutExecutors.length; i++) {
+            if (mLayoutExecutors[i]!=null) {
+                mLayoutExecutors[i].cleanup(inGL,inGLU,inGLUT);
+            }
+        }
+    }
+
+    private void renderEye(GL2 inGL,int inEye,int inX,int inY,int inWidth,int inHeight) {
+        inGL.glViewport(inX, inY, inWidth, inHeight);
+        inGL.glBindTexture(GL_TEXTURE_2D, mEyeExecutors[inEye].getColorTextureID());
+        //sampling between two texels averages them, that is the whole 2:1 decimation ...
+        inGL.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        inGL.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        inGL.glBegin(GL_QUADS);
+        inGL.glTexCoord2f(0.0f, 0.0f);
+        inGL.glVertex2f(-1.0f, -1.0f);
+        inGL.glTexCoord2f(1.0f, 0.0f);
+        inGL.glVertex2f(1.0f, -1.0f);
+        inGL.glTexCoord2f(1.0f, 1.0f);
+        inGL.glVertex2f(1.0f, 1.0f);
+        inGL.glTexCoord2f(0.0f, 1.0f);
+        inGL.glVertex2f(-1.0f, 1.0f);
+        inGL.glEnd();
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    public void init_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
+
+    public void mainLoop_FBORenderer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        inGL.glPushAttrib(GL_TEXTURE_BIT | GL_DEPTH_BUFFER_BIT | GL_LIGHTING_BIT | GL_POLYGON_BIT);
+        inGL.glUseProgram(0);
+        inGL.glMatrixMode(GL_PROJECTION);
+        inGL.glPushMatrix();
+        inGL.glLoadIdentity();
+        inGL.glMatrixMode(GL_MODELVIEW);
+        inGL.glPushMatrix();
+        inGL.glLoadIdentity();
+        inGL.glDisable(GL_DEPTH_TEST);
+        inGL.glDisable(GL_LIGHTING);
+        inGL.glDisable(GL_BLEND);
+        inGL.glDisable(GL_CULL_FACE);
+        inGL.glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
+        inGL.glActiveTexture(GL_TEXTURE0);
+        inGL.glEnable(GL_TEXTURE_2D);
+        inGL.glTexEnvi(GL_TEXTURE_ENV, GL_TEXTURE_ENV_MODE, GL_REPLACE);
+        inGL.glColor4f(1.0f, 1.0f, 1.0f, 1.0f);
+        int tLeft = BaseStereoscopicFramePacker.cEYE_LEFT;
+        int tRight = BaseStereoscopicFramePacker.cEYE_RIGHT;
+        //GL viewports start bottom left, 'over' means the upper half ...
+        switch (mCurrentLayout) {
+            case BaseStereoscopicFramePacker.cLAYOUT_HSBS:
+                renderEye(inGL, tLeft, 0, 0, mWidth/2, mHeight);
+                renderEye(inGL, tRight, mWidth/2, 0, mWidth-mWidth/2, mHeight);
+                break;
+            case BaseStereoscopicFramePacker.cLAYOUT_HOU:
+                renderEye(inGL, tLeft, 0, mHeight-mHeight/2, mWidth, mHeight/2);
+                renderEye(inGL, tRight, 0, 0, mWidth, mHeight-mHeight/2);
+                break;
+            case BaseStereoscopicFramePacker.cLAYOUT_FOU:
+                renderEye(inGL, tLeft, 0, mHeight, mWidth, mHeight);
+                renderEye(inGL, tRight, 0, 0, mWidth, mHeight);
+                break;
+            default:
+                renderEye(inGL, tLeft, 0, 0, mWidth, mHeight);
+                renderEye(inGL, tRight, mWidth, 0, mWidth, mHeight);
+                break;
+        }
+        inGL.glBindTexture(GL_TEXTURE_2D, 0);
+        inGL.glMatrixMode(GL_PROJECTION);
+        inGL.glPopMatrix();
+        inGL.glMatrixMode(GL_MODELVIEW);
+        inGL.glPopMatrix();
+        inGL.glPopAttrib();
+    }
+
+    public void cleanup_FBORenderer(GL2 inGL,GLU inGLU,GLUT inGLUT) {}
+
+}
@@ -0,0 +1,198 @@
+package framework.base;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Packs the left and right eye of a stereoscopic frame into the usual 3D video layouts without
+ ** going through Java2D. Both eyes are read back into one array, left eye on top of the right eye,
+ ** which already is the Full-Over-Under (FOU) layout. Half-Side-By-Side (HSBS), Half-Over-Under
+ ** (HOU) and Full-Side-By-Side (FSBS) are built from it in one parallel pass over the rows, the
+ ** half resolution layouts average pixel pairs (2:1 decimation). All arrays are allocated once and
+ ** reused for every frame, so the packed pixels are only valid until the next readEye()/pack().
+ **
+ **/
+
+import java.nio.*;
+import java.util.concurrent.*;
+import javax.media.opengl.*;
+import framework.util.*;
+import static javax.media.opengl.GL2.*;
+
+public class BaseStereoscopicFramePacker {
+
+    public static final int cEYE_LEFT = 0;
+    public static final int cEYE_RIGHT = 1;
+    public static final int cEYE_CENTER = 2;
+    public static final int cLAYOUT_HSBS = 1;
+    public static final int cLAYOUT_HOU = 2;
+    public static final int cLAYOUT_FOU = 4;
+    public static final int cLAYOUT_FSBS = 8;
+    private static final int cMinimumRowPairsPerBand = 8;
+    private static final int cBandsPerThread = 4;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int[] mEyePixels;
+    private int[] mCenterEyePixels;
+    private int[] mHSBSPixels;
+    private int[] mHOUPixels;
+    private int[] mFSBSPixels;
+    private IntBuffer mReadBuffer;
+
+    public BaseStereoscopicFramePacker(int inWidth,int inHeight) {
+        BaseLogging.getInstance().info("CREATING STEREOSCOPIC FRAME PACKER "+inWidth+"x"+inHeight);
+        mWidth = inWidth;
+        mHeight = inHeight;
+        mEyePixels = new int[mWidth*mHeight*2];
+    }
+
+    public static int getLayouts(String inStereoscopicOutputMode) {
+        boolean tAll = inStereoscopicOutputMode.contains("ALL");
+        int tLayouts = 0;
+        if (tAll || inStereoscopicOutputMode.contains("HSBS")) { tLayouts |= cLAYOUT_HSBS; }
+        if (tAll || inStereoscopicOutputMode.contains("HOU"))  { tLayouts |= cLAYOUT_HOU; }
+        if (tAll || inStereoscopicOutputMode.contains("FOU"))  { tLayouts |= cLAYOUT_FOU; }
+        if (tAll || inStereoscopicOutputMode.contains("FSBS")) { tLayouts |= cLAYOUT_FSBS; }
+        return tLayouts;
+    }
+
+    public int getWidth()   { return mWidth; }
+    public int getHeight()  { return mHeight; }
+
+    public int[] getEyePixels(int inEye) {
+        if (inEye==cEYE_CENTER) {
+            if (mCenterEyePixels==null) {
+                mCenterEyePixels = new int[mWidth*mHeight];
+            }
+            return mCenterEyePixels;
+        }
+        return mEyePixels;
+    }
+
+    public int getEyeOffset(int inEye) {
+        return inEye==cEYE_RIGHT ? mWidth*mHeight : 0;
+    }
+
+    public void readEye(GL2 inGL,int inEye) {
+        if (mReadBuffer==null) {
+            mReadBuffer = ByteBuffer.allocateDirect(mWidth*mHeight*4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        mReadBuffer.clear();
+        inGL.glPixelStorei(GL_PACK_ALIGNMENT, 4);
+        inGL.glReadPixels(0, 0, mWidth, mHeight, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, mReadBuffer);
+        int[] tPixels = getEyePixels(inEye);
+        int tOffset = getEyeOffset(inEye);
+        //flip the bottom-up GL rows while copying ...
+        for (int y=0; y<mHeight; y++) {
+            mReadBuffer.position((mHeight-1-y)*mWidth);
+            mReadBuffer.get(tPixels, tOffset+y*mWidth, mWidth);
+        }
+    }
+
+    public void pack(int inLayouts) {
+        if ((inLayouts & cLAYOUT_HSBS)!=0 && mHSBSPixels==null) { mHSBSPixels = new int[mWidth*mHeight]; }
+        if ((inLayouts & cLAYOUT_HOU)!=0 && mHOUPixels==null)   { mHOUPixels = new int[mWidth*mHeight]; }
+        if ((inLayouts & cLAYOUT_FSBS)!=0 && mFSBSPixels==null) { mFSBSPixels = new int[mWidth*2*mHeight]; }
+        //FOU needs no work at all, the eyes already are stored that way ...
+        if ((inLayouts & ~cLAYOUT_FOU)!=0) {
+            int tRowPairs = (mHeight+1)/2;
+            int tGrain = Math.max(cMinimumRowPairsPerBand, tRowPairs/(ParallelUtils.getForkJoinPool().getParallelism()*cBandsPerThread));
+            ParallelUtils.getForkJoinPool().invoke(new PackingBand(inLayouts,0,tRowPairs,tGrain));
+        }
+    }
+
+    public int[] getPackedPixels(int inLayout) {
+        switch (inLayout) {
+            case cLAYOUT_HSBS: return mHSBSPixels;
+            case cLAYOUT_HOU:  return mHOUPixels;
+            case cLAYOUT_FSBS: return mFSBSPixels;
+            default:           return mEyePixels;
+        }
+    }
+
+    public int getPackedWidth(int inLayout)  { return inLayout==cLAYOUT_FSBS ? mWidth*2 : mWidth; }
+    public int getPackedHeight(int inLayout) { return inLayout==cLAYOUT_FOU ? mHeight*2 : mHeight; }
+
+    private static int average(int inA,int inB) {
+        //per channel average of two packed ARGB pixels without unpacking ...
+        return (inA & inB)+(((inA ^ inB) & 0xFEFEFEFE)>>>1);
+    }
+
+    private void packRowPair(int inLayouts,int inRowPair) {
+        int tRow0 = inRowPair*2;
+        int tRow1 = Math.min(tRow0+1, mHeight-1);
+        int tRight = mWidth*mHeight;
+        int tHalfWidth = mWidth/2;
+        for (int tRow=tRow0; tRow<=tRow1; tRow++) {
+            int tSource = tRow*mWidth;
+            if ((inLayouts & cLAYOUT_FSBS)!=0) {
+                System.arraycopy(mEyePixels, tSource, mFSBSPixels, tRow*mWidth*2, mWidth);
+                System.arraycopy(mEyePixels, tRight+tSource, mFSBSPixels, tRow*mWidth*2+mWidth, mWidth);
+            }
+            if ((inLayouts & cLAYOUT_HSBS)!=0) {
+                for (int x=0; x<tHalfWidth; x++) {
+                    mHSBSPixels[tSource+x] = average(mEyePixels[tSource+x*2], mEyePixels[tSource+x*2+1]);
+                    mHSBSPixels[tSource+tHalfWidth+x] = average(mEyePixels[tRight+tSource+x*2], mEyePixels[tRight+tSource+x*2+1]);
+                }
+                if ((mWidth & 1)!=0) {
+                    mHSBSPixels[tSource+mWidth-1] = mEyePixels[tRight+tSource+mWidth-1];
+                }
+            }
+        }
+        if ((inLayouts & cLAYOUT_HOU)!=0) {
+            int tHalfHeight = mHeight/2;
+            if (inRowPair<tHalfHeight) {
+                int tSource0 = tRow0*mWidth;
+                int tSource1 = tRow1*mWidth;
+                int tTarget = inRowPair*mWidth;
+                int tTargetBottom = (tHalfHeight+inRowPair)*mWidth;
+                for (int x=0; x<mWidth; x++) {
+                    mHOUPixels[tTarget+x] = average(mEyePixels[tSource0+x], mEyePixels[tSource1+x]);
+                    mHOUPixels[tTargetBottom+x] = average(mEyePixels[tRight+tSource0+x], mEyePixels[tRight+tSource1+x]);
+                }
+            } else {
+                //odd height, the last row has no partner ...
+                System.arraycopy(mEyePixels, tRight+(mHeight-1)*mWidth, mHOUPixels, (mHeight-1)*mWidth, mWidth);
+            }
+        }
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    @SuppressWarnings("serial")
+    private class PackingBand extends RecursiveAction {
+
+        private final int mLayouts;
+        private final int mFrom;
+        private final int mTo;
+        private final int mGrain;
+
+        public PackingBand(int inLayouts,int inFrom,int inTo,int inGrain) {
+            mLayouts = inLayouts;
+            mFrom = inFrom;
+            mTo = inTo;
+            mGrain = inGrain;
+        }
+
+        protected void compute() {
+            if (mTo-mFrom<=mGrain) {
+                for (int tRowPair=mFrom; tRowPair<mTo; tRowPair++) {
+                    packRowPair(mLayouts,tRowPair);
+                }
+            } else {
+                int tMiddle = (mFrom+mTo)>>>1;
+                invokeAll(new PackingBand(mLayouts,mFrom,tMiddle,mGrain), new PackingBand(mLayouts,tMiddle,mTo,mGrain));
+            }
+        }
+
+    }
+
+}
@@ -29,6 +29,7 @@ import framework.util.*;
 
 public class BaseSuperSamplingFBOWrapper implements BaseFrameBufferObjectRendererInterface {
 
+    //oversized target from the BaseRenderTargetPool, only held while executing ...
     private BaseFrameBufferObjectRendererExecutor mBaseFrameBufferObjectRendererExecutor;
     private float mSuperSamplingFactor;
     private int mSuperSamplingFBO_Width;
@@ -81,28 +82,39 @@ public class BaseSuperSamplingFBOWrapper implements BaseFrameBufferObjectRendere
     }
     
     public void init(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        mBaseFrameBufferObjectRendererExecutor = new BaseFrameBufferObjectRendererExecutor(mSuperSamplingFBO_Width,mSuperSamplingFBO_Height,mBaseFrameBufferObjectRendererInterface);
-        mBaseFrameBufferObjectRendererExecutor.init(inGL,inGLU,inGLUT);
+        mBaseFrameBufferObjectRendererInterface.init_FBORenderer(inGL,inGLU,inGLUT);
         int tFragmentShader = ShaderUtils.generateFragmentShader(inGL,generateSuperSamplingShader());
         mLinkedShader_SuperSampling = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,tFragmentShader);
     }
 
+    private void renderSuperSampled(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
+        mBaseFrameBufferObjectRendererExecutor = BaseRenderTargetPool.getInstance().acquire(inGL,inGLU,inGLUT,mSuperSamplingFBO_Width,mSuperSamplingFBO_Height,GL2.GL_RGBA8,true);
+        BaseRenderTargetPool.getInstance().renderToTarget(inFrameNumber,inGL,inGLU,inGLUT,mBaseFrameBufferObjectRendererExecutor,mBaseFrameBufferObjectRendererInterface);
+    }
+
+    private void releaseSuperSampled() {
+        BaseRenderTargetPool.getInstance().release(mBaseFrameBufferObjectRendererExecutor);
+        mBaseFrameBufferObjectRendererExecutor = null;
+    }
+
     public void executeToFrameBuffer(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        mBaseFrameBufferObjectRendererExecutor.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
+        renderSuperSampled(inFrameNumber,inGL,inGLU,inGLUT);
         inGL.glUseProgram(mLinkedShader_SuperSampling);
         ShaderUtils.setUniform1i(inGL,mLinkedShader_SuperSampling,"sampler0",0);
         inGL.glValidateProgram(mLinkedShader_SuperSampling);
         mBaseFrameBufferObjectRendererExecutor.renderFBOAsFullscreenBillboard(inGL,inGLU,inGLUT);
         inGL.glUseProgram(0);
+        releaseSuperSampled();
     }
     
     public void executeToFBORendererExecutor(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT,BaseFrameBufferObjectRendererExecutor inBaseFrameBufferObjectRendererExecutor) {
-        mBaseFrameBufferObjectRendererExecutor.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
+        renderSuperSampled(inFrameNumber,inGL,inGLU,inGLUT);
         inBaseFrameBufferObjectRendererExecutor.renderToFrameBuffer(inFrameNumber,inGL,inGLU,inGLUT);
+        releaseSuperSampled();
     }
     
     public void cleanup(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        mBaseFrameBufferObjectRendererExecutor.cleanup(inGL,inGLU,inGLUT);
+        mBaseFrameBufferObjectRendererInterface.cleanup_FBORenderer(inGL,inGLU,inGLUT);
     }
     
     /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
@@ -24,6 +24,7 @@ package framework.init;
  **   -ANISOTROPICFILTERING (=TRUE/FALSE)
  **   -ANISOTROPYLEVEL (=1.0/2.0/4.0/8.0/16.0)
  **   -FRAMECAPTURE (=TRUE/FALSE)
+ **   -FRAMECAPTUREFORMAT (=BMP/RAW/Y4M)
  **   -VSYNC (=TRUE/FALSE)
  **   -FRAMESKIP (=TRUE/FALSE)
  **   -WINDOWTOOLKIT (=AWT/NEWT)
@@ -34,6 +35,7 @@ package framework.init;
  **   -STEREOSCOPIC (=TRUE/FALSE)
  **   -STEREOSCOPICEYESEPARATION (=0.0-1.0)
  **   -STEREOSCOPICOUTPUTMODE (=HSBS/HOU/FSBS/FOU/FFS)
+ **   -PROFILING (=TRUE/FALSE)
  **/
 
 import javax.media.opengl.*;
@@ -70,6 +72,7 @@ public class Bootstrap {
         boolean tStereoscopic = false;
         float tStereoscopicEyeSeparation = 0.0f;
         String tStereoscopicOutputMode = "HSBS";
+        boolean tProfiling = false;
         
         if (args.length>0) {
             for (int i=0; i<args.length; i++) {
@@ -122,6 +125,10 @@ public class Bootstrap {
                     String tFrameCaptureParameter = args[i].substring(args[i].indexOf("=")+1,args[i].length());
                     BaseLogging.getInstance().info("FRAME CAPTURE ENABLED '"+tFrameCaptureParameter+"'");
                     tFrameCapture = Boolean.parseBoolean(tFrameCaptureParameter);
+                } else if(args[i].trim().startsWith("-FRAMECAPTUREFORMAT=")) {
+                    String tFrameCaptureFormatParameter = args[i].substring(args[i].indexOf("=")+1,args[i].length());
+                    BaseLogging.getInstance().info("FRAME CAPTURE FORMAT SET TO '"+tFrameCaptureFormatParameter+"'");
+                    BaseLogging.getInstance().setCaptureOutputFormat(tFrameCaptureFormatParameter);
                 } else if(args[i].trim().startsWith("-VSYNC=")) {
                     String tVSyncParameter = args[i].substring(args[i].indexOf("=")+1,args[i].length());
                     BaseLogging.getInstance().info("VSYNC ENABLED '"+tVSyncParameter+"'");
@@ -195,6 +202,10 @@ public class Bootstrap {
                     String tStereoscopicOutputModeParameter = args[i].substring(args[i].indexOf("=")+1,args[i].length());
                     BaseLogging.getInstance().info("STEREOSCOPIC OUTPUT MODE SET TO '"+tStereoscopicOutputModeParameter+"'");
                     tStereoscopicOutputMode = tStereoscopicOutputModeParameter;                  
+                } else if(args[i].trim().startsWith("-PROFILING=")) {
+                    String tProfilingParameter = args[i].substring(args[i].indexOf("=")+1,args[i].length());
+                    BaseLogging.getInstance().info("PROFILING ENABLED '"+tProfilingParameter+"'");
+                    tProfiling = Boolean.parseBoolean(tProfilingParameter);
                 } else {
                     BaseLogging.getInstance().error("ERROR! ILLEGAL ARGUMENT FOUND! ARGUMENT="+args[i]);
                 }
@@ -217,7 +228,8 @@ public class Bootstrap {
                 tEndFrame,
                 tStereoscopic, 
                 tStereoscopicEyeSeparation,
-                tStereoscopicOutputMode
+                tStereoscopicOutputMode,
+                tProfiling
         );
         EventQueue.invokeLater(new Runnable() {
             public void run() {
@@ -21,7 +21,7 @@ import framework.base.*;
 import framework.jogl.postprocessingfilters.*;
 import framework.util.*;
 
-public class PostProcessingFilter_Blender_Base extends PostProcessingFilter_Base implements BasePostProcessingFilterChainShaderInterface {
+public class PostProcessingFilter_Blender_Base extends PostProcessingFilter_Base implements BasePostProcessingFilterChainPointwiseInterface {
 
     protected int mFragmentShader;
     protected int mLinkedShader;
@@ -58,6 +58,14 @@ public class PostProcessingFilter_Blender_Base extends PostProcessingFilter_Base
         inGL.glUseProgram(0);
     }
 
+    public String getFragmentShaderFileName() {
+        return mFragmentShaderFileName;
+    }
+
+    public void setPointwiseUniforms(GL2 inGL,int inLinkedShader,String inUniformPrefix) {
+        ShaderUtils.setUniform1f(inGL,inLinkedShader,inUniformPrefix+"opacity",mOpacity);
+    }
+
     public void setSamplerTextureUnit_Primary(int inTextureUnitNumber) {
         mPrimaryTextureUnitNumber = inTextureUnitNumber;
     }
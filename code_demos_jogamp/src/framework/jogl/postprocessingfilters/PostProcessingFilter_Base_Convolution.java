@@ -29,6 +29,11 @@ public class PostProcessingFilter_Base_Convolution extends PostProcessingFilter_
     protected int mFragmentShader;
     protected int mLinkedShader;
 
+    //the executor turns this source into a compute shader stage if the compute shader backend is enabled ...
+    public String getFragmentShaderFileName() {
+        return mFragmentShaderFileName;
+    }
+
     public void initFilter(GL2 inGL) {
         mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,mFragmentShaderFileName);
         mLinkedShader = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader);
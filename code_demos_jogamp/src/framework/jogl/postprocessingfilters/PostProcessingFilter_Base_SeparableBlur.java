@@ -0,0 +1,138 @@
+package framework.jogl.postprocessingfilters;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter inheritance root for separable blurs with a runtime radius. Every
+ ** iteration is a horizontal and a vertical pass, subclasses only provide the 1D kernel weights.
+ ** Neighbouring taps are merged into a single bilinear fetch positioned by their weights, so the
+ ** cost grows linear with the radius (1+2*ceil(radius/2) fetches per pass) instead of the
+ ** iterated 3x3 kernels growing quadratic.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+import framework.base.*;
+import framework.util.*;
+
+public abstract class PostProcessingFilter_Base_SeparableBlur extends PostProcessingFilter_Base implements BasePostProcessingFilterChainMultiPassInterface {
+
+    //center tap plus 32 merged taps per side, see PostProcessingFilter_SeparableBlur.fs ...
+    public static final int cMaximumRadius = 64;
+    private static final int cMaximumTaps = 1+cMaximumRadius/2;
+
+    protected int mRadius;
+    private int mFragmentShader;
+    private int mLinkedShader;
+    private FloatBuffer mWeights;
+    private FloatBuffer mOffsets;
+    private FloatBuffer mTexelDirection;
+    private int mNumberOfTaps;
+    private boolean mKernelOutdated;
+
+    //unnormalized weight of the texel inOffset (0..mRadius) texels away from the center ...
+    protected abstract float getKernelWeight(int inOffset);
+
+    public void initFilter(GL2 inGL) {
+        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingfilters/PostProcessingFilter_SeparableBlur.fs");
+        mLinkedShader = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader);
+        mWeights = DirectBufferUtils.createDirectFloatBuffer(new float[cMaximumTaps]);
+        mOffsets = DirectBufferUtils.createDirectFloatBuffer(new float[cMaximumTaps]);
+        mTexelDirection = DirectBufferUtils.createDirectFloatBuffer(new float[2]);
+        mKernelOutdated = true;
+        setNumberOfIterations(1);
+    }
+
+    public void cleanupFilter(GL2 inGL) {
+        inGL.glDeleteShader(mFragmentShader);
+    }
+
+    public int getNumberOfPasses() {
+        return 2;
+    }
+
+    public int getPassSizeDivisionFactor(int inPass) {
+        return 1;
+    }
+
+    public void prepareForPassUse(GL2 inGL,int inPass,int inSourceWidth,int inSourceHeight) {
+        if (mKernelOutdated) {
+            updateKernel();
+            mKernelOutdated = false;
+        }
+        //horizontal first, vertical second ...
+        mTexelDirection.put(0, (inPass==0) ? 1.0f/(float)inSourceWidth : 0.0f);
+        mTexelDirection.put(1, (inPass==0) ? 0.0f : 1.0f/(float)inSourceHeight);
+        inGL.glUseProgram(mLinkedShader);
+        //backbuffer texture is implicitly bound to texture unit 0 ...
+        ShaderUtils.setUniform1i(inGL,mLinkedShader,"sampler0",0);
+        ShaderUtils.setUniform1i(inGL,mLinkedShader,"taps",mNumberOfTaps);
+        ShaderUtils.setUniform1fv(inGL,mLinkedShader,"weights",mWeights);
+        ShaderUtils.setUniform1fv(inGL,mLinkedShader,"offsets",mOffsets);
+        ShaderUtils.setUniform2fv(inGL,mLinkedShader,"texel_direction",mTexelDirection);
+        inGL.glValidateProgram(mLinkedShader);
+    }
+
+    public void prepareForProgramUse(GL2 inGL) {
+        //used outside of a filter chain: horizontal pass only ...
+        int tDivisionFactor = Math.max(1,getScreenSizeDivisionFactor());
+        prepareForPassUse(inGL,0,BaseGlobalEnvironment.getInstance().getScreenWidth()/tDivisionFactor,BaseGlobalEnvironment.getInstance().getScreenHeight()/tDivisionFactor);
+    }
+
+    public void stopProgramUse(GL2 inGL) {
+        inGL.glUseProgram(0);
+    }
+
+    //only rebuild the weights if something changed, routines may set the radius every frame ...
+    public void setRadius(int inRadius) {
+        int tRadius = Math.max(0,Math.min(cMaximumRadius,inRadius));
+        if (tRadius!=mRadius) {
+            mRadius = tRadius;
+            mKernelOutdated = true;
+        }
+    }
+
+    //for subclasses whose kernel shape changes without changing the radius ...
+    protected void setKernelOutdated() {
+        mKernelOutdated = true;
+    }
+
+    public int getRadius() {
+        return mRadius;
+    }
+
+    private void updateKernel() {
+        float[] tWeights = new float[mRadius+1];
+        float tSum = 0.0f;
+        for (int i=0; i<=mRadius; i++) {
+            tWeights[i] = getKernelWeight(i);
+            tSum += (i==0) ? tWeights[i] : 2.0f*tWeights[i];
+        }
+        for (int i=0; i<cMaximumTaps; i++) {
+            mWeights.put(i, 0.0f);
+            mOffsets.put(i, 0.0f);
+        }
+        mWeights.put(0, tWeights[0]/tSum);
+        int tTap = 1;
+        //texels i and i+1 are fetched with one bilinear sample between them ...
+        for (int i=1; i<=mRadius; i+=2) {
+            float tWeightA = tWeights[i]/tSum;
+            float tWeightB = (i<mRadius) ? tWeights[i+1]/tSum : 0.0f;
+            float tWeight = tWeightA+tWeightB;
+            mWeights.put(tTap, tWeight);
+            mOffsets.put(tTap, (tWeight>0.0f) ? ((float)i*tWeightA+(float)(i+1)*tWeightB)/tWeight : (float)i);
+            tTap++;
+        }
+        mNumberOfTaps = tTap;
+    }
+
+}
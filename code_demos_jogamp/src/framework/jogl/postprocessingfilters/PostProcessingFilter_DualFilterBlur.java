@@ -0,0 +1,91 @@
+package framework.jogl.postprocessingfilters;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing a 'DUAL FILTER' blur: the image is downsampled level by level
+ ** to 1/2, 1/4, ... of the filter chain resolution and upsampled the same way back. Every level
+ ** widens the blur while the pixel count shrinks by four, so most of the work happens on tiny
+ ** targets and wide blurs cost barely more than narrow ones.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+import framework.base.*;
+import framework.util.*;
+
+public class PostProcessingFilter_DualFilterBlur extends PostProcessingFilter_Base implements BasePostProcessingFilterChainMultiPassInterface {
+
+    private int mFragmentShader_Downsample;
+    private int mLinkedShader_Downsample;
+    private int mFragmentShader_Upsample;
+    private int mLinkedShader_Upsample;
+    private int mNumberOfLevels = 3;
+    private float mOffset = 1.0f;
+    private FloatBuffer mHalfPixel;
+
+    public void initFilter(GL2 inGL) {
+        mFragmentShader_Downsample = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingfilters/PostProcessingFilter_DualFilterBlur_Downsample.fs");
+        mLinkedShader_Downsample = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader_Downsample);
+        mFragmentShader_Upsample = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingfilters/PostProcessingFilter_DualFilterBlur_Upsample.fs");
+        mLinkedShader_Upsample = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader_Upsample);
+        mHalfPixel = DirectBufferUtils.createDirectFloatBuffer(new float[2]);
+        setNumberOfIterations(1);
+    }
+
+    public void cleanupFilter(GL2 inGL) {
+        inGL.glDeleteShader(mFragmentShader_Downsample);
+        inGL.glDeleteShader(mFragmentShader_Upsample);
+    }
+
+    public int getNumberOfPasses() {
+        return 2*mNumberOfLevels;
+    }
+
+    public int getPassSizeDivisionFactor(int inPass) {
+        if (inPass<mNumberOfLevels) {
+            return 1<<(inPass+1);
+        }
+        return 1<<(2*mNumberOfLevels-1-inPass);
+    }
+
+    public void prepareForPassUse(GL2 inGL,int inPass,int inSourceWidth,int inSourceHeight) {
+        int tLinkedShader = (inPass<mNumberOfLevels) ? mLinkedShader_Downsample : mLinkedShader_Upsample;
+        mHalfPixel.put(0, mOffset*0.5f/(float)inSourceWidth);
+        mHalfPixel.put(1, mOffset*0.5f/(float)inSourceHeight);
+        inGL.glUseProgram(tLinkedShader);
+        //backbuffer texture is implicitly bound to texture unit 0 ...
+        ShaderUtils.setUniform1i(inGL,tLinkedShader,"sampler0",0);
+        ShaderUtils.setUniform2fv(inGL,tLinkedShader,"halfpixel",mHalfPixel);
+        inGL.glValidateProgram(tLinkedShader);
+    }
+
+    public void prepareForProgramUse(GL2 inGL) {
+        //used outside of a filter chain: first downsample only ...
+        int tDivisionFactor = Math.max(1,getScreenSizeDivisionFactor());
+        prepareForPassUse(inGL,0,BaseGlobalEnvironment.getInstance().getScreenWidth()/tDivisionFactor,BaseGlobalEnvironment.getInstance().getScreenHeight()/tDivisionFactor);
+    }
+
+    public void stopProgramUse(GL2 inGL) {
+        inGL.glUseProgram(0);
+    }
+
+    public void setNumberOfLevels(int inNumberOfLevels) {
+        mNumberOfLevels = Math.max(1,Math.min(8,inNumberOfLevels));
+    }
+
+    //sample distance in half pixels, values slightly above 1.0 widen the blur without more levels ...
+    public void setOffset(float inOffset) {
+        mOffset = inOffset;
+    }
+
+}
@@ -20,13 +20,13 @@ import javax.media.opengl.*;
 import framework.base.*;
 import framework.util.*;
 
-public class PostProcessingFilter_GrayScale extends PostProcessingFilter_Base implements BasePostProcessingFilterChainShaderInterface {
+public class PostProcessingFilter_GrayScale extends PostProcessingFilter_Base implements BasePostProcessingFilterChainPointwiseInterface {
 
     private int mFragmentShader;
     private int mLinkedShader;
 
     public void initFilter(GL2 inGL) {
-        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingfilters/PostProcessingFilter_GrayScale.fs");
+        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,getFragmentShaderFileName());
         mLinkedShader = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader);
    }
 
@@ -45,4 +45,11 @@ public class PostProcessingFilter_GrayScale extends PostProcessingFilter_Base im
         inGL.glUseProgram(0);
     }
 
+    public String getFragmentShaderFileName() {
+        return "/shaders/postprocessingfilters/PostProcessingFilter_GrayScale.fs";
+    }
+
+    public void setPointwiseUniforms(GL2 inGL,int inLinkedShader,String inUniformPrefix) {
+    }
+
 }
@@ -0,0 +1,77 @@
+package framework.jogl.postprocessingfilters;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing a 'KAWASE BLUR': a sequence of passes with four diagonal
+ ** bilinear fetches each, the distance grows from pass to pass. Five passes with the default
+ ** distances 0,1,2,2,3 reach 13 texels in every direction at 20 fetches per pixel.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+import framework.base.*;
+import framework.util.*;
+
+public class PostProcessingFilter_KawaseBlur extends PostProcessingFilter_Base implements BasePostProcessingFilterChainMultiPassInterface {
+
+    private int mFragmentShader;
+    private int mLinkedShader;
+    private int[] mDistances = {0, 1, 2, 2, 3};
+    private FloatBuffer mTexelOffset;
+
+    public void initFilter(GL2 inGL) {
+        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingfilters/PostProcessingFilter_KawaseBlur.fs");
+        mLinkedShader = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader);
+        mTexelOffset = DirectBufferUtils.createDirectFloatBuffer(new float[2]);
+        setNumberOfIterations(1);
+    }
+
+    public void cleanupFilter(GL2 inGL) {
+        inGL.glDeleteShader(mFragmentShader);
+    }
+
+    public int getNumberOfPasses() {
+        return mDistances.length;
+    }
+
+    public int getPassSizeDivisionFactor(int inPass) {
+        return 1;
+    }
+
+    public void prepareForPassUse(GL2 inGL,int inPass,int inSourceWidth,int inSourceHeight) {
+        float tDistance = (float)mDistances[inPass]+0.5f;
+        mTexelOffset.put(0, tDistance/(float)inSourceWidth);
+        mTexelOffset.put(1, tDistance/(float)inSourceHeight);
+        inGL.glUseProgram(mLinkedShader);
+        //backbuffer texture is implicitly bound to texture unit 0 ...
+        ShaderUtils.setUniform1i(inGL,mLinkedShader,"sampler0",0);
+        ShaderUtils.setUniform2fv(inGL,mLinkedShader,"texel_offset",mTexelOffset);
+        inGL.glValidateProgram(mLinkedShader);
+    }
+
+    public void prepareForProgramUse(GL2 inGL) {
+        //used outside of a filter chain: first pass only ...
+        int tDivisionFactor = Math.max(1,getScreenSizeDivisionFactor());
+        prepareForPassUse(inGL,0,BaseGlobalEnvironment.getInstance().getScreenWidth()/tDivisionFactor,BaseGlobalEnvironment.getInstance().getScreenHeight()/tDivisionFactor);
+    }
+
+    public void stopProgramUse(GL2 inGL) {
+        inGL.glUseProgram(0);
+    }
+
+    //sample distance in texels of every pass ...
+    public void setDistances(int[] inDistances) {
+        mDistances = inDistances.clone();
+    }
+
+}
@@ -18,7 +18,7 @@ package framework.jogl.postprocessingfilters;
 import javax.media.opengl.GL2;
 import framework.base.*;
 
-public class PostProcessingFilter_NoOp extends PostProcessingFilter_Base implements BasePostProcessingFilterChainShaderInterface {
+public class PostProcessingFilter_NoOp extends PostProcessingFilter_Base implements BasePostProcessingFilterChainPointwiseInterface {
 
     public void initFilter(GL2 inGL) {
         mNumberOfIterations = 1;
@@ -37,4 +37,12 @@ public class PostProcessingFilter_NoOp extends PostProcessingFilter_Base impleme
         //ignore number of iterations ...
     }
 
+    public String getFragmentShaderFileName() {
+        //identity, the filter chain simply skips it ...
+        return null;
+    }
+
+    public void setPointwiseUniforms(GL2 inGL,int inLinkedShader,String inUniformPrefix) {
+    }
+
 }
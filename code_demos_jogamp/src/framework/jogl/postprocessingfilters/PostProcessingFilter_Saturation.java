@@ -20,14 +20,14 @@ import javax.media.opengl.*;
 import framework.base.*;
 import framework.util.*;
 
-public class PostProcessingFilter_Saturation extends PostProcessingFilter_Base implements BasePostProcessingFilterChainShaderInterface {
+public class PostProcessingFilter_Saturation extends PostProcessingFilter_Base implements BasePostProcessingFilterChainPointwiseInterface {
 
     private int mFragmentShader;
     private int mLinkedShader;
     private float mAlpha;
 
     public void initFilter(GL2 inGL) {
-        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/postprocessingfilters/PostProcessingFilter_Saturation.fs");
+        mFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,getFragmentShaderFileName());
         mLinkedShader = ShaderUtils.generateSimple_1xFS_ShaderProgramm(inGL,mFragmentShader);
     }
 
@@ -47,6 +47,14 @@ public class PostProcessingFilter_Saturation extends PostProcessingFilter_Base i
         inGL.glUseProgram(0);
     }
 
+    public String getFragmentShaderFileName() {
+        return "/shaders/postprocessingfilters/PostProcessingFilter_Saturation.fs";
+    }
+
+    public void setPointwiseUniforms(GL2 inGL,int inLinkedShader,String inUniformPrefix) {
+        ShaderUtils.setUniform1f(inGL,inLinkedShader,inUniformPrefix+"alpha",mAlpha);
+    }
+
     public void setSaturation(float inValue) {
         mAlpha = inValue;
     }
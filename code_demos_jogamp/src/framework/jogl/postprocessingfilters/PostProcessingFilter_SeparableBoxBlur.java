@@ -0,0 +1,35 @@
+package framework.jogl.postprocessingfilters;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing a separable 'BOX BLUR' of (2*radius+1)^2 texels with runtime
+ ** radius.
+ **
+ **/
+
+import javax.media.opengl.*;
+import framework.base.*;
+
+public class PostProcessingFilter_SeparableBoxBlur extends PostProcessingFilter_Base_SeparableBlur implements BasePostProcessingFilterChainMultiPassInterface {
+
+    public void initFilter(GL2 inGL) {
+        super.initFilter(inGL);
+        if (mRadius==0) {
+            setRadius(4);
+        }
+    }
+
+    protected float getKernelWeight(int inOffset) {
+        return 1.0f;
+    }
+
+}
@@ -0,0 +1,50 @@
+package framework.jogl.postprocessingfilters;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Postprocessing filter implementing a separable 'GAUSSIAN BLUR' with runtime sigma. The radius
+ ** follows the sigma (3 sigma) unless it is set explicitly afterwards.
+ **
+ **/
+
+import javax.media.opengl.*;
+import framework.base.*;
+
+public class PostProcessingFilter_SeparableGaussianBlur extends PostProcessingFilter_Base_SeparableBlur implements BasePostProcessingFilterChainMultiPassInterface {
+
+    private float mSigma;
+
+    public void initFilter(GL2 inGL) {
+        super.initFilter(inGL);
+        if (mSigma==0.0f) {
+            setSigma(2.0f);
+        }
+    }
+
+    protected float getKernelWeight(int inOffset) {
+        return (float)Math.exp(-(double)(inOffset*inOffset)/(2.0*mSigma*mSigma));
+    }
+
+    public void setSigma(float inSigma) {
+        float tSigma = Math.max(0.01f,inSigma);
+        if (tSigma!=mSigma) {
+            mSigma = tSigma;
+            setRadius((int)Math.ceil(3.0f*mSigma));
+            setKernelOutdated();
+        }
+    }
+
+    public float getSigma() {
+        return mSigma;
+    }
+
+}
@@ -0,0 +1,134 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Exercises the readback ring and encoder pool of BaseFrameCapture without a GPU. A fake frame
+ ** source fills heap buffers with a pattern derived from the frame number, a fake encoder burns a
+ ** configurable time per frame and verifies that every frame arrives exactly once, unflipped and
+ ** uncorrupted. Reports the render thread time per captured frame and how often it stalled on
+ ** the bounded pixel pool.
+ ** Usage: BaseFrameCaptureSimulation [frames] [encodemillis] [encoderthreads] [ringsize]
+ **
+ **/
+
+import framework.base.*;
+import java.nio.*;
+import java.util.concurrent.atomic.*;
+import javax.media.opengl.*;
+
+public class BaseFrameCaptureSimulation {
+
+    private static final int cWidth = 640;
+    private static final int cHeight = 360;
+
+    private static int getPattern(int inFrameNumber,int inX,int inY) {
+        return 0xFF000000 | ((inFrameNumber*31+inX*7+inY*13) & 0x00FFFFFF);
+    }
+
+    private static class FakeFrameSource implements BaseFrameCapture_FrameSourceInterface {
+
+        private ByteBuffer[] mSlots;
+        private int mFrameNumber;
+
+        public int getWidth()  { return cWidth; }
+        public int getHeight() { return cHeight; }
+
+        public void init(GL2 inGL,int inSlots) {
+            mSlots = new ByteBuffer[inSlots];
+            for (int i=0; i<inSlots; i++) {
+                mSlots[i] = ByteBuffer.allocateDirect(cWidth*cHeight*4).order(ByteOrder.nativeOrder());
+            }
+        }
+
+        public void readFrame(GL2 inGL,int inSlot) {
+            //bottom-up rows, exactly like glReadPixels() ...
+            IntBuffer tIntBuffer = mSlots[inSlot].asIntBuffer();
+            for (int tRow=0; tRow<cHeight; tRow++) {
+                for (int x=0; x<cWidth; x++) {
+                    tIntBuffer.put(getPattern(mFrameNumber,x,cHeight-1-tRow));
+                }
+            }
+            mFrameNumber++;
+        }
+
+        public ByteBuffer mapFrame(GL2 inGL,int inSlot) { return mSlots[inSlot].duplicate(); }
+        public void unmapFrame(GL2 inGL,int inSlot)     { }
+        public void cleanup(GL2 inGL)                   { mSlots = null; }
+
+    }
+
+    private static class VerifyingFrameEncoder implements BaseFrameCapture_FrameEncoderInterface {
+
+        private final AtomicIntegerArray mSeenFrames;
+        private final AtomicInteger mCorruptFrames = new AtomicInteger();
+        private final long mEncodeNanoseconds;
+
+        public VerifyingFrameEncoder(int inFrames,long inEncodeNanoseconds) {
+            mSeenFrames = new AtomicIntegerArray(inFrames);
+            mEncodeNanoseconds = inEncodeNanoseconds;
+        }
+
+        public void encodeFrame(int[] inPixels,int inWidth,int inHeight,int inFrameNumber,String inCustomPrefix) {
+            long tStart = System.nanoTime();
+            boolean tCorrupt = false;
+            for (int y=0; y<inHeight && !tCorrupt; y++) {
+                for (int x=0; x<inWidth; x++) {
+                    if (inPixels[y*inWidth+x]!=getPattern(inFrameNumber,x,y)) {
+                        tCorrupt = true;
+                        break;
+                    }
+                }
+            }
+            if (tCorrupt) {
+                mCorruptFrames.incrementAndGet();
+            }
+            mSeenFrames.incrementAndGet(inFrameNumber);
+            //simulate a slow disk encoder ...
+            while (System.nanoTime()-tStart<mEncodeNanoseconds) {
+                Thread.yield();
+            }
+        }
+
+    }
+
+    public static void main(String[] args) {
+        System.out.println("INITIALIZING FRAME CAPTURE SIMULATION ...");
+        int tFrames = args.length>0 ? Integer.parseInt(args[0]) : 500;
+        long tEncodeMillis = args.length>1 ? Long.parseLong(args[1]) : 5;
+        int tEncoderThreads = args.length>2 ? Integer.parseInt(args[2]) : Math.max(1, Runtime.getRuntime().availableProcessors()-1);
+        int tRingSize = args.length>3 ? Integer.parseInt(args[3]) : BaseFrameCapture.cDEFAULT_RING_SIZE;
+        VerifyingFrameEncoder tEncoder = new VerifyingFrameEncoder(tFrames,tEncodeMillis*1000000L);
+        BaseFrameCapture tBaseFrameCapture = new BaseFrameCapture(new FakeFrameSource(),tEncoder,tRingSize,tEncoderThreads);
+        long tTime = System.nanoTime();
+        for (int i=0; i<tFrames; i++) {
+            tBaseFrameCapture.captureFrame(null,i);
+        }
+        long tCaptureTime = System.nanoTime()-tTime;
+        tBaseFrameCapture.finish(null);
+        tTime = System.nanoTime()-tTime;
+        int tMissing = 0;
+        int tDuplicated = 0;
+        for (int i=0; i<tFrames; i++) {
+            if (tEncoder.mSeenFrames.get(i)==0) {
+                tMissing++;
+            } else if (tEncoder.mSeenFrames.get(i)>1) {
+                tDuplicated++;
+            }
+        }
+        System.out.println("FRAMES="+tFrames+" ENCODEMS="+tEncodeMillis+" ENCODERTHREADS="+tEncoderThreads+" RINGSIZE="+tRingSize);
+        System.out.println("  RENDER THREAD: "+(tCaptureTime/1000000.0/tFrames)+" MS/FRAME STALLEDFRAMES="+tBaseFrameCapture.getStalledFrames()+" STALLTIME="+(tBaseFrameCapture.getStallTimeNanoseconds()/1000000)+"MS PIXELBUFFERS="+tBaseFrameCapture.getAllocatedPixelBuffers());
+        System.out.println("  TOTAL: "+(tTime/1000000.0/tFrames)+" MS/FRAME (SYNCHRONOUS ENCODING WOULD TAKE AT LEAST "+tEncodeMillis+" MS/FRAME)");
+        System.out.println("  ENCODED="+tBaseFrameCapture.getEncodedFrames()+" MISSING="+tMissing+" DUPLICATED="+tDuplicated+" CORRUPT="+tEncoder.mCorruptFrames.get()+((tMissing+tDuplicated+tEncoder.mCorruptFrames.get())==0 ? " ... OK" : " ... FAILED!"));
+        System.out.println("FRAME CAPTURE SIMULATION FINISHED ...");
+    }
+
+}
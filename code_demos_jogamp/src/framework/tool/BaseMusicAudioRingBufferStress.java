@@ -0,0 +1,105 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Stress test for BaseMusic_AudioRingBuffer. A writer thread pushes a byte stream in random chunk
+ ** sizes where every byte is a hash of its absolute stream position. A reader thread concurrently
+ ** copies windows at random distances behind the write position, including already overwritten
+ ** positions and positions not written yet, and verifies every byte against the hash. Any stale,
+ ** torn or misplaced byte counts as corrupted window.
+ ** Usage: BaseMusicAudioRingBufferStress [seconds] [capacity] [windowsize]
+ **
+ **/
+
+import framework.base.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class BaseMusicAudioRingBufferStress {
+
+    private static byte getPattern(long inPosition) {
+        long tHash = (inPosition^(inPosition>>>29))*0x9E3779B97F4A7C15L;
+        return (byte)(tHash>>>56);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("INITIALIZING AUDIO RING BUFFER STRESS TEST ...");
+        final int tSeconds = args.length>0 ? Integer.parseInt(args[0]) : 10;
+        final int tCapacity = args.length>1 ? Integer.parseInt(args[1]) : 16*1024;
+        final int tWindowSize = args.length>2 ? Integer.parseInt(args[2]) : 2048*4;
+        final BaseMusic_AudioRingBuffer tRingBuffer = new BaseMusic_AudioRingBuffer(tCapacity);
+        final AtomicBoolean tRunning = new AtomicBoolean(true);
+        System.out.println("CAPACITY="+tRingBuffer.getCapacity()+" WINDOWSIZE="+tWindowSize+" DURATION="+tSeconds+"S");
+        Thread tWriter = new Thread("BaseMusicAudioRingBufferStress-Writer") {
+            public void run() {
+                Random tRandom = new Random(1);
+                byte[] tChunk = new byte[tRingBuffer.getCapacity()];
+                long tPosition = 0;
+                while (tRunning.get()) {
+                    //mostly line buffer sized chunks, sometimes more than half the ring at once ...
+                    int tLength = tRandom.nextInt(16)==0 ? 1+tRandom.nextInt(tChunk.length) : 1+tRandom.nextInt(4096);
+                    for (int i=0; i<tLength; i++) {
+                        tChunk[i] = getPattern(tPosition+i);
+                    }
+                    tRingBuffer.write(tChunk, 0, tLength);
+                    tPosition += tLength;
+                }
+            }
+        };
+        final long[] tReaderStatistics = new long[4];
+        Thread tReader = new Thread("BaseMusicAudioRingBufferStress-Reader") {
+            public void run() {
+                Random tRandom = new Random(2);
+                byte[] tWindow = new byte[tWindowSize];
+                long tWindows = 0;
+                long tNotYetAvailable = 0;
+                long tMoved = 0;
+                long tCorrupted = 0;
+                while (tRunning.get()) {
+                    //anything from 'ahead of the writer' to 'far behind the oldest intact byte' ...
+                    long tPosition = Math.max(0, tRingBuffer.getWritePosition()+tWindowSize-tRandom.nextInt(2*tRingBuffer.getCapacity()));
+                    long tStart = tRingBuffer.read(tPosition, tWindow, 0, tWindowSize);
+                    if (tStart<0) {
+                        tNotYetAvailable++;
+                        continue;
+                    }
+                    tWindows++;
+                    if (tStart!=tPosition) {
+                        tMoved++;
+                    }
+                    for (int i=0; i<tWindowSize; i++) {
+                        if (tWindow[i]!=getPattern(tStart+i)) {
+                            tCorrupted++;
+                            break;
+                        }
+                    }
+                }
+                tReaderStatistics[0] = tWindows;
+                tReaderStatistics[1] = tNotYetAvailable;
+                tReaderStatistics[2] = tMoved;
+                tReaderStatistics[3] = tCorrupted;
+            }
+        };
+        tWriter.start();
+        tReader.start();
+        Thread.sleep(tSeconds*1000L);
+        tRunning.set(false);
+        tWriter.join();
+        tReader.join();
+        long tBytes = tRingBuffer.getWritePosition();
+        System.out.println("WRITTEN="+(tBytes/(1024*1024))+"MB ("+(tBytes/(1024*1024)/tSeconds)+"MB/S) WRITERWAITS="+tRingBuffer.getWriterWaits());
+        System.out.println("WINDOWS="+tReaderStatistics[0]+" ("+(tReaderStatistics[0]/tSeconds)+"/S) NOTYETAVAILABLE="+tReaderStatistics[1]+" MOVED="+tReaderStatistics[2]+" CORRUPTED="+tReaderStatistics[3]);
+        System.out.println(tReaderStatistics[3]==0 ? "ALL WINDOWS INTACT ..." : "CORRUPTED WINDOWS FOUND!");
+        System.out.println("AUDIO RING BUFFER STRESS TEST FINISHED ...");
+    }
+
+}
@@ -0,0 +1,113 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Correctness check and benchmark for the real input transform of BaseMusic_FastFourierTransform.
+ ** For every sample size calculate() and calculateSquaredMagnitudes() are compared against the
+ ** original complex radix-2 transform (calculateComplex()) on noise, pure tones and silence, then
+ ** all three paths are timed. The maximum absolute error is reported relative to the peak bin.
+ ** Usage: BaseMusicFastFourierTransformBenchmark [samplesize ...]
+ **
+ **/
+
+import framework.base.*;
+import java.util.*;
+
+public class BaseMusicFastFourierTransformBenchmark {
+
+    private static final int[] cDefaultSampleSizes = {4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096};
+    private static final int cWarmupIterations = 20000;
+    private static final int cMeasurementIterations = 50000;
+    private static final float cMaximumRelativeError = 1.0e-4f;
+
+    private static float[][] createSignals(int inSampleSize) {
+        Random tRandom = new Random(inSampleSize);
+        float[][] tSignals = new float[4][inSampleSize];
+        for (int i=0; i<inSampleSize; i++) {
+            tSignals[0][i] = tRandom.nextFloat()*2.0f-1.0f;
+            tSignals[1][i] = (float)Math.sin(2.0*Math.PI*3.0*i/inSampleSize);
+            tSignals[2][i] = 0.5f*(float)Math.sin(2.0*Math.PI*0.37*i)+0.25f*(float)Math.cos(2.0*Math.PI*0.11*i)+0.1f;
+        }
+        return tSignals;
+    }
+
+    private static boolean verify(BaseMusic_FastFourierTransform inFFT,float[] inSignal) {
+        float[] tReference = inFFT.calculateComplex(inSignal).clone();
+        float[] tMagnitudes = inFFT.calculate(inSignal).clone();
+        float[] tSquaredMagnitudes = inFFT.calculateSquaredMagnitudes(inSignal);
+        float tPeak = 0.0f;
+        for (int i=0; i<tReference.length; i++) {
+            tPeak = Math.max(tPeak, tReference[i]);
+        }
+        float tMaximumError = 0.0f;
+        float tMaximumSquaredError = 0.0f;
+        for (int i=0; i<tReference.length; i++) {
+            tMaximumError = Math.max(tMaximumError, Math.abs(tMagnitudes[i]-tReference[i]));
+            tMaximumSquaredError = Math.max(tMaximumSquaredError, Math.abs(tSquaredMagnitudes[i]-tReference[i]*tReference[i]));
+        }
+        float tRelativeError = tPeak>0.0f ? tMaximumError/tPeak : tMaximumError;
+        float tRelativeSquaredError = tPeak>0.0f ? tMaximumSquaredError/(tPeak*tPeak) : tMaximumSquaredError;
+        boolean tPassed = tRelativeError<=cMaximumRelativeError && tRelativeSquaredError<=cMaximumRelativeError;
+        System.out.println("    PEAK="+tPeak+" MAXERROR="+tRelativeError+" MAXSQUAREDERROR="+tRelativeSquaredError+(tPassed ? " OK" : " MISMATCH!"));
+        return tPassed;
+    }
+
+    private static long measure(BaseMusic_FastFourierTransform inFFT,float[] inSignal,int inMode) {
+        float tChecksum = 0.0f;
+        long tTime = 0;
+        for (int i=0; i<cWarmupIterations+cMeasurementIterations; i++) {
+            if (i==cWarmupIterations) {
+                tTime = System.nanoTime();
+            }
+            float[] tResult;
+            switch (inMode) {
+                case 0:  tResult = inFFT.calculateComplex(inSignal); break;
+                case 1:  tResult = inFFT.calculate(inSignal); break;
+                default: tResult = inFFT.calculateSquaredMagnitudes(inSignal); break;
+            }
+            tChecksum += tResult[i%tResult.length];
+        }
+        tTime = System.nanoTime()-tTime;
+        //keep the results alive so the calls can not be eliminated ...
+        if (tChecksum==Float.MIN_VALUE) {
+            System.out.println(tChecksum);
+        }
+        return tTime/cMeasurementIterations;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("INITIALIZING FAST FOURIER TRANSFORM BENCHMARK ...");
+        int[] tSampleSizes = cDefaultSampleSizes;
+        if (args.length>0) {
+            tSampleSizes = new int[args.length];
+            for (int i=0; i<args.length; i++) {
+                tSampleSizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        boolean tAllPassed = true;
+        for (int tSampleSize : tSampleSizes) {
+            BaseMusic_FastFourierTransform tFFT = new BaseMusic_FastFourierTransform(tSampleSize);
+            System.out.println("SAMPLESIZE="+tSampleSize+" -> "+tFFT.getInputSampleSize()+" BANDS="+tFFT.getOutputSampleSize());
+            float[][] tSignals = createSignals(tSampleSize);
+            for (float[] tSignal : tSignals) {
+                tAllPassed &= verify(tFFT,tSignal);
+            }
+            long tComplexTime = measure(tFFT,tSignals[0],0);
+            long tRealTime = measure(tFFT,tSignals[0],1);
+            long tSquaredTime = measure(tFFT,tSignals[0],2);
+            System.out.println("    COMPLEX: "+tComplexTime+" NS REAL: "+tRealTime+" NS ("+((double)tComplexTime/Math.max(1,tRealTime))+"x) REAL SQUARED: "+tSquaredTime+" NS ("+((double)tComplexTime/Math.max(1,tSquaredTime))+"x)");
+        }
+        System.out.println(tAllPassed ? "ALL RESULTS MATCH THE COMPLEX TRANSFORM" : "RESULT MISMATCH!");
+        System.out.println("FAST FOURIER TRANSFORM BENCHMARK FINISHED ...");
+    }
+
+}
@@ -0,0 +1,147 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Correctness check and benchmark for BaseMusic_PCMNormalizer. The fused conversion is compared
+ ** bit by bit against the original two pass path (KJ-DSS per byte normalizer with the per sample
+ ** wrap check, followed by the separate channel merge of the spectrum analyzer) for 16 bit mono
+ ** and stereo, an 8 bit format taking the generic path, and windows wrapping around the end of
+ ** the source buffer. Then both paths are timed.
+ ** Usage: BaseMusicPCMNormalizationBenchmark [samplesize]
+ **
+ **/
+
+import framework.base.*;
+import java.util.*;
+import javax.sound.sampled.*;
+
+public class BaseMusicPCMNormalizationBenchmark {
+
+    private static final int cDefaultSampleSize = 1470;
+    private static final int cWarmupIterations = 20000;
+    private static final int cMeasurementIterations = 100000;
+
+    //the original normalizer, verbatim apart from the names ...
+    private static float[][] normalizeLegacy(byte[] inData,int inPosition,int inSampleSize,AudioFormat inFormat,float[][] outChannels) {
+        int tChannels = inFormat.getChannels();
+        int tSampleSizeInBits = inFormat.getSampleSizeInBits();
+        int tFrameSize = inFormat.getFrameSize();
+        int tChannelSize = tFrameSize/tChannels;
+        long tAudioSampleSize = (1<<(tSampleSizeInBits-1));
+        for (int s=0; s<inSampleSize; s++) {
+            if (inPosition>=inData.length) {
+                inPosition = 0;
+            }
+            int tChannelPosition = 0;
+            for (int c=0; c<tChannels; c++) {
+                long tSample = (inData[inPosition+tChannelPosition] & 0xFF)-128;
+                for (int tBit=8, b=1; tBit<tSampleSizeInBits; tBit+=8) {
+                    tSample += inData[inPosition+tChannelPosition+b]<<tBit;
+                    b++;
+                }
+                outChannels[c][s] = (float)tSample/tAudioSampleSize;
+                tChannelPosition += tChannelSize;
+            }
+            inPosition += tFrameSize;
+        }
+        return outChannels;
+    }
+
+    //the original channel merge of the spectrum analyzer ...
+    private static float[] channelMergeLegacy(float[][] inChannels) {
+        for (int a=0; a<inChannels[0].length; a++) {
+            float tMerged = 0;
+            for (int b=0; b<inChannels.length; b++) {
+                tMerged += inChannels[b][a];
+            }
+            inChannels[0][a] = tMerged/(float)inChannels.length;
+        }
+        return inChannels[0];
+    }
+
+    private static boolean equalBits(float[] inA,float[] inB) {
+        for (int i=0; i<inA.length; i++) {
+            if (Float.floatToRawIntBits(inA[i])!=Float.floatToRawIntBits(inB[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean verify(AudioFormat inFormat,int inSampleSize,int inPosition,byte[] inData) {
+        int tChannels = inFormat.getChannels();
+        float[][] tLegacyChannels = new float[tChannels][inSampleSize];
+        float[][] tFusedChannels = new float[tChannels][inSampleSize];
+        float[] tFusedMerged = new float[inSampleSize];
+        normalizeLegacy(inData, inPosition, inSampleSize, inFormat, tLegacyChannels);
+        BaseMusic_PCMNormalizer.normalize(inData, inPosition, inSampleSize, inFormat, tFusedChannels, tFusedMerged);
+        boolean tIdentical = true;
+        for (int c=0; c<tChannels; c++) {
+            tIdentical &= equalBits(tLegacyChannels[c], tFusedChannels[c]);
+        }
+        tIdentical &= equalBits(channelMergeLegacy(tLegacyChannels), tFusedMerged);
+        return tIdentical;
+    }
+
+    private static void benchmark(AudioFormat inFormat,int inSampleSize,byte[] inData) {
+        int tChannels = inFormat.getChannels();
+        float[][] tChannelData = new float[tChannels][inSampleSize];
+        float[] tMerged = new float[inSampleSize];
+        float tSink = 0.0f;
+        long tLegacyTime = 0;
+        long tFusedTime = 0;
+        for (int i=0; i<cWarmupIterations+cMeasurementIterations; i++) {
+            long tTime = System.nanoTime();
+            tSink += channelMergeLegacy(normalizeLegacy(inData, 0, inSampleSize, inFormat, tChannelData))[i%inSampleSize];
+            long tMiddle = System.nanoTime();
+            BaseMusic_PCMNormalizer.normalize(inData, 0, inSampleSize, inFormat, tChannelData, tMerged);
+            tSink += tMerged[i%inSampleSize];
+            if (i>=cWarmupIterations) {
+                tLegacyTime += tMiddle-tTime;
+                tFusedTime += System.nanoTime()-tMiddle;
+            }
+        }
+        System.out.println("  "+inFormat.getChannels()+" CHANNEL(S) "+inFormat.getSampleSizeInBits()+" BIT: LEGACY="+(tLegacyTime/cMeasurementIterations)+"NS FUSED="+(tFusedTime/cMeasurementIterations)+"NS SPEEDUP="+((double)tLegacyTime/(double)Math.max(1,tFusedTime))+" ("+tSink+")");
+    }
+
+    public static void main(String[] args) {
+        System.out.println("INITIALIZING PCM NORMALIZATION BENCHMARK ...");
+        int tSampleSize = args.length>0 ? Integer.parseInt(args[0]) : cDefaultSampleSize;
+        AudioFormat[] tFormats = {
+            new AudioFormat(44100.0f, 16, 2, true, false),
+            new AudioFormat(44100.0f, 16, 1, true, false),
+            new AudioFormat(44100.0f, 8, 2, true, false),
+        };
+        Random tRandom = new Random(1);
+        boolean tAllIdentical = true;
+        for (AudioFormat tFormat : tFormats) {
+            byte[] tData = new byte[tSampleSize*tFormat.getFrameSize()];
+            tRandom.nextBytes(tData);
+            //a linear window and windows wrapping around the end after a few frames ...
+            int[] tPositions = {0, tData.length-tFormat.getFrameSize(), tData.length/2, tData.length-((tSampleSize/3)*tFormat.getFrameSize())};
+            for (int tPosition : tPositions) {
+                boolean tIdentical = verify(tFormat, tSampleSize, tPosition, tData);
+                tAllIdentical &= tIdentical;
+                System.out.println("VERIFY "+tFormat.getChannels()+" CHANNEL(S) "+tFormat.getSampleSizeInBits()+" BIT POSITION="+tPosition+": "+(tIdentical ? "IDENTICAL" : "MISMATCH!"));
+            }
+        }
+        System.out.println("SAMPLESIZE="+tSampleSize+" FRAMES PER WINDOW");
+        for (AudioFormat tFormat : tFormats) {
+            byte[] tData = new byte[tSampleSize*tFormat.getFrameSize()];
+            tRandom.nextBytes(tData);
+            benchmark(tFormat, tSampleSize, tData);
+        }
+        System.out.println(tAllIdentical ? "ALL RESULTS IDENTICAL ..." : "RESULT MISMATCH FOUND!");
+        System.out.println("PCM NORMALIZATION BENCHMARK FINISHED ...");
+    }
+
+}
@@ -0,0 +1,64 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Reports the post-transform vertex cache efficiency of every mesh before and after running it
+ ** through WavefrontObjectIndexer and WavefrontObjectMeshOptimizer. Prints the ACMR (cache misses
+ ** per triangle, 0.5 is the theoretical optimum for regular meshes) and the ATVR (cache misses per
+ ** vertex, 1.0 is optimal) for a simulated FIFO cache. Without arguments all meshes in
+ ** binaries/geometry are used.
+ **
+ **/
+
+import framework.util.*;
+import java.io.*;
+
+public class WavefrontObjectMeshOptimizerReport {
+
+    private static final int[] cReportedCacheSizes = {16, 32};
+
+    private static void report(File inFile) throws IOException {
+        byte[] tData = WavefrontObjectToolUtils.readMesh(inFile);
+        WavefrontObjectParser tParser = new WavefrontObjectParser();
+        tParser.parse(tData, 0, tData.length);
+        WavefrontObjectIndexer tIndexer = new WavefrontObjectIndexer(tParser);
+        int[] tIndices = tIndexer.getIndices();
+        System.out.println("MESH: "+inFile.getName()+" TRIANGLES="+(tIndexer.getIndexCount()/3)+" CORNERS="+tParser.getFaceIndexCount()+" UNIQUE VERTICES="+tIndexer.getVertexCount());
+        float[] tACMRBefore = new float[cReportedCacheSizes.length];
+        float[] tATVRBefore = new float[cReportedCacheSizes.length];
+        for (int i=0; i<cReportedCacheSizes.length; i++) {
+            tACMRBefore[i] = WavefrontObjectMeshOptimizer.getACMR(tIndices,cReportedCacheSizes[i]);
+            tATVRBefore[i] = WavefrontObjectMeshOptimizer.getATVR(tIndices,tIndexer.getVertexCount(),cReportedCacheSizes[i]);
+        }
+        WavefrontObjectMeshOptimizer tOptimizer = new WavefrontObjectMeshOptimizer(tIndexer);
+        long tTime = System.nanoTime();
+        tOptimizer.optimize();
+        tTime = System.nanoTime()-tTime;
+        System.out.println("  OPTIMIZATION TOOK "+(tTime/1000000.0)+" MS");
+        for (int i=0; i<cReportedCacheSizes.length; i++) {
+            float tACMRAfter = WavefrontObjectMeshOptimizer.getACMR(tOptimizer.getIndices(),cReportedCacheSizes[i]);
+            float tATVRAfter = WavefrontObjectMeshOptimizer.getATVR(tOptimizer.getIndices(),tOptimizer.getVertexCount(),cReportedCacheSizes[i]);
+            System.out.println("  FIFO "+cReportedCacheSizes[i]+" : ACMR "+tACMRBefore[i]+" -> "+tACMRAfter+" ATVR "+tATVRBefore[i]+" -> "+tATVRAfter);
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("INITIALIZING WAVEFRONT OBJECT MESH OPTIMIZER REPORT ...");
+        WavefrontObjectToolUtils.processMeshes(args,new WavefrontObjectToolUtils.MeshTool() {
+            public void process(File inFile) throws IOException {
+                report(inFile);
+            }
+        });
+        System.out.println("WAVEFRONT OBJECT MESH OPTIMIZER REPORT FINISHED ...");
+    }
+
+}
@@ -0,0 +1,117 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Scaling benchmark for WavefrontObjectParallelParser. Every mesh is inflated into memory once, then
+ ** parsed sequentially and in parallel on fork-join pools with 1, 2, 4 ... N threads. Every parallel
+ ** result is compared bit by bit against the sequential one. Without arguments all meshes in
+ ** binaries/geometry are used.
+ **
+ **/
+
+import framework.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+
+public class WavefrontObjectParallelParserBenchmark {
+
+    private static final int cWarmupIterations = 3;
+    private static final int cMeasurementIterations = 10;
+
+    private static WavefrontObjectParser parseSequential(byte[] inData) {
+        WavefrontObjectParser tParser = new WavefrontObjectParser();
+        tParser.parse(inData, 0, inData.length);
+        return tParser;
+    }
+
+    private static boolean equalFloats(float[] inA,float[] inB,int inLength) {
+        for (int i=0; i<inLength; i++) {
+            if (Float.floatToRawIntBits(inA[i])!=Float.floatToRawIntBits(inB[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalInts(int[] inA,int[] inB,int inLength) {
+        for (int i=0; i<inLength; i++) {
+            if (inA[i]!=inB[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentical(WavefrontObjectParser inA,WavefrontObjectParser inB) {
+        return inA.getVertexCount()==inB.getVertexCount()
+            && inA.getTextureCoordinateCount()==inB.getTextureCoordinateCount()
+            && inA.getNormalCount()==inB.getNormalCount()
+            && inA.getVertexStride()==inB.getVertexStride()
+            && inA.getTextureCoordinateStride()==inB.getTextureCoordinateStride()
+            && inA.getNormalStride()==inB.getNormalStride()
+            && inA.getFaceIndexCount()==inB.getFaceIndexCount()
+            && inA.getFaceCount()==inB.getFaceCount()
+            && equalFloats(inA.getVertexData(),inB.getVertexData(),inA.getVertexCount()*inA.getVertexStride())
+            && equalFloats(inA.getTextureCoordinateData(),inB.getTextureCoordinateData(),inA.getTextureCoordinateCount()*inA.getTextureCoordinateStride())
+            && equalFloats(inA.getNormalData(),inB.getNormalData(),inA.getNormalCount()*inA.getNormalStride())
+            && equalInts(inA.getFaceVertexIndices(),inB.getFaceVertexIndices(),inA.getFaceIndexCount())
+            && equalInts(inA.getFaceTextureIndices(),inB.getFaceTextureIndices(),inA.getFaceIndexCount())
+            && equalInts(inA.getFaceNormalIndices(),inB.getFaceNormalIndices(),inA.getFaceIndexCount())
+            && equalInts(inA.getFaceOffsets(),inB.getFaceOffsets(),inA.getFaceCount()+1);
+    }
+
+    private static void benchmark(File inFile) throws IOException {
+        byte[] tData = WavefrontObjectToolUtils.readMesh(inFile);
+        System.out.println("MESH: "+inFile.getName()+" ("+tData.length+" BYTES INFLATED)");
+        WavefrontObjectParser tReference = parseSequential(tData);
+        long tSequentialTime = 0;
+        for (int i=0; i<cWarmupIterations+cMeasurementIterations; i++) {
+            long tTime = System.nanoTime();
+            parseSequential(tData);
+            if (i>=cWarmupIterations) {
+                tSequentialTime += System.nanoTime()-tTime;
+            }
+        }
+        tSequentialTime /= cMeasurementIterations;
+        System.out.println("  SEQUENTIAL : "+(tSequentialTime/1000000.0)+" MS/PARSE");
+        int tProcessors = Runtime.getRuntime().availableProcessors();
+        for (int tThreads=1; ; tThreads=Math.min(tThreads*2,tProcessors)) {
+            ForkJoinPool tForkJoinPool = new ForkJoinPool(tThreads);
+            boolean tIdentical = isIdentical(tReference,WavefrontObjectParallelParser.parse(tData,tData.length,tForkJoinPool));
+            long tParallelTime = 0;
+            for (int i=0; i<cWarmupIterations+cMeasurementIterations; i++) {
+                long tTime = System.nanoTime();
+                WavefrontObjectParallelParser.parse(tData,tData.length,tForkJoinPool);
+                if (i>=cWarmupIterations) {
+                    tParallelTime += System.nanoTime()-tTime;
+                }
+            }
+            tParallelTime /= cMeasurementIterations;
+            tForkJoinPool.shutdown();
+            System.out.println("  PARALLEL "+tThreads+" THREAD(S) : "+(tParallelTime/1000000.0)+" MS/PARSE SPEEDUP="+((double)tSequentialTime/(double)Math.max(1,tParallelTime))+(tIdentical ? "" : " RESULT MISMATCH!"));
+            if (tThreads==tProcessors) {
+                break;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("INITIALIZING WAVEFRONT OBJECT PARALLEL PARSER BENCHMARK ...");
+        WavefrontObjectToolUtils.processMeshes(args,new WavefrontObjectToolUtils.MeshTool() {
+            public void process(File inFile) throws IOException {
+                benchmark(inFile);
+            }
+        });
+        System.out.println("WAVEFRONT OBJECT PARALLEL PARSER BENCHMARK FINISHED ...");
+    }
+
+}
@@ -0,0 +1,214 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Small benchmark comparing the streaming WavefrontObjectParser with the former line based loader
+ ** code (readLine(), split(), replaceAll(), Integer.valueOf() and one float[] per vertex). Meshes
+ ** are read into memory once, so only inflating and parsing is measured. Reports time and heap
+ ** allocation per parse and checks that both produce the same vertex, texture coordinate, normal
+ ** and face index data. Without arguments all meshes in binaries/geometry are used.
+ **
+ **/
+
+import framework.util.*;
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+
+public class WavefrontObjectParserBenchmark {
+
+    private static final int cWarmupIterations = 3;
+    private static final int cMeasurementIterations = 10;
+    private static final int cMaximumReportedMismatches = 5;
+
+    private static class LegacyMesh {
+        private final ArrayList<float[]> mVertexData = new ArrayList<float[]>();
+        private final ArrayList<float[]> mTextureCoordinateData = new ArrayList<float[]>();
+        private final ArrayList<float[]> mNormalData = new ArrayList<float[]>();
+        private final ArrayList<int[]> mFaceVertexIndices = new ArrayList<int[]>();
+        private final ArrayList<int[]> mFaceTextureIndices = new ArrayList<int[]>();
+        private final ArrayList<int[]> mFaceNormalIndices = new ArrayList<int[]>();
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean tThreadMXBean = ManagementFactory.getThreadMXBean();
+        if (tThreadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)tThreadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static WavefrontObjectParser parseStreaming(byte[] inData,String inFileName) throws IOException {
+        WavefrontObjectParser tParser = new WavefrontObjectParser();
+        InputStream tInputStream = WavefrontObjectToolUtils.openMesh(inData,inFileName);
+        tParser.parse(tInputStream);
+        tInputStream.close();
+        return tParser;
+    }
+
+    private static LegacyMesh parseLegacy(byte[] inData,String inFileName) throws IOException {
+        LegacyMesh tLegacyMesh = new LegacyMesh();
+        ArrayList<float[]> vData = tLegacyMesh.mVertexData;
+        ArrayList<float[]> vtData = tLegacyMesh.mTextureCoordinateData;
+        ArrayList<float[]> vnData = tLegacyMesh.mNormalData;
+        ArrayList<int[]> fv = tLegacyMesh.mFaceVertexIndices;
+        ArrayList<int[]> ft = tLegacyMesh.mFaceTextureIndices;
+        ArrayList<int[]> fn = tLegacyMesh.mFaceNormalIndices;
+        BufferedReader br = new BufferedReader(new InputStreamReader(WavefrontObjectToolUtils.openMesh(inData,inFileName)));
+        String line = null;
+        while ((line = br.readLine()) != null) {
+            if (line.startsWith("v ")) {
+                vData.add(legacyFloatData(line.split("\\s+")));
+            } else if (line.startsWith("vt ")) {
+                vtData.add(legacyFloatData(line.split("\\s+")));
+            } else if (line.startsWith("vn ")) {
+                vnData.add(legacyFloatData(line.split("\\s+")));
+            } else if (line.startsWith("f ")) {
+                String s[] = line.split("\\s+");
+                if (line.contains("//")) {
+                    for (int loop = 1; loop < s.length; loop++) {
+                        s[loop] = s[loop].replaceAll("//", "/0/");
+                    }
+                }
+                int vdata[] = new int[s.length - 1];
+                int vtdata[] = new int[s.length - 1];
+                int vndata[] = new int[s.length - 1];
+                for (int loop = 1; loop < s.length; loop++) {
+                    String[] temp = s[loop].split("/");
+                    vdata[loop - 1] = Integer.valueOf(temp[0]);
+                    vtdata[loop - 1] = (temp.length > 1) ? Integer.valueOf(temp[1]) : 0;
+                    vndata[loop - 1] = (temp.length > 2) ? Integer.valueOf(temp[2]) : 0;
+                }
+                fv.add(vdata);
+                ft.add(vtdata);
+                fn.add(vndata);
+            }
+        }
+        br.close();
+        return tLegacyMesh;
+    }
+
+    private static float[] legacyFloatData(String sdata[]) {
+        float data[] = new float[sdata.length - 1];
+        for (int loop = 0; loop < data.length; loop++) {
+            data[loop] = Float.parseFloat(sdata[loop + 1]);
+        }
+        return data;
+    }
+
+    private static int compareFloats(String inName,ArrayList<float[]> inLegacyData,float[] inData,int inCount,int inStride) {
+        int tMismatches = 0;
+        if (inLegacyData.size()!=inCount) {
+            System.out.println("  "+inName+" COUNT MISMATCH! LEGACY="+inLegacyData.size()+" STREAMING="+inCount);
+            return 1;
+        }
+        for (int i=0; i<inCount; i++) {
+            float[] tLegacyEntry = inLegacyData.get(i);
+            for (int j=0; j<inStride; j++) {
+                //the streaming parser pads missing components with zero and drops surplus ones ...
+                float tLegacyValue = (j<tLegacyEntry.length) ? tLegacyEntry[j] : 0.0f;
+                float tValue = inData[i*inStride+j];
+                if (Float.floatToIntBits(tLegacyValue)!=Float.floatToIntBits(tValue)) {
+                    if (tMismatches<cMaximumReportedMismatches) {
+                        System.out.println("  "+inName+" MISMATCH AT "+i+"/"+j+"! LEGACY="+tLegacyValue+" STREAMING="+tValue);
+                    }
+                    tMismatches++;
+                }
+            }
+        }
+        return tMismatches;
+    }
+
+    private static int compareIndices(String inName,ArrayList<int[]> inLegacyIndices,int[] inIndices,int[] inFaceOffsets,int inFaceCount) {
+        int tMismatches = 0;
+        for (int i=0; i<inFaceCount; i++) {
+            int[] tLegacyFace = inLegacyIndices.get(i);
+            int tCorners = inFaceOffsets[i+1]-inFaceOffsets[i];
+            if (tLegacyFace.length!=tCorners) {
+                if (tMismatches<cMaximumReportedMismatches) {
+                    System.out.println("  "+inName+" CORNER COUNT MISMATCH AT FACE "+i+"! LEGACY="+tLegacyFace.length+" STREAMING="+tCorners);
+                }
+                tMismatches++;
+                continue;
+            }
+            for (int j=0; j<tCorners; j++) {
+                if (tLegacyFace[j]!=inIndices[inFaceOffsets[i]+j]) {
+                    if (tMismatches<cMaximumReportedMismatches) {
+                        System.out.println("  "+inName+" MISMATCH AT FACE "+i+" CORNER "+j+"! LEGACY="+tLegacyFace[j]+" STREAMING="+inIndices[inFaceOffsets[i]+j]);
+                    }
+                    tMismatches++;
+                }
+            }
+        }
+        return tMismatches;
+    }
+
+    private static int compare(LegacyMesh inLegacyMesh,WavefrontObjectParser inParser) {
+        int tMismatches = 0;
+        tMismatches += compareFloats("VERTEX",inLegacyMesh.mVertexData,inParser.getVertexData(),inParser.getVertexCount(),inParser.getVertexStride());
+        tMismatches += compareFloats("TEXTURE COORDINATE",inLegacyMesh.mTextureCoordinateData,inParser.getTextureCoordinateData(),inParser.getTextureCoordinateCount(),inParser.getTextureCoordinateStride());
+        tMismatches += compareFloats("NORMAL",inLegacyMesh.mNormalData,inParser.getNormalData(),inParser.getNormalCount(),inParser.getNormalStride());
+        if (inLegacyMesh.mFaceVertexIndices.size()!=inParser.getFaceCount()) {
+            System.out.println("  FACE COUNT MISMATCH! LEGACY="+inLegacyMesh.mFaceVertexIndices.size()+" STREAMING="+inParser.getFaceCount());
+            return tMismatches+1;
+        }
+        tMismatches += compareIndices("FACE VERTEX INDEX",inLegacyMesh.mFaceVertexIndices,inParser.getFaceVertexIndices(),inParser.getFaceOffsets(),inParser.getFaceCount());
+        tMismatches += compareIndices("FACE TEXTURE INDEX",inLegacyMesh.mFaceTextureIndices,inParser.getFaceTextureIndices(),inParser.getFaceOffsets(),inParser.getFaceCount());
+        tMismatches += compareIndices("FACE NORMAL INDEX",inLegacyMesh.mFaceNormalIndices,inParser.getFaceNormalIndices(),inParser.getFaceOffsets(),inParser.getFaceCount());
+        return tMismatches;
+    }
+
+    private static void benchmark(File inFile) throws IOException {
+        byte[] tData = WavefrontObjectToolUtils.readFile(inFile);
+        String tFileName = inFile.getName();
+        System.out.println("MESH: "+tFileName+" ("+tData.length+" BYTES)");
+        LegacyMesh tLegacyMesh = null;
+        WavefrontObjectParser tParser = null;
+        for (int i=0; i<cWarmupIterations; i++) {
+            tLegacyMesh = parseLegacy(tData,tFileName);
+            tParser = parseStreaming(tData,tFileName);
+        }
+        int tMismatches = compare(tLegacyMesh,tParser);
+        System.out.println("  PARITY: "+(tMismatches==0 ? "IDENTICAL" : tMismatches+" MISMATCHES"));
+        long tLegacyTime = 0;
+        long tLegacyBytes = 0;
+        long tStreamingTime = 0;
+        long tStreamingBytes = 0;
+        for (int i=0; i<cMeasurementIterations; i++) {
+            long tBytes = getAllocatedBytes();
+            long tTime = System.nanoTime();
+            parseLegacy(tData,tFileName);
+            tLegacyTime += System.nanoTime()-tTime;
+            tLegacyBytes += getAllocatedBytes()-tBytes;
+            tBytes = getAllocatedBytes();
+            tTime = System.nanoTime();
+            parseStreaming(tData,tFileName);
+            tStreamingTime += System.nanoTime()-tTime;
+            tStreamingBytes += getAllocatedBytes()-tBytes;
+        }
+        System.out.println("  FACES="+tParser.getFaceCount());
+        System.out.println("  LEGACY    : "+(tLegacyTime/cMeasurementIterations/1000000.0)+" MS/PARSE "+(tLegacyBytes/cMeasurementIterations/1024)+" KB/PARSE");
+        System.out.println("  STREAMING : "+(tStreamingTime/cMeasurementIterations/1000000.0)+" MS/PARSE "+(tStreamingBytes/cMeasurementIterations/1024)+" KB/PARSE");
+        System.out.println("  SPEEDUP   : "+((double)tLegacyTime/(double)Math.max(1,tStreamingTime)));
+    }
+
+    public static void main(String[] args) {
+        System.out.println("INITIALIZING WAVEFRONT OBJECT PARSER BENCHMARK ...");
+        WavefrontObjectToolUtils.processMeshes(args,new WavefrontObjectToolUtils.MeshTool() {
+            public void process(File inFile) throws IOException {
+                benchmark(inFile);
+            }
+        });
+        System.out.println("WAVEFRONT OBJECT PARSER BENCHMARK FINISHED ...");
+    }
+
+}
@@ -0,0 +1,97 @@
+package framework.tool;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Shared plumbing of the WavefrontObject* command line tools: collecting the meshes to process
+ ** (arguments or all .wobj/.wobj.zip files in binaries/geometry), reading them into memory and
+ ** running a tool on each of them.
+ **
+ **/
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+class WavefrontObjectToolUtils {
+
+    private static final String cDefaultGeometryDirectory = "binaries/geometry";
+
+    interface MeshTool {
+        void process(File inFile) throws IOException;
+    }
+
+    static ArrayList<File> getMeshFiles(String[] inArguments) {
+        ArrayList<File> tFiles = new ArrayList<File>();
+        if (inArguments.length>0) {
+            for (int i=0; i<inArguments.length; i++) {
+                tFiles.add(new File(inArguments[i]));
+            }
+        } else {
+            File[] tGeometryFiles = new File(cDefaultGeometryDirectory).listFiles();
+            if (tGeometryFiles!=null) {
+                Arrays.sort(tGeometryFiles);
+                for (int i=0; i<tGeometryFiles.length; i++) {
+                    if (tGeometryFiles[i].getName().endsWith(".wobj") || tGeometryFiles[i].getName().endsWith(".wobj.zip")) {
+                        tFiles.add(tGeometryFiles[i]);
+                    }
+                }
+            }
+        }
+        if (tFiles.isEmpty()) {
+            System.out.println("NO MESHES FOUND ... PASS .wobj/.wobj.zip FILES AS ARGUMENTS!");
+        }
+        return tFiles;
+    }
+
+    static void processMeshes(String[] inArguments,MeshTool inMeshTool) {
+        try {
+            for (File tFile : getMeshFiles(inArguments)) {
+                inMeshTool.process(tFile);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //raw file content, zipped meshes stay compressed ...
+    static byte[] readFile(File inFile) throws IOException {
+        byte[] tData = new byte[(int)inFile.length()];
+        DataInputStream tDataInputStream = new DataInputStream(new FileInputStream(inFile));
+        tDataInputStream.readFully(tData);
+        tDataInputStream.close();
+        return tData;
+    }
+
+    static InputStream openMesh(byte[] inData,String inFileName) throws IOException {
+        InputStream tInputStream = new ByteArrayInputStream(inData);
+        if (inFileName.endsWith(".zip")) {
+            ZipInputStream tZipInputStream = new ZipInputStream(tInputStream);
+            tZipInputStream.getNextEntry();
+            return tZipInputStream;
+        }
+        return tInputStream;
+    }
+
+    //obj text of the mesh, inflated if zipped ...
+    static byte[] readMesh(File inFile) throws IOException {
+        InputStream tInputStream = openMesh(readFile(inFile),inFile.getName());
+        ByteArrayOutputStream tByteArrayOutputStream = new ByteArrayOutputStream();
+        byte[] tBuffer = new byte[64*1024];
+        int tRead;
+        while ((tRead = tInputStream.read(tBuffer)) != -1) {
+            tByteArrayOutputStream.write(tBuffer, 0, tRead);
+        }
+        tInputStream.close();
+        return tByteArrayOutputStream.toByteArray();
+    }
+
+}
@@ -0,0 +1,168 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Ready made BaseAsset implementations for the BaseAssetPipeline: textures, zipped image sequences
+ ** as luminance volume textures, shader sources and Wavefront meshes. Everything expensive happens
+ ** in decode() on a worker thread, upload() only issues the final GL calls.
+ **
+ **/
+
+import java.awt.image.*;
+import java.io.*;
+import java.nio.*;
+import javax.imageio.*;
+import javax.media.opengl.*;
+import com.jogamp.opengl.util.awt.*;
+import com.jogamp.opengl.util.texture.*;
+import com.jogamp.opengl.util.texture.awt.*;
+import framework.base.*;
+import static javax.media.opengl.GL2.*;
+
+public class AssetUtils {
+
+    public static BaseAsset<Texture> requestImageAsTexture_UNMODIFIED(BaseAssetPipeline inBaseAssetPipeline,String inFileName) {
+        return inBaseAssetPipeline.request(new TextureAsset(inFileName,false));
+    }
+
+    public static BaseAsset<Texture> requestImageAsTexture_FLIPPED(BaseAssetPipeline inBaseAssetPipeline,String inFileName) {
+        return inBaseAssetPipeline.request(new TextureAsset(inFileName,true));
+    }
+
+    public static BaseAsset<Integer> requestImageSequenceAsLuminanceVolumeTexture(BaseAssetPipeline inBaseAssetPipeline,String inFileName,int inWidth,int inHeight,int inDepth) {
+        return inBaseAssetPipeline.request(new LuminanceVolumeTextureAsset(inFileName,inWidth,inHeight,inDepth));
+    }
+
+    public static BaseAsset<String> requestShaderSource(BaseAssetPipeline inBaseAssetPipeline,String inFileName) {
+        return inBaseAssetPipeline.request(new ShaderSourceAsset(inFileName));
+    }
+
+    public static BaseAsset<WavefrontObjectLoader_VertexBufferObject> requestWavefrontObjectAsVertexBufferObject(BaseAssetPipeline inBaseAssetPipeline,String inFileName,boolean inIndexed,boolean inOptimized) {
+        return inBaseAssetPipeline.request(new WavefrontObjectVertexBufferObjectAsset(inFileName,inIndexed,inOptimized));
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    private static class TextureAsset extends BaseAsset<Texture> {
+
+        private final boolean mFlipped;
+        private TextureData mTextureData;
+
+        public TextureAsset(String inFileName,boolean inFlipped) {
+            super(inFileName);
+            mFlipped = inFlipped;
+        }
+
+        protected void decode() throws Exception {
+            BaseLogging.getInstance().info("DECODING IMAGE FILE "+getName()+" AS TEXTURE "+(mFlipped ? "FLIPPED" : "UNFLIPPED")+" ...");
+            if (mFlipped) {
+                BufferedImage tBufferedImage = ImageIO.read(new BufferedInputStream((new Object()).getClass().getResourceAsStream(getName())));
+                ImageUtil.flipImageVertically(tBufferedImage);
+                mTextureData = AWTTextureIO.newTextureData(GLProfile.getDefault(), tBufferedImage, true);
+            } else {
+                mTextureData = TextureIO.newTextureData(GLProfile.getDefault(), new BufferedInputStream((new Object()).getClass().getResourceAsStream(getName())), true, null);
+            }
+        }
+
+        protected Texture upload(GL2 inGL) {
+            Texture tTexture = TextureIO.newTexture(mTextureData);
+            mTextureData.flush();
+            mTextureData = null;
+            tTexture.setTexParameterf(inGL,GL_TEXTURE_MIN_FILTER,GL_LINEAR_MIPMAP_LINEAR);
+            tTexture.setTexParameterf(inGL,GL_TEXTURE_MAG_FILTER,GL_LINEAR);
+            tTexture.setTexParameterf(inGL,GL_TEXTURE_WRAP_S,GL_REPEAT);
+            tTexture.setTexParameterf(inGL,GL_TEXTURE_WRAP_T,GL_REPEAT);
+            BaseLogging.getInstance().info("TEXTURE "+getName()+" ("+tTexture.getWidth()+"x"+tTexture.getHeight()+" AUTOMIPMAPS:"+tTexture.isUsingAutoMipmapGeneration()+") LOADED! ESTIMATED MEMORY SIZE: "+tTexture.getEstimatedMemorySize());
+            return tTexture;
+        }
+
+    }
+
+    private static class LuminanceVolumeTextureAsset extends BaseAsset<Integer> {
+
+        private final int mWidth;
+        private final int mHeight;
+        private final int mDepth;
+        private ByteBuffer mVolumeData;
+
+        public LuminanceVolumeTextureAsset(String inFileName,int inWidth,int inHeight,int inDepth) {
+            super(inFileName);
+            mWidth = inWidth;
+            mHeight = inHeight;
+            mDepth = inDepth;
+        }
+
+        protected void decode() throws Exception {
+            mVolumeData = TextureUtils.loadImageSequenceAsLuminanceVolume(getName(),mWidth,mHeight,mDepth);
+        }
+
+        protected Integer upload(GL2 inGL) {
+            int tVolume3DTexture = TextureUtils.generateTextureID(inGL);
+            inGL.glBindTexture(GL_TEXTURE_3D, tVolume3DTexture);
+            inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+            inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+            inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_BORDER);
+            inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_BORDER);
+            inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_WRAP_R, GL_CLAMP_TO_BORDER);
+            inGL.glTexImage3D(GL_TEXTURE_3D, 0, GL_COMPRESSED_LUMINANCE, mWidth, mHeight, mDepth, 0, GL_LUMINANCE, GL_UNSIGNED_BYTE, mVolumeData);
+            inGL.glGenerateMipmap(GL_TEXTURE_3D);
+            inGL.glBindTexture(GL_TEXTURE_3D, 0);
+            mVolumeData = null;
+            return tVolume3DTexture;
+        }
+
+    }
+
+    private static class ShaderSourceAsset extends BaseAsset<String> {
+
+        private String mShaderSource;
+
+        public ShaderSourceAsset(String inFileName) {
+            super(inFileName);
+        }
+
+        protected void decode() throws Exception {
+            mShaderSource = ShaderUtils.loadShaderSourceFileAsString(getName());
+        }
+
+        protected String upload(GL2 inGL) {
+            //compiled by the routine, it knows the shader type ...
+            return mShaderSource;
+        }
+
+    }
+
+    private static class WavefrontObjectVertexBufferObjectAsset extends BaseAsset<WavefrontObjectLoader_VertexBufferObject> {
+
+        private final boolean mIndexed;
+        private final boolean mOptimized;
+        private WavefrontObjectLoader_VertexBufferObject mWavefrontObjectLoader_VertexBufferObject;
+
+        public WavefrontObjectVertexBufferObjectAsset(String inFileName,boolean inIndexed,boolean inOptimized) {
+            super(inFileName);
+            mIndexed = inIndexed;
+            mOptimized = inOptimized;
+        }
+
+        protected void decode() throws Exception {
+            //parsing, indexing and mesh cache access need no GL ...
+            mWavefrontObjectLoader_VertexBufferObject = new WavefrontObjectLoader_VertexBufferObject(getName(),mIndexed,mOptimized);
+        }
+
+        protected WavefrontObjectLoader_VertexBufferObject upload(GL2 inGL) {
+            //buffer objects are created on first draw ...
+            return mWavefrontObjectLoader_VertexBufferObject;
+        }
+
+    }
+
+}
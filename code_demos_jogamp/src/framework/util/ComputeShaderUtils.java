@@ -0,0 +1,114 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Access to the GL 4.3 compute shader entry points. The bundled JOGL binding predates compute
+ ** shaders, so glDispatchCompute(), glBindImageTexture() and glMemoryBarrier() are looked up with
+ ** wglGetProcAddress/glXGetProcAddressARB and called through JNA. Only use these with the context
+ ** current that isAvailable() was called with. Everything else (shader objects, programs, uniforms)
+ ** goes through the regular GL2 interface.
+ **
+ **/
+
+import java.nio.*;
+import javax.media.opengl.*;
+import framework.base.*;
+import com.jogamp.common.nio.*;
+import com.sun.jna.*;
+import static javax.media.opengl.GL2.*;
+
+public class ComputeShaderUtils {
+
+    public static final int GL_COMPUTE_SHADER = 0x91B9;
+    public static final int GL_TEXTURE_FETCH_BARRIER_BIT = 0x00000008;
+    public static final int GL_SHADER_IMAGE_ACCESS_BARRIER_BIT = 0x00000020;
+    public static final int GL_FRAMEBUFFER_BARRIER_BIT = 0x00000400;
+
+    private static Boolean mAvailable;
+    private static Function mDispatchCompute;
+    private static Function mBindImageTexture;
+    private static Function mMemoryBarrier;
+
+    private static Function getProcAddress(String inFunctionName) {
+        Pointer tPointer;
+        if (Platform.isWindows()) {
+            tPointer = NativeLibrary.getInstance("opengl32").getFunction("wglGetProcAddress",Function.ALT_CONVENTION).invokePointer(new Object[] {inFunctionName});
+        } else if (Platform.isLinux()) {
+            tPointer = NativeLibrary.getInstance("GL").getFunction("glXGetProcAddressARB").invokePointer(new Object[] {inFunctionName});
+        } else {
+            return null;
+        }
+        //some windows drivers return small error codes instead of NULL ...
+        if (tPointer==null || (Pointer.nativeValue(tPointer)>=-1 && Pointer.nativeValue(tPointer)<=3)) {
+            return null;
+        }
+        return Function.getFunction(tPointer,Platform.isWindows() ? Function.ALT_CONVENTION : Function.C_CONVENTION);
+    }
+
+    public static boolean isAvailable(GL2 inGL) {
+        if (mAvailable==null) {
+            mAvailable = Boolean.FALSE;
+            if (!inGL.isExtensionAvailable("GL_ARB_compute_shader") || !inGL.isExtensionAvailable("GL_ARB_shader_image_load_store")) {
+                BaseLogging.getInstance().info("COMPUTE SHADERS NOT SUPPORTED BY THIS CONTEXT");
+                return false;
+            }
+            try {
+                mDispatchCompute = getProcAddress("glDispatchCompute");
+                mBindImageTexture = getProcAddress("glBindImageTexture");
+                mMemoryBarrier = getProcAddress("glMemoryBarrier");
+            } catch (Throwable e) {
+                BaseLogging.getInstance().warning("UNABLE TO RESOLVE COMPUTE SHADER ENTRY POINTS: "+e.getMessage());
+                return false;
+            }
+            mAvailable = Boolean.valueOf(mDispatchCompute!=null && mBindImageTexture!=null && mMemoryBarrier!=null);
+            BaseLogging.getInstance().info("COMPUTE SHADERS AVAILABLE="+mAvailable);
+        }
+        return mAvailable.booleanValue();
+    }
+
+    //returns 0 if compiling or linking failed, the reason is logged ...
+    public static int generateComputeShaderProgram(GL2 inGL,String inShaderSource) {
+        int tShader = ShaderUtils.generateShader(inGL,inShaderSource,GL_COMPUTE_SHADER);
+        IntBuffer tStatus = Buffers.newDirectIntBuffer(1);
+        inGL.glGetShaderiv(tShader,GL_COMPILE_STATUS,tStatus);
+        if (tStatus.get(0)==GL_FALSE) {
+            BaseLogging.getInstance().warning("COMPUTE SHADER COMPILATION FAILED");
+            inGL.glDeleteShader(tShader);
+            return 0;
+        }
+        int tLinkedShader = inGL.glCreateProgram();
+        inGL.glAttachShader(tLinkedShader,tShader);
+        inGL.glLinkProgram(tLinkedShader);
+        //the program keeps the shader alive as long as it's needed ...
+        inGL.glDeleteShader(tShader);
+        inGL.glGetProgramiv(tLinkedShader,GL_LINK_STATUS,tStatus);
+        if (tStatus.get(0)==GL_FALSE) {
+            BaseLogging.getInstance().warning("COMPUTE SHADER LINKING FAILED");
+            inGL.glDeleteProgram(tLinkedShader);
+            return 0;
+        }
+        return tLinkedShader;
+    }
+
+    public static void dispatchCompute(int inNumberOfGroupsX,int inNumberOfGroupsY,int inNumberOfGroupsZ) {
+        mDispatchCompute.invokeVoid(new Object[] {Integer.valueOf(inNumberOfGroupsX), Integer.valueOf(inNumberOfGroupsY), Integer.valueOf(inNumberOfGroupsZ)});
+    }
+
+    public static void bindImageTexture(int inUnit,int inTextureID,int inLevel,boolean inLayered,int inLayer,int inAccess,int inFormat) {
+        mBindImageTexture.invokeVoid(new Object[] {Integer.valueOf(inUnit), Integer.valueOf(inTextureID), Integer.valueOf(inLevel), Byte.valueOf(inLayered ? (byte)1 : (byte)0), Integer.valueOf(inLayer), Integer.valueOf(inAccess), Integer.valueOf(inFormat)});
+    }
+
+    public static void memoryBarrier(int inBarriers) {
+        mMemoryBarrier.invokeVoid(new Object[] {Integer.valueOf(inBarriers)});
+    }
+
+}
@@ -0,0 +1,33 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** The one fork-join pool shared by all data parallel work of the framework (capture conversion,
+ ** stereoscopic packing, offline music analysis, mesh parsing), so these never compete with
+ ** several pools of availableProcessors threads each.
+ **
+ **/
+
+import java.util.concurrent.*;
+
+public class ParallelUtils {
+
+    private static ForkJoinPool mForkJoinPool;
+
+    public static synchronized ForkJoinPool getForkJoinPool() {
+        if (mForkJoinPool==null) {
+            mForkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return mForkJoinPool;
+    }
+
+}
@@ -0,0 +1,231 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Generates fused fragment shaders for chains of point-wise postprocessing filters. The original
+ ** filter shader sources stay the only description of a filter: their main() is rewritten into a
+ ** function 'vec4 <prefix>filter(vec4 color, vec4 original)', global uniforms and constants get
+ ** the prefix so several filters (even the same one twice) can live in one program. A source wich
+ ** samples anything but sampler0/sampler1 at gl_TexCoord[0] is not point-wise and can't be fused.
+ **
+ ** 3x3 convolution sources (nine fetches at gl_TexCoord[0]+tc_offset[i]) are rewritten the same way
+ ** into 'vec4 <prefix>convolve(ivec2 position)' reading from a shared memory tile. Up to
+ ** cMaximumConvolutionStages of them are stacked into one compute shader: every workgroup loads its
+ ** 16x16 tile plus a halo of one texel per stage once and applies all kernels in shared memory.
+ **
+ **/
+
+import java.util.*;
+import java.util.regex.*;
+
+public class PostProcessingFusionUtils {
+
+    private static final String cColorParameter = "pointwise_color";
+    private static final String cOriginalParameter = "pointwise_original";
+    private static final String cResultVariable = "pointwise_result";
+    private static final String cPositionParameter = "convolution_position";
+    private static final String cConvolutionResultVariable = "convolution_result";
+
+    public static final int cComputeTileSize = 16;
+    //a 24x24 tile of vec4 needs 9KB, well below the 32KB of shared memory every GL 4.3 implementation has ...
+    public static final int cMaximumConvolutionStages = 4;
+
+    private static final Pattern cCommentPattern = Pattern.compile("/\\*.*?\\*/|//[^\\n]*", Pattern.DOTALL);
+    private static final Pattern cSamplerDeclarationPattern = Pattern.compile("uniform\\s+sampler2D\\s+sampler[01]\\s*;");
+    private static final Pattern cPrimarySamplePattern = Pattern.compile("texture2D\\s*\\(\\s*sampler0\\s*,\\s*gl_TexCoord\\s*\\[\\s*0\\s*\\]\\s*\\.(st|xy)\\s*\\)");
+    private static final Pattern cSecondarySamplePattern = Pattern.compile("texture2D\\s*\\(\\s*sampler1\\s*,\\s*gl_TexCoord\\s*\\[\\s*0\\s*\\]\\s*\\.(st|xy)\\s*\\)");
+    private static final Pattern cGlobalDeclarationPattern = Pattern.compile("(?m)^\\s*(uniform|const)\\s+\\w+\\s+(\\w+)");
+    private static final Pattern cFunctionPattern = Pattern.compile("(?m)^\\s*(?!else\\b|return\\b)\\w+\\s+(\\w+)\\s*\\([^;{}]*\\)\\s*\\{");
+    private static final Pattern cMainPattern = Pattern.compile("void\\s+main\\s*\\(\\s*(void)?\\s*\\)\\s*\\{");
+    private static final Pattern cConvolutionSamplePattern = Pattern.compile("texture2D\\s*\\(\\s*sampler0\\s*,\\s*gl_TexCoord\\s*\\[\\s*0\\s*\\]\\s*\\.(st|xy)\\s*\\+\\s*tc_offset\\s*\\[\\s*(\\w+)\\s*\\]\\s*\\)");
+    private static final Pattern cOffsetDeclarationPattern = Pattern.compile("uniform\\s+vec2\\s+tc_offset\\s*\\[\\s*9\\s*\\]\\s*;");
+    private static final Pattern cForbiddenPattern = Pattern.compile("\\b(texture\\w*|gl_TexCoord|gl_FragColor|gl_FragData|gl_FragCoord|sampler\\w*|discard|dFdx|dFdy|fwidth)\\b");
+
+    //returns null if the source isn't point-wise ...
+    public static String convertToPointwiseFunction(String inShaderSource,String inPrefix) {
+        String tSource = cCommentPattern.matcher(inShaderSource).replaceAll(" ");
+        tSource = cSamplerDeclarationPattern.matcher(tSource).replaceAll("");
+        Matcher tFunctions = cFunctionPattern.matcher(tSource);
+        int tFunctionCount = 0;
+        while (tFunctions.find()) {
+            tFunctionCount++;
+        }
+        Matcher tMain = cMainPattern.matcher(tSource);
+        //helper functions would need renaming too, keep such filters in their own pass ...
+        if (tFunctionCount!=1 || !tMain.find()) {
+            return null;
+        }
+        int tBodyEnd = tSource.lastIndexOf('}');
+        if (tBodyEnd<tMain.end()) {
+            return null;
+        }
+        StringBuilder tFunction = new StringBuilder(tSource.length()+256);
+        tFunction.append(tSource, 0, tMain.start());
+        tFunction.append("vec4 ").append(inPrefix).append("filter(vec4 ").append(cColorParameter).append(", vec4 ").append(cOriginalParameter).append(") {\n");
+        tFunction.append("    vec4 ").append(cResultVariable).append(" = vec4(0.0);");
+        tFunction.append(tSource, tMain.end(), tBodyEnd);
+        tFunction.append("    return ").append(cResultVariable).append(";\n}\n");
+        String tResult = tFunction.toString();
+        tResult = cPrimarySamplePattern.matcher(tResult).replaceAll(cColorParameter);
+        tResult = cSecondarySamplePattern.matcher(tResult).replaceAll(cOriginalParameter);
+        tResult = tResult.replaceAll("\\bgl_FragColor\\b", cResultVariable);
+        if (cForbiddenPattern.matcher(tResult).find()) {
+            return null;
+        }
+        //uniforms and constants are global, give them the prefix of this filter ...
+        Matcher tGlobals = cGlobalDeclarationPattern.matcher(tResult);
+        ArrayList<String> tGlobalNames = new ArrayList<String>();
+        while (tGlobals.find()) {
+            tGlobalNames.add(tGlobals.group(2));
+        }
+        for (String tGlobalName : tGlobalNames) {
+            tResult = tResult.replaceAll("\\b"+tGlobalName+"\\b", inPrefix+tGlobalName);
+        }
+        return tResult;
+    }
+
+    //returns null if the source isn't a plain 3x3 convolution ...
+    public static String convertToConvolutionFunction(String inShaderSource,String inPrefix) {
+        String tSource = cCommentPattern.matcher(inShaderSource).replaceAll(" ");
+        tSource = cSamplerDeclarationPattern.matcher(tSource).replaceAll("");
+        tSource = cOffsetDeclarationPattern.matcher(tSource).replaceAll("");
+        Matcher tFunctions = cFunctionPattern.matcher(tSource);
+        int tFunctionCount = 0;
+        while (tFunctions.find()) {
+            tFunctionCount++;
+        }
+        Matcher tMain = cMainPattern.matcher(tSource);
+        //other uniforms would have to be set per stage, keep such filters on the fragment path ...
+        if (tFunctionCount!=1 || !tMain.find() || tSource.matches("(?s).*\\buniform\\b.*")) {
+            return null;
+        }
+        int tBodyEnd = tSource.lastIndexOf('}');
+        if (tBodyEnd<tMain.end()) {
+            return null;
+        }
+        StringBuilder tFunction = new StringBuilder(tSource.length()+256);
+        tFunction.append(tSource, 0, tMain.start());
+        tFunction.append("vec4 ").append(inPrefix).append("convolve(ivec2 ").append(cPositionParameter).append(") {\n");
+        tFunction.append("    vec4 ").append(cConvolutionResultVariable).append(" = vec4(0.0);");
+        tFunction.append(tSource, tMain.end(), tBodyEnd);
+        tFunction.append("    return ").append(cConvolutionResultVariable).append(";\n}\n");
+        String tResult = cConvolutionSamplePattern.matcher(tFunction.toString()).replaceAll("convolution_fetch("+cPositionParameter+", $2)");
+        tResult = tResult.replaceAll("\\bgl_FragColor\\b", cConvolutionResultVariable);
+        //'sample' is a reserved word since GLSL 4.00 ...
+        tResult = tResult.replaceAll("\\bsample\\b", "convolution_sample");
+        if (cForbiddenPattern.matcher(tResult).find() || tResult.indexOf("tc_offset")>=0) {
+            return null;
+        }
+        Matcher tGlobals = cGlobalDeclarationPattern.matcher(tResult);
+        ArrayList<String> tGlobalNames = new ArrayList<String>();
+        while (tGlobals.find()) {
+            tGlobalNames.add(tGlobals.group(2));
+        }
+        for (String tGlobalName : tGlobalNames) {
+            tResult = tResult.replaceAll("\\b"+tGlobalName+"\\b", inPrefix+tGlobalName);
+        }
+        return tResult;
+    }
+
+    //inCallPrefixes lists the function prefix of every stage in order, at most cMaximumConvolutionStages. The shader
+    //reads sampler0 at the texel centers of the destination image, so the source may have another resolution ...
+    public static String generateConvolutionComputeShader(List<String> inConvolutionFunctions,List<String> inCallPrefixes) {
+        int tHalo = inCallPrefixes.size();
+        StringBuilder tSource = new StringBuilder(4096);
+        tSource.append("#version 430\n");
+        tSource.append("//generated by PostProcessingFusionUtils\n");
+        tSource.append("layout(local_size_x = ").append(cComputeTileSize).append(", local_size_y = ").append(cComputeTileSize).append(") in;\n");
+        tSource.append("uniform sampler2D sampler0;\n");
+        tSource.append("layout(rgba8, binding = 0) writeonly uniform image2D destination;\n");
+        tSource.append("uniform ivec2 destination_size;\n");
+        tSource.append("const int TILE = ").append(cComputeTileSize).append(";\n");
+        tSource.append("const int HALO = ").append(tHalo).append(";\n");
+        tSource.append("const int SPAN = TILE+2*HALO;\n");
+        tSource.append("const int SLOTS = (SPAN*SPAN+TILE*TILE-1)/(TILE*TILE);\n");
+        tSource.append("shared vec4 tile[SPAN*SPAN];\n");
+        //same neighbour order as the fragment shaders: i/3 walks along x, i%3 along y ...
+        tSource.append("vec4 convolution_fetch(ivec2 p, int i) {\n");
+        tSource.append("    return tile[(p.y+(i%3)-1)*SPAN+p.x+(i/3)-1];\n");
+        tSource.append("}\n");
+        //the fragment path stores every stage in an RGBA8 target, intermediate stages get the same clamping and rounding ...
+        tSource.append("vec4 convolution_quantize(vec4 c) {\n");
+        tSource.append("    return floor(clamp(c, 0.0, 1.0)*255.0+0.5)/255.0;\n");
+        tSource.append("}\n");
+        for (String tConvolutionFunction : inConvolutionFunctions) {
+            tSource.append(tConvolutionFunction).append('\n');
+        }
+        tSource.append("void main(void) {\n");
+        tSource.append("    ivec2 origin = ivec2(gl_WorkGroupID.xy)*TILE-HALO;\n");
+        tSource.append("    int index = int(gl_LocalInvocationIndex);\n");
+        tSource.append("    for (int k=index; k<SPAN*SPAN; k+=TILE*TILE) {\n");
+        tSource.append("        ivec2 q = clamp(origin+ivec2(k%SPAN, k/SPAN), ivec2(0), destination_size-1);\n");
+        tSource.append("        tile[k] = textureLod(sampler0, (vec2(q)+0.5)/vec2(destination_size), 0.0);\n");
+        tSource.append("    }\n");
+        tSource.append("    barrier();\n");
+        tSource.append("    vec4 results[SLOTS];\n");
+        for (int i=0; i<tHalo; i++) {
+            //every stage shrinks the valid part of the tile by one texel on each side ...
+            String tInside = "k<SPAN*SPAN && min(p.x, p.y)>="+(i+1)+" && max(p.x, p.y)<SPAN-"+(i+1);
+            tSource.append("    for (int n=0; n<SLOTS; n++) {\n");
+            tSource.append("        int k = index+n*TILE*TILE;\n");
+            tSource.append("        ivec2 p = ivec2(k%SPAN, k/SPAN);\n");
+            tSource.append("        if (").append(tInside).append(") { results[n] = ").append(inCallPrefixes.get(i)).append("convolve(p); }\n");
+            tSource.append("    }\n");
+            tSource.append("    barrier();\n");
+            tSource.append("    for (int n=0; n<SLOTS; n++) {\n");
+            tSource.append("        int k = index+n*TILE*TILE;\n");
+            tSource.append("        ivec2 p = ivec2(k%SPAN, k/SPAN);\n");
+            tSource.append("        if (").append(tInside).append(") { tile[k] = convolution_quantize(results[n]); }\n");
+            tSource.append("    }\n");
+            tSource.append("    barrier();\n");
+        }
+        tSource.append("    ivec2 p = ivec2(gl_LocalInvocationID.xy)+HALO;\n");
+        tSource.append("    ivec2 texel = origin+p;\n");
+        tSource.append("    if (all(lessThan(texel, destination_size))) {\n");
+        tSource.append("        imageStore(destination, texel, tile[p.y*SPAN+p.x]);\n");
+        tSource.append("    }\n");
+        tSource.append("}\n");
+        return tSource.toString();
+    }
+
+    public static boolean usesOriginal(String inPointwiseFunction) {
+        //the parameter list always names it once ...
+        return inPointwiseFunction.indexOf(cOriginalParameter)!=inPointwiseFunction.lastIndexOf(cOriginalParameter);
+    }
+
+    //inCallPrefixes lists the function prefix of every call in order, a function may be called several times ...
+    public static String generateFusedFragmentShader(List<String> inPointwiseFunctions,List<String> inCallPrefixes) {
+        boolean tUsesOriginal = false;
+        StringBuilder tSource = new StringBuilder(4096);
+        tSource.append("//generated by PostProcessingFusionUtils\n");
+        tSource.append("uniform sampler2D sampler0;\n");
+        for (String tPointwiseFunction : inPointwiseFunctions) {
+            tUsesOriginal |= usesOriginal(tPointwiseFunction);
+        }
+        if (tUsesOriginal) {
+            tSource.append("uniform sampler2D sampler1;\n");
+        }
+        for (String tPointwiseFunction : inPointwiseFunctions) {
+            tSource.append(tPointwiseFunction).append('\n');
+        }
+        tSource.append("void main(void) {\n");
+        tSource.append("    vec4 color = texture2D(sampler0, gl_TexCoord[0].st);\n");
+        tSource.append("    vec4 original = ").append(tUsesOriginal ? "texture2D(sampler1, gl_TexCoord[0].st)" : "vec4(0.0)").append(";\n");
+        for (String tCallPrefix : inCallPrefixes) {
+            tSource.append("    color = ").append(tCallPrefix).append("filter(color, original);\n");
+        }
+        tSource.append("    gl_FragColor = color;\n");
+        tSource.append("}\n");
+        return tSource.toString();
+    }
+
+}
@@ -22,6 +22,7 @@ import com.jogamp.opengl.util.gl2.*;
 import framework.base.*;
 import framework.jogl.postprocessingblenders.*;
 import framework.jogl.postprocessingfilters.*;
+import static javax.media.opengl.GL2.*;
 
 public class PostProcessingUtils {
 
@@ -91,6 +92,10 @@ public class PostProcessingUtils {
     public static final int POSTPROCESSINGFILTER_CONVOLUTION_ROBERTS = 8;
     public static final int POSTPROCESSINGFILTER_CONVOLUTION_SHARPEN = 9;
     public static final int POSTPROCESSINGFILTER_CONVOLUTION_SOBEL = 10;
+    public static final int POSTPROCESSINGFILTER_CONVOLUTION_SEPARABLE_GAUSSIANBLUR = 11;
+    public static final int POSTPROCESSINGFILTER_CONVOLUTION_SEPARABLE_BOXBLUR = 12;
+    public static final int POSTPROCESSINGFILTER_CONVOLUTION_KAWASEBLUR = 13;
+    public static final int POSTPROCESSINGFILTER_CONVOLUTION_DUALFILTERBLUR = 14;
 
     public static ArrayList<BasePostProcessingFilterChainShaderInterface> generatePostProcessingFilterArrayList(GL2 inGL,GLU inGLU,GLUT inGLUT) {
         ArrayList<BasePostProcessingFilterChainShaderInterface> tConvolutions = new ArrayList<BasePostProcessingFilterChainShaderInterface>();
@@ -138,6 +143,22 @@ public class PostProcessingUtils {
         tSobel.setScreenSizeDivisionFactor(4);
         tSobel.initFilter(inGL);
         tConvolutions.add(tSobel);
+        BasePostProcessingFilterChainShaderInterface tSeparableGaussianBlur = new PostProcessingFilter_SeparableGaussianBlur();
+        tSeparableGaussianBlur.setScreenSizeDivisionFactor(4);
+        tSeparableGaussianBlur.initFilter(inGL);
+        tConvolutions.add(tSeparableGaussianBlur);
+        BasePostProcessingFilterChainShaderInterface tSeparableBoxBlur = new PostProcessingFilter_SeparableBoxBlur();
+        tSeparableBoxBlur.setScreenSizeDivisionFactor(4);
+        tSeparableBoxBlur.initFilter(inGL);
+        tConvolutions.add(tSeparableBoxBlur);
+        BasePostProcessingFilterChainShaderInterface tKawaseBlur = new PostProcessingFilter_KawaseBlur();
+        tKawaseBlur.setScreenSizeDivisionFactor(4);
+        tKawaseBlur.initFilter(inGL);
+        tConvolutions.add(tKawaseBlur);
+        BasePostProcessingFilterChainShaderInterface tDualFilterBlur = new PostProcessingFilter_DualFilterBlur();
+        tDualFilterBlur.setScreenSizeDivisionFactor(4);
+        tDualFilterBlur.initFilter(inGL);
+        tConvolutions.add(tDualFilterBlur);
         return tConvolutions;
     }
 
@@ -212,4 +233,40 @@ public class PostProcessingUtils {
         return tBlenders;
     }
 
+    //fullscreen quad for postprocessing passes into whatever viewport is set, not flipped keeps the orientation of the source texture ...
+    public static void renderFullscreenQuad(GL2 inGL,boolean inFlipped) {
+        inGL.glShadeModel(GL_SMOOTH);
+        inGL.glDisable(GL_LIGHTING);
+        inGL.glFrontFace(GL_CCW);
+        inGL.glDisable(GL_CULL_FACE);
+        inGL.glDisable(GL_DEPTH_TEST);
+        inGL.glMatrixMode(GL_PROJECTION);
+        inGL.glLoadIdentity();
+        inGL.glOrtho(0, 1, 1, 0, -1, 1);
+        inGL.glMatrixMode(GL_MODELVIEW);
+        inGL.glLoadIdentity();
+        inGL.glBegin(GL_QUADS);
+        if (inFlipped) {
+            //flipped billboard
+            inGL.glTexCoord2f(0.0f, 0.0f);
+            inGL.glVertex2f(0.0f, 0.0f);
+            inGL.glTexCoord2f(1.0f, 0.0f);
+            inGL.glVertex2f(1.0f, 0.0f);
+            inGL.glTexCoord2f(1.0f, 1.0f);
+            inGL.glVertex2f(1.0f, 1.0f);
+            inGL.glTexCoord2f(0.0f, 1.0f);
+            inGL.glVertex2f(0.0f, 1.0f);
+        } else {
+            inGL.glTexCoord2f(0.0f, 1.0f);
+            inGL.glVertex2f(0.0f, 0.0f);
+            inGL.glTexCoord2f(1.0f, 1.0f);
+            inGL.glVertex2f(1.0f, 0.0f);
+            inGL.glTexCoord2f(1.0f, 0.0f);
+            inGL.glVertex2f(1.0f, 1.0f);
+            inGL.glTexCoord2f(0.0f, 0.0f);
+            inGL.glVertex2f(0.0f, 1.0f);
+        }
+        inGL.glEnd();
+    }
+
 }
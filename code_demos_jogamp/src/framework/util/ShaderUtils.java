@@ -155,6 +155,15 @@ public class ShaderUtils {
         }
     }
 
+    public static void setUniform1fv(GL2 inGL,int inProgramID, String inName, FloatBuffer inValues) {
+        int tUniformLocation = inGL.glGetUniformLocation(inProgramID,inName);
+        if (tUniformLocation != -1) {
+            inGL.glUniform1fv(tUniformLocation, inValues.capacity(), inValues);
+        } else {
+            BaseLogging.getInstance().warning("UNIFORM COULD NOT BE FOUND! NAME="+inName);
+        }
+    }
+
     public static void setUniform2fv(GL2 inGL,int inProgramID, String inName, FloatBuffer inValues) {
         int tUniformLocation = inGL.glGetUniformLocation(inProgramID,inName);
         if (tUniformLocation != -1) {
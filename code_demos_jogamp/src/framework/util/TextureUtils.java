@@ -21,6 +21,7 @@ import java.awt.image.*;
 import java.io.*;
 import java.nio.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.*;
 import javax.imageio.*;
 import javax.media.opengl.*;
@@ -214,6 +215,94 @@ public class TextureUtils {
         }
     }
 
+    public static ByteBuffer loadImageSequenceAsLuminanceVolume(String inImageSequenceFileName,final int inWidth,final int inHeight,int inDepth) {
+        BaseLogging.getInstance().info("LOADING IMAGESEQUENCE FROM ARCHIVE AS LUMINANCE VOLUME: "+inImageSequenceFileName+" "+inWidth+"x"+inHeight+"x"+inDepth);
+        try {
+            //inflate the raw (still image-compressed) entries once, this part can not be done in parallel on a stream ...
+            ZipInputStream tZipInputStream = new ZipInputStream(new BufferedInputStream((new Object()).getClass().getResourceAsStream(inImageSequenceFileName)));
+            TreeMap<String,byte[]> tZipEntries = new TreeMap<String,byte[]>();
+            byte[] tBuffer = new byte[64*1024];
+            ZipEntry tZipEntry;
+            while((tZipEntry = tZipInputStream.getNextEntry())!=null) {
+                if (tZipEntry.isDirectory()) {
+                    BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS DIRECTORY! SHOULD BE PLAIN FILE!");
+                }
+                ByteArrayOutputStream tByteArrayOutputStream = new ByteArrayOutputStream(tZipEntry.getSize()>0 ? (int)tZipEntry.getSize() : 64*1024);
+                int tBytesRead;
+                while ((tBytesRead = tZipInputStream.read(tBuffer))!=-1) {
+                    tByteArrayOutputStream.write(tBuffer,0,tBytesRead);
+                }
+                //sorted into ascending natural order by the tree map ...
+                tZipEntries.put(tZipEntry.getName(),tByteArrayOutputStream.toByteArray());
+            }
+            tZipInputStream.close();
+            if (tZipEntries.size()>inDepth) {
+                BaseLogging.getInstance().warning("IMAGESEQUENCE HAS "+tZipEntries.size()+" SLICES, ONLY THE FIRST "+inDepth+" ARE USED!");
+            }
+            final ByteBuffer tVolume = ByteBuffer.allocateDirect(inWidth*inHeight*inDepth).order(ByteOrder.nativeOrder());
+            int tThreads = Runtime.getRuntime().availableProcessors();
+            ExecutorService tExecutorService = Executors.newFixedThreadPool(tThreads);
+            ArrayList<Future<?>> tFutures = new ArrayList<Future<?>>();
+            int tSlice = 0;
+            for (final Map.Entry<String,byte[]> tEntry : tZipEntries.entrySet()) {
+                if (tSlice>=inDepth) {
+                    break;
+                }
+                final int tSliceOffset = (tSlice++)*inWidth*inHeight;
+                tFutures.add(tExecutorService.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        BufferedImage tSliceImage = ImageIO.read(new ByteArrayInputStream(tEntry.getValue()));
+                        if (tSliceImage==null || tSliceImage.getWidth()!=inWidth || tSliceImage.getHeight()!=inHeight) {
+                            throw new IOException("SLICE "+tEntry.getKey()+" IS NOT A "+inWidth+"x"+inHeight+" IMAGE!");
+                        }
+                        //each slice has its own region of the volume, a duplicate keeps the positions apart ...
+                        ByteBuffer tSliceBuffer = tVolume.duplicate();
+                        tSliceBuffer.position(tSliceOffset);
+                        writeLuminance(tSliceImage,tSliceBuffer);
+                        return null;
+                    }
+                }));
+            }
+            tExecutorService.shutdown();
+            for (Future<?> tFuture : tFutures) {
+                tFuture.get();
+            }
+            BaseLogging.getInstance().info("DECODED "+tFutures.size()+" SLICES ON "+tThreads+" THREADS ...");
+            tVolume.rewind();
+            return tVolume;
+        } catch (Exception e) {
+            BaseLogging.getInstance().fatalerror(e);
+            return null;
+        }
+    }
+
+    private static void writeLuminance(BufferedImage inBufferedImage,ByteBuffer inByteBuffer) {
+        int tWidth = inBufferedImage.getWidth();
+        int tHeight = inBufferedImage.getHeight();
+        if (inBufferedImage.getType()==BufferedImage.TYPE_BYTE_GRAY && inBufferedImage.getRaster().getDataBuffer() instanceof DataBufferByte) {
+            //gray values go in unchanged, same as drawing the slice into an ARGB image and taking the red channel ...
+            byte[] tRow = new byte[tWidth];
+            for (int y=0; y<tHeight; y++) {
+                inBufferedImage.getRaster().getDataElements(0, y, tWidth, 1, tRow);
+                inByteBuffer.put(tRow);
+            }
+        } else {
+            //everything else goes through Java2D like the former path, one row at a time drawn into a cleared ARGB
+            //scanline. getRGB() would apply the sRGB conversion to gray images (128 -> 188), drawImage() doesn't ...
+            BufferedImage tScanline = new BufferedImage(tWidth, 1, BufferedImage.TYPE_INT_ARGB);
+            int[] tRow = ((DataBufferInt)tScanline.getRaster().getDataBuffer()).getData();
+            Graphics2D tGraphics = tScanline.createGraphics();
+            for (int y=0; y<tHeight; y++) {
+                Arrays.fill(tRow, 0);
+                tGraphics.drawImage(inBufferedImage, 0, -y, null);
+                for (int x=0; x<tWidth; x++) {
+                    inByteBuffer.put((byte)((tRow[x] >> 16) & 0xFF));
+                }
+            }
+            tGraphics.dispose();
+        }
+    }
+
     public static void loadBufferedImageAs_GL_TEXTURE_2D_WithTextureDXT1Compression(BufferedImage inBufferedImage, int[] inTextureID, GL2 inGL) {
         int tWidth = inBufferedImage.getWidth();
         int tHeight = inBufferedImage.getHeight();
@@ -0,0 +1,151 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Turns the face corners of a parsed Wavefront mesh into an indexed triangle list. Each unique
+ ** (v,vt,vn) tuple is looked up in a primitive open-addressing hash map and becomes exactly one
+ ** interleaved vertex (T2F_N3F_V3F layout, missing components are left out), every face is fanned
+ ** into triangles referencing these vertices. Pure Java, needs no GL context.
+ **
+ **/
+
+import java.util.*;
+import static javax.media.opengl.GL2.*;
+
+public class WavefrontObjectIndexer {
+
+    private static final int cEmptySlot = -1;
+
+    private final boolean mHasTextureCoordinates;
+    private final boolean mHasNormals;
+    private final int mFloatsPerVertex;
+    private float[] mVertexData;
+    private int mVertexCount;
+    private int[] mIndices;
+    private int mIndexCount;
+    //open-addressing map from (v,vt,vn) to the output vertex, linear probing ...
+    private int[] mSlotVertexIndices;
+    private int[] mSlotTextureIndices;
+    private int[] mSlotNormalIndices;
+    private int[] mSlotValues;
+    private int mSlotMask;
+
+    public WavefrontObjectIndexer(WavefrontObjectParser inParser) {
+        int tCorners = inParser.getFaceIndexCount();
+        //if a value of zero is found that it tells us we don't have that type of data
+        mHasTextureCoordinates = tCorners>0 && inParser.getFaceTextureIndices()[0]!=0;
+        mHasNormals = tCorners>0 && inParser.getFaceNormalIndices()[0]!=0;
+        mFloatsPerVertex = 3+(mHasTextureCoordinates ? 2 : 0)+(mHasNormals ? 3 : 0);
+        int tCapacity = Integer.highestOneBit(Math.max(16, tCorners)*2);
+        mSlotVertexIndices = new int[tCapacity];
+        mSlotTextureIndices = new int[tCapacity];
+        mSlotNormalIndices = new int[tCapacity];
+        mSlotValues = new int[tCapacity];
+        Arrays.fill(mSlotValues, cEmptySlot);
+        mSlotMask = tCapacity-1;
+        mVertexData = new float[Math.max(16, tCorners/2)*mFloatsPerVertex];
+        int tTriangles = 0;
+        for (int tFace=0; tFace<inParser.getFaceCount(); tFace++) {
+            tTriangles += Math.max(0, inParser.getFaceSize(tFace)-2);
+        }
+        mIndices = new int[tTriangles*3];
+        int[] tFaceOffsets = inParser.getFaceOffsets();
+        int[] tCornerVertices = new int[16];
+        for (int tFace=0; tFace<inParser.getFaceCount(); tFace++) {
+            int tFirst = tFaceOffsets[tFace];
+            int tSize = tFaceOffsets[tFace+1]-tFirst;
+            if (tSize<3) {
+                continue;
+            }
+            if (tSize>tCornerVertices.length) {
+                tCornerVertices = new int[tSize];
+            }
+            for (int i=0; i<tSize; i++) {
+                tCornerVertices[i] = lookupOrAddVertex(inParser, tFirst+i);
+            }
+            //fan triangulation (0,i,i+1) keeps the winding of convex polygons ...
+            for (int i=1; i<tSize-1; i++) {
+                mIndices[mIndexCount++] = tCornerVertices[0];
+                mIndices[mIndexCount++] = tCornerVertices[i];
+                mIndices[mIndexCount++] = tCornerVertices[i+1];
+            }
+        }
+        //drop the map and trim the vertex pool ...
+        mSlotVertexIndices = mSlotTextureIndices = mSlotNormalIndices = mSlotValues = null;
+        mVertexData = Arrays.copyOf(mVertexData, mVertexCount*mFloatsPerVertex);
+    }
+
+    private int lookupOrAddVertex(WavefrontObjectParser inParser,int inCorner) {
+        int tVertexIndex = inParser.getFaceVertexIndices()[inCorner];
+        int tTextureIndex = mHasTextureCoordinates ? inParser.getFaceTextureIndices()[inCorner] : 0;
+        int tNormalIndex = mHasNormals ? inParser.getFaceNormalIndices()[inCorner] : 0;
+        int tSlot = hash(tVertexIndex, tTextureIndex, tNormalIndex) & mSlotMask;
+        while (mSlotValues[tSlot]!=cEmptySlot) {
+            if (mSlotVertexIndices[tSlot]==tVertexIndex && mSlotTextureIndices[tSlot]==tTextureIndex && mSlotNormalIndices[tSlot]==tNormalIndex) {
+                return mSlotValues[tSlot];
+            }
+            tSlot = (tSlot+1) & mSlotMask;
+        }
+        mSlotVertexIndices[tSlot] = tVertexIndex;
+        mSlotTextureIndices[tSlot] = tTextureIndex;
+        mSlotNormalIndices[tSlot] = tNormalIndex;
+        mSlotValues[tSlot] = mVertexCount;
+        int tOffset = mVertexCount*mFloatsPerVertex;
+        if (tOffset+mFloatsPerVertex>mVertexData.length) {
+            mVertexData = Arrays.copyOf(mVertexData, mVertexData.length*2);
+        }
+        //interleave in the same order as glInterleavedArrays expects: texcoord, normal, vertex ...
+        if (mHasTextureCoordinates) {
+            int tSource = (tTextureIndex-1)*inParser.getTextureCoordinateStride();
+            mVertexData[tOffset++] = inParser.getTextureCoordinateData()[tSource];
+            mVertexData[tOffset++] = inParser.getTextureCoordinateData()[tSource+1];
+        }
+        if (mHasNormals) {
+            int tSource = (tNormalIndex-1)*inParser.getNormalStride();
+            mVertexData[tOffset++] = inParser.getNormalData()[tSource];
+            mVertexData[tOffset++] = inParser.getNormalData()[tSource+1];
+            mVertexData[tOffset++] = inParser.getNormalData()[tSource+2];
+        }
+        int tSource = (tVertexIndex-1)*inParser.getVertexStride();
+        mVertexData[tOffset++] = inParser.getVertexData()[tSource];
+        mVertexData[tOffset++] = inParser.getVertexData()[tSource+1];
+        mVertexData[tOffset++] = inParser.getVertexData()[tSource+2];
+        return mVertexCount++;
+    }
+
+    private static int hash(int inVertexIndex,int inTextureIndex,int inNormalIndex) {
+        int tHash = inVertexIndex*0x9E3779B1;
+        tHash ^= inTextureIndex*0x85EBCA77;
+        tHash ^= inNormalIndex*0xC2B2AE3D;
+        return tHash ^ (tHash>>>16);
+    }
+
+    public boolean hasTextureCoordinates()  { return mHasTextureCoordinates; }
+    public boolean hasNormals()             { return mHasNormals; }
+    public int getFloatsPerVertex()         { return mFloatsPerVertex; }
+    public float[] getVertexData()          { return mVertexData; }
+    public int getVertexCount()             { return mVertexCount; }
+    public int[] getIndices()               { return mIndices; }
+    public int getIndexCount()              { return mIndexCount; }
+
+    public int getInterleavedFormat() {
+        if (mHasTextureCoordinates && mHasNormals) {
+            return GL_T2F_N3F_V3F;
+        } else if (mHasTextureCoordinates) {
+            return GL_T2F_V3F;
+        } else if (mHasNormals) {
+            return GL_N3F_V3F;
+        }
+        return GL_V3F;
+    }
+
+}
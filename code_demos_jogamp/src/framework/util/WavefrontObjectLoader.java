@@ -20,10 +20,7 @@ package framework.util;
  **/
 
 import framework.base.*;
-import java.io.*;
 import java.nio.*;
-import java.util.*;
-import java.util.zip.*;
 import javax.media.opengl.*;
 import com.jogamp.opengl.util.*;
 import static javax.media.opengl.GL2.*;
@@ -31,127 +28,51 @@ import static javax.media.opengl.GL2.*;
 public class WavefrontObjectLoader {
 
     private String OBJModelPath;                                    //the path to the model file
-    private ArrayList<float[]> vData = new ArrayList<float[]>();    //list of vertex coordinates
-    private ArrayList<float[]> vtData = new ArrayList<float[]>();   //list of texture coordinates
-    private ArrayList<float[]> vnData = new ArrayList<float[]>();   //list of normal coordinates
-    private ArrayList<int[]> fv = new ArrayList<int[]>();           //face vertex indices
-    private ArrayList<int[]> ft = new ArrayList<int[]>();           //face texture indices
-    private ArrayList<int[]> fn = new ArrayList<int[]>();           //face normal indices
+    private WavefrontObjectParser parser;                           //shared streaming parser holding the primitive data pools
     private FloatBuffer modeldata;                                  //buffer which will contain vertice data
+    private int InterleavedFormat;                                  //interleaved array format of modeldata, e.g. GL_T2F_N3F_V3F
+    private int InterleavedStride;                                  //number of floats per interleaved vertex
     private int FaceFormat;                                         //format of the faces triangles or quads
     private int FaceMultiplier;                                     //number of possible coordinates per face
     private int PolyCount = 0;                                      //the model polygon count
+    private int CornerCount = 0;                                    //the number of face corners over all polygons
     private boolean init  = true;
 
     public WavefrontObjectLoader(String inModelPath) {
         BaseLogging.getInstance().info("LOADING WAVEFRONT OBJECT MODEL "+inModelPath);
         OBJModelPath = inModelPath;
-        LoadOBJModel(OBJModelPath);
+        byte[] tSource = WavefrontObjectMeshCache.readSource(OBJModelPath);
+        byte[] tSourceHash = WavefrontObjectMeshCache.hashSource(tSource);
+        WavefrontObjectMeshCache tMeshCache = WavefrontObjectMeshCache.read(OBJModelPath,tSourceHash);
+        if (tMeshCache!=null) {
+            //warm start ... the mapped cache already holds the interleaved array, skip text parsing entirely
+            modeldata = tMeshCache.getVertexData();
+            InterleavedFormat = tMeshCache.getInterleavedFormat();
+            InterleavedStride = tMeshCache.getFloatsPerVertex();
+            FaceFormat = tMeshCache.getPrimitiveType();
+            CornerCount = tMeshCache.getVertexCount();
+            BaseLogging.getInstance().info("INTERLEAVED VERTEX COUNT FOR MODEL="+CornerCount);
+            return;
+        }
+        parser = WavefrontObjectParser.parse(OBJModelPath,tSource);
+        PolyCount = parser.getFaceCount();
+        CornerCount = parser.getFaceIndexCount();
         SetFaceRenderType();
         BaseLogging.getInstance().info("POLYGON COUNT FOR MODEL="+PolyCount);
-        BaseLogging.getInstance().info("VERTEX COUNT FOR MODEL="+vData.size());
-        BaseLogging.getInstance().info("TEXTURE COORDINATE COUNT FOR MODEL="+vtData.size());
-        BaseLogging.getInstance().info("NORMAL COUNT FOR MODEL="+vnData.size());
-    }
-
-    private void LoadOBJModel(String ModelPath) {
-        try {
-            BufferedReader br = null;
-            if (ModelPath.endsWith(".zip")) {
-                BaseLogging.getInstance().info("WAVEFRONT MESH IS COMPRESSED! TRY TO EXTRACT FIRST/SINGLE ENTRY!");
-                ZipInputStream tZipInputStream = new ZipInputStream(new BufferedInputStream((new Object()).getClass().getResourceAsStream(ModelPath)));
-                ZipEntry tZipEntry;
-                tZipEntry = tZipInputStream.getNextEntry();
-                String inZipEntryName = tZipEntry.getName();
-                if (inZipEntryName==null) {
-                    BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS NULL!");
-                }
-                BaseLogging.getInstance().info("EXTRACTING: "+inZipEntryName);
-                if (!tZipEntry.isDirectory()) {
-                    br = new BufferedReader(new InputStreamReader(tZipInputStream));
-                } else {
-                    BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS DIRECTORY! SHOULD BE PLAIN FILE!");
-                }
-            } else {
-                br = new BufferedReader(new InputStreamReader((new Object()).getClass().getResourceAsStream(ModelPath)));
-            }
-            String line = null;
-            while ((line = br.readLine()) != null) {
-                if (line.startsWith("#")) {         //read any descriptor data in the file
-                    // Zzzz ...
-                } else if (line.equals("")) {
-                    // Ignore whitespace data
-                } else if (line.startsWith("v ")) {  //read in vertex data
-                    vData.add(ProcessData(line));
-                } else if (line.startsWith("vt ")) { //read texture coordinates
-                    vtData.add(ProcessData(line));
-                } else if (line.startsWith("vn ")) { //read normal coordinates
-                    vnData.add(ProcessData(line));
-                } else if (line.startsWith("f ")) {  //read face data
-                    ProcessfData(line);
-                }
-            }
-            br.close();
-            BaseLogging.getInstance().info("MODEL "+ModelPath+" SUCCESSFULLY LOADED!");
-        } catch (IOException e) {
-            BaseLogging.getInstance().fatalerror(e);
-        }
-    }
-
-    private float[] ProcessData(String read) {
-        final String s[] = read.split("\\s+");
-        return (ProcessFloatData(s)); //returns an array of processed float data
-    }
-
-    private float[] ProcessFloatData(String sdata[]) {
-        float data[] = new float[sdata.length - 1];
-        for (int loop = 0; loop < data.length; loop++) {
-            data[loop] = Float.parseFloat(sdata[loop + 1]);
-        }
-        return data; //return an array of floats
-    }
-
-    private void ProcessfData(String fread) {
-        PolyCount++;
-        String s[] = fread.split("\\s+");
-        if (fread.contains("//")) { //pattern is present if obj has only v and vn in face data
-            for (int loop = 1; loop < s.length; loop++) {
-                s[loop] = s[loop].replaceAll("//", "/0/"); //insert a zero for missing vt data
-            }
-        }
-        ProcessfIntData(s); //pass in face data
-    }
-
-    private void ProcessfIntData(String sdata[]) {
-        int vdata[] = new int[sdata.length - 1];
-        int vtdata[] = new int[sdata.length - 1];
-        int vndata[] = new int[sdata.length - 1];
-        for (int loop = 1; loop < sdata.length; loop++) {
-            String s = sdata[loop];
-            String[] temp = s.split("/");
-            vdata[loop - 1] = Integer.valueOf(temp[0]);         //always add vertex indices
-            if (temp.length > 1) {                              //we have v and vt data
-                vtdata[loop - 1] = Integer.valueOf(temp[1]);    //add in vt indices
-            } else {
-                vtdata[loop - 1] = 0;                           //if no vt data is present fill in zeros
-            }
-            if (temp.length > 2) {                              //we have v, vt, and vn data
-                vndata[loop - 1] = Integer.valueOf(temp[2]);    //add in vn indices
-            } else {
-                vndata[loop - 1] = 0;                           //if no vn data is present fill in zeros
-            }
-        }
-        fv.add(vdata);
-        ft.add(vtdata);
-        fn.add(vndata);
+        BaseLogging.getInstance().info("VERTEX COUNT FOR MODEL="+parser.getVertexCount());
+        BaseLogging.getInstance().info("TEXTURE COORDINATE COUNT FOR MODEL="+parser.getTextureCoordinateCount());
+        BaseLogging.getInstance().info("NORMAL COUNT FOR MODEL="+parser.getNormalCount());
+        ConstructInterleavedArray();
+        parser.cleanup();
+        new WavefrontObjectMeshCache(InterleavedFormat,FaceFormat,InterleavedStride,modeldata,null).write(OBJModelPath,tSourceHash);
     }
 
     private void SetFaceRenderType() {
-        final int temp[] = (int[]) fv.get(0);
-        if (temp.length == 3) {
+        final int temp = parser.getFaceSize(0);
+        if (temp == 3) {
             FaceFormat = GL_TRIANGLES; 	//the faces come in sets of 3 so we have triangular faces
             FaceMultiplier = 3;
-        } else if (temp.length == 4) {
+        } else if (temp == 4) {
             FaceFormat = GL_QUADS; 		//the faces come in sets of 4 so we have quadrilateral faces
             FaceMultiplier = 4;
         } else {
@@ -159,138 +80,124 @@ public class WavefrontObjectLoader {
         }
     }
 
-    private void ConstructInterleavedArray(GL2 inGL) {
-        final int tv[] = (int[]) fv.get(0);
-        final int tt[] = (int[]) ft.get(0);
-        final int tn[] = (int[]) fn.get(0);
+    private void ConstructInterleavedArray() {
+        final int tv = parser.getFaceVertexIndices()[0];
+        final int tt = parser.getFaceTextureIndices()[0];
+        final int tn = parser.getFaceNormalIndices()[0];
         //if a value of zero is found that it tells us we don't have that type of data
-        if ((tv[0] != 0) && (tt[0] != 0) && (tn[0] != 0)) {
+        if ((tv != 0) && (tt != 0) && (tn != 0)) {
             ConstructTNV(); //we have vertex, 2D texture, and normal Data
-            inGL.glInterleavedArrays(GL_T2F_N3F_V3F, 0, modeldata);
-        } else if ((tv[0] != 0) && (tt[0] != 0) && (tn[0] == 0)) {
+            InterleavedFormat = GL_T2F_N3F_V3F;
+            InterleavedStride = 8;
+        } else if ((tv != 0) && (tt != 0) && (tn == 0)) {
             ConstructTV(); //we have just vertex and 2D texture Data
-            inGL.glInterleavedArrays(GL_T2F_V3F, 0, modeldata);
-        } else if ((tv[0] != 0) && (tt[0] == 0) && (tn[0] != 0)) {
+            InterleavedFormat = GL_T2F_V3F;
+            InterleavedStride = 5;
+        } else if ((tv != 0) && (tt == 0) && (tn != 0)) {
             ConstructNV(); //we have just vertex and normal Data
-            inGL.glInterleavedArrays(GL_N3F_V3F, 0, modeldata);
-        } else if ((tv[0] != 0) && (tt[0] == 0) && (tn[0] == 0)) {
+            InterleavedFormat = GL_N3F_V3F;
+            InterleavedStride = 6;
+        } else if ((tv != 0) && (tt == 0) && (tn == 0)) {
             ConstructV();
-            inGL.glInterleavedArrays(GL_V3F, 0, modeldata);
+            InterleavedFormat = GL_V3F;
+            InterleavedStride = 3;
         }
     }
 
     private void ConstructTNV() {
-        int[] v, t, n;
-        float tcoords[] = new float[2]; //only T2F is supported in interLeavedArrays!!
-        float coords[] = new float[3];
-        int fbSize = PolyCount * (FaceMultiplier * 8); //3v per poly, 2vt per poly, 3vn per poly
+        final int v[] = parser.getFaceVertexIndices();
+        final int t[] = parser.getFaceTextureIndices();
+        final int n[] = parser.getFaceNormalIndices();
+        final float vData[] = parser.getVertexData();
+        final float vtData[] = parser.getTextureCoordinateData();
+        final float vnData[] = parser.getNormalData();
+        final int vStride = parser.getVertexStride();
+        final int vtStride = parser.getTextureCoordinateStride();
+        final int vnStride = parser.getNormalStride();
+        int fbSize = parser.getFaceIndexCount() * 8; //3v per corner, 2vt per corner, 3vn per corner
         modeldata = GLBuffers.newDirectFloatBuffer(fbSize);
         modeldata.position(0);
-        for (int oloop = 0; oloop < fv.size(); oloop++) {
-            v = (int[]) (fv.get(oloop));
-            t = (int[]) (ft.get(oloop));
-            n = (int[]) (fn.get(oloop));
-            for (int iloop = 0; iloop < v.length; iloop++) {
-                //fill in the texture coordinate data
-                for (int tloop = 0; tloop < tcoords.length; tloop++)
-                    //only T2F is supported in interleavedarrays!!
-                    tcoords[tloop] = ((float[]) vtData.get(t[iloop] - 1))[tloop];
-                modeldata.put(tcoords);
-                //fill in the normal coordinate data
-                for (int vnloop = 0; vnloop < coords.length; vnloop++)
-                    coords[vnloop] = ((float[]) vnData.get(n[iloop] - 1))[vnloop];
-                modeldata.put(coords);
-                //fill in the vertex coordinate data
-                for (int vloop = 0; vloop < coords.length; vloop++)
-                    coords[vloop] = ((float[]) vData.get(v[iloop] - 1))[vloop];
-                modeldata.put(coords);
-            }
+        for (int loop = 0; loop < parser.getFaceIndexCount(); loop++) {
+            //fill in the texture coordinate data, only T2F is supported in interleavedarrays!!
+            int vt = (t[loop] - 1) * vtStride;
+            modeldata.put(vtData[vt]).put(vtData[vt + 1]);
+            //fill in the normal coordinate data
+            int vn = (n[loop] - 1) * vnStride;
+            modeldata.put(vnData[vn]).put(vnData[vn + 1]).put(vnData[vn + 2]);
+            //fill in the vertex coordinate data
+            int vv = (v[loop] - 1) * vStride;
+            modeldata.put(vData[vv]).put(vData[vv + 1]).put(vData[vv + 2]);
         }
         modeldata.position(0);
     }
 
     private void ConstructTV() {
-        int[] v, t;
-        float tcoords[] = new float[2]; //only T2F is supported in interLeavedArrays!!
-        float coords[] = new float[3];
-        int fbSize = PolyCount * (FaceMultiplier * 5); //3v per poly, 2vt per poly
+        final int v[] = parser.getFaceVertexIndices();
+        final int t[] = parser.getFaceTextureIndices();
+        final float vData[] = parser.getVertexData();
+        final float vtData[] = parser.getTextureCoordinateData();
+        final int vStride = parser.getVertexStride();
+        final int vtStride = parser.getTextureCoordinateStride();
+        int fbSize = parser.getFaceIndexCount() * 5; //3v per corner, 2vt per corner
         modeldata = GLBuffers.newDirectFloatBuffer(fbSize);
         modeldata.position(0);
-        for (int oloop = 0; oloop < fv.size(); oloop++) {
-            v = (int[]) (fv.get(oloop));
-            t = (int[]) (ft.get(oloop));
-            for (int iloop = 0; iloop < v.length; iloop++) {
-                //fill in the texture coordinate data
-                for (int tloop = 0; tloop < tcoords.length; tloop++)
-                    //only T2F is supported in interleavedarrays!!
-                    tcoords[tloop] = ((float[]) vtData.get(t[iloop] - 1))[tloop];
-                modeldata.put(tcoords);
-                //fill in the vertex coordinate data
-                for (int vloop = 0; vloop < coords.length; vloop++)
-                    coords[vloop] = ((float[]) vData.get(v[iloop] - 1))[vloop];
-                modeldata.put(coords);
-            }
+        for (int loop = 0; loop < parser.getFaceIndexCount(); loop++) {
+            //fill in the texture coordinate data, only T2F is supported in interleavedarrays!!
+            int vt = (t[loop] - 1) * vtStride;
+            modeldata.put(vtData[vt]).put(vtData[vt + 1]);
+            //fill in the vertex coordinate data
+            int vv = (v[loop] - 1) * vStride;
+            modeldata.put(vData[vv]).put(vData[vv + 1]).put(vData[vv + 2]);
         }
         modeldata.position(0);
     }
 
     private void ConstructNV() {
-        int[] v, n;
-        float coords[] = new float[3];
-        int fbSize = PolyCount * (FaceMultiplier * 6); //3v per poly, 3vn per poly
+        final int v[] = parser.getFaceVertexIndices();
+        final int n[] = parser.getFaceNormalIndices();
+        final float vData[] = parser.getVertexData();
+        final float vnData[] = parser.getNormalData();
+        final int vStride = parser.getVertexStride();
+        final int vnStride = parser.getNormalStride();
+        int fbSize = parser.getFaceIndexCount() * 6; //3v per corner, 3vn per corner
         modeldata = GLBuffers.newDirectFloatBuffer(fbSize);
         modeldata.position(0);
-        for (int oloop = 0; oloop < fv.size(); oloop++) {
-            v = (int[]) (fv.get(oloop));
-            n = (int[]) (fn.get(oloop));
-            for (int iloop = 0; iloop < v.length; iloop++) {
-                //fill in the normal coordinate data
-                for (int vnloop = 0; vnloop < coords.length; vnloop++)
-                    coords[vnloop] = ((float[]) vnData.get(n[iloop] - 1))[vnloop];
-                modeldata.put(coords);
-                //fill in the vertex coordinate data
-                for (int vloop = 0; vloop < coords.length; vloop++)
-                    coords[vloop] = ((float[]) vData.get(v[iloop] - 1))[vloop];
-                modeldata.put(coords);
-            }
+        for (int loop = 0; loop < parser.getFaceIndexCount(); loop++) {
+            //fill in the normal coordinate data
+            int vn = (n[loop] - 1) * vnStride;
+            modeldata.put(vnData[vn]).put(vnData[vn + 1]).put(vnData[vn + 2]);
+            //fill in the vertex coordinate data
+            int vv = (v[loop] - 1) * vStride;
+            modeldata.put(vData[vv]).put(vData[vv + 1]).put(vData[vv + 2]);
         }
         modeldata.position(0);
     }
 
     private void ConstructV() {
-        int[] v;
-        float coords[] = new float[3];
-        int fbSize = PolyCount * (FaceMultiplier * 3); //3v per poly
+        final int v[] = parser.getFaceVertexIndices();
+        final float vData[] = parser.getVertexData();
+        final int vStride = parser.getVertexStride();
+        int fbSize = parser.getFaceIndexCount() * 3; //3v per corner
         modeldata = GLBuffers.newDirectFloatBuffer(fbSize);
         modeldata.position(0);
-        for (int oloop = 0; oloop < fv.size(); oloop++) {
-            v = (int[]) (fv.get(oloop));
-            for (int iloop = 0; iloop < v.length; iloop++) {
-                //fill in the vertex coordinate data
-                for (int vloop = 0; vloop < coords.length; vloop++)
-                    coords[vloop] = ((float[]) vData.get(v[iloop] - 1))[vloop];
-                modeldata.put(coords);
-            }
+        for (int loop = 0; loop < parser.getFaceIndexCount(); loop++) {
+            //fill in the vertex coordinate data
+            int vv = (v[loop] - 1) * vStride;
+            modeldata.put(vData[vv]).put(vData[vv + 1]).put(vData[vv + 2]);
         }
         modeldata.position(0);
     }
 
     public void drawModel(GL2 inGL) {
         if (init) {
-            ConstructInterleavedArray(inGL);
+            inGL.glInterleavedArrays(InterleavedFormat, 0, modeldata);
             cleanup();
             init = false;
         }
-        inGL.glDrawArrays(FaceFormat, 0, PolyCount * FaceMultiplier);
+        inGL.glDrawArrays(FaceFormat, 0, CornerCount);
     }
 
     private void cleanup() {
-        vData.clear();
-        vtData.clear();
-        vnData.clear();
-        fv.clear();
-        ft.clear();
-        fn.clear();
         modeldata.clear();
     }
 
@@ -15,15 +15,14 @@ package framework.util;
  ** wavefront object loader with display-list support, this class supports model loading/drawing using
  ** vertex buffer objects. The code is slightly modified copypasta from the open source project "jglmark"
  ** (https://jglmark.dev.java.net/). Original author is Chris "Crash0veride007" Brown (crash0veride007@gmail.com).
- ** Also added support for compressed mesh files (.zip).
+ ** Also added support for compressed mesh files (.zip). In indexed mode identical (v,vt,vn) face corners
+ ** are merged into one interleaved vertex buffer drawn via an element buffer and glDrawElements, optionally
+ ** reordered for the post-transform vertex cache by WavefrontObjectMeshOptimizer.
  **
  **/
 
 import framework.base.*;
-import java.io.*;
 import java.nio.*;
-import java.util.*;
-import java.util.zip.*;
 import javax.media.opengl.*;
 import com.jogamp.opengl.util.*;
 import static javax.media.opengl.GL2.*;
@@ -31,12 +30,7 @@ import static javax.media.opengl.GL2.*;
 public class WavefrontObjectLoader_VertexBufferObject {
 
     private String OBJModelPath;                                    //the path to the model file
-    private ArrayList<float[]> vData = new ArrayList<float[]>();    //list of vertex coordinates
-    private ArrayList<float[]> vtData = new ArrayList<float[]>();   //list of texture coordinates
-    private ArrayList<float[]> vnData = new ArrayList<float[]>();   //list of normal coordinates
-    private ArrayList<int[]> fv = new ArrayList<int[]>();           //face vertex indices
-    private ArrayList<int[]> ft = new ArrayList<int[]>();           //face texture indices
-    private ArrayList<int[]> fn = new ArrayList<int[]>();           //face normal indices
+    private WavefrontObjectParser parser;                           //shared streaming parser holding the primitive data pools
     private FloatBuffer vbuff;                                      //buffer for vertex data
     private FloatBuffer tbuff;                                      //buffer for hold texture data
     private FloatBuffer nbuff;                                      //buffer for hold normal data
@@ -48,123 +42,100 @@ public class WavefrontObjectLoader_VertexBufferObject {
     private boolean ve = false, te = false, ne = false;             //flags to check if certain data type should be enabled for rendering
     private boolean init  = true;                                   //flag to initialize upon an intial draw and then never again after 
     private int[] VBOid = new int[3];                               //allocate space for up to 3 VBO identifiers
+    private boolean indexed = false;                                //flag to render deduplicated interleaved vertices using an element buffer
+    private boolean optimized = false;                              //flag to reorder triangles and vertices of the indexed mode for the vertex cache
+    private FloatBuffer idata;                                      //interleaved vertex data for the indexed mode
+    private IntBuffer edata;                                        //element (index) data for the indexed mode
+    private int InterleavedFormat;                                  //interleaved array format of idata, e.g. GL_T2F_N3F_V3F
+    private int InterleavedStride;                                  //number of floats per interleaved vertex
+    private int IndexedVertexCount = 0;                             //number of unique (v,vt,vn) vertices
+    private int IndexCount = 0;                                     //number of triangle indices
+    private int IndexType;                                          //GL_UNSIGNED_SHORT if all indices fit into 16 bit, GL_UNSIGNED_INT otherwise
+    private static final String cIndexedCacheSuffix = "#indexed";  //keeps the indexed mesh cache apart from the expanded one
+    private static final String cOptimizedCacheSuffix = "#optimized"; //keeps the vertex cache optimized mesh cache apart from the plain indexed one
 
     public WavefrontObjectLoader_VertexBufferObject(String inModelPath) {
-        BaseLogging.getInstance().info("LOADING WAVEFRONT OBJECT MODEL AS VERTEX BUFFER OBJECT "+inModelPath);
-        OBJModelPath = inModelPath;
-        LoadOBJModel(OBJModelPath);
-        SetFaceRenderType();
-        BaseLogging.getInstance().info("POLYGON COUNT FOR MODEL="+PolyCount);
-        BaseLogging.getInstance().info("VERTEX COUNT FOR MODEL="+vData.size());
-        BaseLogging.getInstance().info("TEXTURE COORDINATE COUNT FOR MODEL="+vtData.size());
-        BaseLogging.getInstance().info("NORMAL COUNT FOR MODEL="+vnData.size());
-    }
-
-    private void CheckExtensions(GL gl) {
-        if (!gl.isExtensionAvailable("GL_ARB_vertex_buffer_object")) {
-            BaseLogging.getInstance().error("YOUR GRPAHICS CARD DOES NOT SUPPORT THE ARB EXTENSION GL_ARB_vertex_buffer_object ...");
-        }
+        this(inModelPath,false);
     }
 
-    private void LoadOBJModel(String inModelPath) {
-        try {
-            BufferedReader br = null;
-            if (inModelPath.endsWith(".zip")) {
-                BaseLogging.getInstance().info("WAVEFRONT MESH IS COMPRESSED! TRY TO EXTRACT FIRST/SINGLE ENTRY!");
-                ZipInputStream tZipInputStream = new ZipInputStream(new BufferedInputStream((new Object()).getClass().getResourceAsStream(inModelPath)));
-                ZipEntry tZipEntry;
-                tZipEntry = tZipInputStream.getNextEntry();
-                String inZipEntryName = tZipEntry.getName();
-                if (inZipEntryName==null) {
-                    BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS NULL!");
-                }
-                BaseLogging.getInstance().info("EXTRACTING: "+inZipEntryName);
-                if (!tZipEntry.isDirectory()) {
-                    br = new BufferedReader(new InputStreamReader(tZipInputStream));
-                } else {
-                    BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS DIRECTORY! SHOULD BE PLAIN FILE!");
-                }
-            } else {
-                br = new BufferedReader(new InputStreamReader((new Object()).getClass().getResourceAsStream(inModelPath)));
-            }
-            String  line = null;
-            while((line = br.readLine()) != null) {
-                if (line.startsWith("#")) { 
-                    //read any descriptor data in the file ...
-                    //Zzzz ...
-                } else if (line.equals("")) {
-                    //ignore whitespace data ...
-                } else if (line.startsWith("v ")) { //read in vertex data
-                    vData.add(ProcessData(line));
-                } else if (line.startsWith("vt ")) { //read texture coordinates
-                    vtData.add(ProcessData(line));
-                } else if (line.startsWith("vn ")) { //read normal coordinates
-                    vnData.add(ProcessData(line));
-                } else if (line.startsWith("f ")) { //read face data
-                    ProcessfData(line);
-                }
-            }
-            br.close();
-            BaseLogging.getInstance().info("MODEL "+inModelPath+" SUCCESSFULLY LOADED!");
-        } catch (IOException e) {
-            BaseLogging.getInstance().fatalerror(e);
-        }
+    public WavefrontObjectLoader_VertexBufferObject(String inModelPath,boolean inIndexed) {
+        this(inModelPath,inIndexed,false);
     }
 
-    private float[] ProcessData(String read) { //processes the incoming data and return it back 
-        final String s[] = read.split("\\s+");
-        return (ProcessFloatData(s)); 
-    }
-
-    private float[] ProcessFloatData(String sdata[]) { //returns an array of processed float data
-        float data[] = new float[sdata.length-1];
-        for (int loop=0; loop < data.length; loop++) {
-            data[loop] = Float.parseFloat(sdata[loop+1]);
+    public WavefrontObjectLoader_VertexBufferObject(String inModelPath,boolean inIndexed,boolean inOptimized) {
+        BaseLogging.getInstance().info("LOADING WAVEFRONT OBJECT MODEL AS "+(inIndexed ? (inOptimized ? "OPTIMIZED " : "")+"INDEXED " : "")+"VERTEX BUFFER OBJECT "+inModelPath);
+        OBJModelPath = inModelPath;
+        indexed = inIndexed;
+        optimized = inIndexed && inOptimized;
+        if (indexed) {
+            ConstructIndexedModel();
+            return;
         }
-        return data; //return an array of floats
+        parser = WavefrontObjectParser.parse(OBJModelPath);
+        PolyCount = parser.getFaceCount();
+        SetFaceRenderType();
+        BaseLogging.getInstance().info("POLYGON COUNT FOR MODEL="+PolyCount);
+        BaseLogging.getInstance().info("VERTEX COUNT FOR MODEL="+parser.getVertexCount());
+        BaseLogging.getInstance().info("TEXTURE COORDINATE COUNT FOR MODEL="+parser.getTextureCoordinateCount());
+        BaseLogging.getInstance().info("NORMAL COUNT FOR MODEL="+parser.getNormalCount());
     }
 
-    private void ProcessfData(String fread) {//processes the incoming face data
-        PolyCount++;
-        String s[] = fread.split("\\s+");
-        if (fread.contains("//")) { //pattern is present if obj has only v and vn in face data
-            for (int loop=1; loop < s.length; loop++) {
-                s[loop] = s[loop].replaceAll("//","/0/"); //insert a zero for missing vt data
+    private void ConstructIndexedModel() {
+        byte[] tSource = WavefrontObjectMeshCache.readSource(OBJModelPath);
+        byte[] tSourceHash = WavefrontObjectMeshCache.hashSource(tSource);
+        String tCacheKey = OBJModelPath+(optimized ? cOptimizedCacheSuffix : cIndexedCacheSuffix);
+        WavefrontObjectMeshCache tMeshCache = WavefrontObjectMeshCache.read(tCacheKey,tSourceHash);
+        if (tMeshCache==null) {
+            parser = WavefrontObjectParser.parse(OBJModelPath,tSource);
+            PolyCount = parser.getFaceCount();
+            BaseLogging.getInstance().info("POLYGON COUNT FOR MODEL="+PolyCount);
+            BaseLogging.getInstance().info("VERTEX COUNT FOR MODEL="+parser.getVertexCount());
+            BaseLogging.getInstance().info("TEXTURE COORDINATE COUNT FOR MODEL="+parser.getTextureCoordinateCount());
+            BaseLogging.getInstance().info("NORMAL COUNT FOR MODEL="+parser.getNormalCount());
+            WavefrontObjectIndexer tIndexer = new WavefrontObjectIndexer(parser);
+            BaseLogging.getInstance().info("DEDUPLICATED "+parser.getFaceIndexCount()+" FACE CORNERS TO "+tIndexer.getVertexCount()+" VERTICES");
+            parser.cleanup();
+            parser = null;
+            float[] tVertices = tIndexer.getVertexData();
+            int[] tIndices = tIndexer.getIndices();
+            if (optimized) {
+                WavefrontObjectMeshOptimizer tOptimizer = new WavefrontObjectMeshOptimizer(tIndexer);
+                tOptimizer.optimize();
+                tOptimizer.logStatistics(OBJModelPath);
+                tVertices = tOptimizer.getVertexData();
+                tIndices = tOptimizer.getIndices();
             }
+            FloatBuffer tVertexData = GLBuffers.newDirectFloatBuffer(tVertices);
+            IntBuffer tIndexData = GLBuffers.newDirectIntBuffer(tIndices);
+            tMeshCache = new WavefrontObjectMeshCache(tIndexer.getInterleavedFormat(),GL_TRIANGLES,tIndexer.getFloatsPerVertex(),tVertexData,tIndexData);
+            tMeshCache.write(tCacheKey,tSourceHash);
         }
-        ProcessfIntData(s); //pass in face data
+        idata = tMeshCache.getVertexData();
+        edata = tMeshCache.getIndexData();
+        InterleavedFormat = tMeshCache.getInterleavedFormat();
+        InterleavedStride = tMeshCache.getFloatsPerVertex();
+        IndexedVertexCount = tMeshCache.getVertexCount();
+        IndexCount = tMeshCache.getIndexCount();
+        FaceFormat = GL_TRIANGLES;
+        ve = true;
+        te = (InterleavedFormat==GL_T2F_N3F_V3F || InterleavedFormat==GL_T2F_V3F);
+        ne = (InterleavedFormat==GL_T2F_N3F_V3F || InterleavedFormat==GL_N3F_V3F);
+        BaseLogging.getInstance().info("INDEXED VERTEX COUNT FOR MODEL="+IndexedVertexCount);
+        BaseLogging.getInstance().info("INDEX COUNT FOR MODEL="+IndexCount);
     }
 
-    private void ProcessfIntData(String sdata[]) {
-        int vd[] = new int[sdata.length-1];
-        int vtd[] = new int[sdata.length-1];
-        int vnd[] = new int[sdata.length-1];
-        for (int loop = 1; loop < sdata.length; loop++) {
-            String s = sdata[loop]; //hack off the f leaving just the face indices
-            String[] temp = s.split("/"); //split up the parms now....
-            vd[loop-1] = Integer.valueOf(temp[0]); //we will always have vertex indices 
-            if (temp.length > 1) { //we have v and vt data
-                vtd[loop-1] = Integer.valueOf(temp[1]); //add in vt indices
-            } else { 
-                vtd[loop-1] = 0; //if no vt data is present fill in zeros
-            }
-            if (temp.length > 2) { //we have v, vt, and vn data
-                vnd[loop-1] = Integer.valueOf(temp[2]); //add in vn indices
-            } else {
-                vnd[loop-1] = 0; //if no vn data is present fill in zeros
-            }
+    private void CheckExtensions(GL gl) {
+        if (!gl.isExtensionAvailable("GL_ARB_vertex_buffer_object")) {
+            BaseLogging.getInstance().error("YOUR GRPAHICS CARD DOES NOT SUPPORT THE ARB EXTENSION GL_ARB_vertex_buffer_object ...");
         }
-        fv.add(vd);
-        ft.add(vtd);
-        fn.add(vnd);
     }
 
     private void SetFaceRenderType() {
-        final int temp [] = (int[]) fv.get(0);
-        if ( temp.length == 3) {
+        final int temp = parser.getFaceSize(0);
+        if ( temp == 3) {
             FaceFormat = GL_TRIANGLES; //the faces come in sets of 3 so we have triangular faces
             FaceMultiplier = 3;
-        } else if (temp.length == 4) {
+        } else if (temp == 4) {
             FaceFormat = GL_QUADS; //the faces come in sets of 4 so we have quadrilateral faces
             FaceMultiplier = 4;
         } else {
@@ -173,68 +144,99 @@ public class WavefrontObjectLoader_VertexBufferObject {
     }
 
     private void BuildVBOModel(GL2 inGL) {
-        final int tv[] = (int[]) fv.get(0);
-        final int tt[] = (int[]) ft.get(0);
-        final int tn[] = (int[]) fn.get(0);
-        float vlen[] = null; //array to later hold length of vertice sets
-        float tlen[] = null; //array to later hold length of texture coordinate sets
-        float nlen[] = null; //array to later hold length of normal sets
-        vlen = (float[]) vData.get(0);
-        vc = vlen.length;
-        if (vtData.size() != 0)
-            tlen = (float[]) vtData.get(0);
-        if (vnData.size() != 0)
-            nlen = (float[]) vnData.get(0);
-        if (tlen != null)
-            tc = tlen.length;
-        if (nlen != null)
-            nc = nlen.length;
+        final int tv = parser.getFaceVertexIndices()[0];
+        final int tt = parser.getFaceTextureIndices()[0];
+        final int tn = parser.getFaceNormalIndices()[0];
+        vc = parser.getVertexStride();
+        tc = parser.getTextureCoordinateStride();
+        nc = parser.getNormalStride();
         inGL.glGenBuffers(3,VBOid,0); //generate 3 VBO identifiers 
         //if a value of zero is found that it tells us we don't have that type of data
-        if ((tv[0] != 0) && (tt[0] != 0) && (tn[0] != 0)) {
+        if ((tv != 0) && (tt != 0) && (tn != 0)) {
             ConstructVTN(inGL, vc, tc, nc); //we have vertex, 2D texture, and normal Data
             ve = true; 
             te = true;
             ne = true;
-        } else if ((tv[0] != 0) && (tt[0] != 0) && (tn[0] == 0)) {
+        } else if ((tv != 0) && (tt != 0) && (tn == 0)) {
             ConstructVT(inGL, vc, tc); //we have just vertex and texture data
             ve = true; 
             te = true;
-        } else if ((tv[0] != 0) && (tt[0] == 0) && (tn[0] != 0)) {
+        } else if ((tv != 0) && (tt == 0) && (tn != 0)) {
             ConstructVN(inGL, vc, nc); //we have just vertex and normal Data
             ve = true; 
             ne = true;
-        } else if ((tv[0] != 0) && (tt[0] == 0) && (tn[0] == 0)) {
+        } else if ((tv != 0) && (tt == 0) && (tn == 0)) {
             ConstructV(inGL, vc);
             ve = true; 
         }
     }
 
+    private void BuildIndexedVBOModel(GL2 inGL) {
+        inGL.glGenBuffers(2,VBOid,0); //one interleaved vertex buffer and one element buffer
+        idata.rewind();
+        BufferData(inGL, VBOid[0], IndexedVertexCount*InterleavedStride*GLBuffers.SIZEOF_FLOAT, idata);
+        edata.rewind();
+        inGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, VBOid[1]);
+        if (IndexedVertexCount<=65536) {
+            //16 bit indices halve the element buffer size ...
+            ShortBuffer tShortIndices = GLBuffers.newDirectShortBuffer(IndexCount);
+            for (int loop=0; loop < IndexCount; loop++) {
+                tShortIndices.put((short)edata.get(loop));
+            }
+            tShortIndices.rewind();
+            inGL.glBufferData(GL_ELEMENT_ARRAY_BUFFER, IndexCount*GLBuffers.SIZEOF_SHORT, tShortIndices, GL_STATIC_DRAW);
+            IndexType = GL_UNSIGNED_SHORT;
+        } else {
+            inGL.glBufferData(GL_ELEMENT_ARRAY_BUFFER, IndexCount*GLBuffers.SIZEOF_INT, edata, GL_STATIC_DRAW);
+            IndexType = GL_UNSIGNED_INT;
+        }
+        inGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        //the data lives in VRAM now, release the (mapped) client side copies ...
+        idata = null;
+        edata = null;
+    }
+
+    private void DrawIndexedModel(GL2 inGL) {
+        final int tStride = InterleavedStride*GLBuffers.SIZEOF_FLOAT;
+        long tOffset = 0;
+        inGL.glBindBuffer(GL_ARRAY_BUFFER, VBOid[0]);
+        //same component order as glInterleavedArrays: texcoord, normal, vertex ...
+        if (te) {
+            inGL.glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+            inGL.glTexCoordPointer(2, GL.GL_FLOAT, tStride, tOffset);
+            tOffset += 2*GLBuffers.SIZEOF_FLOAT;
+        }
+        if (ne) {
+            inGL.glEnableClientState(GL_NORMAL_ARRAY);
+            inGL.glNormalPointer(GL.GL_FLOAT, tStride, tOffset);
+            tOffset += 3*GLBuffers.SIZEOF_FLOAT;
+        }
+        inGL.glEnableClientState(GL_VERTEX_ARRAY);
+        inGL.glVertexPointer(3, GL.GL_FLOAT, tStride, tOffset);
+        inGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, VBOid[1]);
+        inGL.glDrawElements(FaceFormat, IndexCount, IndexType, 0);
+        inGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        inGL.glDisableClientState(GL_VERTEX_ARRAY);
+        if (te) {
+            inGL.glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+        }
+        if (ne) {
+            inGL.glDisableClientState(GL_NORMAL_ARRAY);
+        }
+    }
+
     private void ConstructVTN(GL gl, int vlen, int tlen, int nlen) {
-        int[] v, t, n;
         int bufflength =0;
-        vSize = PolyCount*(FaceMultiplier*vlen);
-        tSize = PolyCount*(FaceMultiplier*tlen);
-        nSize = PolyCount*(FaceMultiplier*nlen);
+        int corners = parser.getFaceIndexCount();
+        vSize = corners*vlen;
+        tSize = corners*tlen;
+        nSize = corners*nlen;
         vbuff = GLBuffers.newDirectFloatBuffer(vSize);
         tbuff = GLBuffers.newDirectFloatBuffer(tSize);
         nbuff = GLBuffers.newDirectFloatBuffer(nSize);
-        for (int oloop=0; oloop < fv.size(); oloop++) {
-            v = (int[])(fv.get(oloop));
-            t = (int[])(ft.get(oloop));
-            n = (int[])(fn.get(oloop));
-            for (int iloop=0; iloop < v.length; iloop++) {
-                for (int vloop=0; vloop < vlen; vloop++) { //fill in the vertex coordinate data
-                    vbuff.put(((float[])vData.get(v[iloop] - 1))[vloop]);
-                }
-                for (int vtloop=0; vtloop < tlen; vtloop++) { //fill in the texture coordinate data
-                    tbuff.put(((float[])vtData.get(t[iloop] - 1))[vtloop]);
-                }
-                for (int vnloop=0; vnloop < nlen; vnloop++) { //fill in the normal coordinate data
-                    nbuff.put(((float[])vnData.get(n[iloop] - 1))[vnloop]);
-                }
-            }
-        }
+        FillBuffer(vbuff, parser.getVertexData(), parser.getFaceVertexIndices(), vlen, corners);
+        FillBuffer(tbuff, parser.getTextureCoordinateData(), parser.getFaceTextureIndices(), tlen, corners);
+        FillBuffer(nbuff, parser.getNormalData(), parser.getFaceNormalIndices(), nlen, corners);
         vbuff.rewind();
         bufflength = vSize*GLBuffers.SIZEOF_FLOAT;
         BufferData(gl, VBOid[0], bufflength, vbuff);
@@ -247,24 +249,14 @@ public class WavefrontObjectLoader_VertexBufferObject {
     }
 
     private void ConstructVT(GL gl, int vlen, int tlen) {
-        int[] v, t;
         int bufflength =0;
-        vSize = PolyCount*(FaceMultiplier*vlen);
-        tSize = PolyCount*(FaceMultiplier*tlen);
+        int corners = parser.getFaceIndexCount();
+        vSize = corners*vlen;
+        tSize = corners*tlen;
         vbuff = GLBuffers.newDirectFloatBuffer(vSize);
         tbuff = GLBuffers.newDirectFloatBuffer(tSize);
-        for (int oloop=0; oloop < fv.size(); oloop++) {
-            v = (int[])(fv.get(oloop));
-            t = (int[])(ft.get(oloop));
-            for (int iloop=0; iloop < v.length; iloop++) { 
-                for (int vloop=0; vloop < vlen; vloop++) { //fill in the vertex coordinate data
-                    vbuff.put(((float[])vData.get(v[iloop] - 1))[vloop]);
-                }
-                for (int vtloop=0; vtloop < tlen; vtloop++) { //fill in the texture coordinate data
-                    tbuff.put(((float[])vtData.get(t[iloop] - 1))[vtloop]);
-                }
-            }
-        }
+        FillBuffer(vbuff, parser.getVertexData(), parser.getFaceVertexIndices(), vlen, corners);
+        FillBuffer(tbuff, parser.getTextureCoordinateData(), parser.getFaceTextureIndices(), tlen, corners);
         vbuff.rewind();
         bufflength = vSize*GLBuffers.SIZEOF_FLOAT;
         BufferData(gl, VBOid[0], bufflength, vbuff);
@@ -274,24 +266,14 @@ public class WavefrontObjectLoader_VertexBufferObject {
     }
 
     private void ConstructVN(GL gl, int vlen, int nlen) {
-        int[] v, n;
         int bufflength =0;
-        vSize = PolyCount*(FaceMultiplier*vlen);
-        nSize = PolyCount*(FaceMultiplier*nlen);
+        int corners = parser.getFaceIndexCount();
+        vSize = corners*vlen;
+        nSize = corners*nlen;
         vbuff = GLBuffers.newDirectFloatBuffer(vSize);
         nbuff = GLBuffers.newDirectFloatBuffer(nSize);
-        for (int oloop=0; oloop < fv.size(); oloop++) {
-            v = (int[])(fv.get(oloop));
-            n = (int[])(fn.get(oloop));
-            for (int iloop=0; iloop < v.length; iloop++) {
-                for (int vloop=0; vloop < vlen; vloop++) { //fill in the vertex coordinate data
-                    vbuff.put(((float[])vData.get(v[iloop] - 1))[vloop]);
-                }
-                for (int vnloop=0; vnloop < nlen; vnloop++) { //fill in the normal coordinate data
-                    nbuff.put(((float[])vnData.get(n[iloop] - 1))[vnloop]);
-                }
-            }
-        }
+        FillBuffer(vbuff, parser.getVertexData(), parser.getFaceVertexIndices(), vlen, corners);
+        FillBuffer(nbuff, parser.getNormalData(), parser.getFaceNormalIndices(), nlen, corners);
         vbuff.rewind();
         bufflength = vSize*GLBuffers.SIZEOF_FLOAT;
         BufferData(gl, VBOid[0], bufflength, vbuff);
@@ -301,23 +283,22 @@ public class WavefrontObjectLoader_VertexBufferObject {
     }
 
     private void ConstructV(GL gl, int vlen) {
-        int[] v;
         int bufflength =0;
-        vSize = PolyCount*(FaceMultiplier*vlen); 
+        int corners = parser.getFaceIndexCount();
+        vSize = corners*vlen; 
         vbuff = GLBuffers.newDirectFloatBuffer(vSize);
-        for (int oloop=0; oloop < fv.size(); oloop++) {
-            v = (int[])(fv.get(oloop)); 
-            for (int iloop=0; iloop < v.length; iloop++) {
-                for (int vloop=0; vloop < vlen; vloop++) { //fill in the vertex coordinate data
-                    vbuff.put(((float[])vData.get(v[iloop] - 1))[vloop]);
-                }
-            }
-        }
+        FillBuffer(vbuff, parser.getVertexData(), parser.getFaceVertexIndices(), vlen, corners);
         vbuff.rewind(); 
         bufflength = vSize*GLBuffers.SIZEOF_FLOAT;
         BufferData(gl, VBOid[0], bufflength, vbuff); 
     }
 
+    private void FillBuffer(FloatBuffer buffer, float[] data, int[] indices, int len, int corners) { //expands the indexed pool data face corner by face corner
+        for (int loop=0; loop < corners; loop++) {
+            buffer.put(data, (indices[loop] - 1)*len, len);
+        }
+    }
+
     private void BufferData(GL gl, int id, int length, FloatBuffer buffer) { //function to simplfy buffering the VBO data
         gl.glBindBuffer(GL_ARRAY_BUFFER, id);
         gl.glBufferData(GL_ARRAY_BUFFER, length, buffer, GL_STATIC_DRAW);
@@ -326,12 +307,21 @@ public class WavefrontObjectLoader_VertexBufferObject {
     public void DrawModel(GL2 inGL) {
         if (init) {
             CheckExtensions(inGL);
-            BuildVBOModel(inGL);
-            cleanup(); 
+            if (indexed) {
+                BuildIndexedVBOModel(inGL);
+            } else {
+                BuildVBOModel(inGL);
+                cleanup(); 
+            }
             init = false;
         }
         inGL.glEnable(GL.GL_CULL_FACE);
         inGL.glCullFace(GL.GL_BACK);
+        if (indexed) {
+            DrawIndexedModel(inGL);
+            inGL.glDisable(GL.GL_CULL_FACE);
+            return;
+        }
         if (ve && te && ne) {
             inGL.glEnableClientState(GL_VERTEX_ARRAY);
             inGL.glEnableClientState(GL_TEXTURE_COORD_ARRAY);
@@ -385,12 +375,7 @@ public class WavefrontObjectLoader_VertexBufferObject {
     }
 
     private void cleanup() {
-        vData.clear(); 
-        vtData.clear(); 
-        vnData.clear();
-        fv.clear(); 
-        ft.clear(); 
-        fn.clear();
+        parser.cleanup();
         vbuff.clear();
         if (tbuff != null)
         tbuff.clear();
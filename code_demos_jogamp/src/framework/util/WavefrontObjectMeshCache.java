@@ -0,0 +1,247 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Compact binary cache for parsed Wavefront meshes. The interleaved vertex payload (for example
+ ** T2F_N3F_V3F) and an optional index table are written once after the first text parse and keyed
+ ** by a SHA-1 hash of the source file. Later starts map the cache file via FileChannel.map() and
+ ** hand the mapped direct FloatBuffer straight to glInterleavedArrays() or glBufferData() ... no
+ ** text parsing at all. A changed source file yields a new hash, the stale cache file is replaced.
+ **
+ ** File layout (native byte order, 64 byte header):
+ **   int magic, int version, int byte order marker, 20 bytes SHA-1 of the source,
+ **   int interleaved format, int primitive type, int floats per vertex, int vertex count,
+ **   int index count, padding ... then vertex count*floats per vertex floats, then index count ints.
+ **
+ **/
+
+import framework.base.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.security.*;
+
+public class WavefrontObjectMeshCache {
+
+    public static final String cMESHCACHE_DIRECTORYNAME = "meshcache";
+    public static final String cMESHCACHE_FILENAME_SUFFIX = ".meshcache";
+    private static final int cMagic = 0x4A4F4D43; //"JOMC"
+    private static final int cVersion = 1;
+    private static final int cByteOrderMarker = 0x01020304;
+    private static final int cHashLength = 20;
+    private static final int cHeaderSize = 64;
+    private static final int cWriteChunkSize = 64*1024;
+
+    private int mInterleavedFormat;
+    private int mPrimitiveType;
+    private int mFloatsPerVertex;
+    private int mVertexCount;
+    private int mIndexCount;
+    private FloatBuffer mVertexData;
+    private IntBuffer mIndexData;
+
+    public WavefrontObjectMeshCache(int inInterleavedFormat,int inPrimitiveType,int inFloatsPerVertex,FloatBuffer inVertexData,IntBuffer inIndexData) {
+        mInterleavedFormat = inInterleavedFormat;
+        mPrimitiveType = inPrimitiveType;
+        mFloatsPerVertex = inFloatsPerVertex;
+        mVertexData = inVertexData;
+        mVertexCount = inVertexData.capacity()/inFloatsPerVertex;
+        mIndexData = inIndexData;
+        mIndexCount = (inIndexData!=null) ? inIndexData.capacity() : 0;
+    }
+
+    public int getInterleavedFormat()   { return mInterleavedFormat; }
+    public int getPrimitiveType()       { return mPrimitiveType; }
+    public int getFloatsPerVertex()     { return mFloatsPerVertex; }
+    public int getVertexCount()         { return mVertexCount; }
+    public int getIndexCount()          { return mIndexCount; }
+    public FloatBuffer getVertexData()  { return mVertexData; }
+    public IntBuffer getIndexData()     { return mIndexData; }
+
+    public static byte[] readSource(String inModelPath) {
+        try {
+            InputStream tInputStream = (new Object()).getClass().getResourceAsStream(inModelPath);
+            if (tInputStream==null) {
+                BaseLogging.getInstance().fatalerror("ERROR! WAVEFRONT MESH NOT FOUND: "+inModelPath);
+            }
+            ByteArrayOutputStream tByteArrayOutputStream = new ByteArrayOutputStream();
+            byte[] tBuffer = new byte[cWriteChunkSize];
+            int tRead;
+            while ((tRead = tInputStream.read(tBuffer)) != -1) {
+                tByteArrayOutputStream.write(tBuffer, 0, tRead);
+            }
+            tInputStream.close();
+            return tByteArrayOutputStream.toByteArray();
+        } catch (IOException e) {
+            BaseLogging.getInstance().fatalerror(e);
+        }
+        return null;
+    }
+
+    public static byte[] hashSource(byte[] inSource) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(inSource);
+        } catch (NoSuchAlgorithmException e) {
+            BaseLogging.getInstance().fatalerror(e);
+        }
+        return null;
+    }
+
+    public static File getCacheFile(String inModelPath,byte[] inSourceHash) {
+        StringBuilder tStringBuilder = new StringBuilder();
+        tStringBuilder.append(getCacheFilePrefix(inModelPath));
+        for (int i=0; i<8; i++) {
+            tStringBuilder.append(Character.forDigit((inSourceHash[i]>>4)&0xF,16));
+            tStringBuilder.append(Character.forDigit(inSourceHash[i]&0xF,16));
+        }
+        tStringBuilder.append(cMESHCACHE_FILENAME_SUFFIX);
+        return new File(cMESHCACHE_DIRECTORYNAME, tStringBuilder.toString());
+    }
+
+    private static String getCacheFilePrefix(String inModelPath) {
+        return inModelPath.replaceAll("[^A-Za-z0-9._-]","_")+".";
+    }
+
+    public static WavefrontObjectMeshCache read(String inModelPath,byte[] inSourceHash) {
+        File tCacheFile = getCacheFile(inModelPath,inSourceHash);
+        if (!tCacheFile.isFile()) {
+            BaseLogging.getInstance().info("NO MESH CACHE FOUND FOR "+inModelPath);
+            return null;
+        }
+        try {
+            RandomAccessFile tRandomAccessFile = new RandomAccessFile(tCacheFile,"r");
+            FileChannel tFileChannel = tRandomAccessFile.getChannel();
+            MappedByteBuffer tMappedByteBuffer = tFileChannel.map(FileChannel.MapMode.READ_ONLY, 0, tFileChannel.size());
+            //the mapping stays valid after the channel is closed ...
+            tRandomAccessFile.close();
+            tMappedByteBuffer.order(ByteOrder.nativeOrder());
+            if (tMappedByteBuffer.capacity()<cHeaderSize || tMappedByteBuffer.getInt(0)!=cMagic || tMappedByteBuffer.getInt(4)!=cVersion || tMappedByteBuffer.getInt(8)!=cByteOrderMarker) {
+                BaseLogging.getInstance().warning("MESH CACHE "+tCacheFile+" IS INVALID ... REBUILDING!");
+                return null;
+            }
+            for (int i=0; i<cHashLength; i++) {
+                if (tMappedByteBuffer.get(12+i)!=inSourceHash[i]) {
+                    BaseLogging.getInstance().warning("MESH CACHE "+tCacheFile+" DOES NOT MATCH SOURCE ... REBUILDING!");
+                    return null;
+                }
+            }
+            int tInterleavedFormat = tMappedByteBuffer.getInt(32);
+            int tPrimitiveType = tMappedByteBuffer.getInt(36);
+            int tFloatsPerVertex = tMappedByteBuffer.getInt(40);
+            int tVertexCount = tMappedByteBuffer.getInt(44);
+            int tIndexCount = tMappedByteBuffer.getInt(48);
+            long tExpectedSize = cHeaderSize+((long)tVertexCount*tFloatsPerVertex+tIndexCount)*4L;
+            if (tFloatsPerVertex<=0 || tExpectedSize!=tMappedByteBuffer.capacity()) {
+                BaseLogging.getInstance().warning("MESH CACHE "+tCacheFile+" IS TRUNCATED ... REBUILDING!");
+                return null;
+            }
+            tMappedByteBuffer.position(cHeaderSize);
+            tMappedByteBuffer.limit(cHeaderSize+tVertexCount*tFloatsPerVertex*4);
+            FloatBuffer tVertexData = tMappedByteBuffer.slice().order(ByteOrder.nativeOrder()).asFloatBuffer();
+            IntBuffer tIndexData = null;
+            if (tIndexCount>0) {
+                tMappedByteBuffer.limit(tMappedByteBuffer.capacity());
+                tMappedByteBuffer.position(cHeaderSize+tVertexCount*tFloatsPerVertex*4);
+                tIndexData = tMappedByteBuffer.slice().order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+            BaseLogging.getInstance().info("MAPPED MESH CACHE "+tCacheFile+" VERTICES="+tVertexCount+" INDICES="+tIndexCount);
+            return new WavefrontObjectMeshCache(tInterleavedFormat,tPrimitiveType,tFloatsPerVertex,tVertexData,tIndexData);
+        } catch (IOException e) {
+            BaseLogging.getInstance().warning("MESH CACHE "+tCacheFile+" COULD NOT BE READ ... REBUILDING! "+e);
+            return null;
+        }
+    }
+
+    public void write(String inModelPath,byte[] inSourceHash) {
+        File tCacheFile = getCacheFile(inModelPath,inSourceHash);
+        File tTemporaryFile = new File(tCacheFile.getPath()+".tmp");
+        try {
+            File tCacheDirectory = tCacheFile.getParentFile();
+            tCacheDirectory.mkdirs();
+            //remove cache files of earlier versions of the same source ...
+            File[] tCacheFiles = tCacheDirectory.listFiles();
+            String tPrefix = getCacheFilePrefix(inModelPath);
+            for (int i=0; tCacheFiles!=null && i<tCacheFiles.length; i++) {
+                if (tCacheFiles[i].getName().startsWith(tPrefix) && !tCacheFiles[i].getName().equals(tCacheFile.getName())) {
+                    BaseLogging.getInstance().info("DELETING STALE MESH CACHE "+tCacheFiles[i]);
+                    tCacheFiles[i].delete();
+                }
+            }
+            FileOutputStream tFileOutputStream = new FileOutputStream(tTemporaryFile);
+            FileChannel tFileChannel = tFileOutputStream.getChannel();
+            ByteBuffer tChunk = ByteBuffer.allocateDirect(cWriteChunkSize).order(ByteOrder.nativeOrder());
+            tChunk.putInt(cMagic);
+            tChunk.putInt(cVersion);
+            tChunk.putInt(cByteOrderMarker);
+            tChunk.put(inSourceHash, 0, cHashLength);
+            tChunk.putInt(mInterleavedFormat);
+            tChunk.putInt(mPrimitiveType);
+            tChunk.putInt(mFloatsPerVertex);
+            tChunk.putInt(mVertexCount);
+            tChunk.putInt(mIndexCount);
+            while (tChunk.position()<cHeaderSize) {
+                tChunk.put((byte)0);
+            }
+            FloatBuffer tVertexData = mVertexData.duplicate();
+            tVertexData.rewind();
+            while (tVertexData.hasRemaining()) {
+                FloatBuffer tFloatView = tChunk.asFloatBuffer();
+                int tCount = Math.min(tFloatView.remaining(), tVertexData.remaining());
+                FloatBuffer tSlice = tVertexData.slice();
+                tSlice.limit(tCount);
+                tFloatView.put(tSlice);
+                tVertexData.position(tVertexData.position()+tCount);
+                tChunk.position(tChunk.position()+tCount*4);
+                writeChunk(tFileChannel,tChunk);
+            }
+            if (mIndexData!=null) {
+                IntBuffer tIndexData = mIndexData.duplicate();
+                tIndexData.rewind();
+                while (tIndexData.hasRemaining()) {
+                    IntBuffer tIntView = tChunk.asIntBuffer();
+                    int tCount = Math.min(tIntView.remaining(), tIndexData.remaining());
+                    IntBuffer tSlice = tIndexData.slice();
+                    tSlice.limit(tCount);
+                    tIntView.put(tSlice);
+                    tIndexData.position(tIndexData.position()+tCount);
+                    tChunk.position(tChunk.position()+tCount*4);
+                    writeChunk(tFileChannel,tChunk);
+                }
+            }
+            writeChunk(tFileChannel,tChunk);
+            tFileChannel.force(false);
+            tFileOutputStream.close();
+            if (tCacheFile.exists()) {
+                tCacheFile.delete();
+            }
+            if (!tTemporaryFile.renameTo(tCacheFile)) {
+                BaseLogging.getInstance().warning("COULD NOT RENAME MESH CACHE "+tTemporaryFile+" TO "+tCacheFile);
+                tTemporaryFile.delete();
+                return;
+            }
+            BaseLogging.getInstance().info("WROTE MESH CACHE "+tCacheFile+" VERTICES="+mVertexCount+" INDICES="+mIndexCount);
+        } catch (IOException e) {
+            //a missing cache only costs startup time ...
+            BaseLogging.getInstance().warning("MESH CACHE "+tCacheFile+" COULD NOT BE WRITTEN! "+e);
+            tTemporaryFile.delete();
+        }
+    }
+
+    private static void writeChunk(FileChannel inFileChannel,ByteBuffer inChunk) throws IOException {
+        inChunk.flip();
+        while (inChunk.hasRemaining()) {
+            inFileChannel.write(inChunk);
+        }
+        inChunk.clear();
+    }
+
+}
@@ -0,0 +1,266 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Optional optimization stage for indexed triangle meshes (see WavefrontObjectIndexer). Triangles are
+ ** reordered for the post-transform vertex cache using Tom Forsyth's "Linear-Speed Vertex Cache
+ ** Optimisation", afterwards vertices are renumbered in order of first use for fetch locality. The
+ ** average cache miss ratio (ACMR, misses per triangle) and the average transform to vertex ratio
+ ** (ATVR, misses per vertex) are measured with a simulated FIFO cache before and after. Pure Java.
+ **
+ **/
+
+import framework.base.*;
+import java.util.*;
+
+public class WavefrontObjectMeshOptimizer {
+
+    public static final int cVERTEXCACHE_SIZE = 32;
+    private static final float cCacheDecayPower = 1.5f;
+    private static final float cLastTriangleScore = 0.75f;
+    private static final float cValenceBoostScale = 2.0f;
+    private static final float cValenceBoostPower = 0.5f;
+    private static final int cMaxPrecomputedValence = 64;
+    private static final float[] cCachePositionScores = new float[cVERTEXCACHE_SIZE];
+    private static final float[] cValenceScores = new float[cMaxPrecomputedValence];
+
+    static {
+        for (int i=0; i<cVERTEXCACHE_SIZE; i++) {
+            if (i<3) {
+                //the vertices of the last triangle are scored lower on purpose, else the same triangle strip would be favoured forever ...
+                cCachePositionScores[i] = cLastTriangleScore;
+            } else {
+                float tScaler = 1.0f/(cVERTEXCACHE_SIZE-3);
+                cCachePositionScores[i] = (float)Math.pow(1.0f-(i-3)*tScaler, cCacheDecayPower);
+            }
+        }
+        for (int i=1; i<cMaxPrecomputedValence; i++) {
+            cValenceScores[i] = cValenceBoostScale*(float)Math.pow(i, -cValenceBoostPower);
+        }
+    }
+
+    private float[] mVertexData;
+    private int mFloatsPerVertex;
+    private int[] mIndices;
+    private int mVertexCount;
+    private float mACMRBefore;
+    private float mATVRBefore;
+    private float mACMRAfter;
+    private float mATVRAfter;
+
+    public WavefrontObjectMeshOptimizer(float[] inVertexData,int inFloatsPerVertex,int[] inIndices) {
+        mVertexData = inVertexData;
+        mFloatsPerVertex = inFloatsPerVertex;
+        mIndices = inIndices;
+        mVertexCount = inVertexData.length/inFloatsPerVertex;
+    }
+
+    public WavefrontObjectMeshOptimizer(WavefrontObjectIndexer inIndexer) {
+        this(inIndexer.getVertexData(),inIndexer.getFloatsPerVertex(),inIndexer.getIndices());
+    }
+
+    public void optimize() {
+        mACMRBefore = getACMR(mIndices,cVERTEXCACHE_SIZE);
+        mATVRBefore = getATVR(mIndices,mVertexCount,cVERTEXCACHE_SIZE);
+        mIndices = optimizeTriangleOrder(mIndices,mVertexCount);
+        optimizeVertexFetch();
+        mACMRAfter = getACMR(mIndices,cVERTEXCACHE_SIZE);
+        mATVRAfter = getATVR(mIndices,mVertexCount,cVERTEXCACHE_SIZE);
+    }
+
+    public void logStatistics(String inName) {
+        BaseLogging.getInstance().info("VERTEX CACHE OPTIMIZATION FOR "+inName+" ACMR "+mACMRBefore+" -> "+mACMRAfter+" ATVR "+mATVRBefore+" -> "+mATVRAfter);
+    }
+
+    public float[] getVertexData()      { return mVertexData; }
+    public int getFloatsPerVertex()     { return mFloatsPerVertex; }
+    public int[] getIndices()           { return mIndices; }
+    public int getVertexCount()         { return mVertexCount; }
+    public float getACMRBefore()        { return mACMRBefore; }
+    public float getATVRBefore()        { return mATVRBefore; }
+    public float getACMRAfter()         { return mACMRAfter; }
+    public float getATVRAfter()         { return mATVRAfter; }
+
+    private static float getVertexScore(int inCachePosition,int inRemainingValence) {
+        if (inRemainingValence==0) {
+            //no triangle needs this vertex anymore ...
+            return -1.0f;
+        }
+        float tScore = 0.0f;
+        if (inCachePosition>=0) {
+            tScore = cCachePositionScores[inCachePosition];
+        }
+        if (inRemainingValence<cMaxPrecomputedValence) {
+            tScore += cValenceScores[inRemainingValence];
+        } else {
+            tScore += cValenceBoostScale*(float)Math.pow(inRemainingValence, -cValenceBoostPower);
+        }
+        return tScore;
+    }
+
+    public static int[] optimizeTriangleOrder(int[] inIndices,int inVertexCount) {
+        int tTriangleCount = inIndices.length/3;
+        int[] tOutput = new int[tTriangleCount*3];
+        if (tTriangleCount==0) {
+            return tOutput;
+        }
+        //per vertex triangle adjacency in compressed row format, the first tRemainingValence entries of each row are still unused ...
+        int[] tRemainingValence = new int[inVertexCount];
+        for (int i=0; i<tTriangleCount*3; i++) {
+            tRemainingValence[inIndices[i]]++;
+        }
+        int[] tAdjacencyOffsets = new int[inVertexCount+1];
+        for (int i=0; i<inVertexCount; i++) {
+            tAdjacencyOffsets[i+1] = tAdjacencyOffsets[i]+tRemainingValence[i];
+        }
+        int[] tAdjacency = new int[tTriangleCount*3];
+        int[] tFill = new int[inVertexCount];
+        for (int i=0; i<tTriangleCount*3; i++) {
+            int tVertex = inIndices[i];
+            tAdjacency[tAdjacencyOffsets[tVertex]+tFill[tVertex]++] = i/3;
+        }
+        int[] tCachePosition = new int[inVertexCount];
+        float[] tVertexScore = new float[inVertexCount];
+        Arrays.fill(tCachePosition, -1);
+        for (int i=0; i<inVertexCount; i++) {
+            tVertexScore[i] = getVertexScore(-1,tRemainingValence[i]);
+        }
+        boolean[] tTriangleAdded = new boolean[tTriangleCount];
+        //the simulated LRU cache can temporarily hold three more vertices than its nominal size ...
+        int[] tCache = new int[cVERTEXCACHE_SIZE+3];
+        int[] tNewCache = new int[cVERTEXCACHE_SIZE+3];
+        int tCacheCount = 0;
+        int tBestTriangle = -1;
+        float tBestScore = -1.0f;
+        int tScanCursor = 0;
+        for (int tOutputTriangle=0; tOutputTriangle<tTriangleCount; tOutputTriangle++) {
+            if (tBestTriangle<0) {
+                //nothing useful in the cache, continue with the next unused triangle in input order. a full
+                //search for the best scored triangle would make isolated triangle soups quadratic ...
+                while (tTriangleAdded[tScanCursor]) {
+                    tScanCursor++;
+                }
+                tBestTriangle = tScanCursor;
+            }
+            tTriangleAdded[tBestTriangle] = true;
+            int tNewCacheCount = 0;
+            for (int i=0; i<3; i++) {
+                int tVertex = inIndices[tBestTriangle*3+i];
+                tOutput[tOutputTriangle*3+i] = tVertex;
+                //remove the triangle from the unused part of the adjacency row ...
+                int tRowStart = tAdjacencyOffsets[tVertex];
+                int tRowEnd = tRowStart+tRemainingValence[tVertex];
+                for (int j=tRowStart; j<tRowEnd; j++) {
+                    if (tAdjacency[j]==tBestTriangle) {
+                        tAdjacency[j] = tAdjacency[tRowEnd-1];
+                        tAdjacency[tRowEnd-1] = tBestTriangle;
+                        break;
+                    }
+                }
+                tRemainingValence[tVertex]--;
+                tNewCache[tNewCacheCount++] = tVertex;
+            }
+            for (int i=0; i<tCacheCount; i++) {
+                int tVertex = tCache[i];
+                if (tVertex!=tNewCache[0] && tVertex!=tNewCache[1] && tVertex!=tNewCache[2]) {
+                    tNewCache[tNewCacheCount++] = tVertex;
+                }
+            }
+            int[] tSwap = tCache;
+            tCache = tNewCache;
+            tNewCache = tSwap;
+            tCacheCount = tNewCacheCount;
+            //update vertex scores, vertices which dropped out of the cache lose their cache bonus ...
+            for (int i=0; i<tCacheCount; i++) {
+                int tVertex = tCache[i];
+                tCachePosition[tVertex] = (i<cVERTEXCACHE_SIZE) ? i : -1;
+                tVertexScore[tVertex] = getVertexScore(tCachePosition[tVertex],tRemainingValence[tVertex]);
+            }
+            //rescore the triangles touching the cache (including the vertices just evicted) and pick the best one for the next round ...
+            tBestTriangle = -1;
+            tBestScore = -1.0f;
+            for (int i=0; i<tCacheCount; i++) {
+                int tVertex = tCache[i];
+                int tRowStart = tAdjacencyOffsets[tVertex];
+                int tRowEnd = tRowStart+tRemainingValence[tVertex];
+                for (int j=tRowStart; j<tRowEnd; j++) {
+                    int tTriangle = tAdjacency[j];
+                    float tScore = tVertexScore[inIndices[tTriangle*3]]+tVertexScore[inIndices[tTriangle*3+1]]+tVertexScore[inIndices[tTriangle*3+2]];
+                    if (tScore>tBestScore) {
+                        tBestScore = tScore;
+                        tBestTriangle = tTriangle;
+                    }
+                }
+            }
+            if (tCacheCount>cVERTEXCACHE_SIZE) {
+                tCacheCount = cVERTEXCACHE_SIZE;
+            }
+        }
+        return tOutput;
+    }
+
+    private void optimizeVertexFetch() {
+        //renumber vertices in order of first use, so the vertex fetch walks memory linearly ...
+        int[] tRemap = new int[mVertexCount];
+        Arrays.fill(tRemap, -1);
+        int tNextVertex = 0;
+        for (int i=0; i<mIndices.length; i++) {
+            int tVertex = mIndices[i];
+            if (tRemap[tVertex]<0) {
+                tRemap[tVertex] = tNextVertex++;
+            }
+            mIndices[i] = tRemap[tVertex];
+        }
+        //unreferenced vertices are dropped ...
+        float[] tVertexData = new float[tNextVertex*mFloatsPerVertex];
+        for (int i=0; i<mVertexCount; i++) {
+            if (tRemap[i]>=0) {
+                System.arraycopy(mVertexData, i*mFloatsPerVertex, tVertexData, tRemap[i]*mFloatsPerVertex, mFloatsPerVertex);
+            }
+        }
+        mVertexData = tVertexData;
+        mVertexCount = tNextVertex;
+    }
+
+    public static int countCacheMisses(int[] inIndices,int inCacheSize) {
+        //FIFO cache as found in most hardware ...
+        int[] tFifo = new int[inCacheSize];
+        Arrays.fill(tFifo, -1);
+        int tFifoHead = 0;
+        int tMisses = 0;
+        for (int i=0; i<inIndices.length; i++) {
+            int tVertex = inIndices[i];
+            boolean tHit = false;
+            for (int j=0; j<inCacheSize; j++) {
+                if (tFifo[j]==tVertex) {
+                    tHit = true;
+                    break;
+                }
+            }
+            if (!tHit) {
+                tMisses++;
+                tFifo[tFifoHead] = tVertex;
+                tFifoHead = (tFifoHead+1)%inCacheSize;
+            }
+        }
+        return tMisses;
+    }
+
+    public static float getACMR(int[] inIndices,int inCacheSize) {
+        return (inIndices.length<3) ? 0.0f : (float)countCacheMisses(inIndices,inCacheSize)/(inIndices.length/3);
+    }
+
+    public static float getATVR(int[] inIndices,int inVertexCount,int inCacheSize) {
+        return (inVertexCount==0) ? 0.0f : (float)countCacheMisses(inIndices,inCacheSize)/inVertexCount;
+    }
+
+}
@@ -0,0 +1,204 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Parses big, already inflated Wavefront .obj meshes on a fork-join pool. The data is split into
+ ** line aligned chunks, a cheap first pass counts the v/vt/vn lines of every chunk so each chunk
+ ** parser knows how many elements precede it (needed to resolve relative face indices), the second
+ ** pass parses all chunks into their own primitive pools which are finally concatenated. The result
+ ** is identical to a sequential WavefrontObjectParser run.
+ **
+ **/
+
+import framework.base.*;
+import java.util.concurrent.*;
+
+public class WavefrontObjectParallelParser {
+
+    public static final int cPARALLEL_PARSING_THRESHOLD = 2*1024*1024;
+    private static final int cMinimumChunkSize = 256*1024;
+    private static final int cChunksPerThread = 4;
+
+    public static boolean isParallelParsingWorthwhile(int inSourceLength) {
+        return inSourceLength>=cPARALLEL_PARSING_THRESHOLD && Runtime.getRuntime().availableProcessors()>1;
+    }
+
+    public static WavefrontObjectParser parse(byte[] inData,int inLength) {
+        return parse(inData,inLength,ParallelUtils.getForkJoinPool());
+    }
+
+    public static WavefrontObjectParser parse(byte[] inData,int inLength,ForkJoinPool inForkJoinPool) {
+        int tChunkCount = Math.max(1, Math.min(inForkJoinPool.getParallelism()*cChunksPerThread, inLength/cMinimumChunkSize));
+        int[] tChunkBoundaries = new int[tChunkCount+1];
+        for (int i=1; i<tChunkCount; i++) {
+            //move each boundary behind the next line break so no line gets cut ...
+            int tBoundary = Math.max(tChunkBoundaries[i-1], (int)((long)inLength*i/tChunkCount));
+            while (tBoundary<inLength && inData[tBoundary-1]!='\n') {
+                tBoundary++;
+            }
+            tChunkBoundaries[i] = tBoundary;
+        }
+        tChunkBoundaries[tChunkCount] = inLength;
+        //first pass: element counts and first element line of each kind per chunk ...
+        ChunkCounter[] tCounters = new ChunkCounter[tChunkCount];
+        for (int i=0; i<tChunkCount; i++) {
+            tCounters[i] = new ChunkCounter(inData,tChunkBoundaries[i],tChunkBoundaries[i+1]);
+        }
+        inForkJoinPool.invoke(new ChunkAction(tCounters,0,tChunkCount));
+        //strides are taken from the very first line of each kind, as the sequential parser does ...
+        int tVertexStride = getStride(inData,tCounters,0);
+        int tTextureCoordinateStride = getStride(inData,tCounters,1);
+        int tNormalStride = getStride(inData,tCounters,2);
+        //second pass: parse every chunk with the element bases of all preceding chunks ...
+        ChunkParser[] tParsers = new ChunkParser[tChunkCount];
+        int tVertexBase = 0;
+        int tTextureCoordinateBase = 0;
+        int tNormalBase = 0;
+        for (int i=0; i<tChunkCount; i++) {
+            tParsers[i] = new ChunkParser(inData,tChunkBoundaries[i],tChunkBoundaries[i+1],new WavefrontObjectParser(tVertexBase,tTextureCoordinateBase,tNormalBase,tVertexStride,tTextureCoordinateStride,tNormalStride));
+            tVertexBase += tCounters[i].mElementCounts[0];
+            tTextureCoordinateBase += tCounters[i].mElementCounts[1];
+            tNormalBase += tCounters[i].mElementCounts[2];
+        }
+        inForkJoinPool.invoke(new ChunkAction(tParsers,0,tChunkCount));
+        WavefrontObjectParser tResult = new WavefrontObjectParser(0,0,0,tVertexStride,tTextureCoordinateStride,tNormalStride);
+        int tFaceIndexCount = 0;
+        int tFaceCount = 0;
+        for (int i=0; i<tChunkCount; i++) {
+            tFaceIndexCount += tParsers[i].mParser.getFaceIndexCount();
+            tFaceCount += tParsers[i].mParser.getFaceCount();
+        }
+        tResult.reserve(tVertexBase,tTextureCoordinateBase,tNormalBase,tFaceIndexCount,tFaceCount);
+        for (int i=0; i<tChunkCount; i++) {
+            tResult.append(tParsers[i].mParser);
+            tParsers[i].mParser.cleanup();
+        }
+        BaseLogging.getInstance().info("PARSED "+inLength+" BYTES IN "+tChunkCount+" CHUNKS ON "+inForkJoinPool.getParallelism()+" THREADS");
+        return tResult;
+    }
+
+    private static int getStride(byte[] inData,ChunkCounter[] inCounters,int inKind) {
+        for (int i=0; i<inCounters.length; i++) {
+            if (inCounters[i].mElementCounts[inKind]>0) {
+                WavefrontObjectParser tProbe = new WavefrontObjectParser();
+                tProbe.parse(inData, inCounters[i].mFirstElementLines[inKind], inCounters[i].mFirstElementLineEnds[inKind]);
+                switch (inKind) {
+                    case 0: return tProbe.getVertexStride();
+                    case 1: return tProbe.getTextureCoordinateStride();
+                    default: return tProbe.getNormalStride();
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isWhitespace(byte inByte) {
+        return inByte==' ' || inByte=='\t' || inByte=='\r' || inByte=='\n';
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    @SuppressWarnings("serial")
+    private static class ChunkAction extends RecursiveAction {
+
+        private final Runnable[] mChunks;
+        private final int mFrom;
+        private final int mTo;
+
+        public ChunkAction(Runnable[] inChunks,int inFrom,int inTo) {
+            mChunks = inChunks;
+            mFrom = inFrom;
+            mTo = inTo;
+        }
+
+        protected void compute() {
+            if (mTo-mFrom==1) {
+                mChunks[mFrom].run();
+            } else {
+                int tMiddle = (mFrom+mTo)>>>1;
+                invokeAll(new ChunkAction(mChunks,mFrom,tMiddle), new ChunkAction(mChunks,tMiddle,mTo));
+            }
+        }
+
+    }
+
+    private static class ChunkCounter implements Runnable {
+
+        private final byte[] mData;
+        private final int mStart;
+        private final int mEnd;
+        private final int[] mElementCounts = new int[3];           //v, vt and vn lines
+        private final int[] mFirstElementLines = new int[3];
+        private final int[] mFirstElementLineEnds = new int[3];
+
+        public ChunkCounter(byte[] inData,int inStart,int inEnd) {
+            mData = inData;
+            mStart = inStart;
+            mEnd = inEnd;
+        }
+
+        public void run() {
+            int tLineStart = mStart;
+            while (tLineStart<mEnd) {
+                int tLineEnd = tLineStart;
+                while (tLineEnd<mEnd && mData[tLineEnd]!='\n') {
+                    tLineEnd++;
+                }
+                //same line classification as WavefrontObjectParser.parseLine() ...
+                int p = tLineStart;
+                while (p<tLineEnd && isWhitespace(mData[p])) {
+                    p++;
+                }
+                if (p+1<tLineEnd && mData[p]=='v') {
+                    int tKind = -1;
+                    if (isWhitespace(mData[p+1])) {
+                        tKind = 0;
+                    } else if (mData[p+1]=='t' && p+2<tLineEnd && isWhitespace(mData[p+2])) {
+                        tKind = 1;
+                    } else if (mData[p+1]=='n' && p+2<tLineEnd && isWhitespace(mData[p+2])) {
+                        tKind = 2;
+                    }
+                    if (tKind>=0) {
+                        if (mElementCounts[tKind]==0) {
+                            mFirstElementLines[tKind] = tLineStart;
+                            mFirstElementLineEnds[tKind] = tLineEnd;
+                        }
+                        mElementCounts[tKind]++;
+                    }
+                }
+                tLineStart = tLineEnd+1;
+            }
+        }
+
+    }
+
+    private static class ChunkParser implements Runnable {
+
+        private final byte[] mData;
+        private final int mStart;
+        private final int mEnd;
+        private final WavefrontObjectParser mParser;
+
+        public ChunkParser(byte[] inData,int inStart,int inEnd,WavefrontObjectParser inParser) {
+            mData = inData;
+            mStart = inStart;
+            mEnd = inEnd;
+            mParser = inParser;
+        }
+
+        public void run() {
+            mParser.parse(mData, mStart, mEnd);
+        }
+
+    }
+
+}
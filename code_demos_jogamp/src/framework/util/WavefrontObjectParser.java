@@ -0,0 +1,456 @@
+package framework.util;
+
+/**
+ **   __ __|_  ___________________________________________________________________________  ___|__ __
+ **  //    /\                                           _                                  /\    \\  
+ ** //____/  \__     __ _____ _____ _____ _____ _____  | |     __ _____ _____ __        __/  \____\\ 
+ **  \    \  / /  __|  |     |   __|  _  |     |  _  | | |  __|  |     |   __|  |      /\ \  /    /  
+ **   \____\/_/  |  |  |  |  |  |  |     | | | |   __| | | |  |  |  |  |  |  |  |__   "  \_\/____/   
+ **  /\    \     |_____|_____|_____|__|__|_|_|_|__|    | | |_____|_____|_____|_____|  _  /    /\     
+ ** /  \____\                       http://jogamp.org  |_|                              /____/  \    
+ ** \  /   "' _________________________________________________________________________ `"   \  /    
+ **  \/____.                                                                             .____\/     
+ **
+ ** Streaming Wavefront .obj parser shared by all WavefrontObjectLoader variants. Reads the raw bytes
+ ** of the (optionally zipped) mesh, parses floats and face indices by hand and stores everything in
+ ** growable primitive float[]/int[] pools. No per-line strings, no split(), no boxing ... so even
+ ** multi-million polygon meshes load without drowning the garbage collector. 8*)
+ **
+ **/
+
+import framework.base.*;
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+public class WavefrontObjectParser {
+
+    private static final int cReadBufferSize = 64*1024;
+    private static final int cInitialPoolSize = 4096;
+    private static final int cMaximumMantissaDigits = 18;
+    private static final double[] cPowersOfTen = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private float[] mVertexData = new float[cInitialPoolSize];            //vertex coordinates, mVertexStride floats per vertex
+    private float[] mTextureCoordinateData = new float[cInitialPoolSize]; //texture coordinates, mTextureCoordinateStride floats per entry
+    private float[] mNormalData = new float[cInitialPoolSize];            //normal coordinates, mNormalStride floats per normal
+    private int mVertexStride;                                            //components per vertex, taken from the first "v" line
+    private int mTextureCoordinateStride;                                 //components per texture coordinate, taken from the first "vt" line
+    private int mNormalStride;                                            //components per normal, taken from the first "vn" line
+    private int mVertexCount;
+    private int mTextureCoordinateCount;
+    private int mNormalCount;
+    private int[] mFaceVertexIndices = new int[cInitialPoolSize];         //1-based vertex index per face corner
+    private int[] mFaceTextureIndices = new int[cInitialPoolSize];        //1-based texture index per face corner, 0 if missing
+    private int[] mFaceNormalIndices = new int[cInitialPoolSize];         //1-based normal index per face corner, 0 if missing
+    private int[] mFaceOffsets = new int[cInitialPoolSize];               //first face corner of each face, plus one closing entry
+    private int mFaceIndexCount;
+    private int mFaceCount;
+    private final float[] mScratchFloats = new float[16];                 //floats of the line currently parsed
+    private int mCursor;                                                  //parse position inside the current line
+    private boolean mFixedStrides;                                        //strides are preset and not taken from the first lines
+    private int mVertexIndexBase;                                         //vertices preceding this parser's data, used to resolve relative indices of chunks
+    private int mTextureCoordinateIndexBase;
+    private int mNormalIndexBase;
+
+    public WavefrontObjectParser() {
+        mFaceOffsets[0] = 0;
+    }
+
+    WavefrontObjectParser(int inVertexIndexBase,int inTextureCoordinateIndexBase,int inNormalIndexBase,int inVertexStride,int inTextureCoordinateStride,int inNormalStride) {
+        //parser for a single chunk of a larger mesh, see WavefrontObjectParallelParser ...
+        this();
+        mFixedStrides = true;
+        mVertexIndexBase = inVertexIndexBase;
+        mTextureCoordinateIndexBase = inTextureCoordinateIndexBase;
+        mNormalIndexBase = inNormalIndexBase;
+        mVertexStride = inVertexStride;
+        mTextureCoordinateStride = inTextureCoordinateStride;
+        mNormalStride = inNormalStride;
+    }
+
+    public static WavefrontObjectParser parse(String inModelPath) {
+        return parse(inModelPath,WavefrontObjectMeshCache.readSource(inModelPath));
+    }
+
+    public static WavefrontObjectParser parse(String inModelPath,byte[] inSource) {
+        WavefrontObjectParser tParser = new WavefrontObjectParser();
+        try {
+            //the threshold is about obj text, zipped meshes are inflated before deciding ...
+            InputStream tInputStream = openModelInputStream(new ByteArrayInputStream(inSource),inModelPath);
+            byte[] tData = inModelPath.endsWith(".zip") ? readFully(tInputStream) : inSource;
+            tInputStream.close();
+            if (WavefrontObjectParallelParser.isParallelParsingWorthwhile(tData.length)) {
+                //big mesh ... parse line aligned chunks on all cores ...
+                tParser = WavefrontObjectParallelParser.parse(tData, tData.length);
+            } else {
+                tParser.parse(tData, 0, tData.length);
+            }
+            BaseLogging.getInstance().info("MODEL "+inModelPath+" SUCCESSFULLY LOADED!");
+        } catch (IOException e) {
+            BaseLogging.getInstance().fatalerror(e);
+        }
+        return tParser;
+    }
+
+    private static byte[] readFully(InputStream inInputStream) throws IOException {
+        byte[] tData = new byte[cReadBufferSize];
+        int tFilled = 0;
+        int tRead;
+        while ((tRead = inInputStream.read(tData, tFilled, tData.length-tFilled)) != -1) {
+            tFilled += tRead;
+            if (tFilled==tData.length) {
+                tData = Arrays.copyOf(tData, tData.length*2);
+            }
+        }
+        return Arrays.copyOf(tData, tFilled);
+    }
+
+    public static InputStream openModelInputStream(String inModelPath) throws IOException {
+        InputStream tInputStream = (new Object()).getClass().getResourceAsStream(inModelPath);
+        if (tInputStream==null) {
+            BaseLogging.getInstance().fatalerror("ERROR! WAVEFRONT MESH NOT FOUND: "+inModelPath);
+        }
+        return openModelInputStream(tInputStream,inModelPath);
+    }
+
+    public static InputStream openModelInputStream(InputStream inInputStream,String inModelPath) throws IOException {
+        if (inModelPath.endsWith(".zip")) {
+            BaseLogging.getInstance().info("WAVEFRONT MESH IS COMPRESSED! TRY TO EXTRACT FIRST/SINGLE ENTRY!");
+            ZipInputStream tZipInputStream = new ZipInputStream(new BufferedInputStream(inInputStream));
+            ZipEntry tZipEntry = tZipInputStream.getNextEntry();
+            if (tZipEntry==null || tZipEntry.getName()==null) {
+                BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS NULL!");
+            }
+            BaseLogging.getInstance().info("EXTRACTING: "+tZipEntry.getName());
+            if (tZipEntry.isDirectory()) {
+                BaseLogging.getInstance().fatalerror("ERROR! ZIP ENTRY IS DIRECTORY! SHOULD BE PLAIN FILE!");
+            }
+            return tZipInputStream;
+        }
+        return inInputStream;
+    }
+
+    public void parse(InputStream inInputStream) throws IOException {
+        byte[] tBuffer = new byte[cReadBufferSize];
+        int tFilled = 0;
+        int tRead;
+        while ((tRead = inInputStream.read(tBuffer, tFilled, tBuffer.length-tFilled)) != -1) {
+            tFilled += tRead;
+            int tLineStart = 0;
+            for (int i=0; i<tFilled; i++) {
+                if (tBuffer[i]=='\n') {
+                    parseLine(tBuffer, tLineStart, i);
+                    tLineStart = i+1;
+                }
+            }
+            //move the incomplete trailing line to the front, grow if a single line fills the whole buffer ...
+            tFilled -= tLineStart;
+            System.arraycopy(tBuffer, tLineStart, tBuffer, 0, tFilled);
+            if (tFilled==tBuffer.length) {
+                tBuffer = Arrays.copyOf(tBuffer, tBuffer.length*2);
+            }
+        }
+        if (tFilled>0) {
+            parseLine(tBuffer, 0, tFilled);
+        }
+    }
+
+    public void parse(byte[] inData, int inStart, int inEnd) {
+        int tLineStart = inStart;
+        for (int i=inStart; i<inEnd; i++) {
+            if (inData[i]=='\n') {
+                parseLine(inData, tLineStart, i);
+                tLineStart = i+1;
+            }
+        }
+        if (tLineStart<inEnd) {
+            parseLine(inData, tLineStart, inEnd);
+        }
+    }
+
+    private void parseLine(byte[] inLine, int inStart, int inEnd) {
+        mCursor = inStart;
+        skipWhitespace(inLine, inEnd);
+        if (mCursor+1>=inEnd) {
+            //empty or too short to carry any data ...
+            return;
+        }
+        byte tFirst = inLine[mCursor];
+        byte tSecond = inLine[mCursor+1];
+        if (tFirst=='v') {
+            if (isWhitespace(tSecond)) {            //read in vertex data
+                mCursor += 1;
+                int tCount = parseFloats(inLine, inEnd);
+                if (mVertexCount==0 && !mFixedStrides) { mVertexStride = tCount; }
+                mVertexData = storeFloats(mVertexData, mVertexCount, mVertexStride, tCount);
+                mVertexCount++;
+            } else if (tSecond=='t' && mCursor+2<inEnd && isWhitespace(inLine[mCursor+2])) { //read texture coordinates
+                mCursor += 2;
+                int tCount = parseFloats(inLine, inEnd);
+                if (mTextureCoordinateCount==0 && !mFixedStrides) { mTextureCoordinateStride = tCount; }
+                mTextureCoordinateData = storeFloats(mTextureCoordinateData, mTextureCoordinateCount, mTextureCoordinateStride, tCount);
+                mTextureCoordinateCount++;
+            } else if (tSecond=='n' && mCursor+2<inEnd && isWhitespace(inLine[mCursor+2])) { //read normal coordinates
+                mCursor += 2;
+                int tCount = parseFloats(inLine, inEnd);
+                if (mNormalCount==0 && !mFixedStrides) { mNormalStride = tCount; }
+                mNormalData = storeFloats(mNormalData, mNormalCount, mNormalStride, tCount);
+                mNormalCount++;
+            }
+        } else if (tFirst=='f' && isWhitespace(tSecond)) { //read face data
+            mCursor += 1;
+            parseFace(inLine, inEnd);
+        }
+        //comments, groups, materials, smoothing groups ... Zzzz ...
+    }
+
+    private int parseFloats(byte[] inLine, int inEnd) {
+        int tCount = 0;
+        skipWhitespace(inLine, inEnd);
+        while (mCursor<inEnd && tCount<mScratchFloats.length) {
+            mScratchFloats[tCount++] = parseFloat(inLine, inEnd);
+            skipWhitespace(inLine, inEnd);
+        }
+        return tCount;
+    }
+
+    private float[] storeFloats(float[] inPool, int inElementIndex, int inStride, int inCount) {
+        int tOffset = inElementIndex*inStride;
+        if (tOffset+inStride>inPool.length) {
+            inPool = Arrays.copyOf(inPool, Math.max(inPool.length*2, tOffset+inStride));
+        }
+        for (int i=0; i<inStride; i++) {
+            //pad missing components with zero, drop surplus ones ...
+            inPool[tOffset+i] = (i<inCount) ? mScratchFloats[i] : 0.0f;
+        }
+        return inPool;
+    }
+
+    private void parseFace(byte[] inLine, int inEnd) {
+        int tFirstCorner = mFaceIndexCount;
+        skipWhitespace(inLine, inEnd);
+        while (mCursor<inEnd) {
+            int tVertexIndex = 0;
+            int tTextureIndex = 0;
+            int tNormalIndex = 0;
+            tVertexIndex = parseInt(inLine, inEnd);
+            if (mCursor<inEnd && inLine[mCursor]=='/') {
+                mCursor++;
+                if (mCursor<inEnd && inLine[mCursor]!='/') {   //we have v and vt data
+                    tTextureIndex = parseInt(inLine, inEnd);
+                }
+                if (mCursor<inEnd && inLine[mCursor]=='/') {   //we have v, (vt) and vn data
+                    mCursor++;
+                    tNormalIndex = parseInt(inLine, inEnd);
+                }
+            }
+            //resolve relative (negative) indices against the data read so far ...
+            if (tVertexIndex<0)  { tVertexIndex  += mVertexIndexBase+mVertexCount+1; }
+            if (tTextureIndex<0) { tTextureIndex += mTextureCoordinateIndexBase+mTextureCoordinateCount+1; }
+            if (tNormalIndex<0)  { tNormalIndex  += mNormalIndexBase+mNormalCount+1; }
+            if (mFaceIndexCount==mFaceVertexIndices.length) {
+                int tNewLength = mFaceVertexIndices.length*2;
+                mFaceVertexIndices = Arrays.copyOf(mFaceVertexIndices, tNewLength);
+                mFaceTextureIndices = Arrays.copyOf(mFaceTextureIndices, tNewLength);
+                mFaceNormalIndices = Arrays.copyOf(mFaceNormalIndices, tNewLength);
+            }
+            mFaceVertexIndices[mFaceIndexCount] = tVertexIndex;
+            mFaceTextureIndices[mFaceIndexCount] = tTextureIndex;
+            mFaceNormalIndices[mFaceIndexCount] = tNormalIndex;
+            mFaceIndexCount++;
+            //skip anything not belonging to the corner (e.g. trailing garbage) ...
+            while (mCursor<inEnd && !isWhitespace(inLine[mCursor])) {
+                mCursor++;
+            }
+            skipWhitespace(inLine, inEnd);
+        }
+        if (mFaceIndexCount>tFirstCorner) {
+            if (mFaceCount+2>mFaceOffsets.length) {
+                mFaceOffsets = Arrays.copyOf(mFaceOffsets, mFaceOffsets.length*2);
+            }
+            mFaceCount++;
+            mFaceOffsets[mFaceCount] = mFaceIndexCount;
+        }
+    }
+
+    private int parseInt(byte[] inLine, int inEnd) {
+        boolean tNegative = false;
+        if (mCursor<inEnd && (inLine[mCursor]=='-' || inLine[mCursor]=='+')) {
+            tNegative = (inLine[mCursor]=='-');
+            mCursor++;
+        }
+        int tValue = 0;
+        while (mCursor<inEnd) {
+            int tDigit = inLine[mCursor]-'0';
+            if (tDigit<0 || tDigit>9) {
+                break;
+            }
+            tValue = tValue*10+tDigit;
+            mCursor++;
+        }
+        return tNegative ? -tValue : tValue;
+    }
+
+    private float parseFloat(byte[] inLine, int inEnd) {
+        int tStart = mCursor;
+        int p = mCursor;
+        boolean tNegative = false;
+        if (p<inEnd && (inLine[p]=='-' || inLine[p]=='+')) {
+            tNegative = (inLine[p]=='-');
+            p++;
+        }
+        long tMantissa = 0;
+        int tSignificantDigits = 0;
+        int tExponent = 0;
+        boolean tHasDigits = false;
+        while (p<inEnd && inLine[p]>='0' && inLine[p]<='9') {
+            tHasDigits = true;
+            if (tSignificantDigits<cMaximumMantissaDigits) {
+                tMantissa = tMantissa*10+(inLine[p]-'0');
+                if (tMantissa!=0) { tSignificantDigits++; }
+            } else {
+                tExponent++;
+            }
+            p++;
+        }
+        if (p<inEnd && inLine[p]=='.') {
+            p++;
+            while (p<inEnd && inLine[p]>='0' && inLine[p]<='9') {
+                tHasDigits = true;
+                if (tSignificantDigits<cMaximumMantissaDigits) {
+                    tMantissa = tMantissa*10+(inLine[p]-'0');
+                    if (tMantissa!=0) { tSignificantDigits++; }
+                    tExponent--;
+                }
+                p++;
+            }
+        }
+        if (tHasDigits && p<inEnd && (inLine[p]=='e' || inLine[p]=='E')) {
+            p++;
+            boolean tNegativeExponent = false;
+            if (p<inEnd && (inLine[p]=='-' || inLine[p]=='+')) {
+                tNegativeExponent = (inLine[p]=='-');
+                p++;
+            }
+            int tExplicitExponent = 0;
+            while (p<inEnd && inLine[p]>='0' && inLine[p]<='9') {
+                if (tExplicitExponent<10000) {
+                    tExplicitExponent = tExplicitExponent*10+(inLine[p]-'0');
+                }
+                p++;
+            }
+            tExponent += tNegativeExponent ? -tExplicitExponent : tExplicitExponent;
+        }
+        if (!tHasDigits || (p<inEnd && !isWhitespace(inLine[p]) && inLine[p]!='/') || tExponent>22 || tExponent<-22) {
+            //rare case (nan, inf, huge exponents, odd notation) ... leave it to the JDK ...
+            while (p<inEnd && !isWhitespace(inLine[p])) {
+                p++;
+            }
+            mCursor = p;
+            return Float.parseFloat(new String(inLine, tStart, p-tStart));
+        }
+        mCursor = p;
+        double tValue = (double)tMantissa;
+        if (tExponent<0) {
+            tValue /= cPowersOfTen[-tExponent];
+        } else if (tExponent>0) {
+            tValue *= cPowersOfTen[tExponent];
+        }
+        return (float)(tNegative ? -tValue : tValue);
+    }
+
+    private void skipWhitespace(byte[] inLine, int inEnd) {
+        while (mCursor<inEnd && isWhitespace(inLine[mCursor])) {
+            mCursor++;
+        }
+    }
+
+    private static boolean isWhitespace(byte inByte) {
+        return inByte==' ' || inByte=='\t' || inByte=='\r' || inByte=='\n';
+    }
+
+    /* --------------------------------------------------------------------------------------------------------------------------------------------------- */
+
+    public float[] getVertexData()              { return mVertexData; }
+    public float[] getTextureCoordinateData()   { return mTextureCoordinateData; }
+    public float[] getNormalData()              { return mNormalData; }
+    public int getVertexStride()                { return mVertexStride; }
+    public int getTextureCoordinateStride()     { return mTextureCoordinateStride; }
+    public int getNormalStride()                { return mNormalStride; }
+    public int getVertexCount()                 { return mVertexCount; }
+    public int getTextureCoordinateCount()      { return mTextureCoordinateCount; }
+    public int getNormalCount()                 { return mNormalCount; }
+    public int[] getFaceVertexIndices()         { return mFaceVertexIndices; }
+    public int[] getFaceTextureIndices()        { return mFaceTextureIndices; }
+    public int[] getFaceNormalIndices()         { return mFaceNormalIndices; }
+    public int[] getFaceOffsets()               { return mFaceOffsets; }
+    public int getFaceIndexCount()              { return mFaceIndexCount; }
+    public int getFaceCount()                   { return mFaceCount; }
+
+    void append(WavefrontObjectParser inChunk) {
+        //chunk indices are already global, so merging is plain concatenation ...
+        mVertexData = appendFloats(mVertexData, mVertexCount*mVertexStride, inChunk.mVertexData, inChunk.mVertexCount*mVertexStride);
+        mTextureCoordinateData = appendFloats(mTextureCoordinateData, mTextureCoordinateCount*mTextureCoordinateStride, inChunk.mTextureCoordinateData, inChunk.mTextureCoordinateCount*mTextureCoordinateStride);
+        mNormalData = appendFloats(mNormalData, mNormalCount*mNormalStride, inChunk.mNormalData, inChunk.mNormalCount*mNormalStride);
+        mVertexCount += inChunk.mVertexCount;
+        mTextureCoordinateCount += inChunk.mTextureCoordinateCount;
+        mNormalCount += inChunk.mNormalCount;
+        mFaceVertexIndices = appendInts(mFaceVertexIndices, mFaceIndexCount, inChunk.mFaceVertexIndices, inChunk.mFaceIndexCount);
+        mFaceTextureIndices = appendInts(mFaceTextureIndices, mFaceIndexCount, inChunk.mFaceTextureIndices, inChunk.mFaceIndexCount);
+        mFaceNormalIndices = appendInts(mFaceNormalIndices, mFaceIndexCount, inChunk.mFaceNormalIndices, inChunk.mFaceIndexCount);
+        if (mFaceCount+inChunk.mFaceCount+1>mFaceOffsets.length) {
+            mFaceOffsets = Arrays.copyOf(mFaceOffsets, Math.max(mFaceOffsets.length*2, mFaceCount+inChunk.mFaceCount+1));
+        }
+        for (int i=1; i<=inChunk.mFaceCount; i++) {
+            mFaceOffsets[mFaceCount+i] = mFaceIndexCount+inChunk.mFaceOffsets[i];
+        }
+        mFaceCount += inChunk.mFaceCount;
+        mFaceIndexCount += inChunk.mFaceIndexCount;
+    }
+
+    void reserve(int inVertexCount,int inTextureCoordinateCount,int inNormalCount,int inFaceIndexCount,int inFaceCount) {
+        mVertexData = Arrays.copyOf(mVertexData, Math.max(mVertexData.length, inVertexCount*mVertexStride));
+        mTextureCoordinateData = Arrays.copyOf(mTextureCoordinateData, Math.max(mTextureCoordinateData.length, inTextureCoordinateCount*mTextureCoordinateStride));
+        mNormalData = Arrays.copyOf(mNormalData, Math.max(mNormalData.length, inNormalCount*mNormalStride));
+        mFaceVertexIndices = Arrays.copyOf(mFaceVertexIndices, Math.max(mFaceVertexIndices.length, inFaceIndexCount));
+        mFaceTextureIndices = Arrays.copyOf(mFaceTextureIndices, Math.max(mFaceTextureIndices.length, inFaceIndexCount));
+        mFaceNormalIndices = Arrays.copyOf(mFaceNormalIndices, Math.max(mFaceNormalIndices.length, inFaceIndexCount));
+        mFaceOffsets = Arrays.copyOf(mFaceOffsets, Math.max(mFaceOffsets.length, inFaceCount+1));
+    }
+
+    private static float[] appendFloats(float[] inPool, int inUsed, float[] inData, int inLength) {
+        if (inUsed+inLength>inPool.length) {
+            inPool = Arrays.copyOf(inPool, Math.max(inPool.length*2, inUsed+inLength));
+        }
+        System.arraycopy(inData, 0, inPool, inUsed, inLength);
+        return inPool;
+    }
+
+    private static int[] appendInts(int[] inPool, int inUsed, int[] inData, int inLength) {
+        if (inUsed+inLength>inPool.length) {
+            inPool = Arrays.copyOf(inPool, Math.max(inPool.length*2, inUsed+inLength));
+        }
+        System.arraycopy(inData, 0, inPool, inUsed, inLength);
+        return inPool;
+    }
+
+    public int getFaceSize(int inFace) {
+        return mFaceOffsets[inFace+1]-mFaceOffsets[inFace];
+    }
+
+    public void cleanup() {
+        mVertexData = new float[0];
+        mTextureCoordinateData = new float[0];
+        mNormalData = new float[0];
+        mFaceVertexIndices = new int[0];
+        mFaceTextureIndices = new int[0];
+        mFaceNormalIndices = new int[0];
+        mFaceOffsets = new int[1];
+        mVertexCount = mTextureCoordinateCount = mNormalCount = 0;
+        mFaceIndexCount = mFaceCount = 0;
+    }
+
+}
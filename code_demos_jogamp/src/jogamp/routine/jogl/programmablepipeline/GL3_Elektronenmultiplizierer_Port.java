@@ -105,7 +105,7 @@ public class GL3_Elektronenmultiplizierer_Port extends BaseRoutineAdapter implem
     public void mainLoop(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
         //use this for offline rendering/capture ...
         //int MMTime_u_ms = (int)((((double)inFrameNumber)*44100.0f)/60.0f);
-        int MMTime_u_ms = (int)(BaseRoutineRuntime.getInstance().getBaseMusic().getPositionInMilliseconds()*(44100.0f/1000.0f));
+        int MMTime_u_ms = (int)(BaseRoutineRuntime.getInstance().getFrameTimeInSeconds()*44100.0);
         //dedicated sync variable for each event ... kinda lame but who cares X-)
         if (MMTime_u_ms>=522240  && !mSyncEvent_01) { mSyncEvent_01 = true; handleSyncEvent(MMTime_u_ms); }
         if (MMTime_u_ms>=1305480 && !mSyncEvent_02) { mSyncEvent_02 = true; handleSyncEvent(MMTime_u_ms); }
@@ -24,6 +24,7 @@ package jogamp.routine.jogl.programmablepipeline;
 import java.util.*;
 import framework.base.*;
 import framework.util.*;
+import framework.jogl.postprocessingfilters.*;
 import javax.media.opengl.*;
 import javax.media.opengl.glu.*;
 import com.jogamp.opengl.util.gl2.*;
@@ -52,8 +53,10 @@ public class GL3_EnvironmentBasedLighting_SphericalHarmonics extends BaseRoutine
     public void mainLoop(int inFrameNumber,GL2 inGL,GLU inGLU,GLUT inGLUT) {
         mBaseSuperSamplingFBOWrapper.executeToFBORendererExecutor(inFrameNumber,inGL,inGLU,inGLUT,mBaseFrameBufferObjectRendererExecutor);
         mBasePostProcessingFilterChainExecutor.removeAllFilters();
-        mConvolutions.get(PostProcessingUtils.POSTPROCESSINGFILTER_CONVOLUTION_BOXBLUR).setNumberOfIterations(26+Math.abs(BaseGlobalEnvironment.getInstance().getParameterKey_INT_12()));
-        mBasePostProcessingFilterChainExecutor.addFilter(mConvolutions.get(PostProcessingUtils.POSTPROCESSINGFILTER_CONVOLUTION_BOXBLUR));
+        //same spread as the former 26+ iterations of the 3x3 box blur (variance 2/3 texel^2 each) in two passes ...
+        PostProcessingFilter_SeparableGaussianBlur tGaussianBlur = (PostProcessingFilter_SeparableGaussianBlur)mConvolutions.get(PostProcessingUtils.POSTPROCESSINGFILTER_CONVOLUTION_SEPARABLE_GAUSSIANBLUR);
+        tGaussianBlur.setSigma((float)Math.sqrt((26+Math.abs(BaseGlobalEnvironment.getInstance().getParameterKey_INT_12()))*2.0/3.0));
+        mBasePostProcessingFilterChainExecutor.addFilter(tGaussianBlur);
         mBasePostProcessingFilterChainExecutor.addFilter(mBlenders.get(PostProcessingUtils.POSTPROCESSINGFILTER_BLENDER_LIGHTEN));
         mBasePostProcessingFilterChainExecutor.executeFilterChain(inFrameNumber,inGL,inGLU,inGLUT,mBaseFrameBufferObjectRendererExecutor,true);
     }
@@ -80,7 +83,7 @@ public class GL3_EnvironmentBasedLighting_SphericalHarmonics extends BaseRoutine
         int tFragmentShader = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/environmentbasedlightingshaders/sphericalharmonics_pervertex.fs");
         mLinkedShader = ShaderUtils.generateSimple_1xVS_1xFS_ShaderProgramm(inGL,tVertexShader,tFragmentShader);
         //mDisplayListID = WavefrontObjectLoader_DisplayList.loadWavefrontObjectAsDisplayList(inGL,"/binaries/geometry/LinkingStars.wobj.zip");
-        mWavefrontObjectLoader_VertexBufferObject = new WavefrontObjectLoader_VertexBufferObject("/binaries/geometry/LinkingStars.wobj.zip");
+        mWavefrontObjectLoader_VertexBufferObject = new WavefrontObjectLoader_VertexBufferObject("/binaries/geometry/LinkingStars.wobj.zip",true,true);
         mTexture_AmbientOcclusion = TextureUtils.loadImageAsTexture_UNMODIFIED(inGL,"/binaries/textures/LinkingStars_BakedAmbientOcclusion.png");
         mTexture_Background = TextureUtils.loadImageAsTexture_UNMODIFIED(inGL,"/binaries/textures/GraceCathedral_Background.png");
     }
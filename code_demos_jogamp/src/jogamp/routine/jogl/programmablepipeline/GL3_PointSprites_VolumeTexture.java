@@ -22,7 +22,6 @@ package jogamp.routine.jogl.programmablepipeline;
  ** Remark: This routine currently has a couple of rendering problems on NVidia GPUs.
  **/
 
-import java.awt.image.*;
 import java.nio.*;
 import framework.base.*;
 import framework.util.*;
@@ -41,6 +40,10 @@ public class GL3_PointSprites_VolumeTexture extends BaseRoutineAdapter implement
     private FloatBuffer mTextureCoordinateBuffer;
     private int mDisplayListID;
     private int mVolume3DTexture;  
+    private BaseAsset<String> mVertexShaderSource;
+    private BaseAsset<String> mFragmentShaderSource;
+    private BaseAsset<Integer> mVolume3DTextureAsset;
+    private BaseAsset<Texture> mTexture_PointSpriteAsset;
     
     private final static boolean USE_IMMEDIATE_MODE = false;
     private final static float VERTEX_DISTANCE_SCALING = 1.75f;
@@ -49,32 +52,20 @@ public class GL3_PointSprites_VolumeTexture extends BaseRoutineAdapter implement
     private final static int NUM_PARTICLES_Z = 256;  
     private final static int NUM_PARTICLES_TOTAL = NUM_PARTICLES_X*NUM_PARTICLES_Y*NUM_PARTICLES_Z;
     
+    public void declareAssets(BaseAssetPipeline inBaseAssetPipeline) {
+        //the 384 slice volume takes seconds to decode ... let the asset pipeline do it in the background ...
+        mVertexShaderSource = AssetUtils.requestShaderSource(inBaseAssetPipeline,"/shaders/pointspritevolumeshaders/pointsprite_volumetexture.vs");
+        mFragmentShaderSource = AssetUtils.requestShaderSource(inBaseAssetPipeline,"/shaders/pointspritevolumeshaders/pointsprite_volumetexture.fs");
+        mVolume3DTextureAsset = AssetUtils.requestImageSequenceAsLuminanceVolumeTexture(inBaseAssetPipeline,"/binaries/textures/Alligator_Mississippiensis_VolumeScan.zip",512,512,384);
+        mTexture_PointSpriteAsset = AssetUtils.requestImageAsTexture_UNMODIFIED(inBaseAssetPipeline,"/binaries/textures/PointSprite_001.png");
+    }
+
     public void initRoutine(GL2 inGL,GLU inGLU,GLUT inGLUT) {
-        int tVertexShaderID = ShaderUtils.loadVertexShaderFromFile(inGL,"/shaders/pointspritevolumeshaders/pointsprite_volumetexture.vs");
-        int tFragmentShaderID = ShaderUtils.loadFragmentShaderFromFile(inGL,"/shaders/pointspritevolumeshaders/pointsprite_volumetexture.fs");
+        int tVertexShaderID = ShaderUtils.generateVertexShader(inGL,mVertexShaderSource.get());
+        int tFragmentShaderID = ShaderUtils.generateFragmentShader(inGL,mFragmentShaderSource.get());
         mLinkedShaderID = ShaderUtils.generateSimple_1xVS_1xFS_ShaderProgramm(inGL,tVertexShaderID,tFragmentShaderID);        
-        //upload volume data ...
-        ByteBuffer tVolumeData = GLBuffers.newDirectByteBuffer(512*512*384);
-        BufferedImage[] tVolumeSlices = TextureUtils.loadARGBImageSequence("/binaries/textures/Alligator_Mississippiensis_VolumeScan.zip");      
-        for (int i=0; i<tVolumeSlices.length; i++) {
-            ByteBuffer tByteBuffer = TextureUtils.convertARGBBufferedImageToJOGLRDirectByteBuffer(tVolumeSlices[i]);
-            tVolumeData.put(tByteBuffer);
-            
-        }
-        tVolumeData.rewind();
-        mVolume3DTexture = TextureUtils.generateTextureID(inGL);
-        inGL.glActiveTexture(GL_TEXTURE1);
-        inGL.glBindTexture(GL_TEXTURE_3D, mVolume3DTexture);
-        inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-        //inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
-        inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-        inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_BORDER);
-        inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_BORDER);
-        inGL.glTexParameteri(GL_TEXTURE_3D, GL_TEXTURE_WRAP_R, GL_CLAMP_TO_BORDER);
-        inGL.glTexImage3D(GL_TEXTURE_3D, 0, GL_COMPRESSED_LUMINANCE, 512, 512, 384, 0, GL_LUMINANCE, GL_UNSIGNED_BYTE, tVolumeData);        
-        inGL.glGenerateMipmap(GL_TEXTURE_3D);
-        inGL.glBindTexture(GL_TEXTURE_3D, 0);    
-        mTexture_PointSprite = TextureUtils.loadImageAsTexture_UNMODIFIED(inGL,"/binaries/textures/PointSprite_001.png");
+        mVolume3DTexture = mVolume3DTextureAsset.get();
+        mTexture_PointSprite = mTexture_PointSpriteAsset.get();
         BaseLogging.getInstance().info("CREATING NUM_PARTICLES_TOTAL="+NUM_PARTICLES_TOTAL+" NUM_PARTICLES_X="+NUM_PARTICLES_X+" NUM_PARTICLES_Y="+NUM_PARTICLES_Y+" NUM_PARTICLES_Z="+NUM_PARTICLES_Z+" ...");       
         if (!USE_IMMEDIATE_MODE) {
             BaseLogging.getInstance().info("USING VERTEX BUFFER MODE TO CREATE POINTSPRITE VERTICES ...");